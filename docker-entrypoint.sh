@@ -25,5 +25,9 @@ fi
 echo "ANTHROPIC_API_KEY set: $([ -n \"$ANTHROPIC_API_KEY\" ] && echo 'yes' || echo 'NO')"
 echo "GITHUB_TOKEN set: $([ -n \"$GITHUB_TOKEN\" ] && echo 'yes' || echo 'NO')"
 
-# Start the application
-exec java -jar /app/app.jar
+# Start the application, mapping the AppCDS archive from the image build unless AGENT_CDS=false
+JAVA_CDS_OPTS=""
+if [ "${AGENT_CDS:-true}" != "false" ] && [ -f /app/app.jsa ]; then
+    JAVA_CDS_OPTS="-XX:SharedArchiveFile=/app/app.jsa -Xshare:auto"
+fi
+exec java $JAVA_CDS_OPTS $JAVA_OPTS -cp "$(cat /app/classpath)" com.autonomous.agent.SlackClaudeAgentApplication
@@ -0,0 +1,62 @@
+#!/bin/bash
+# Time from `docker run` to the first acknowledged slash command, with and without the
+# AppCDS archive. Appends the medians to build/startup-benchmark.csv so they can be
+# tracked across commits.
+#
+# Usage: scripts/startup-benchmark.sh [image] [runs]
+set -euo pipefail
+
+image="${1:-slack-claude-agent}"
+runs="${2:-5}"
+port="${STARTUP_BENCHMARK_PORT:-18080}"
+results="build/startup-benchmark.csv"
+# Requests are signed like Slack's, so the ack goes through signature verification as in production
+secret="startup-benchmark-secret"
+body='command=/agent-status&text=&user_id=UBENCH&channel_id=CBENCH'
+
+# Slack's v0 signature of the body at the given timestamp
+sign() {
+    printf 'v0:%s:%s' "$1" "$body" | openssl dgst -sha256 -hmac "$secret" | sed 's/^.* /v0=/'
+}
+
+first_ack_ms() {
+    local cds="$1" start end id timestamp signature
+    timestamp=$(date +%s)
+    signature=$(sign "$timestamp")
+    start=$(date +%s%N)
+    id=$(docker run -d --rm -p "$port:8080" -e AGENT_CDS="$cds" -e SLACK_BOT_TOKEN=xoxb-benchmark \
+        -e SLACK_SIGNING_SECRET="$secret" "$image")
+    until curl -sf -o /dev/null -X POST http://localhost:"$port"/slack/slash-commands \
+            -H "X-Slack-Request-Timestamp: $timestamp" -H "X-Slack-Signature: $signature" -d "$body"; do
+        if [ $(( ($(date +%s%N) - start) / 1000000000 )) -gt 120 ]; then
+            docker logs "$id" >&2
+            docker stop -t 1 "$id" > /dev/null
+            echo "No ack within 120s" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    end=$(date +%s%N)
+    docker stop -t 1 "$id" > /dev/null
+    echo $(( (end - start) / 1000000 ))
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+mkdir -p "$(dirname "$results")"
+[ -f "$results" ] || echo "date,commit,mode,runs,median_ms,min_ms" > "$results"
+commit=$(git rev-parse --short HEAD 2>/dev/null || echo unknown)
+
+for mode in false true; do
+    samples=()
+    for _ in $(seq "$runs"); do
+        samples+=("$(first_ack_ms "$mode")")
+    done
+    label=$([ "$mode" = true ] && echo appcds || echo plain)
+    med=$(printf '%s\n' "${samples[@]}" | median)
+    min=$(printf '%s\n' "${samples[@]}" | sort -n | head -1)
+    echo "$label: median ${med} ms, min ${min} ms (${samples[*]})"
+    echo "$(date -u +%Y-%m-%dT%H:%M:%SZ),$commit,$label,$runs,$med,$min" >> "$results"
+done
@@ -0,0 +1,47 @@
+package com.autonomous.agent.benchmark;
+
+import com.autonomous.agent.service.TaskExecutorService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flag parsing done for every /agent-task and @mention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandParsingBenchmark {
+
+    @Param({
+        "Fix the typo in the README",
+        "Add pagination to the orders endpoint and return the total count in a header --model opus",
+        "Refactor the billing module --priority high --model haiku"
+    })
+    public String command;
+
+    private TaskExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        executor = new TaskExecutorService(null, null);
+    }
+
+    @Benchmark
+    public String parseModel() {
+        return executor.parseModel(command);
+    }
+
+    @Benchmark
+    public String stripModelFlag() {
+        return executor.stripModelFlag(command);
+    }
+
+    @Benchmark
+    public String stripFlags() {
+        return executor.stripFlags(command);
+    }
+}
@@ -0,0 +1,95 @@
+package com.autonomous.agent.benchmark;
+
+import com.autonomous.agent.model.CostEntry;
+import com.autonomous.agent.service.CostTrackerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost ledger operations at ledger sizes seen after weeks of use. A 50k-entry
+ * costs.jsonl is about 9 MB, half of it from earlier months.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CostLedgerBenchmark {
+
+    private static final String[] MODELS = {"haiku", "sonnet", "opus"};
+
+    @Param({"1000", "10000", "50000"})
+    public int entries;
+
+    private Path dataDir;
+    private CostTrackerService loaded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("jmh-costs");
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Instant now = Instant.now();
+        try (BufferedWriter writer = Files.newBufferedWriter(dataDir.resolve("costs.jsonl"))) {
+            for (int i = 0; i < entries; i++) {
+                // Every other entry is from a previous month and gets skipped on load
+                Instant timestamp = i % 2 == 0 ? now.minus(i % 1000, ChronoUnit.SECONDS) : now.minus(60, ChronoUnit.DAYS);
+                writer.write(mapper.writeValueAsString(CostEntry.builder()
+                    .timestamp(timestamp)
+                    .channelId("C" + (i % 12))
+                    .taskId(Integer.toHexString(i))
+                    .model(MODELS[i % MODELS.length])
+                    .inputTokens(20_000 + i % 5_000)
+                    .outputTokens(3_000 + i % 1_000)
+                    .costUsd(0.01 * (i % 100))
+                    .build()));
+                writer.newLine();
+            }
+        }
+        loaded = tracker();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public double getMonthlySpend() {
+        return loaded.getMonthlySpend();
+    }
+
+    @Benchmark
+    public CostEntry recordCost() {
+        // Appends to the ledger file, as every finished task does
+        return loaded.recordCost("C1", "bench", "sonnet", 25_000, 4_000);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public double loadCurrentMonthCosts() {
+        return tracker().getMonthlySpend();
+    }
+
+    private CostTrackerService tracker() {
+        CostTrackerService tracker = new CostTrackerService();
+        tracker.setDataPath(dataDir.toString());
+        tracker.init();
+        return tracker;
+    }
+}
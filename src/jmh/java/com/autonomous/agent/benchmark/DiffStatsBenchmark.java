@@ -0,0 +1,42 @@
+package com.autonomous.agent.benchmark;
+
+import com.autonomous.agent.service.CliGitService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summary line extraction from {@code git diff --stat} output of growing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiffStatsBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int files;
+
+    private CliGitService gitService;
+    private String diffOutput;
+
+    @Setup
+    public void setUp() {
+        gitService = new CliGitService();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < files; i++) {
+            sb.append(String.format(" src/main/java/com/example/module%d/Service%d.java | %3d ++++++++------%n",
+                i % 20, i, 10 + i % 90));
+        }
+        sb.append(String.format(" %d files changed, %d insertions(+), %d deletions(-)%n",
+            files, files * 8, files * 6));
+        diffOutput = sb.toString();
+    }
+
+    @Benchmark
+    public String parseDiffStats() {
+        return gitService.parseDiffStats(diffOutput);
+    }
+}
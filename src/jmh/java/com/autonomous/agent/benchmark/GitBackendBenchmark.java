@@ -0,0 +1,101 @@
+package com.autonomous.agent.benchmark;
+
+import com.autonomous.agent.service.CliGitService;
+import com.autonomous.agent.service.GitService;
+import com.autonomous.agent.service.JGitService;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.RefSpec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A task's git work (status, branch, commit, diff stats, push) on a local clone of a
+ * local bare repo, with one {@code git} process per step versus in-process JGit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GitBackendBenchmark {
+
+    @Param({"cli", "jgit"})
+    public String backend;
+
+    @Param({"50", "1000"})
+    public int files;
+
+    private GitService git;
+    private Path root;
+    private String clone;
+    private int task;
+
+    @Setup
+    public void setUp() throws Exception {
+        git = backend.equals("cli") ? new CliGitService() : new JGitService();
+        root = Files.createTempDirectory("git-benchmark");
+        Path remote = root.resolve("remote.git");
+        Path seed = root.resolve("seed");
+        Git.init().setBare(true).setInitialBranch("main").setDirectory(remote.toFile()).call().close();
+        try (Git seeded = Git.cloneRepository().setURI(remote.toString()).setDirectory(seed.toFile()).call()) {
+            configureIdentity(seeded);
+            for (int i = 0; i < files; i++) {
+                Path file = seed.resolve("src/module" + (i % 20) + "/File" + i + ".java");
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, "class File" + i + " {\n    int value = " + i + ";\n}\n");
+            }
+            seeded.add().addFilepattern(".").call();
+            seeded.commit().setMessage("Initial commit").call();
+            seeded.push().setRefSpecs(new RefSpec("HEAD:refs/heads/main")).call();
+        }
+
+        clone = root.resolve("clone").toString();
+        if (!git.ensureRepoCloned(remote.toString(), clone, "main")) {
+            throw new IllegalStateException("Clone failed");
+        }
+        try (Git cloned = Git.open(Path.of(clone).toFile())) {
+            configureIdentity(cloned);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String statusAndDiffStats() {
+        git.hasChanges(clone);
+        return git.getDiffStats(clone, "main");
+    }
+
+    @Benchmark
+    public String taskCycle() throws IOException {
+        String branch = "agent/bench/" + backend + "-" + task++;
+        git.createBranch(clone, branch, "main");
+        Files.writeString(Path.of(clone, "src/module" + (task % 20), "File" + (task % files) + ".java"),
+            "class Changed {\n    int task = " + task + ";\n}\n");
+        git.hasChanges(clone);
+        git.commitAll(clone, "feat: benchmark task " + task);
+        String stats = git.getDiffStats(clone, "main");
+        git.push(clone, branch);
+        return stats;
+    }
+
+    private static void configureIdentity(Git repo) throws IOException {
+        StoredConfig config = repo.getRepository().getConfig();
+        config.setString("user", null, "name", "benchmark");
+        config.setString("user", null, "email", "benchmark@localhost");
+        config.save();
+    }
+}
@@ -0,0 +1,101 @@
+package com.autonomous.agent.benchmark;
+
+import com.autonomous.agent.controller.SlackSignatureFilter;
+import com.autonomous.agent.model.SlackEvent;
+import com.autonomous.agent.service.SlackEventParser;
+import com.autonomous.agent.service.SlackService;
+import com.autonomous.agent.service.ThreadRoutingService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handling of the Events API payloads Slack sends for every message in a channel the
+ * bot is in: signature check, streaming parse into a SlackEvent, then dispatch. Thread
+ * replies that don't answer a pending question are dropped after a routing lookup.
+ * {@code deserializeToMap} is the untyped Jackson binding the controller used before,
+ * kept as a reference point.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlackEventBenchmark {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD = new TypeReference<>() {};
+
+    @Param({"thread_reply", "bot_message"})
+    public String kind;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private static final String SECRET = "8f742231b10e8888abcd99yyyzzz85a5";
+    private static final String TIMESTAMP = "1700000100";
+
+    private SlackService slackService;
+    private SlackSignatureFilter filter;
+    private byte[] body;
+    private String signature;
+
+    @Setup
+    public void setUp() throws Exception {
+        ThreadRoutingService threadRouting = new ThreadRoutingService();
+        for (int i = 0; i < 5_000; i++) {
+            threadRouting.bind("task" + i, "C0123456789", "1700000000." + i);
+        }
+        slackService = new SlackService();
+        slackService.setThreadRouting(threadRouting);
+
+        String event = kind.equals("bot_message") ?
+            "\"type\":\"message\",\"subtype\":\"bot_message\",\"bot_id\":\"B0123\",\"text\":\"Task completed\"," +
+                "\"channel\":\"C0123456789\",\"ts\":\"1700000100.000200\"" :
+            "\"type\":\"message\",\"user\":\"U0123456\",\"text\":\"looks good, thanks\"," +
+                "\"channel\":\"C0123456789\",\"ts\":\"1700000100.000200\",\"thread_ts\":\"1700000000.42\"," +
+                "\"blocks\":[{\"type\":\"rich_text\",\"block_id\":\"x1\",\"elements\":[{\"type\":\"rich_text_section\"," +
+                "\"elements\":[{\"type\":\"text\",\"text\":\"looks good, thanks\"}]}]}]";
+        body = ("{\"token\":\"verification\",\"team_id\":\"T0123\",\"api_app_id\":\"A0123\"," +
+            "\"event\":{" + event + ",\"event_ts\":\"1700000100.000200\",\"channel_type\":\"channel\"}," +
+            "\"type\":\"event_callback\",\"event_id\":\"Ev0123456\",\"event_time\":1700000100," +
+            "\"authorizations\":[{\"enterprise_id\":null,\"team_id\":\"T0123\",\"user_id\":\"U0BOT\",\"is_bot\":true}]," +
+            "\"is_ext_shared_channel\":false,\"event_context\":\"4-eyJldCI6Im1lc3NhZ2UifQ\"}")
+            .getBytes(StandardCharsets.UTF_8);
+
+        filter = new SlackSignatureFilter();
+        filter.setSigningSecret(SECRET);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        mac.update(("v0:" + TIMESTAMP + ":").getBytes(StandardCharsets.UTF_8));
+        signature = "v0=" + HexFormat.of().formatHex(mac.doFinal(body));
+    }
+
+    @Benchmark
+    public Map<String, Object> deserializeToMap() throws IOException {
+        return mapper.readValue(body, PAYLOAD);
+    }
+
+    @Benchmark
+    public SlackEvent parse() throws IOException {
+        return SlackEventParser.parse(body);
+    }
+
+    @Benchmark
+    public boolean verifySignature() {
+        return filter.verify(TIMESTAMP, body, signature);
+    }
+
+    @Benchmark
+    public void verifyParseAndDispatch() throws IOException {
+        if (filter.verify(TIMESTAMP, body, signature)) {
+            slackService.processEvent(SlackEventParser.parse(body));
+        }
+    }
+}
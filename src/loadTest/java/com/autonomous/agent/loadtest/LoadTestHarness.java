@@ -0,0 +1,272 @@
+package com.autonomous.agent.loadtest;
+
+import com.autonomous.agent.SlackClaudeAgentApplication;
+import com.autonomous.agent.service.TaskHistoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Drives slash commands through the whole app (controller, queue, workspaces, git,
+ * the claude process, Slack posts) against a stub Slack API and a fake claude CLI,
+ * then reports throughput, ack latency, Slack call volume and peak heap.
+ *
+ * Run with {@code ./gradlew loadTest}; knobs are {@code -Ploadtest.<name>=<value>}:
+ * commands, channels, concurrency, max-concurrent-tasks, claude-duration-ms,
+ * claude-failure-percent, slack-latency-ms, slack-429-rate, timeout-minutes, report.
+ */
+public class LoadTestHarness {
+
+    private static final String CHANNEL_PREFIX = "CLOAD";
+    private static final String SIGNING_SECRET = "loadtest-signing-secret";
+
+    public static void main(String[] args) throws Exception {
+        int commands = intProperty("commands", 2000);
+        int channels = intProperty("channels", 20);
+        int concurrency = intProperty("concurrency", 32);
+        int maxConcurrentTasks = intProperty("max-concurrent-tasks", 16);
+        int claudeDurationMs = intProperty("claude-duration-ms", 2000);
+        int claudeFailurePercent = intProperty("claude-failure-percent", 0);
+        int slackLatencyMs = intProperty("slack-latency-ms", 50);
+        double slack429Rate = Double.parseDouble(System.getProperty("loadtest.slack-429-rate", "0.01"));
+        int timeoutMinutes = intProperty("timeout-minutes", 30);
+        Path report = Paths.get(System.getProperty("loadtest.report", "build/reports/loadtest/report.json"));
+
+        Path root = Files.createTempDirectory("agent-loadtest");
+        Path configDir = Files.createDirectories(root.resolve("config"));
+        Path remote = createRemote(root);
+        for (int i = 0; i < channels; i++) {
+            writeChannel(configDir, root, remote, i);
+        }
+        Path claude = installFakeClaude(root, claudeDurationMs, claudeFailurePercent);
+
+        try (StubSlackServer slack = new StubSlackServer(slackLatencyMs, slack429Rate)) {
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("server.port", 0);
+            properties.put("slack.bot.token", "xoxb-loadtest");
+            properties.put("slack.signing.secret", SIGNING_SECRET);
+            properties.put("slack.api.url", slack.url());
+            properties.put("claude.code.path", claude.toString());
+            properties.put("agent.config.path", configDir.toString());
+            properties.put("agent.data.path", root.resolve("data").toString());
+            properties.put("agent.cache.path", root.resolve("cache").toString());
+            properties.put("agent.max-concurrent-tasks", maxConcurrentTasks);
+            properties.put("agent.queue.type", "memory");
+
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(SlackClaudeAgentApplication.class)
+                .properties(properties)
+                .run();
+            try {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                TaskHistoryService history = context.getBean(TaskHistoryService.class);
+                List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+                heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+                System.out.printf("Load test: %d commands over %d channels, %d client threads, %d Claude slots%n",
+                    commands, channels, concurrency, maxConcurrentTasks);
+                long start = System.nanoTime();
+                long[] ackNanos = submit(port, commands, channels, concurrency);
+                long submitted = System.nanoTime();
+
+                long deadline = start + TimeUnit.MINUTES.toNanos(timeoutMinutes);
+                while (history.size() < commands && System.nanoTime() < deadline) {
+                    Thread.sleep(200);
+                }
+                long finished = System.nanoTime();
+
+                int completed = history.size();
+                long failed = history.query(null, "FAILED", null, null, null, 0, 1).getTotal();
+                double minutes = (finished - start) / 60e9;
+                long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("commands", commands);
+                result.put("channels", channels);
+                result.put("claudeDurationMs", claudeDurationMs);
+                result.put("maxConcurrentTasks", maxConcurrentTasks);
+                result.put("finishedTasks", completed);
+                result.put("failedTasks", failed);
+                result.put("timedOut", completed < commands);
+                result.put("submitSeconds", (submitted - start) / 1e9);
+                result.put("totalSeconds", (finished - start) / 1e9);
+                result.put("tasksPerMinute", completed / minutes);
+                result.put("ackP50Ms", percentile(ackNanos, 0.50) / 1e6);
+                result.put("ackP99Ms", percentile(ackNanos, 0.99) / 1e6);
+                result.put("ackMaxMs", percentile(ackNanos, 1.0) / 1e6);
+                result.put("slackCalls", slack.totalCalls());
+                result.put("slackCallsPerTask", completed > 0 ? (double) slack.totalCalls() / completed : 0);
+                result.put("slackRateLimited", slack.rateLimited());
+                result.put("slackCallsByMethod", slack.calls());
+                result.put("peakHeapMb", peakHeap / (1024.0 * 1024.0));
+
+                ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+                Files.createDirectories(report.toAbsolutePath().getParent());
+                mapper.writeValue(report.toFile(), result);
+                System.out.println(mapper.writeValueAsString(result));
+                System.out.println("Report written to " + report.toAbsolutePath());
+            } finally {
+                context.close();
+            }
+        } finally {
+            deleteRecursively(root);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Posts the slash commands from {@code concurrency} threads and returns each ack latency.
+     */
+    private static long[] submit(int port, int commands, int channels, int concurrency) throws Exception {
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(concurrency)).build();
+        URI uri = URI.create("http://127.0.0.1:" + port + "/slack/slash-commands");
+        long[] ackNanos = new long[commands];
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> futures = new ArrayList<>(commands);
+        for (int i = 0; i < commands; i++) {
+            int n = i;
+            futures.add(clients.submit(() -> {
+                String form = "command=" + encode("/agent-task") +
+                    "&text=" + encode("Load test task " + n + ": add pagination to the orders endpoint") +
+                    "&user_id=ULOAD&channel_id=" + CHANNEL_PREFIX + (n % channels);
+                String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .header("X-Slack-Request-Timestamp", timestamp)
+                    .header("X-Slack-Signature", sign(timestamp, form))
+                    .POST(HttpRequest.BodyPublishers.ofString(form))
+                    .build();
+                long sent = System.nanoTime();
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                ackNanos[n] = System.nanoTime() - sent;
+                if (response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        clients.shutdown();
+        if (errors.get() > 0) {
+            System.err.println(errors.get() + " slash commands were not acknowledged with 200");
+        }
+        return ackNanos;
+    }
+
+    /**
+     * Bare repo every channel clones from, with an initial commit on main.
+     */
+    private static Path createRemote(Path root) throws Exception {
+        Path remote = root.resolve("remote.git");
+        Path seed = root.resolve("seed");
+        git(root, "init", "--bare", "-b", "main", remote.toString());
+        git(root, "clone", remote.toString(), seed.toString());
+        Files.writeString(seed.resolve("README.md"), "# Load test repo\n");
+        git(seed, "add", "README.md");
+        git(seed, "-c", "user.name=loadtest", "-c", "user.email=loadtest@localhost", "commit", "-m", "Initial commit");
+        git(seed, "push", "origin", "HEAD:main");
+        return remote;
+    }
+
+    private static void writeChannel(Path configDir, Path root, Path remote, int i) throws Exception {
+        Path clone = root.resolve("workspaces").resolve("load-" + i);
+        // Cloned up front so commits have an author without touching the global git config
+        git(root, "clone", remote.toString(), clone.toString());
+        git(clone, "config", "user.name", "loadtest");
+        git(clone, "config", "user.email", "loadtest@localhost");
+
+        Files.writeString(configDir.resolve(CHANNEL_PREFIX + i + ".yaml"), String.join("\n",
+            "channel_id: " + CHANNEL_PREFIX + i,
+            "channel_name: load-" + i,
+            "repo: " + remote,
+            "clone_path: " + clone,
+            "pr_target: main",
+            "branch_prefix: agent/load-" + i,
+            "default_model: sonnet",
+            "on_failure: stop",
+            "on_concurrent: queue",
+            ""));
+    }
+
+    private static Path installFakeClaude(Path root, int durationMs, int failurePercent) throws IOException {
+        Path dir = Files.createDirectories(root.resolve("bin"));
+        for (String resource : List.of("fake-claude.sh", "claude-transcript.jsonl")) {
+            try (InputStream in = LoadTestHarness.class.getResourceAsStream("/" + resource)) {
+                Files.copy(Objects.requireNonNull(in, resource), dir.resolve(resource));
+            }
+        }
+        Path claude = dir.resolve("claude");
+        Files.writeString(claude, String.join("\n",
+            "#!/bin/sh",
+            "FAKE_CLAUDE_DURATION_MS=" + durationMs + " FAKE_CLAUDE_FAILURE_PERCENT=" + failurePercent +
+                " exec sh " + dir.resolve("fake-claude.sh") + " \"$@\"",
+            ""));
+        claude.toFile().setExecutable(true);
+        return claude;
+    }
+
+    private static void git(Path dir, String... args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).directory(dir.toFile()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("git " + String.join(" ", args) + " failed: " + output);
+        }
+    }
+
+    private static long percentile(long[] values, double q) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted.length == 0 ? 0 : sorted[Math.max(0, (int) Math.ceil(q * sorted.length) - 1)];
+    }
+
+    /**
+     * Slack's v0 request signature, so requests go through the same verification as in production.
+     */
+    private static String sign(String timestamp, String body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SIGNING_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return "v0=" + HexFormat.of().formatHex(
+            mac.doFinal(("v0:" + timestamp + ":" + body).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty("loadtest." + name, String.valueOf(defaultValue)));
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.autonomous.agent.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Minimal Slack Web API stand-in (point {@code slack.api.url} at {@link #url()}).
+ * Every {@code /api/<method>} call is counted and answered with {@code ok: true} and a
+ * fresh message ts after {@code latencyMs}; a {@code rateLimitRate} fraction of calls
+ * gets HTTP 429 with {@code Retry-After: 1} instead.
+ */
+public class StubSlackServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService workers = Executors.newCachedThreadPool();
+    private final long latencyMs;
+    private final double rateLimitRate;
+
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final LongAdder rateLimited = new LongAdder();
+    private final AtomicLong ts = new AtomicLong(1_700_000_000_000_000L);
+
+    public StubSlackServer(long latencyMs, double rateLimitRate) throws IOException {
+        this.latencyMs = latencyMs;
+        this.rateLimitRate = rateLimitRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        server.createContext("/api/", this::handle);
+        server.setExecutor(workers);
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/";
+    }
+
+    public Map<String, Long> calls() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        calls.forEach((method, count) -> snapshot.put(method, count.sum()));
+        return snapshot;
+    }
+
+    public long totalCalls() {
+        return calls.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long rateLimited() {
+        return rateLimited.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            String method = exchange.getRequestURI().getPath().substring("/api/".length());
+            calls.computeIfAbsent(method, m -> new LongAdder()).increment();
+
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+            if (rateLimitRate > 0 && ThreadLocalRandom.current().nextDouble() < rateLimitRate) {
+                rateLimited.increment();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                respond(exchange, 429, "{\"ok\":false,\"error\":\"ratelimited\"}");
+                return;
+            }
+
+            long next = ts.incrementAndGet();
+            String messageTs = (next / 1_000_000) + "." + String.format("%06d", next % 1_000_000);
+            respond(exchange, 200, "{\"ok\":true,\"channel\":\"C0000000000\",\"ts\":\"" + messageTs + "\"}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,31 @@
+#!/bin/sh
+# Stand-in for the claude CLI in load tests (claude.code.path). Replays a recorded
+# stream-json transcript spread over FAKE_CLAUDE_DURATION_MS, touches a file so there is
+# something to commit, and fails FAKE_CLAUDE_FAILURE_PERCENT of the runs. The transcript's
+# last line is its result event; a failed run replaces it with an error result, as the
+# real CLI does.
+
+dir=$(dirname "$0")
+transcript="${FAKE_CLAUDE_TRANSCRIPT:-$dir/claude-transcript.jsonl}"
+duration_ms="${FAKE_CLAUDE_DURATION_MS:-2000}"
+failure_percent="${FAKE_CLAUDE_FAILURE_PERCENT:-0}"
+
+lines=$(wc -l < "$transcript")
+[ "$lines" -gt 0 ] || lines=1
+delay=$(awk -v ms="$duration_ms" -v n="$lines" 'BEGIN { printf "%.3f", ms / 1000 / n }')
+
+sed '$d' "$transcript" | while IFS= read -r line; do
+    printf '%s\n' "$line"
+    sleep "$delay"
+done
+
+echo "$$ $(date +%s)" >> LOADTEST.md
+
+roll=$(( $(od -An -N2 -tu2 /dev/urandom | tr -d ' ') % 100 ))
+if [ "$roll" -lt "$failure_percent" ]; then
+    printf '%s\n' '{"type":"result","subtype":"error_during_execution","is_error":true,"duration_ms":'"$duration_ms"',"num_turns":1,"total_cost_usd":0.002,"usage":{"input_tokens":4,"cache_creation_input_tokens":6120,"cache_read_input_tokens":0,"output_tokens":3}}'
+    echo "Error: simulated failure" >&2
+    exit 1
+fi
+tail -n 1 "$transcript"
+exit 0
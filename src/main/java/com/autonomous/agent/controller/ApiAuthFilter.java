@@ -0,0 +1,92 @@
+package com.autonomous.agent.controller;
+
+import com.autonomous.agent.service.TranscriptArchiveService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Guards everything under {@code /api/} and the actuator endpoints other than health:
+ * requests need {@code Authorization: Bearer <agent.api.token>}. The one exception is a
+ * transcript fetched through the signed, expiring link {@link TranscriptArchiveService#link}
+ * put in a PR body.
+ *
+ * With no token configured only signed transcript links get through.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ApiAuthFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+    private static final String ACTUATOR = "/actuator";
+    private static final String HEALTH = ACTUATOR + "/health";
+    private static final Pattern TRANSCRIPT_PATH = Pattern.compile("/api/transcripts/([^/]+)/([^/]+)");
+
+    @Value("${agent.api.token:}")
+    private String apiToken;
+
+    @Autowired(required = false)
+    private TranscriptArchiveService transcripts;
+
+    public void setApiToken(String apiToken) {
+        this.apiToken = apiToken;
+    }
+
+    public void setTranscripts(TranscriptArchiveService transcripts) {
+        this.transcripts = transcripts;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/")) {
+            return false;
+        }
+        boolean actuator = path.equals(ACTUATOR) || path.startsWith(ACTUATOR + "/");
+        boolean health = path.equals(HEALTH) || path.startsWith(HEALTH + "/");
+        return !actuator || health;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (hasToken(request) || hasSignedLink(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        System.err.println("Rejected unauthenticated API request to " + request.getRequestURI());
+        response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+    }
+
+    private boolean hasToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (apiToken == null || apiToken.isBlank() || header == null || !header.startsWith(BEARER)) {
+            return false;
+        }
+        return MessageDigest.isEqual(apiToken.getBytes(StandardCharsets.UTF_8),
+            header.substring(BEARER.length()).trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean hasSignedLink(HttpServletRequest request) {
+        if (transcripts == null || !"GET".equals(request.getMethod())) {
+            return false;
+        }
+        Matcher path = TRANSCRIPT_PATH.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+        return path.matches() && transcripts.verifyLink(path.group(1), path.group(2),
+            request.getParameter("expires"), request.getParameter("signature"));
+    }
+}
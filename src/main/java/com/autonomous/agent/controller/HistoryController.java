@@ -0,0 +1,30 @@
+package com.autonomous.agent.controller;
+
+import com.autonomous.agent.model.HistoryPage;
+import com.autonomous.agent.service.TaskHistoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/history")
+public class HistoryController {
+
+    @Autowired
+    private TaskHistoryService taskHistory;
+
+    @GetMapping
+    public ResponseEntity<HistoryPage> history(
+            @RequestParam(required = false) String channel,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(taskHistory.query(channel, status, model, from, to, page, size));
+    }
+}
@@ -1,12 +1,14 @@
 package com.autonomous.agent.controller;
 
-import com.autonomous.agent.service.CostTrackerService;
-import com.autonomous.agent.service.SlackService;
-import com.autonomous.agent.service.TaskExecutorService;
+import com.autonomous.agent.model.SlackEvent;
+import com.autonomous.agent.service.SlackDispatcher;
+import com.autonomous.agent.service.SlackEventParser;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.Map;
 
 @RestController
@@ -14,21 +16,17 @@ import java.util.Map;
 public class SlackController {
 
     @Autowired
-    private SlackService slackService;
-
-    @Autowired
-    private TaskExecutorService taskExecutor;
-
-    @Autowired
-    private CostTrackerService costTracker;
+    private SlackDispatcher dispatcher;
 
     @PostMapping("/events")
-    public ResponseEntity<?> handleSlackEvent(@RequestBody Map<String, Object> payload) {
-        if (payload.containsKey("challenge")) {
-            return ResponseEntity.ok(Map.of("challenge", payload.get("challenge")));
+    public ResponseEntity<?> handleSlackEvent(HttpServletRequest request) throws IOException {
+        // Parsed from the bytes SlackSignatureFilter verified
+        SlackEvent event = SlackEventParser.parse(SlackSignatureFilter.rawBody(request));
+        if (event.getChallenge() != null) {
+            return ResponseEntity.ok(Map.of("challenge", event.getChallenge()));
         }
 
-        slackService.processEvent(payload);
+        dispatcher.handleEvent(event);
         return ResponseEntity.ok().build();
     }
 
@@ -39,13 +37,7 @@ public class SlackController {
         String userId = params.get("user_id");
         String channelId = params.get("channel_id");
 
-        String response = switch (command) {
-            case "/agent-task" -> taskExecutor.submitTask(channelId, text, userId);
-            case "/agent-stop" -> handleStop(channelId);
-            case "/agent-status" -> handleStatus(channelId);
-            case "/agent-budget" -> handleBudget();
-            default -> "Unknown command: " + command;
-        };
+        String response = dispatcher.handleCommand(command, text, userId, channelId);
 
         return ResponseEntity.ok(Map.of(
             "response_type", "in_channel",
@@ -53,26 +45,6 @@ public class SlackController {
         ));
     }
 
-    private String handleStop(String channelId) {
-        boolean cancelled = taskExecutor.cancelTask(channelId);
-        return cancelled ? "Task cancelled." : "No task running to cancel.";
-    }
-
-    private String handleStatus(String channelId) {
-        return taskExecutor.getRunningTask(channelId)
-            .map(task -> String.format("Running: *%s*\nModel: %s\nStarted: %s",
-                task.getDescription(),
-                task.getModel(),
-                task.getStartedAt()))
-            .orElse("No task running in this channel.");
-    }
-
-    private String handleBudget() {
-        return String.format("Monthly budget: %s\n%s",
-            costTracker.formatBudgetStatus(),
-            costTracker.isOverBudgetThreshold() ? "Warning: Over 80% of budget used!" : "");
-    }
-
     @GetMapping("/health")
     public ResponseEntity<?> health() {
         return ResponseEntity.ok(Map.of("status", "healthy"));
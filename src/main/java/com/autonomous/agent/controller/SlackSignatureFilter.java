@@ -0,0 +1,314 @@
+package com.autonomous.agent.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Verifies Slack's request signature on everything under {@code /slack/} except the
+ * health check.
+ *
+ * The body is read once into a byte array; the signature is checked over those bytes
+ * and the same array is handed on as the request body (and as the
+ * {@link #RAW_BODY_ATTRIBUTE} attribute), so nothing downstream re-reads or copies it.
+ * Each thread keeps its own keyed {@link Mac} and digest buffer. Requests whose
+ * timestamp is more than {@code slack.signing.max-age-seconds} away from now are
+ * rejected as replays.
+ *
+ * Bodies over {@code slack.signing.max-body-bytes} are rejected before they're read in
+ * full. Without a {@code slack.signing.secret} every request is rejected, unless
+ * {@code slack.signature.verify=false} turns verification off for local runs against stubs.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SlackSignatureFilter extends OncePerRequestFilter {
+
+    public static final String RAW_BODY_ATTRIBUTE = SlackSignatureFilter.class.getName() + ".rawBody";
+
+    private static final String VERSION = "v0";
+    private static final String SIGNATURE_HEADER = "X-Slack-Signature";
+    private static final String TIMESTAMP_HEADER = "X-Slack-Request-Timestamp";
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EMPTY = new byte[0];
+    private static final String HEALTH_PATH = "/slack/health";
+
+    @Value("${slack.signing.secret:}")
+    private String signingSecret;
+
+    @Value("${slack.signing.max-age-seconds:300}")
+    private long maxAgeSeconds = 300;
+
+    @Value("${slack.signing.max-body-bytes:1048576}")
+    private int maxBodyBytes = 1024 * 1024;
+
+    @Value("${slack.signature.verify:true}")
+    private boolean verifyEnabled = true;
+
+    private final AtomicBoolean warnedUnsigned = new AtomicBoolean();
+
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+    private final ThreadLocal<byte[]> digests = ThreadLocal.withInitial(() -> new byte[32]);
+
+    public void setSigningSecret(String signingSecret) {
+        this.signingSecret = signingSecret;
+    }
+
+    public void setMaxAgeSeconds(long maxAgeSeconds) {
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    public void setMaxBodyBytes(int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    public void setVerifyEnabled(boolean verifyEnabled) {
+        this.verifyEnabled = verifyEnabled;
+    }
+
+    /**
+     * The raw body the filter read, or the request stream's bytes when it didn't run.
+     */
+    public static byte[] rawBody(HttpServletRequest request) throws IOException {
+        Object body = request.getAttribute(RAW_BODY_ATTRIBUTE);
+        return body instanceof byte[] bytes ? bytes : request.getInputStream().readAllBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/slack/") || path.equals(HEALTH_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            tooLarge(response, request);
+            return;
+        }
+        byte[] body = readBody(request, maxBodyBytes);
+        if (body == null) {
+            tooLarge(response, request);
+            return;
+        }
+
+        if (!verifyEnabled) {
+            if (warnedUnsigned.compareAndSet(false, true)) {
+                System.err.println("slack.signature.verify=false; Slack requests are NOT being verified");
+            }
+        } else if (signingSecret == null || signingSecret.isEmpty()) {
+            reject(response, "slack.signing.secret is not set", request);
+            return;
+        } else {
+            String timestamp = request.getHeader(TIMESTAMP_HEADER);
+            String signature = request.getHeader(SIGNATURE_HEADER);
+            if (!fresh(timestamp, System.currentTimeMillis() / 1000)) {
+                reject(response, "stale or missing timestamp", request);
+                return;
+            }
+            if (!verify(timestamp, body, signature)) {
+                reject(response, "bad signature", request);
+                return;
+            }
+        }
+
+        request.setAttribute(RAW_BODY_ATTRIBUTE, body);
+        chain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    boolean fresh(String timestamp, long nowSeconds) {
+        if (timestamp == null) {
+            return false;
+        }
+        try {
+            return Math.abs(nowSeconds - Long.parseLong(timestamp)) <= maxAgeSeconds;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Constant-time check of {@code v0=<hex hmac>} over {@code v0:<timestamp>:<body>}.
+     */
+    public boolean verify(String timestamp, byte[] body, String signature) {
+        if (signature == null || signature.length() != VERSION.length() + 1 + 64 || !signature.startsWith(VERSION + "=")) {
+            return false;
+        }
+        Mac mac = macs.get();
+        byte[] digest = digests.get();
+        for (int i = 0; i < VERSION.length(); i++) {
+            mac.update((byte) VERSION.charAt(i));
+        }
+        mac.update((byte) ':');
+        for (int i = 0; i < timestamp.length(); i++) {
+            mac.update((byte) timestamp.charAt(i));
+        }
+        mac.update((byte) ':');
+        mac.update(body);
+        try {
+            mac.doFinal(digest, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC output buffer too small", e);
+        }
+
+        int diff = 0;
+        int offset = VERSION.length() + 1;
+        for (int i = 0; i < digest.length; i++) {
+            diff |= signature.charAt(offset + 2 * i) ^ HEX[(digest[i] >> 4) & 0xf];
+            diff |= signature.charAt(offset + 2 * i + 1) ^ HEX[digest[i] & 0xf];
+        }
+        return diff == 0;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(signingSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    /**
+     * The body, or null when it runs past {@code maxBytes} (a chunked body has no length up front).
+     */
+    private static byte[] readBody(HttpServletRequest request, int maxBytes) throws IOException {
+        int length = request.getContentLength();
+        InputStream in = request.getInputStream();
+        if (length == 0) {
+            return EMPTY;
+        }
+        // Sized up front when Slack sends Content-Length, so there's no buffer growth
+        if (length > 0) {
+            return in.readNBytes(length);
+        }
+        byte[] body = in.readNBytes(maxBytes + 1);
+        return body.length > maxBytes ? null : body;
+    }
+
+    private static void reject(HttpServletResponse response, String reason, HttpServletRequest request) throws IOException {
+        System.err.println("Rejected Slack request to " + request.getRequestURI() + ": " + reason);
+        response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+    }
+
+    private static void tooLarge(HttpServletResponse response, HttpServletRequest request) throws IOException {
+        System.err.println("Rejected Slack request to " + request.getRequestURI() + ": body too large");
+        response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+    }
+
+    /**
+     * Serves the already-read body, and form parameters parsed from it, to the rest of the chain.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+        private Map<String, String[]> parameters;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // The whole body is already in memory, so it can be handed over straight away
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public String getParameter(String name) {
+            String[] values = getParameterMap().get(name);
+            return values == null || values.length == 0 ? null : values[0];
+        }
+
+        @Override
+        public String[] getParameterValues(String name) {
+            return getParameterMap().get(name);
+        }
+
+        @Override
+        public Enumeration<String> getParameterNames() {
+            return Collections.enumeration(getParameterMap().keySet());
+        }
+
+        @Override
+        public Map<String, String[]> getParameterMap() {
+            if (parameters == null) {
+                // Query string parameters from the container, then the form body it can no longer read
+                Map<String, List<String>> merged = new LinkedHashMap<>();
+                super.getParameterMap().forEach((name, values) ->
+                    merged.computeIfAbsent(name, n -> new ArrayList<>()).addAll(List.of(values)));
+                String contentType = getContentType();
+                if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded") && body.length > 0) {
+                    for (String pair : new String(body, StandardCharsets.UTF_8).split("&")) {
+                        if (pair.isEmpty()) continue;
+                        int eq = pair.indexOf('=');
+                        String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                        String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                        merged.computeIfAbsent(name, n -> new ArrayList<>()).add(value);
+                    }
+                }
+                Map<String, String[]> result = new LinkedHashMap<>();
+                merged.forEach((name, values) -> result.put(name, values.toArray(new String[0])));
+                parameters = Collections.unmodifiableMap(result);
+            }
+            return parameters;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.autonomous.agent.controller;
+
+import com.autonomous.agent.model.TranscriptRange;
+import com.autonomous.agent.service.TranscriptArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@RestController
+@RequestMapping("/api/transcripts")
+public class TranscriptController {
+
+    private static final Pattern BYTE_RANGE = Pattern.compile("bytes=(\\d{0,18})-(\\d{0,18})");
+    private static final MediaType TEXT = new MediaType("text", "plain", StandardCharsets.UTF_8);
+
+    @Autowired
+    private TranscriptArchiveService transcripts;
+
+    /**
+     * A task's archived transcript or test output, or the part a {@code Range: bytes=...}
+     * header asks for (one range; {@code bytes=-N} is the last N bytes). Only the blocks
+     * the range overlaps are decompressed.
+     */
+    @GetMapping("/{taskId}/{stream}")
+    public ResponseEntity<byte[]> transcript(@PathVariable String taskId, @PathVariable String stream,
+                                             @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
+        OptionalLong total = transcripts.length(taskId, stream);
+        if (total.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        long length = total.getAsLong();
+        long start = 0;
+        long end = length;
+
+        if (range != null) {
+            Matcher matcher = BYTE_RANGE.matcher(range.trim());
+            if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                return unsatisfiable(length);
+            }
+            if (matcher.group(1).isEmpty()) {
+                start = Math.max(0, length - Long.parseLong(matcher.group(2)));
+            } else {
+                start = Long.parseLong(matcher.group(1));
+                if (!matcher.group(2).isEmpty()) {
+                    end = Math.min(length, Long.parseLong(matcher.group(2)) + 1);
+                }
+            }
+            if (start >= end) {
+                return unsatisfiable(length);
+            }
+        }
+
+        Optional<TranscriptRange> slice = transcripts.read(taskId, stream, start, end - start);
+        if (slice.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        TranscriptRange part = slice.get();
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(range != null ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+            .contentType(TEXT)
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (range != null) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + part.getOffset() + "-" +
+                (part.getOffset() + part.getData().length - 1) + "/" + part.getTotalLength());
+        }
+        return response.body(part.getData());
+    }
+
+    private static ResponseEntity<byte[]> unsatisfiable(long length) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+            .build();
+    }
+}
@@ -13,13 +13,15 @@ public class ChannelConfig {
     // Git settings
     private String prTarget = "main";
     private String branchPrefix;
+    private CloneOptions cloneOptions;  // partial, shallow or sparse clone for large repos
 
     // Behavior
-    private String defaultModel = "sonnet";
+    private String defaultModel = "sonnet";  // sonnet | opus | haiku | auto
     private String onFailure = "ask";      // ask | stop | retry | draft_pr
     private String onConcurrent = "ask";   // ask | queue | parallel | reject
 
     // Optional
     private List<String> setupCommands;
     private String profile;
+    private String conventions;  // house rules added to the system prompt of every task
 }
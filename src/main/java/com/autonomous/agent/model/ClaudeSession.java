@@ -0,0 +1,32 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.Instant;
+
+/**
+ * A task's Claude CLI session and where its work lives, kept until the task is done so a
+ * retry or a restart continues the conversation instead of starting over.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaudeSession {
+    private String taskId;
+    private String sessionId;     // claude --session-id on the first run, --resume after
+    private String node;          // agent node (agent.node.id) whose ~/.claude holds the session
+    private String workDir;       // ... per working directory
+    private String branchName;
+    private String channelId;
+    private String description;
+    private String model;
+    private String priority;
+    private String threadTs;
+    private Instant submittedAt;
+    private String status;        // RUNNING | FAILED (waiting for a retry/stop/draft reply)
+    private int runs;             // claude runs in this session; more than 1 means it was resumed
+    private Instant updatedAt;    // last saved; sessions left alone for long are dropped
+}
@@ -0,0 +1,29 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Tokens claude reported for a task's runs. Input tokens exclude those read from or
+ * written to the prompt cache, which are billed at a tenth and 1.25x of the input price.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaudeUsage {
+    private long inputTokens;
+    private long outputTokens;
+    private long cacheReadTokens;
+    private long cacheCreationTokens;
+
+    public ClaudeUsage plus(ClaudeUsage other) {
+        if (other == null) {
+            return this;
+        }
+        return new ClaudeUsage(inputTokens + other.inputTokens, outputTokens + other.outputTokens,
+            cacheReadTokens + other.cacheReadTokens, cacheCreationTokens + other.cacheCreationTokens);
+    }
+}
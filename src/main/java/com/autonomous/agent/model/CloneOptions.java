@@ -0,0 +1,41 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+/**
+ * How much of a large repo to fetch and check out ({@code clone_options} in a channel config).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CloneOptions {
+    private String filter;             // blobless | treeless | any git --filter spec, e.g. blob:limit=1m
+    private Integer depth;             // shallow: last N commits; deepened on demand
+    private List<String> sparsePaths;  // cone-mode sparse checkout of these directories
+
+    /**
+     * The {@code --filter} spec, with the blobless/treeless shorthands expanded.
+     */
+    public String filterSpec() {
+        if (filter == null || filter.isBlank()) return null;
+        return switch (filter) {
+            case "blobless" -> "blob:none";
+            case "treeless" -> "tree:0";
+            default -> filter;
+        };
+    }
+
+    public boolean isSparse() {
+        return sparsePaths != null && !sparsePaths.isEmpty();
+    }
+
+    public boolean isFull() {
+        return filterSpec() == null && (depth == null || depth <= 0) && !isSparse();
+    }
+}
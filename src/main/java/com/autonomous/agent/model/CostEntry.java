@@ -17,5 +17,8 @@ public class CostEntry {
     private String model;
     private long inputTokens;
     private long outputTokens;
+    private long cacheReadTokens;
+    private long cacheCreationTokens;
+    private String promptPrefix;  // hash of the system prompt; tasks sharing one can hit the same cache
     private double costUsd;
 }
@@ -0,0 +1,18 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPage {
+    private List<TaskRecord> items;
+    private int page;
+    private int size;
+    private int total;
+}
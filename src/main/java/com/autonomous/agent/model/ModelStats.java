@@ -0,0 +1,18 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModelStats {
+    private String model;
+    private int samples;
+    private double successRate;
+    private long meanDurationMs;
+    private double meanCostUsd;
+}
@@ -0,0 +1,19 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PreparedWorkspace {
+    private String channelId;
+    private String clonePath;
+    private String defaultBranch;   // branch tasks start from: the PR target, else the remote's default
+    private RepoMetadata metadata;
+    private Instant preparedAt;
+}
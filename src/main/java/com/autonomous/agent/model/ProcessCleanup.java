@@ -0,0 +1,15 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessCleanup {
+    private int processes;  // processes still alive that had to be killed
+    private long rssBytes;  // resident memory they held right before the kill
+}
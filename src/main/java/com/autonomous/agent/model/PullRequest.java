@@ -0,0 +1,21 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * The parts of a GitHub pull request the agent uses.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PullRequest {
+    private int number;
+    private String url;       // html_url, what gets posted to Slack
+    private String nodeId;    // GraphQL id, needed to toggle draft
+    private String state;     // open | closed
+    private boolean draft;
+}
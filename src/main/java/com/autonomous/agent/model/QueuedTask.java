@@ -0,0 +1,22 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueuedTask {
+    private String taskId;
+    private String channelId;
+    private String description;
+    private String model;
+    private String threadTs;    // set when the Slack thread was created at submit time
+    private Instant enqueuedAt;
+    private String priority;    // high | normal | low
+    private String resumeBranch; // checkpoint branch of a preempted, retried or interrupted task
+}
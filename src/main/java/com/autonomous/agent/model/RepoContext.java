@@ -0,0 +1,29 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of a repo at one commit: its files, the symbols they declare, build modules and
+ * recent history. Summarized into the prompt so claude doesn't spend turns exploring.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepoContext {
+    private String repoPath;
+    private String headCommit;
+    private String buildTool;
+    private String testCommand;
+    private List<String> modules;
+    private Map<String, String> files;           // relative path -> blob id, checked-out files only
+    private Map<String, List<String>> outlines;  // relative path -> declared symbols, source files only
+    private List<String> recentCommits;
+    private Instant indexedAt;
+}
@@ -0,0 +1,24 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepoMetadata {
+    private String repoPath;
+    private String headCommit;
+    private String defaultBranch;
+    private String buildTool;     // gradle | maven | npm | dotnet | python, null if unknown
+    private String testCommand;   // null if no test runner was detected
+    private List<String> modules;
+    private Map<String, String> lockfileHashes;  // relative path -> sha-256
+    private Instant detectedAt;
+}
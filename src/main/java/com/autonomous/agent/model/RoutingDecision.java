@@ -0,0 +1,26 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoutingDecision {
+    private String taskId;
+    private String channelId;
+    private Instant decidedAt;
+    private String description;
+    private int words;
+    private String sizeClass;    // small | medium | large
+    private List<ModelStats> stats;
+    private String routedModel;  // what the router picked
+    private String model;        // what runs: routedModel unless overridden with --model
+    private boolean overridden;
+    private String reason;
+}
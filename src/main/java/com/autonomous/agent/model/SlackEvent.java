@@ -0,0 +1,31 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * The parts of an Events API payload the agent acts on; everything else is skipped
+ * while parsing.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlackEvent {
+    private String type;       // url_verification or event_callback
+    private String challenge;
+    private String eventId;
+    private String teamId;
+
+    // Inner event
+    private String eventType;  // app_mention, message, ...
+    private String subtype;
+    private String user;
+    private boolean bot;       // bot_id or bot_profile present
+    private String text;
+    private String channel;
+    private String ts;
+    private String threadTs;
+}
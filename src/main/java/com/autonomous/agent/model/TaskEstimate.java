@@ -0,0 +1,19 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskEstimate {
+    private long remainingP50Ms;
+    private long remainingP90Ms;
+    private double costP50Usd;
+    private double costP90Usd;
+    private long samples;
+    private boolean overrun;  // already running longer than nearly every similar task
+}
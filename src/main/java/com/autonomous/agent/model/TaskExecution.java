@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.time.Instant;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 @Data
@@ -18,8 +19,20 @@ public class TaskExecution {
     private String model;
     private String threadTs;
     private String branchName;
+    private String resumeBranch;  // checkpoint branch to continue from after preemption, retry or restart
+    private String sessionId;     // Claude CLI session of the task
+    private boolean resumingSession;  // continue sessionId rather than start it
+    private String priority;      // high | normal | low
+    private Instant submittedAt;  // first submission, kept across requeues so priority ages
     private Instant startedAt;
     private String status;  // PENDING, RUNNING, WAITING_RESPONSE, COMPLETED, FAILED, CANCELLED
+    private Double costUsd;
+    private ClaudeUsage usage;    // summed over the task's claude runs; null when claude didn't report it
+    private String promptPrefix;  // hash of the system prompt the task ran with
+    private String prUrl;
+    private String error;
     private transient Process process;
     private transient CompletableFuture<String> future;
+    private transient List<TaskExecution> subtasks;  // set for batch submissions
+    private transient TaskLease lease;               // set when the task came from the queue
 }
@@ -0,0 +1,17 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskLease {
+    private QueuedTask task;
+    private String nodeId;
+    private Instant expiresAt;  // null for leases that never expire (single-node queue)
+}
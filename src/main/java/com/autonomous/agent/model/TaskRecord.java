@@ -0,0 +1,25 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskRecord {
+    private String taskId;
+    private String channelId;
+    private String description;
+    private String model;
+    private String status;  // COMPLETED, FAILED, CANCELLED
+    private Instant startedAt;
+    private Instant completedAt;
+    private long durationMs;
+    private double costUsd;
+    private String prUrl;
+    private String error;
+}
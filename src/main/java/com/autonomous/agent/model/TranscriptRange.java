@@ -0,0 +1,21 @@
+package com.autonomous.agent.model;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Uncompressed bytes {@code [offset, offset + data.length)} of an archived stream.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TranscriptRange {
+    private String taskId;
+    private String stream;       // transcript | tests
+    private long offset;
+    private long totalLength;    // of the whole uncompressed stream
+    private byte[] data;
+}
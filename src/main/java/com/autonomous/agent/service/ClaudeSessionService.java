@@ -0,0 +1,108 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.ClaudeSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Claude sessions of unfinished tasks, one file per task under
+ * {@code agent.data.path/sessions/<taskId>.json}, written atomically so a crash mid-write
+ * leaves the previous version. Records outlive the process on purpose: they're how a
+ * restarted agent finds the tasks it was running.
+ */
+@Service
+public class ClaudeSessionService {
+
+    private static final Pattern TASK_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    @Value("${agent.data.path:data}")
+    private String dataPath;
+
+    private final ObjectMapper mapper;
+
+    public ClaudeSessionService() {
+        this.mapper = new ObjectMapper();
+        this.mapper.registerModule(new JavaTimeModule());
+    }
+
+    public void setDataPath(String dataPath) {
+        this.dataPath = dataPath;
+    }
+
+    public synchronized void save(ClaudeSession session) {
+        Path file = file(session.getTaskId());
+        if (file == null) {
+            return;
+        }
+        session.setUpdatedAt(Instant.now());
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, mapper.writeValueAsBytes(session));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to save Claude session of task " + session.getTaskId() + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized Optional<ClaudeSession> get(String taskId) {
+        Path file = file(taskId);
+        return file != null && Files.exists(file) ? Optional.ofNullable(read(file)) : Optional.empty();
+    }
+
+    public synchronized void remove(String taskId) {
+        Path file = file(taskId);
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Failed to remove Claude session of task " + taskId + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized List<ClaudeSession> list() {
+        Path dir = Paths.get(dataPath, "sessions");
+        List<ClaudeSession> sessions = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return sessions;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".json"))
+                .map(this::read)
+                .filter(session -> session != null)
+                .forEach(sessions::add);
+        } catch (IOException e) {
+            System.err.println("Failed to list Claude sessions: " + e.getMessage());
+        }
+        return sessions;
+    }
+
+    private ClaudeSession read(Path file) {
+        try {
+            return mapper.readValue(file.toFile(), ClaudeSession.class);
+        } catch (IOException e) {
+            System.err.println("Skipping unreadable session file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Path file(String taskId) {
+        if (taskId == null || !TASK_ID.matcher(taskId).matches()) {
+            return null;
+        }
+        return Paths.get(dataPath, "sessions", taskId + ".json");
+    }
+}
@@ -19,6 +19,11 @@ public class ConfigLoaderService {
     @Value("${agent.config.path:config/channels}")
     private String configPath;
 
+    @Value("${agent.startup.background-warmup:true}")
+    private boolean backgroundWarmup;
+
+    private final Warmup warmup = new Warmup("channel configs");
+
     private final Map<String, ChannelConfig> configs = new ConcurrentHashMap<>();
     private final ObjectMapper yamlMapper;
 
@@ -32,6 +37,10 @@ public class ConfigLoaderService {
     }
 
     @PostConstruct
+    public void init() {
+        warmup.run(backgroundWarmup, this::loadConfigs);
+    }
+
     public void loadConfigs() {
         configs.clear();
         File configDir = new File(configPath);
@@ -58,10 +67,12 @@ public class ConfigLoaderService {
     }
 
     public Optional<ChannelConfig> getConfigForChannel(String channelId) {
+        warmup.await();
         return Optional.ofNullable(configs.get(channelId));
     }
 
     public Map<String, ChannelConfig> getAllConfigs() {
+        warmup.await();
         return Map.copyOf(configs);
     }
 }
@@ -1,5 +1,6 @@
 package com.autonomous.agent.service;
 
+import com.autonomous.agent.model.ClaudeUsage;
 import com.autonomous.agent.model.CostEntry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -22,6 +23,11 @@ public class CostTrackerService {
     @Value("${agent.monthly.budget:500.0}")
     private double monthlyBudget;
 
+    @Value("${agent.startup.background-warmup:true}")
+    private boolean backgroundWarmup;
+
+    private final Warmup warmup = new Warmup("cost ledger");
+
     private final ObjectMapper mapper;
     private final List<CostEntry> currentMonthCosts = Collections.synchronizedList(new ArrayList<>());
 
@@ -31,6 +37,10 @@ public class CostTrackerService {
         "opus", new double[]{15.0, 75.0}
     );
 
+    // Prompt cache reads and writes, relative to the input price
+    private static final double CACHE_READ_FACTOR = 0.1;
+    private static final double CACHE_WRITE_FACTOR = 1.25;
+
     public CostTrackerService() {
         this.mapper = new ObjectMapper();
         this.mapper.registerModule(new JavaTimeModule());
@@ -46,7 +56,7 @@ public class CostTrackerService {
 
     @PostConstruct
     public void init() {
-        loadCurrentMonthCosts();
+        warmup.run(backgroundWarmup, this::loadCurrentMonthCosts);
     }
 
     public double calculateCost(String model, long inputTokens, long outputTokens) {
@@ -56,19 +66,38 @@ public class CostTrackerService {
         return inputCost + outputCost;
     }
 
+    public double calculateCost(String model, ClaudeUsage usage) {
+        double[] pricing = MODEL_PRICING.getOrDefault(model.toLowerCase(), MODEL_PRICING.get("sonnet"));
+        double cacheCost = (usage.getCacheReadTokens() * CACHE_READ_FACTOR +
+            usage.getCacheCreationTokens() * CACHE_WRITE_FACTOR) * pricing[0] / 1_000_000.0;
+        return calculateCost(model, usage.getInputTokens(), usage.getOutputTokens()) + cacheCost;
+    }
+
     public CostEntry recordCost(String channelId, String taskId, String model, long inputTokens, long outputTokens) {
-        double cost = calculateCost(model, inputTokens, outputTokens);
+        return recordCost(channelId, taskId, model,
+            ClaudeUsage.builder().inputTokens(inputTokens).outputTokens(outputTokens).build(), null);
+    }
 
+    /**
+     * Records a task's tokens, including prompt cache reads and writes, and the hash of the
+     * system prompt it ran with.
+     */
+    public CostEntry recordCost(String channelId, String taskId, String model, ClaudeUsage usage, String promptPrefix) {
         CostEntry entry = CostEntry.builder()
             .timestamp(Instant.now())
             .channelId(channelId)
             .taskId(taskId)
             .model(model)
-            .inputTokens(inputTokens)
-            .outputTokens(outputTokens)
-            .costUsd(cost)
+            .inputTokens(usage.getInputTokens())
+            .outputTokens(usage.getOutputTokens())
+            .cacheReadTokens(usage.getCacheReadTokens())
+            .cacheCreationTokens(usage.getCacheCreationTokens())
+            .promptPrefix(promptPrefix)
+            .costUsd(calculateCost(model, usage))
             .build();
 
+        // The ledger load must finish first, or it could read this entry back from the file too
+        warmup.await();
         currentMonthCosts.add(entry);
         persistEntry(entry);
 
@@ -76,6 +105,7 @@ public class CostTrackerService {
     }
 
     public double getMonthlySpend() {
+        warmup.await();
         return currentMonthCosts.stream()
             .mapToDouble(CostEntry::getCostUsd)
             .sum();
@@ -89,11 +119,32 @@ public class CostTrackerService {
         return getBudgetPercentage() >= 80.0;
     }
 
+    /**
+     * Share of this month's input tokens served from the prompt cache, 0-100.
+     */
+    public double getCacheHitPercentage() {
+        warmup.await();
+        long cached = 0;
+        long input = 0;
+        synchronized (currentMonthCosts) {
+            for (CostEntry entry : currentMonthCosts) {
+                cached += entry.getCacheReadTokens();
+                input += entry.getInputTokens() + entry.getCacheReadTokens() + entry.getCacheCreationTokens();
+            }
+        }
+        return input == 0 ? 0.0 : cached * 100.0 / input;
+    }
+
     public String formatCostSummary(CostEntry entry) {
-        return String.format("$%.2f (%s, %dK tokens)",
+        long input = entry.getInputTokens() + entry.getCacheReadTokens() + entry.getCacheCreationTokens();
+        String summary = String.format("$%.2f (%s, %dK tokens",
             entry.getCostUsd(),
             entry.getModel(),
-            (entry.getInputTokens() + entry.getOutputTokens()) / 1000);
+            (input + entry.getOutputTokens()) / 1000);
+        if (entry.getCacheReadTokens() > 0) {
+            summary += String.format(", %.0f%% of input cached", entry.getCacheReadTokens() * 100.0 / input);
+        }
+        return summary + ")";
     }
 
     public String formatBudgetStatus() {
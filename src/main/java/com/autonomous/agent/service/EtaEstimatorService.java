@@ -0,0 +1,135 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.HistoryPage;
+import com.autonomous.agent.model.TaskEstimate;
+import com.autonomous.agent.model.TaskRecord;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Predicts how long tasks take and what they cost from finished-task history.
+ *
+ * Durations and costs go into quantile sketches per channel+model, with channel-wide,
+ * model-wide and global sketches as fallbacks while a pair has too few samples. Remaining
+ * time for a running task is the duration distribution conditioned on what has already
+ * elapsed, so a task past the median doesn't report a negative ETA.
+ */
+@Service
+public class EtaEstimatorService {
+
+    private static final double RELATIVE_ACCURACY = 0.02;
+    private static final int SEED_PAGES = 50;
+    private static final String ANY = "*";
+
+    @Value("${agent.eta.min-samples:5}")
+    private int minSamples = 5;
+
+    @Autowired(required = false)
+    private TaskHistoryService taskHistory;
+
+    @Value("${agent.startup.background-warmup:true}")
+    private boolean backgroundWarmup;
+
+    private final Warmup warmup = new Warmup("ETA sketches");
+
+    private final Map<String, Sketches> sketches = new HashMap<>();
+
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Estimates from whatever history is seeded so far rather than waiting
+        warmup.run(backgroundWarmup, this::loadHistory);
+    }
+
+    public void loadHistory() {
+        if (taskHistory == null) return;
+        int seeded = 0;
+        for (int page = 0; page < SEED_PAGES; page++) {
+            HistoryPage records = taskHistory.query(null, null, null, null, null, page, 100);
+            records.getItems().forEach(this::observe);
+            seeded += records.getItems().size();
+            if ((page + 1) * records.getSize() >= records.getTotal()) break;
+        }
+        System.out.println("ETA estimator seeded from " + seeded + " past tasks");
+    }
+
+    /**
+     * Adds a finished task. Cancelled tasks stopped early, so their durations would skew low.
+     */
+    public synchronized void observe(TaskRecord record) {
+        if ("CANCELLED".equals(record.getStatus()) || record.getDurationMs() <= 0) {
+            return;
+        }
+        String channel = String.valueOf(record.getChannelId());
+        String model = String.valueOf(record.getModel()).toLowerCase();
+        for (String key : List.of(key(channel, model), key(channel, ANY), key(ANY, model), key(ANY, ANY))) {
+            Sketches s = sketches.computeIfAbsent(key, k -> new Sketches());
+            s.durations.add(record.getDurationMs());
+            s.costs.add(record.getCostUsd());
+        }
+    }
+
+    /**
+     * Remaining time and total cost for a task that has been running for {@code elapsed}.
+     */
+    public synchronized Optional<TaskEstimate> estimate(String channelId, String model, Duration elapsed) {
+        Sketches s = lookup(channelId, model);
+        if (s == null) {
+            return Optional.empty();
+        }
+        long elapsedMs = elapsed.toMillis();
+        double done = s.durations.rank(elapsedMs);
+        return Optional.of(TaskEstimate.builder()
+            .remainingP50Ms(Math.max(0, (long) s.durations.quantile(done + (1 - done) * 0.5) - elapsedMs))
+            .remainingP90Ms(Math.max(0, (long) s.durations.quantile(done + (1 - done) * 0.9) - elapsedMs))
+            .costP50Usd(s.costs.quantile(0.5))
+            .costP90Usd(s.costs.quantile(0.9))
+            .samples(s.durations.count())
+            .overrun(done >= 0.99)
+            .build());
+    }
+
+    /**
+     * Median duration of a task that hasn't started yet.
+     */
+    public synchronized Optional<Duration> typicalDuration(String channelId, String model) {
+        Sketches s = lookup(channelId, model);
+        return s == null ? Optional.empty() : Optional.of(Duration.ofMillis((long) s.durations.quantile(0.5)));
+    }
+
+    public static String formatDuration(Duration duration) {
+        long seconds = duration.getSeconds();
+        if (seconds < 60) return seconds + "s";
+        if (seconds < 3600) return Math.round(seconds / 60.0) + " min";
+        return String.format("%dh %02dm", seconds / 3600, (seconds % 3600) / 60);
+    }
+
+    private Sketches lookup(String channelId, String model) {
+        String channel = String.valueOf(channelId);
+        String m = String.valueOf(model).toLowerCase();
+        for (String key : List.of(key(channel, m), key(channel, ANY), key(ANY, m), key(ANY, ANY))) {
+            Sketches s = sketches.get(key);
+            if (s != null && s.durations.count() >= minSamples) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    private static String key(String channelId, String model) {
+        return channelId + "|" + model;
+    }
+
+    private static final class Sketches {
+        private final QuantileSketch durations = new QuantileSketch(RELATIVE_ACCURACY);
+        private final QuantileSketch costs = new QuantileSketch(RELATIVE_ACCURACY);
+    }
+}
@@ -0,0 +1,315 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.PullRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Opens and edits pull requests through the GitHub REST API, so a task doesn't start a
+ * {@code gh} process (and its auth lookup) for every PR. One HTTP/2 client is shared by all
+ * tasks and keeps its connections open between them.
+ *
+ * Rate limits are read from every response: once {@code x-ratelimit-remaining} hits 0,
+ * requests wait for {@code x-ratelimit-reset}, and 429s or secondary-limit 403s are retried
+ * after {@code Retry-After}, as long as the wait is under {@code github.rate-limit.max-wait-seconds}.
+ * Draft state can only be changed through GraphQL, so {@link #setDraft} goes there.
+ */
+@Service
+public class GitHubClient {
+
+    private static final int ATTEMPTS = 3;
+    private static final String API_VERSION = "2022-11-28";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    // git@host:owner/repo.git, https://[user@]host/owner/repo, ssh://git@host:22/owner/repo.git
+    private static final Pattern REMOTE =
+        Pattern.compile("^(?:[a-z][a-z0-9+.-]*://)?(?:[^@/]+@)?([^:/]+)(?::\\d+)?[:/]([^/]+/[^/]+?)(?:\\.git)?/?$");
+
+    private static final String TO_DRAFT =
+        "mutation($id: ID!) { convertPullRequestToDraft(input: {pullRequestId: $id}) { pullRequest { isDraft } } }";
+    private static final String TO_READY =
+        "mutation($id: ID!) { markPullRequestReadyForReview(input: {pullRequestId: $id}) { pullRequest { isDraft } } }";
+
+    // GitHub Enterprise: https://HOST/api/v3
+    @Value("${github.api.url:https://api.github.com}")
+    private String apiUrl = "https://api.github.com";
+
+    @Value("${github.token:}")
+    private String token;
+
+    @Value("${github.rate-limit.max-wait-seconds:60}")
+    private long maxWaitSeconds = 60;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+
+    private volatile int rateLimitRemaining = -1;
+    private volatile long rateLimitReset;  // epoch seconds
+
+    public void setApiUrl(String apiUrl) {
+        this.apiUrl = apiUrl;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public void setMaxWaitSeconds(long maxWaitSeconds) {
+        this.maxWaitSeconds = maxWaitSeconds;
+    }
+
+    /**
+     * Whether there's a token to call the API with; without one PRs go through {@code gh}.
+     */
+    public boolean isConfigured() {
+        return token != null && !token.isBlank();
+    }
+
+    /**
+     * {@code owner/repo} for a remote on the GitHub host this client talks to, otherwise null.
+     */
+    public String repository(String remoteUrl) {
+        if (remoteUrl == null) {
+            return null;
+        }
+        Matcher matcher = REMOTE.matcher(remoteUrl.trim());
+        return matcher.matches() && matcher.group(1).equalsIgnoreCase(webHost()) ? matcher.group(2) : null;
+    }
+
+    public PullRequest createPullRequest(String repo, String title, String body, String base, String head,
+                                         boolean draft) throws IOException {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("title", title);
+        request.put("body", body);
+        request.put("base", base);
+        request.put("head", head);
+        request.put("draft", draft);
+        try {
+            return pullRequest(send("POST", apiUrl() + "/repos/" + repo + "/pulls", request));
+        } catch (GitHubException e) {
+            // A retried task pushes to the same branch; its open PR is the one to report
+            if (e.getStatus() == 422) {
+                Optional<PullRequest> existing = findOpenPullRequest(repo, head);
+                if (existing.isPresent()) {
+                    return existing.get();
+                }
+            }
+            throw e;
+        }
+    }
+
+    public Optional<PullRequest> findOpenPullRequest(String repo, String head) throws IOException {
+        String owner = repo.substring(0, repo.indexOf('/'));
+        JsonNode pulls = send("GET", apiUrl() + "/repos/" + repo + "/pulls?state=open&head=" +
+            URLEncoder.encode(owner + ":" + head, StandardCharsets.UTF_8), null);
+        return pulls.isArray() && pulls.size() > 0 ? Optional.of(pullRequest(pulls.get(0))) : Optional.empty();
+    }
+
+    /**
+     * Changes the title and/or body; null leaves that field as it is.
+     */
+    public PullRequest updatePullRequest(String repo, int number, String title, String body) throws IOException {
+        Map<String, Object> request = new LinkedHashMap<>();
+        if (title != null) {
+            request.put("title", title);
+        }
+        if (body != null) {
+            request.put("body", body);
+        }
+        return pullRequest(send("PATCH", apiUrl() + "/repos/" + repo + "/pulls/" + number, request));
+    }
+
+    public void addLabels(String repo, int number, List<String> labels) throws IOException {
+        if (labels == null || labels.isEmpty()) {
+            return;
+        }
+        send("POST", apiUrl() + "/repos/" + repo + "/issues/" + number + "/labels", Map.of("labels", labels));
+    }
+
+    public PullRequest setDraft(PullRequest pullRequest, boolean draft) throws IOException {
+        if (pullRequest.isDraft() == draft) {
+            return pullRequest;
+        }
+        Map<String, Object> request = Map.of(
+            "query", draft ? TO_DRAFT : TO_READY,
+            "variables", Map.of("id", pullRequest.getNodeId()));
+        JsonNode response = send("POST", graphqlUrl(), request);
+        JsonNode errors = response.path("errors");
+        if (errors.isArray() && errors.size() > 0) {
+            throw new GitHubException(200, "GraphQL: " + errors.get(0).path("message").asText());
+        }
+        pullRequest.setDraft(response.findPath("isDraft").asBoolean(draft));
+        return pullRequest;
+    }
+
+    private JsonNode send(String method, String url, Object body) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            awaitRateLimit();
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/vnd.github+json")
+                .header("X-GitHub-Api-Version", API_VERSION)
+                .header("Authorization", "Bearer " + token)
+                .header("User-Agent", "slack-claude-agent");
+            if (body != null) {
+                request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)));
+            } else {
+                request.method(method, HttpRequest.BodyPublishers.noBody());
+            }
+
+            HttpResponse<byte[]> response;
+            try {
+                response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted calling GitHub " + method + " " + url);
+            }
+            recordRateLimit(response.headers());
+
+            int status = response.statusCode();
+            if (status >= 200 && status < 300) {
+                return response.body().length == 0 ? mapper.missingNode() : mapper.readTree(response.body());
+            }
+            long delayMs = retryDelayMs(status, response.headers(), attempt);
+            if (delayMs < 0 || attempt == ATTEMPTS) {
+                throw new GitHubException(status, method + " " + url + " failed with " + status + ": " +
+                    errorMessage(response.body()));
+            }
+            System.err.println("GitHub answered " + status + " to " + method + " " + url +
+                ", retrying in " + delayMs + "ms");
+            sleep(delayMs);
+        }
+    }
+
+    /**
+     * How long to wait before retrying, or -1 when the response isn't worth retrying.
+     */
+    private long retryDelayMs(int status, HttpHeaders headers, int attempt) {
+        if (status >= 500) {
+            return 1000L * attempt;
+        }
+        Optional<String> retryAfter = headers.firstValue("retry-after");
+        boolean limited = status == 429 || (status == 403 && (retryAfter.isPresent() || rateLimitRemaining == 0));
+        if (!limited) {
+            return -1;
+        }
+        long delayMs = retryAfter.filter(value -> value.matches("\\d+"))
+            .map(value -> Long.parseLong(value) * 1000)
+            .orElseGet(() -> Math.max(0, rateLimitReset * 1000 - System.currentTimeMillis()));
+        return delayMs <= maxWaitSeconds * 1000 ? delayMs : -1;
+    }
+
+    private void awaitRateLimit() throws IOException {
+        if (rateLimitRemaining != 0) {
+            return;
+        }
+        long waitMs = rateLimitReset * 1000 - System.currentTimeMillis();
+        if (waitMs <= 0) {
+            return;
+        }
+        if (waitMs > maxWaitSeconds * 1000) {
+            throw new GitHubException(403, "GitHub rate limit exhausted for another " + waitMs / 1000 + "s");
+        }
+        System.err.println("GitHub rate limit exhausted, waiting " + waitMs + "ms");
+        sleep(waitMs);
+    }
+
+    private void recordRateLimit(HttpHeaders headers) {
+        Optional<String> remaining = headers.firstValue("x-ratelimit-remaining").filter(v -> v.matches("\\d+"));
+        Optional<String> reset = headers.firstValue("x-ratelimit-reset").filter(v -> v.matches("\\d+"));
+        if (remaining.isPresent() && reset.isPresent()) {
+            rateLimitReset = Long.parseLong(reset.get());
+            rateLimitRemaining = Integer.parseInt(remaining.get());
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting out a GitHub rate limit");
+        }
+    }
+
+    private String errorMessage(byte[] body) {
+        try {
+            JsonNode error = mapper.readTree(body);
+            StringBuilder message = new StringBuilder(error.path("message").asText(""));
+            for (JsonNode detail : error.path("errors")) {
+                String text = detail.path("message").asText(detail.path("code").asText(""));
+                if (!text.isEmpty()) {
+                    message.append(" (").append(text).append(')');
+                }
+            }
+            return message.toString();
+        } catch (Exception e) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static PullRequest pullRequest(JsonNode node) {
+        return PullRequest.builder()
+            .number(node.path("number").asInt())
+            .url(node.path("html_url").asText(null))
+            .nodeId(node.path("node_id").asText(null))
+            .state(node.path("state").asText(null))
+            .draft(node.path("draft").asBoolean(false))
+            .build();
+    }
+
+    private String apiUrl() {
+        return apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+    }
+
+    private String graphqlUrl() {
+        String base = apiUrl();
+        return base.endsWith("/api/v3") ? base.substring(0, base.length() - "/v3".length()) + "/graphql" : base + "/graphql";
+    }
+
+    // api.github.com serves github.com; an Enterprise API lives on the same host as its repos
+    private String webHost() {
+        String host = URI.create(apiUrl()).getHost();
+        return host != null && host.startsWith("api.") ? host.substring("api.".length()) : host;
+    }
+
+    /**
+     * A GitHub API call that failed, with the HTTP status it failed with.
+     */
+    public static class GitHubException extends IOException {
+
+        private final int status;
+
+        public GitHubException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+}
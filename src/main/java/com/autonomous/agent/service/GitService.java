@@ -1,196 +1,155 @@
 package com.autonomous.agent.service;
 
-import org.springframework.stereotype.Service;
-
-import java.io.*;
-import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-@Service
-public class GitService {
-
-    private static final Pattern DIFF_STATS_PATTERN =
-        Pattern.compile("(\\d+) files? changed(?:, (\\d+) insertions?\\(\\+\\))?(?:, (\\d+) deletions?\\(-\\))?");
-
-    public String generateBranchName(String channelName, String taskId) {
+import com.autonomous.agent.model.CloneOptions;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Git and pull request operations on a channel's clone. {@code agent.git.backend} picks
+ * the implementation: {@link JGitService} (in-process, the default) or
+ * {@link CliGitService} (one {@code git} process per operation).
+ */
+public interface GitService {
+
+    default String generateBranchName(String channelName, String taskId) {
         return generateBranchName(channelName, taskId, "agent");
     }
 
-    public String generateBranchName(String channelName, String taskId, String prefix) {
+    default String generateBranchName(String channelName, String taskId, String prefix) {
         return String.format("%s/%s/%s", prefix, channelName, taskId);
     }
 
-    public boolean ensureRepoCloned(String repoUrl, String clonePath) {
-        File repoDir = new File(clonePath);
-
-        // If directory exists and has .git, repo is already cloned
-        if (repoDir.exists() && new File(repoDir, ".git").exists()) {
-            // Pull latest changes
-            runGitCommand(clonePath, "git", "fetch", "origin");
-            runGitCommand(clonePath, "git", "checkout", "main");
-            runGitCommand(clonePath, "git", "pull", "origin", "main");
-            return true;
-        }
-
-        // Create parent directory if needed
-        repoDir.getParentFile().mkdirs();
-
-        // Clone the repo
-        try {
-            ProcessBuilder pb = new ProcessBuilder("git", "clone", repoUrl, clonePath);
-            pb.redirectErrorStream(true);
-
-            Process process = pb.start();
-            String output = readProcessOutput(process);
-            boolean finished = process.waitFor(5, TimeUnit.MINUTES);
-
-            if (!finished) {
-                process.destroyForcibly();
-                System.err.println("Clone timed out");
-                return false;
-            }
-
-            if (process.exitValue() != 0) {
-                System.err.println("Clone failed: " + output);
-                return false;
-            }
-
-            return true;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        }
+    default boolean ensureRepoCloned(String repoUrl, String clonePath) {
+        return ensureRepoCloned(repoUrl, clonePath, getDefaultBranch(clonePath));
     }
 
-    public boolean createBranch(String repoPath, String branchName) {
-        // Make sure we're on main first
-        runGitCommand(repoPath, "git", "checkout", "main");
-        return runGitCommand(repoPath, "git", "checkout", "-b", branchName);
+    default boolean ensureRepoCloned(String repoUrl, String clonePath, String defaultBranch) {
+        return ensureRepoCloned(repoUrl, clonePath, defaultBranch, null);
     }
 
-    public boolean commitAll(String repoPath, String message) {
-        runGitCommand(repoPath, "git", "add", "-A");
-        return runGitCommand(repoPath, "git", "commit", "-m", message);
-    }
+    /**
+     * Clones the repo, or brings an existing clone up to date on {@code defaultBranch}.
+     * {@code options} (may be null) makes the clone partial, shallow and/or sparse; the
+     * sparse paths are re-applied on every update so config changes take effect.
+     */
+    boolean ensureRepoCloned(String repoUrl, String clonePath, String defaultBranch, CloneOptions options);
 
-    public boolean push(String repoPath, String branchName) {
-        return runGitCommand(repoPath, "git", "push", "-u", "origin", branchName);
-    }
+    /**
+     * Fetches {@code commits} more commits of history into a shallow clone. False when
+     * the clone isn't shallow or the fetch failed.
+     */
+    boolean deepen(String repoPath, int commits);
 
-    public String createPullRequest(String repoPath, String title, String body, String targetBranch) {
-        try {
-            ProcessBuilder pb = new ProcessBuilder(
-                "gh", "pr", "create",
-                "--title", title,
-                "--body", body,
-                "--base", targetBranch
-            );
-            pb.directory(new File(repoPath));
-            pb.redirectErrorStream(true);
-
-            Process process = pb.start();
-            String output = readProcessOutput(process);
-            boolean finished = process.waitFor(60, TimeUnit.SECONDS);
-
-            if (finished && process.exitValue() == 0) {
-                return output.trim();
-            }
-            return null;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
+    boolean checkoutBranch(String repoPath, String branchName);
 
-    public String getDiffStats(String repoPath, String baseBranch) {
-        try {
-            ProcessBuilder pb = new ProcessBuilder(
-                "git", "diff", "--stat", baseBranch + "..HEAD"
-            );
-            pb.directory(new File(repoPath));
-            pb.redirectErrorStream(true);
-
-            Process process = pb.start();
-            String output = readProcessOutput(process);
-            process.waitFor(30, TimeUnit.SECONDS);
-
-            return parseDiffStats(output);
-        } catch (Exception e) {
-            return "unknown";
-        }
+    default boolean createBranch(String repoPath, String branchName) {
+        return createBranch(repoPath, branchName, getDefaultBranch(repoPath));
     }
 
-    public String parseDiffStats(String diffOutput) {
-        Matcher matcher = DIFF_STATS_PATTERN.matcher(diffOutput);
-        if (matcher.find()) {
-            int files = Integer.parseInt(matcher.group(1));
-            int insertions = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
-            int deletions = matcher.group(3) != null ? Integer.parseInt(matcher.group(3)) : 0;
-            return String.format("%d files (+%d / -%d)", files, insertions, deletions);
-        }
-        return "no changes";
+    boolean createBranch(String repoPath, String branchName, String baseBranch);
+
+    /**
+     * Puts the workspace back on a clean copy of origin's branch, discarding any
+     * leftovers from a previous task. Ignored files (dependencies, caches) are kept.
+     */
+    boolean resetWorkspace(String repoPath, String branch);
+
+    /**
+     * Checks out a new branch from startPoint in a separate worktree of the repo, so
+     * several tasks can work on the same clone without touching each other's files.
+     */
+    boolean addWorktree(String repoPath, String worktreePath, String branchName, String startPoint);
+
+    boolean removeWorktree(String repoPath, String worktreePath);
+
+    /**
+     * Merges branchName into the current branch, aborting cleanly on conflicts.
+     */
+    boolean mergeBranch(String repoPath, String branchName);
+
+    /**
+     * Returns the commit HEAD points at, or null if it can't be resolved.
+     */
+    String getHeadCommit(String repoPath);
+
+    /**
+     * Files in {@code commit}'s tree mapped to their blob ids, submodules left out, or null
+     * when the commit can't be read. Includes files a sparse checkout leaves out.
+     */
+    Map<String, String> listFiles(String repoPath, String commit);
+
+    /**
+     * Hands each blob's content to {@code reader}, skipping blobs over {@code maxBytes}
+     * and ones that don't exist. Returns false if the blobs couldn't be read.
+     */
+    boolean readBlobs(String repoPath, Collection<String> blobIds, long maxBytes, BiConsumer<String, byte[]> reader);
+
+    /**
+     * The last {@code count} non-merge commits on HEAD as short hash, subject and the
+     * first files they touched, e.g. {@code a1b2c3d Fix login redirect: src/Login.java}.
+     */
+    List<String> getRecentCommits(String repoPath, int count);
+
+    /**
+     * Resolves the remote's default branch from origin/HEAD, falling back to main.
+     */
+    String getDefaultBranch(String repoPath);
+
+    /**
+     * Whether the working tree has anything to commit, untracked files included.
+     */
+    boolean hasChanges(String repoPath);
+
+    boolean commitAll(String repoPath, String message);
+
+    boolean push(String repoPath, String branchName);
+
+    default String createPullRequest(String repoPath, String title, String body, String targetBranch) {
+        return createPullRequest(repoPath, title, body, targetBranch, null, false);
     }
 
-    public String runTests(String repoPath, String testCommand) {
-        try {
-            String[] cmdParts = testCommand.split("\\s+");
-            ProcessBuilder pb = new ProcessBuilder(cmdParts);
-            pb.directory(new File(repoPath));
-            pb.redirectErrorStream(true);
-
-            Process process = pb.start();
-            String output = readProcessOutput(process);
-            boolean finished = process.waitFor(5, TimeUnit.MINUTES);
-
-            if (!finished) {
-                process.destroyForcibly();
-                return "Tests timed out after 5 minutes";
-            }
-
-            if (process.exitValue() == 0) {
-                return parseTestOutput(output);
-            } else {
-                return "Tests failed:\n" + output;
-            }
-        } catch (Exception e) {
-            return "Failed to run tests: " + e.getMessage();
-        }
-    }
+    /**
+     * Opens a PR from {@code headBranch} (the checked-out branch when null), optionally as a draft.
+     */
+    String createPullRequest(String repoPath, String title, String body, String targetBranch,
+                             String headBranch, boolean draft);
 
-    private String parseTestOutput(String output) {
-        if (output.contains("BUILD SUCCESSFUL") || output.contains("Tests passed")) {
-            return "All tests passed";
-        }
-        return output.substring(0, Math.min(500, output.length()));
-    }
+    /**
+     * Files changed, insertions and deletions between {@code baseBranch} and HEAD,
+     * e.g. {@code 4 files (+234 / -12)}.
+     */
+    String getDiffStats(String repoPath, String baseBranch);
 
-    private boolean runGitCommand(String repoPath, String... command) {
-        try {
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.directory(new File(repoPath));
-            pb.redirectErrorStream(true);
-
-            Process process = pb.start();
-            readProcessOutput(process);
-            boolean finished = process.waitFor(60, TimeUnit.SECONDS);
-
-            return finished && process.exitValue() == 0;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        }
+    default String runTests(String repoPath, String testCommand) {
+        return runTests(repoPath, testCommand, Map.of());
     }
 
-    private String readProcessOutput(Process process) throws IOException {
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-        }
-        return output.toString();
+    String runTests(String repoPath, String testCommand, Map<String, String> environment);
+
+    /**
+     * Deletes local branches under {@code branchPrefix} that are merged into
+     * {@code baseBranch}, whose upstream is gone, or whose last commit is older than
+     * {@code maxAge}. The checked-out branch is kept. Returns how many were deleted.
+     */
+    int pruneBranches(String repoPath, String branchPrefix, String baseBranch, Duration maxAge);
+
+    /**
+     * Number of loose objects in the repo, or -1 when it can't be read.
+     */
+    long countLooseObjects(String repoPath);
+
+    /**
+     * Expires reflogs of unreachable commits, repacks and prunes unreachable objects.
+     */
+    boolean gc(String repoPath);
+
+    boolean isIgnored(String repoPath, String path);
+
+    static String formatDiffStats(int files, int insertions, int deletions) {
+        return files == 0 ? "no changes" : String.format("%d files (+%d / -%d)", files, insertions, deletions);
     }
 }
@@ -0,0 +1,108 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.QueuedTask;
+import com.autonomous.agent.model.TaskLease;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Single-node queue per channel, ordered by priority with aging (see
+ * {@link TaskQueue#priorityKey}). Leases never expire since the node that holds them
+ * is the only one that could run the task.
+ */
+@Service
+@ConditionalOnProperty(name = "agent.queue.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTaskQueue implements TaskQueue {
+
+    @Value("${agent.queue.aging-minutes:10}")
+    private long agingMinutes = 10;
+
+    private final Map<String, PriorityQueue<QueuedTask>> queues = new HashMap<>();
+
+    public void setAgingMinutes(long agingMinutes) {
+        this.agingMinutes = agingMinutes;
+    }
+
+    @Override
+    public synchronized void enqueue(QueuedTask task) {
+        if (task.getEnqueuedAt() == null) {
+            task.setEnqueuedAt(Instant.now());
+        }
+        queues.computeIfAbsent(task.getChannelId(), k -> new PriorityQueue<>(
+            Comparator.comparingLong(this::key).thenComparing(QueuedTask::getEnqueuedAt)))
+            .add(task);
+    }
+
+    @Override
+    public synchronized Optional<TaskLease> poll(String nodeId, String channelId) {
+        PriorityQueue<QueuedTask> queue = queues.get(channelId);
+        QueuedTask next = queue != null ? queue.poll() : null;
+        return Optional.ofNullable(next).map(task -> lease(nodeId, task));
+    }
+
+    @Override
+    public synchronized Optional<TaskLease> pollAny(String nodeId, Predicate<QueuedTask> eligible,
+                                                    Predicate<QueuedTask> preferred) {
+        QueuedTask best = null;
+        for (PriorityQueue<QueuedTask> queue : queues.values()) {
+            QueuedTask head = queue.peek();
+            if (head == null || !eligible.test(head)) {
+                continue;
+            }
+            if (best == null || preferred.test(head) && !preferred.test(best)
+                || preferred.test(head) == preferred.test(best) && key(head) < key(best)) {
+                best = head;
+            }
+        }
+        if (best == null) {
+            return Optional.empty();
+        }
+        queues.get(best.getChannelId()).remove(best);
+        return Optional.of(lease(nodeId, best));
+    }
+
+    @Override
+    public boolean heartbeat(TaskLease lease) {
+        return true;
+    }
+
+    @Override
+    public void complete(TaskLease lease) {
+        // Nothing to release: leased tasks were already removed from the queue
+    }
+
+    @Override
+    public synchronized List<QueuedTask> pending(String channelId) {
+        PriorityQueue<QueuedTask> queue = queues.get(channelId);
+        if (queue == null) {
+            return List.of();
+        }
+        List<QueuedTask> tasks = new ArrayList<>(queue);
+        tasks.sort(queue.comparator());
+        return tasks;
+    }
+
+    @Override
+    public boolean isChannelLeased(String channelId) {
+        return false;
+    }
+
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
+    private long key(QueuedTask task) {
+        return TaskQueue.priorityKey(task.getPriority(), task.getEnqueuedAt(), Duration.ofMinutes(agingMinutes));
+    }
+
+    private TaskLease lease(String nodeId, QueuedTask task) {
+        return TaskLease.builder().task(task).nodeId(nodeId).build();
+    }
+}
@@ -0,0 +1,423 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.CloneOptions;
+import org.eclipse.jgit.api.CheckoutCommand;
+import org.eclipse.jgit.api.CreateBranchCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.errors.EmptyCommitException;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.util.FS;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs git operations in-process with JGit ({@code agent.git.backend=jgit}, the default),
+ * so a task no longer forks a {@code git} process for every status, branch, commit and
+ * diff. Diff stats come from a tree walk rather than parsing {@code --stat} text.
+ *
+ * Fetch, clone and push run in-process when origin is a local path or {@code file:} URL.
+ * Network remotes still go through {@link CliGitService}, because they depend on the
+ * user's credential helpers and SSH agent. So do worktrees (JGit can't create them, and
+ * a worktree's {@code .git} is a file), merges, PR creation, test runs, repo maintenance,
+ * and every clone made with {@code clone_options}: JGit can't make or read partial
+ * clones and ignores sparse checkouts.
+ */
+@Service
+@ConditionalOnProperty(name = "agent.git.backend", havingValue = "jgit", matchIfMissing = true)
+public class JGitService implements GitService {
+
+    private static final String ORIGIN = "origin";
+
+    private final CliGitService cli = new CliGitService();
+
+    @Autowired(required = false)
+    public void setProcessSupervisor(ProcessSupervisor processSupervisor) {
+        cli.setProcessSupervisor(processSupervisor);
+    }
+
+    @Autowired(required = false)
+    public void setGitHubClient(GitHubClient gitHub) {
+        cli.setGitHubClient(gitHub);
+    }
+
+    @Override
+    public boolean ensureRepoCloned(String repoUrl, String clonePath, String defaultBranch, CloneOptions options) {
+        File repoDir = new File(clonePath);
+        if (options != null && !options.isFull()) {
+            return cli.ensureRepoCloned(repoUrl, clonePath, defaultBranch, options);
+        }
+        if (new File(repoDir, ".git").exists()) {
+            if (!ownsRepo(clonePath) || !isLocal(originUrl(clonePath))) {
+                return cli.ensureRepoCloned(repoUrl, clonePath, defaultBranch, options);
+            }
+            // Like fetch + checkout + pull, where a failed step doesn't fail the task
+            return inProcess(clonePath, "pull", true, git -> {
+                git.fetch().setRemote(ORIGIN).call();
+                try {
+                    checkout(git, defaultBranch, false);
+                    Ref upstream = git.getRepository().exactRef(Constants.R_REMOTES + ORIGIN + "/" + defaultBranch);
+                    if (upstream != null) {
+                        git.merge().include(upstream).call();
+                    }
+                } catch (GitAPIException | IOException e) {
+                    System.err.println("Couldn't update " + defaultBranch + " in " + clonePath + ": " + e.getMessage());
+                }
+                return true;
+            });
+        }
+        if (!isLocal(repoUrl)) {
+            return cli.ensureRepoCloned(repoUrl, clonePath, defaultBranch, options);
+        }
+
+        repoDir.getParentFile().mkdirs();
+        try (Git git = Git.cloneRepository().setURI(repoUrl).setDirectory(repoDir).call()) {
+            Repository repo = git.getRepository();
+            // git clone records the remote's default branch; getDefaultBranch reads it back
+            if (repo.exactRef(Constants.R_REMOTES + ORIGIN + "/" + Constants.HEAD) == null && repo.getBranch() != null) {
+                RefUpdate update = repo.updateRef(Constants.R_REMOTES + ORIGIN + "/" + Constants.HEAD);
+                update.link(Constants.R_REMOTES + ORIGIN + "/" + repo.getBranch());
+            }
+            return true;
+        } catch (Exception e) {
+            System.err.println("Clone failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean deepen(String repoPath, int commits) {
+        return cli.deepen(repoPath, commits);
+    }
+
+    @Override
+    public boolean checkoutBranch(String repoPath, String branchName) {
+        if (!ownsRepo(repoPath)) return cli.checkoutBranch(repoPath, branchName);
+        return inProcess(repoPath, "checkout", false, git -> {
+            checkout(git, branchName, false);
+            return true;
+        });
+    }
+
+    @Override
+    public boolean createBranch(String repoPath, String branchName, String baseBranch) {
+        if (!ownsRepo(repoPath)) return cli.createBranch(repoPath, branchName, baseBranch);
+        return inProcess(repoPath, "checkout -b", false, git -> {
+            try {
+                checkout(git, baseBranch, false);
+            } catch (GitAPIException | IOException e) {
+                // As with the CLI, branch from wherever HEAD is
+                System.err.println("Couldn't check out " + baseBranch + ": " + e.getMessage());
+            }
+            git.checkout().setCreateBranch(true).setName(branchName).call();
+            return true;
+        });
+    }
+
+    @Override
+    public boolean resetWorkspace(String repoPath, String branch) {
+        if (!ownsRepo(repoPath)) return cli.resetWorkspace(repoPath, branch);
+        return inProcess(repoPath, "reset", false, git -> {
+            try {
+                checkout(git, branch, true);
+            } catch (GitAPIException | IOException e) {
+                System.err.println("Couldn't check out " + branch + ": " + e.getMessage());
+            }
+            boolean reset = true;
+            try {
+                git.reset().setMode(ResetCommand.ResetType.HARD).setRef(ORIGIN + "/" + branch).call();
+            } catch (GitAPIException e) {
+                reset = false;
+            }
+            // Ignored files stay (CleanCommand skips them unless setIgnore(false))
+            git.clean().setCleanDirectories(true).call();
+            return reset;
+        });
+    }
+
+    @Override
+    public boolean addWorktree(String repoPath, String worktreePath, String branchName, String startPoint) {
+        return cli.addWorktree(repoPath, worktreePath, branchName, startPoint);
+    }
+
+    @Override
+    public boolean removeWorktree(String repoPath, String worktreePath) {
+        return cli.removeWorktree(repoPath, worktreePath);
+    }
+
+    @Override
+    public boolean mergeBranch(String repoPath, String branchName) {
+        return cli.mergeBranch(repoPath, branchName);
+    }
+
+    @Override
+    public String getHeadCommit(String repoPath) {
+        if (!ownsRepo(repoPath)) return cli.getHeadCommit(repoPath);
+        return inProcess(repoPath, "rev-parse", null, git -> {
+            ObjectId head = git.getRepository().resolve(Constants.HEAD);
+            return head != null ? head.name() : null;
+        });
+    }
+
+    @Override
+    public Map<String, String> listFiles(String repoPath, String commit) {
+        if (!ownsRepo(repoPath)) return cli.listFiles(repoPath, commit);
+        return inProcess(repoPath, "ls-tree", null, git -> {
+            Repository repo = git.getRepository();
+            try (RevWalk walk = new RevWalk(repo); TreeWalk tree = new TreeWalk(repo)) {
+                tree.addTree(walk.parseCommit(repo.resolve(commit)).getTree());
+                tree.setRecursive(true);
+                Map<String, String> files = new TreeMap<>();
+                while (tree.next()) {
+                    if (!FileMode.GITLINK.equals(tree.getRawMode(0))) {
+                        files.put(tree.getPathString(), tree.getObjectId(0).name());
+                    }
+                }
+                return files;
+            }
+        });
+    }
+
+    @Override
+    public boolean readBlobs(String repoPath, Collection<String> blobIds, long maxBytes,
+                             BiConsumer<String, byte[]> reader) {
+        if (!ownsRepo(repoPath)) return cli.readBlobs(repoPath, blobIds, maxBytes, reader);
+        return inProcess(repoPath, "cat-file", false, git -> {
+            try (ObjectReader objects = git.getRepository().newObjectReader()) {
+                for (String id : blobIds) {
+                    ObjectId blob = ObjectId.fromString(id);
+                    if (!objects.has(blob, Constants.OBJ_BLOB)) {
+                        continue;
+                    }
+                    ObjectLoader loader = objects.open(blob, Constants.OBJ_BLOB);
+                    if (loader.getSize() <= maxBytes) {
+                        reader.accept(id, loader.getBytes());
+                    }
+                }
+                return true;
+            }
+        });
+    }
+
+    @Override
+    public List<String> getRecentCommits(String repoPath, int count) {
+        return cli.getRecentCommits(repoPath, count);
+    }
+
+    @Override
+    public String getDefaultBranch(String repoPath) {
+        if (!new File(repoPath, ".git").exists()) {
+            return "main";
+        }
+        if (!ownsRepo(repoPath)) return cli.getDefaultBranch(repoPath);
+        String branch = inProcess(repoPath, "symbolic-ref", null, git -> {
+            Ref ref = git.getRepository().exactRef(Constants.R_REMOTES + ORIGIN + "/" + Constants.HEAD);
+            if (ref == null || !ref.isSymbolic()) return null;
+            return Repository.shortenRefName(ref.getTarget().getName()).substring(ORIGIN.length() + 1);
+        });
+        return branch != null ? branch : "main";
+    }
+
+    @Override
+    public boolean hasChanges(String repoPath) {
+        if (!ownsRepo(repoPath)) return cli.hasChanges(repoPath);
+        return inProcess(repoPath, "status", false, git -> !git.status().call().isClean());
+    }
+
+    @Override
+    public boolean commitAll(String repoPath, String message) {
+        if (!ownsRepo(repoPath)) return cli.commitAll(repoPath, message);
+        return inProcess(repoPath, "commit", false, git -> {
+            // add -A: new and modified files, then deletions
+            git.add().addFilepattern(".").call();
+            git.add().addFilepattern(".").setUpdate(true).call();
+            try {
+                git.commit().setMessage(message).setAllowEmpty(false).call();
+                return true;
+            } catch (EmptyCommitException e) {
+                return false;
+            }
+        });
+    }
+
+    @Override
+    public boolean push(String repoPath, String branchName) {
+        if (!ownsRepo(repoPath) || !isLocal(originUrl(repoPath))) return cli.push(repoPath, branchName);
+        return inProcess(repoPath, "push", false, git -> {
+            String ref = Constants.R_HEADS + branchName;
+            for (PushResult result : git.push().setRemote(ORIGIN).setRefSpecs(new RefSpec(ref + ":" + ref)).call()) {
+                for (RemoteRefUpdate update : result.getRemoteUpdates()) {
+                    if (update.getStatus() != RemoteRefUpdate.Status.OK
+                        && update.getStatus() != RemoteRefUpdate.Status.UP_TO_DATE) {
+                        System.err.println("Push of " + branchName + " rejected: " + update.getStatus());
+                        return false;
+                    }
+                }
+            }
+            // -u
+            StoredConfig config = git.getRepository().getConfig();
+            config.setString("branch", branchName, "remote", ORIGIN);
+            config.setString("branch", branchName, "merge", ref);
+            config.save();
+            return true;
+        });
+    }
+
+    @Override
+    public String createPullRequest(String repoPath, String title, String body, String targetBranch,
+                                    String headBranch, boolean draft) {
+        return cli.createPullRequest(repoPath, title, body, targetBranch, headBranch, draft);
+    }
+
+    @Override
+    public String getDiffStats(String repoPath, String baseBranch) {
+        if (!ownsRepo(repoPath)) return cli.getDiffStats(repoPath, baseBranch);
+        return inProcess(repoPath, "diff", "unknown", git -> {
+            Repository repo = git.getRepository();
+            ObjectId base = repo.resolve(baseBranch);
+            ObjectId head = repo.resolve(Constants.HEAD);
+            if (base == null || head == null) {
+                return "no changes";
+            }
+            try (RevWalk walk = new RevWalk(repo);
+                 DiffFormatter formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+                formatter.setRepository(repo);
+                // Same line matching as git diff --stat
+                formatter.setDiffAlgorithm(DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.MYERS));
+                formatter.setDiffComparator(RawTextComparator.DEFAULT);
+                formatter.setDetectRenames(true);
+
+                int files = 0;
+                int insertions = 0;
+                int deletions = 0;
+                for (DiffEntry entry : formatter.scan(walk.parseCommit(base).getTree(), walk.parseCommit(head).getTree())) {
+                    files++;
+                    for (Edit edit : formatter.toFileHeader(entry).toEditList()) {
+                        insertions += edit.getLengthB();
+                        deletions += edit.getLengthA();
+                    }
+                }
+                return GitService.formatDiffStats(files, insertions, deletions);
+            }
+        });
+    }
+
+    @Override
+    public String runTests(String repoPath, String testCommand, Map<String, String> environment) {
+        return cli.runTests(repoPath, testCommand, environment);
+    }
+
+    @Override
+    public int pruneBranches(String repoPath, String branchPrefix, String baseBranch, Duration maxAge) {
+        return cli.pruneBranches(repoPath, branchPrefix, baseBranch, maxAge);
+    }
+
+    @Override
+    public long countLooseObjects(String repoPath) {
+        return cli.countLooseObjects(repoPath);
+    }
+
+    @Override
+    public boolean gc(String repoPath) {
+        return cli.gc(repoPath);
+    }
+
+    @Override
+    public boolean isIgnored(String repoPath, String path) {
+        return cli.isIgnored(repoPath, path);
+    }
+
+    /**
+     * Checks out a branch, creating it to track origin's when it only exists there
+     * (what {@code git checkout <branch>} does on its own).
+     */
+    private static void checkout(Git git, String branch, boolean force) throws GitAPIException, IOException {
+        Repository repo = git.getRepository();
+        CheckoutCommand checkout = git.checkout().setName(branch).setForced(force);
+        if (repo.exactRef(Constants.R_HEADS + branch) == null
+            && repo.exactRef(Constants.R_REMOTES + ORIGIN + "/" + branch) != null) {
+            checkout.setCreateBranch(true)
+                .setStartPoint(ORIGIN + "/" + branch)
+                .setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.TRACK);
+        }
+        checkout.call();
+    }
+
+    /**
+     * A full clone whose {@code .git} is a directory. Linked worktrees have a {@code .git}
+     * file, and JGit can't read shallow or partial clones or honour sparse checkouts.
+     */
+    private static boolean ownsRepo(String repoPath) {
+        File gitDir = new File(repoPath, ".git");
+        if (!gitDir.isDirectory() || new File(gitDir, "shallow").exists()) {
+            return false;
+        }
+        FileBasedConfig config = new FileBasedConfig(new File(gitDir, "config"), FS.DETECTED);
+        try {
+            config.load();
+        } catch (IOException | ConfigInvalidException e) {
+            return false;
+        }
+        return config.getString("extensions", null, "partialclone") == null
+            && !config.getBoolean("core", "sparsecheckout", false);
+    }
+
+    private String originUrl(String repoPath) {
+        return inProcess(repoPath, "config", null, git ->
+            git.getRepository().getConfig().getString("remote", ORIGIN, "url"));
+    }
+
+    static boolean isLocal(String url) {
+        if (url == null || url.isBlank()) return false;
+        if (url.startsWith("file:")) return true;
+        // https://, ssh://, git@host:path
+        if (url.contains("://") || url.matches("[^/]+:.*")) return false;
+        return new File(url).exists();
+    }
+
+    @FunctionalInterface
+    private interface GitOperation<T> {
+        T apply(Git git) throws Exception;
+    }
+
+    private static <T> T inProcess(String repoPath, String operation, T failed, GitOperation<T> op) {
+        try (Git git = Git.open(new File(repoPath))) {
+            return op.apply(git);
+        } catch (Exception e) {
+            System.err.println("git " + operation + " failed in " + repoPath + ": " + e.getMessage());
+            return failed;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.HistoryPage;
+import com.autonomous.agent.model.ModelStats;
+import com.autonomous.agent.model.RoutingDecision;
+import com.autonomous.agent.model.TaskRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the model for channels with {@code default_model: auto}.
+ *
+ * A task is sized from its description (length and keywords) and the sizes map to
+ * haiku, sonnet and opus. Past outcomes of same-sized tasks then take over: the model
+ * with the lowest cost per successful task among those that succeed often enough wins,
+ * and a model that keeps failing at a size is escalated past. Every decision, including
+ * the ones overridden with {@code --model}, is appended to
+ * {@code agent.data.path/routing/decisions.jsonl} for offline evaluation.
+ */
+@Service
+public class ModelRouterService {
+
+    public static final String AUTO = "auto";
+
+    // Cheapest first
+    private static final List<String> MODELS = List.of("haiku", "sonnet", "opus");
+    private static final Map<String, String> MODEL_FOR_SIZE = Map.of("small", "haiku", "medium", "sonnet", "large", "opus");
+    private static final Set<String> SMALL_KEYWORDS = Set.of(
+        "typo", "typos", "rename", "bump", "readme", "docs", "comment", "comments", "lint", "format",
+        "changelog", "version", "wording", "log");
+    private static final Set<String> LARGE_KEYWORDS = Set.of(
+        "refactor", "migrate", "migration", "architecture", "redesign", "rewrite", "implement",
+        "integrate", "integration", "performance", "concurrency", "security", "overhaul");
+    private static final int SEED_PAGES = 50;
+    private static final String ALL_CHANNELS = "*";
+
+    @Value("${agent.data.path:data}")
+    private String dataPath;
+
+    @Value("${agent.routing.min-samples:5}")
+    private int minSamples = 5;
+
+    @Value("${agent.routing.min-success-rate:0.8}")
+    private double minSuccessRate = 0.8;
+
+    @Value("${agent.routing.explore-rate:0.05}")
+    private double exploreRate = 0.05;
+
+    @Autowired(required = false)
+    private TaskHistoryService taskHistory;
+
+    @Value("${agent.startup.background-warmup:true}")
+    private boolean backgroundWarmup;
+
+    private final Warmup warmup = new Warmup("model router stats");
+
+    private final ObjectMapper mapper;
+
+    // Keyed by channel (or ALL_CHANNELS), size class and model
+    private final Map<String, Outcomes> outcomes = new HashMap<>();
+
+    public ModelRouterService() {
+        this.mapper = new ObjectMapper();
+        this.mapper.registerModule(new JavaTimeModule());
+    }
+
+    public void setDataPath(String path) {
+        this.dataPath = path;
+    }
+
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+
+    public void setExploreRate(double exploreRate) {
+        this.exploreRate = exploreRate;
+    }
+
+    public void setTaskHistory(TaskHistoryService taskHistory) {
+        this.taskHistory = taskHistory;
+    }
+
+    /**
+     * Rebuilds outcome stats from the most recent task history.
+     */
+    @PostConstruct
+    public void init() {
+        // Routes with whatever history is seeded so far rather than waiting
+        warmup.run(backgroundWarmup, this::loadHistory);
+    }
+
+    public void loadHistory() {
+        if (taskHistory == null) return;
+        int seeded = 0;
+        for (int page = 0; page < SEED_PAGES; page++) {
+            HistoryPage records = taskHistory.query(null, null, null, null, null, page, 100);
+            records.getItems().forEach(this::observe);
+            seeded += records.getItems().size();
+            if ((page + 1) * records.getSize() >= records.getTotal()) break;
+        }
+        System.out.println("Model router seeded from " + seeded + " past tasks");
+    }
+
+    /**
+     * Folds a finished task into the stats. Cancelled tasks say nothing about the model.
+     */
+    public synchronized void observe(TaskRecord record) {
+        if (record.getModel() == null || record.getDescription() == null || "CANCELLED".equals(record.getStatus())) {
+            return;
+        }
+        String size = sizeClass(record.getDescription());
+        boolean success = "COMPLETED".equals(record.getStatus());
+        for (String channel : new String[] { String.valueOf(record.getChannelId()), ALL_CHANNELS }) {
+            outcomes.computeIfAbsent(key(channel, size, record.getModel().toLowerCase()), k -> new Outcomes())
+                .add(success, record.getDurationMs(), record.getCostUsd());
+        }
+    }
+
+    /**
+     * Routes a task. With {@code override} set (the user passed --model) that model runs,
+     * but the router's own pick is still logged next to it.
+     */
+    public RoutingDecision route(String taskId, String channelId, String description, String override) {
+        String size = sizeClass(description);
+        List<ModelStats> stats = stats(channelId, size);
+
+        String model = MODEL_FOR_SIZE.get(size);
+        String reason = "features: " + size + " task";
+
+        // Cheapest per success among models proven on similar tasks, unless another is close and faster
+        Optional<ModelStats> proven = stats.stream()
+            .filter(s -> s.getSamples() >= minSamples && s.getSuccessRate() >= minSuccessRate)
+            .min(Comparator.comparingDouble(ModelRouterService::costPerSuccess));
+        if (proven.isPresent()) {
+            double budget = costPerSuccess(proven.get()) * 1.2;
+            ModelStats best = stats.stream()
+                .filter(s -> s.getSamples() >= minSamples && s.getSuccessRate() >= minSuccessRate)
+                .filter(s -> costPerSuccess(s) <= budget)
+                .min(Comparator.comparingLong(ModelStats::getMeanDurationMs))
+                .orElse(proven.get());
+            model = best.getModel();
+            reason = String.format("history: %.0f%% success on %d %s tasks, $%.2f avg, %ds avg",
+                best.getSuccessRate() * 100, best.getSamples(), size, best.getMeanCostUsd(),
+                best.getMeanDurationMs() / 1000);
+        } else {
+            // Step up past models that keep failing at this size
+            int index = MODELS.indexOf(model);
+            while (index < MODELS.size() - 1 && failing(stats.get(index))) {
+                reason = String.format("escalated: %s succeeded %.0f%% on %s tasks", MODELS.get(index),
+                    stats.get(index).getSuccessRate() * 100, size);
+                index++;
+            }
+            model = MODELS.get(index);
+        }
+
+        // Occasionally try a cheaper model that has too little history to judge
+        int index = MODELS.indexOf(model);
+        if (index > 0 && stats.get(index - 1).getSamples() < minSamples
+            && ThreadLocalRandom.current().nextDouble() < exploreRate) {
+            model = MODELS.get(index - 1);
+            reason = "explore: too little history for " + model + " on " + size + " tasks";
+        }
+
+        RoutingDecision decision = RoutingDecision.builder()
+            .taskId(taskId)
+            .channelId(channelId)
+            .decidedAt(Instant.now())
+            .description(description)
+            .words(words(description).length)
+            .sizeClass(size)
+            .stats(stats)
+            .routedModel(model)
+            .model(override != null ? override : model)
+            .overridden(override != null && !override.equals(model))
+            .reason(reason)
+            .build();
+        System.out.println("Routed task " + taskId + " to " + decision.getModel() +
+            (decision.isOverridden() ? " (--model override, router picked " + model + ")" : "") + ": " + reason);
+        log(decision);
+        return decision;
+    }
+
+    /**
+     * small, medium or large, from the description's length and keywords.
+     */
+    static String sizeClass(String description) {
+        String[] words = words(description);
+        long large = Arrays.stream(words).filter(LARGE_KEYWORDS::contains).count();
+        boolean small = Arrays.stream(words).anyMatch(SMALL_KEYWORDS::contains);
+        if (large >= 2 || (large == 1 && words.length > 25) || words.length > 60) {
+            return "large";
+        }
+        if (large == 0 && (small || words.length <= 12)) {
+            return "small";
+        }
+        return "medium";
+    }
+
+    /**
+     * Stats per model (in {@link #MODELS} order) for the channel, or across all channels
+     * when the channel alone has too few samples.
+     */
+    synchronized List<ModelStats> stats(String channelId, String size) {
+        List<ModelStats> stats = new ArrayList<>(MODELS.size());
+        for (String model : MODELS) {
+            Outcomes channel = outcomes.get(key(String.valueOf(channelId), size, model));
+            Outcomes chosen = channel != null && channel.samples >= minSamples ? channel
+                : outcomes.getOrDefault(key(ALL_CHANNELS, size, model), new Outcomes());
+            stats.add(chosen.toStats(model));
+        }
+        return stats;
+    }
+
+    private boolean failing(ModelStats stats) {
+        return stats.getSamples() >= minSamples && stats.getSuccessRate() < minSuccessRate;
+    }
+
+    private static double costPerSuccess(ModelStats stats) {
+        return stats.getMeanCostUsd() / Math.max(stats.getSuccessRate(), 0.01);
+    }
+
+    private static String[] words(String description) {
+        String normalized = description == null ? "" : description.toLowerCase().replaceAll("[^a-z0-9]+", " ").trim();
+        return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+    }
+
+    private static String key(String channelId, String size, String model) {
+        return channelId + "|" + size + "|" + model;
+    }
+
+    private synchronized void log(RoutingDecision decision) {
+        try {
+            Path file = Paths.get(dataPath, "routing", "decisions.jsonl");
+            Files.createDirectories(file.getParent());
+            Files.write(file, (mapper.writeValueAsString(decision) + "\n").getBytes(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Failed to log routing decision: " + e.getMessage());
+        }
+    }
+
+    private static final class Outcomes {
+        private int samples;
+        private int successes;
+        private long totalDurationMs;
+        private double totalCostUsd;
+
+        void add(boolean success, long durationMs, double costUsd) {
+            samples++;
+            if (success) successes++;
+            totalDurationMs += durationMs;
+            totalCostUsd += costUsd;
+        }
+
+        ModelStats toStats(String model) {
+            return ModelStats.builder()
+                .model(model)
+                .samples(samples)
+                .successRate(samples > 0 ? (double) successes / samples : 0)
+                .meanDurationMs(samples > 0 ? totalDurationMs / samples : 0)
+                .meanCostUsd(samples > 0 ? totalCostUsd / samples : 0)
+                .build();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.ProcessCleanup;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Starts task processes (claude, setup commands, test runs) in their own session and
+ * process group, and kills the whole tree when they're cancelled, time out or exit.
+ *
+ * {@code Process.destroyForcibly()} only reaches the direct child; Gradle daemons, test
+ * JVMs and node workers outlive it. The tree is found through
+ * {@code ProcessHandle.descendants()} plus, on Linux, every process still in the child's
+ * session or process group (which catches orphans already re-parented to init).
+ * Killed orphans are reaped by init, which is tini in the Docker image.
+ */
+@Service
+public class ProcessSupervisor {
+
+    private static final File SETSID = Stream.of("/usr/bin/setsid", "/bin/setsid")
+        .map(File::new).filter(File::canExecute).findFirst().orElse(null);
+    private static final Path PROC = Paths.get("/proc");
+
+    @Value("${agent.process.kill-grace-seconds:5}")
+    private long killGraceSeconds = 5;
+
+    private ScheduledExecutorService deadlines;
+
+    public void setKillGraceSeconds(long killGraceSeconds) {
+        this.killGraceSeconds = killGraceSeconds;
+    }
+
+    /**
+     * Starts the command as the leader of a new session, so everything it spawns can be
+     * found again by session id even after the leader has exited.
+     */
+    public Process start(ProcessBuilder pb) throws IOException {
+        if (SETSID != null && Files.isDirectory(PROC)) {
+            List<String> command = new ArrayList<>(pb.command());
+            command.addAll(0, List.of(SETSID.getPath(), "--wait"));
+            pb.command(command);
+        }
+        return pb.start();
+    }
+
+    /**
+     * Kills the process tree once the timeout elapses, unless the deadline is cancelled first.
+     */
+    public Deadline terminateAfter(Process process, Duration timeout) {
+        Deadline deadline = new Deadline();
+        deadline.timer = deadlines().schedule(() -> {
+            if (deadline.fire()) {
+                deadline.cleanup.complete(terminate(process));
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        return deadline;
+    }
+
+    /**
+     * SIGTERMs the process and everything it started, waits briefly, then SIGKILLs
+     * whatever is left. Safe to call after the process exited: stray descendants are
+     * still cleaned up.
+     */
+    public ProcessCleanup terminate(Process process) {
+        if (process == null) {
+            return ProcessCleanup.builder().build();
+        }
+        Map<Long, ProcessHandle> tree = processTree(process.toHandle());
+        long rssBytes = tree.keySet().stream().mapToLong(ProcessSupervisor::residentBytes).sum();
+
+        tree.values().forEach(ProcessHandle::destroy);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(killGraceSeconds);
+        for (ProcessHandle handle : tree.values()) {
+            long remaining = deadline - System.nanoTime();
+            try {
+                if (remaining > 0) {
+                    handle.onExit().get(remaining, TimeUnit.NANOSECONDS);
+                }
+            } catch (TimeoutException | ExecutionException e) {
+                // Still running, force-killed below
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        tree.values().stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+
+        // Reap our direct child; orphans are reaped by init
+        try {
+            process.waitFor(killGraceSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        ProcessCleanup cleanup = ProcessCleanup.builder().processes(tree.size()).rssBytes(rssBytes).build();
+        if (!tree.isEmpty()) {
+            System.out.println("Process tree of pid " + process.pid() + ": " + describe(cleanup));
+        }
+        return cleanup;
+    }
+
+    public static String describe(ProcessCleanup cleanup) {
+        return String.format("stopped %d process%s, reclaimed %.1f MB",
+            cleanup.getProcesses(), cleanup.getProcesses() == 1 ? "" : "es",
+            cleanup.getRssBytes() / (1024.0 * 1024.0));
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (deadlines != null) {
+            deadlines.shutdownNow();
+        }
+    }
+
+    private synchronized ScheduledExecutorService deadlines() {
+        if (deadlines == null) {
+            deadlines = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "process-deadlines");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return deadlines;
+    }
+
+    public static final class Deadline {
+        private final CompletableFuture<ProcessCleanup> cleanup = new CompletableFuture<>();
+        private ScheduledFuture<?> timer;
+        private boolean fired;
+        private boolean cancelled;
+
+        private synchronized boolean fire() {
+            fired = !cancelled;
+            return fired;
+        }
+
+        /**
+         * Stops the timer. Returns true if it had already fired, i.e. the process timed out.
+         */
+        public synchronized boolean cancel() {
+            if (!fired) {
+                cancelled = true;
+                timer.cancel(false);
+            }
+            return fired;
+        }
+
+        /**
+         * What the deadline killed; waits for the kill to finish. Only meaningful once fired.
+         */
+        public ProcessCleanup cleanup() {
+            return cleanup.join();
+        }
+    }
+
+    /**
+     * Live processes belonging to the tree, never including this JVM or its ancestors.
+     */
+    private Map<Long, ProcessHandle> processTree(ProcessHandle root) {
+        Map<Long, ProcessHandle> tree = new LinkedHashMap<>();
+        if (root.isAlive()) {
+            tree.put(root.pid(), root);
+        }
+        root.descendants().filter(ProcessHandle::isAlive).forEach(h -> tree.put(h.pid(), h));
+
+        if (Files.isDirectory(PROC)) {
+            long leader = root.pid();
+            try (Stream<Path> entries = Files.list(PROC)) {
+                entries.map(p -> p.getFileName().toString())
+                    .filter(name -> name.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .filter(pid -> !tree.containsKey(pid))
+                    .filter(pid -> {
+                        long[] groups = sessionAndGroup(pid);
+                        return groups != null && (groups[0] == leader || groups[1] == leader);
+                    })
+                    .forEach(pid -> ProcessHandle.of(pid).ifPresent(h -> tree.put(pid, h)));
+            } catch (IOException e) {
+                System.err.println("Failed to scan /proc for process group members: " + e.getMessage());
+            }
+        }
+
+        ProcessHandle self = ProcessHandle.current();
+        tree.remove(self.pid());
+        self.parent().ifPresent(p -> removeAncestors(tree, p));
+        return tree;
+    }
+
+    private static void removeAncestors(Map<Long, ProcessHandle> tree, ProcessHandle handle) {
+        tree.remove(handle.pid());
+        handle.parent().ifPresent(p -> removeAncestors(tree, p));
+    }
+
+    /**
+     * Session id and process group id from /proc/[pid]/stat, or null if unreadable.
+     */
+    private static long[] sessionAndGroup(long pid) {
+        try {
+            String stat = Files.readString(PROC.resolve(pid + "/stat"));
+            // The command name may contain spaces and parentheses; fields resume after the last ')'
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            return new long[] { Long.parseLong(fields[3]), Long.parseLong(fields[2]) };
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static long residentBytes(long pid) {
+        try {
+            for (String line : Files.readAllLines(PROC.resolve(pid + "/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Process gone or not on Linux
+        }
+        return 0;
+    }
+}
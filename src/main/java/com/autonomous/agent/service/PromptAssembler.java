@@ -0,0 +1,138 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.ChannelConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Splits a task's prompt into a system prompt that is the same for every task of a channel
+ * (profile, channel conventions, repo digest) and the task text. The system prompt goes
+ * through {@code --append-system-prompt}, ahead of anything task-specific, so consecutive
+ * tasks in a channel can reuse its prompt cache until the repo's default branch moves.
+ *
+ * Sections are ordered from least to most likely to change, and hold nothing that
+ * varies per task (ids, times, paths of worktrees).
+ */
+@Service
+public class PromptAssembler {
+
+    public static final String DEFAULT_PROFILE = "default";
+
+    private static final Pattern PROFILE_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    @Value("${agent.profiles.path:agent-profiles}")
+    private String profilesPath = "agent-profiles";
+
+    @Autowired(required = false)
+    private RepoContextService repoContext;
+
+    private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+    private final Map<String, Optional<String>> profiles = new ConcurrentHashMap<>();
+
+    public void setProfilesPath(String profilesPath) {
+        this.profilesPath = profilesPath;
+        profiles.clear();
+    }
+
+    public void setRepoContextService(RepoContextService repoContext) {
+        this.repoContext = repoContext;
+    }
+
+    /**
+     * A task's prompt: {@code system} is null when there is nothing to add to claude's own.
+     */
+    public record Prompt(String system, String task) {
+
+        /**
+         * Short hash of the system prompt, to tell from the cost ledger which tasks could
+         * have shared a cache.
+         */
+        public String prefixHash() {
+            return system != null ? sha256(system).substring(0, 12) : null;
+        }
+    }
+
+    public Prompt assemble(ChannelConfig config, String task) {
+        return assemble(config, config.getClonePath(), task);
+    }
+
+    /**
+     * The prompt for a task running in {@code workDir}, the channel's clone or a worktree of
+     * it; the repository digest describes that checkout's HEAD.
+     */
+    public Prompt assemble(ChannelConfig config, String workDir, String task) {
+        List<String> sections = new ArrayList<>();
+        section(sections, "Agent profile", profile(config.getProfile() != null ? config.getProfile() : DEFAULT_PROFILE));
+        section(sections, "Channel conventions", config.getConventions());
+        section(sections, "Repository", repoContext != null ? repoContext.digest(config.getClonePath(), workDir) : null);
+        return new Prompt(sections.isEmpty() ? null : String.join("\n\n", sections), task);
+    }
+
+    /**
+     * The profile's {@code systemPrompt}, read once per profile; null when it has none or
+     * {@code agent-profiles/<name>.yaml} doesn't exist.
+     */
+    String profile(String name) {
+        if (!PROFILE_NAME.matcher(name).matches()) {
+            return null;
+        }
+        return profiles.computeIfAbsent(name, this::loadProfile).orElse(null);
+    }
+
+    private Optional<String> loadProfile(String name) {
+        File file = new File(profilesPath, name + ".yaml");
+        if (!file.isFile()) {
+            System.err.println("Agent profile not found: " + file);
+            return Optional.empty();
+        }
+        try {
+            JsonNode systemPrompt = yamlMapper.readTree(file).get("systemPrompt");
+            return Optional.ofNullable(systemPrompt != null && systemPrompt.isTextual() ? systemPrompt.asText() : null);
+        } catch (IOException e) {
+            System.err.println("Failed to load agent profile " + file + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Adds a titled section with line endings and trailing whitespace normalized, so the
+     * same content always yields the same bytes.
+     */
+    private static void section(List<String> sections, String title, String content) {
+        if (content == null || content.isBlank()) {
+            return;
+        }
+        String normalized = content.replace("\r\n", "\n").lines()
+            .map(String::stripTrailing)
+            .collect(Collectors.joining("\n"))
+            .strip();
+        sections.add("# " + title + "\n\n" + normalized);
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
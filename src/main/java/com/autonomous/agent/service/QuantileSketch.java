@@ -0,0 +1,78 @@
+package com.autonomous.agent.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streaming quantile sketch with bounded relative error (DDSketch-style log buckets).
+ * Values land in bucket {@code ceil(log_gamma(x))}, so any reported quantile is within
+ * {@code relativeAccuracy} of a real sample. A few hundred buckets cover milliseconds
+ * to days, however many values are added.
+ */
+public class QuantileSketch {
+
+    private final double gamma;
+    private final double logGamma;
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    private long zeros;
+    private long count;
+
+    public QuantileSketch(double relativeAccuracy) {
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(double value) {
+        if (value <= 0) {
+            zeros++;
+        } else {
+            buckets.merge((int) Math.ceil(Math.log(value) / logGamma), 1L, Long::sum);
+        }
+        count++;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Value below which fraction {@code q} of the samples fall; 0 when empty.
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.min(Math.max(q, 0), 1) * count);
+        long seen = zeros;
+        if (rank <= seen) {
+            return 0;
+        }
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            seen += bucket.getValue();
+            if (seen >= rank) {
+                return value(bucket.getKey());
+            }
+        }
+        return value(buckets.lastKey());
+    }
+
+    /**
+     * Fraction of samples at or below {@code value}.
+     */
+    public double rank(double value) {
+        if (count == 0) {
+            return 0;
+        }
+        long below = zeros;
+        if (value > 0) {
+            int index = (int) Math.ceil(Math.log(value) / logGamma);
+            below += buckets.headMap(index, true).values().stream().mapToLong(Long::longValue).sum();
+        }
+        return (double) below / count;
+    }
+
+    private double value(int index) {
+        // Midpoint of (gamma^(i-1), gamma^i] in relative terms
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+}
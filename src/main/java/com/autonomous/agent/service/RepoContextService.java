@@ -0,0 +1,368 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.RepoContext;
+import com.autonomous.agent.model.RepoMetadata;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-repo index of the file tree, the symbols each source file declares, build modules
+ * and recent commits, rendered as a compact digest for the prompt so claude can start on
+ * the task instead of spending its first turns listing directories.
+ *
+ * Entries are keyed by HEAD commit and persisted under {@code agent.cache.path/context}.
+ * Files are read from the commit's blobs, never the working tree, so uncommitted edits
+ * don't leak into the index. When HEAD moves, only files whose blob id changed are read
+ * again. A clone and its worktrees share one entry, indexed at whichever HEAD was asked
+ * for last.
+ */
+@Service
+public class RepoContextService {
+
+    private static final long MAX_OUTLINE_BYTES = 512 * 1024;
+    private static final int MAX_SYMBOLS = 15;
+
+    /**
+     * A declaration pattern. With a null kind, group 1 is the kind and group 2 the name;
+     * {@code ()} marks functions; any other kind is prefixed to group 1.
+     */
+    private record Rule(Pattern pattern, String kind) {
+        Rule(String regex, String kind) {
+            this(Pattern.compile(regex), kind);
+        }
+    }
+
+    private static final List<Rule> JVM = List.of(
+        new Rule("^\\s*(?:(?:public|protected|private|internal|abstract|final|static|sealed|non-sealed|open|data|" +
+            "enum|annotation|inner|partial|case)\\s+)*(class|interface|enum|record|object|trait|struct)\\s+(\\w+)", null),
+        // Public API only; constructors have no return type and don't match
+        new Rule("^\\s*(?:public|protected)\\s+(?:(?:static|final|abstract|synchronized|default|override|virtual|async)\\s+)*" +
+            "(?:<[^>]+>\\s+)?[\\w.<>\\[\\],? ]+?\\s+(\\w+)\\s*\\(", "()"),
+        new Rule("^\\s*(?:(?:public|internal|override|suspend|inline|open|operator)\\s+)*fun\\s+(?:<[^>]+>\\s*)?" +
+            "(?:[\\w.]+\\.)?(\\w+)\\s*\\(", "()"));
+
+    private static final List<Rule> PYTHON = List.of(
+        new Rule("^class\\s+(\\w+)", "class"),
+        new Rule("^(?:async\\s+)?def\\s+(\\w+)", "()"),
+        new Rule("^    (?:async\\s+)?def\\s+([A-Za-z]\\w*)", "()"));
+
+    private static final List<Rule> JAVASCRIPT = List.of(
+        new Rule("^export\\s+(?:default\\s+)?(?:abstract\\s+)?(class|interface|enum|type)\\s+(\\w+)", null),
+        new Rule("^(?:export\\s+)?(?:default\\s+)?(?:async\\s+)?function\\*?\\s+(\\w+)", "()"),
+        new Rule("^export\\s+const\\s+(\\w+)", "const"));
+
+    private static final List<Rule> GO = List.of(
+        new Rule("^type\\s+(\\w+)\\s+", "type"),
+        new Rule("^func\\s+(?:\\([^)]*\\)\\s*)?([A-Z]\\w*)", "()"));
+
+    private static final List<Rule> RUST = List.of(
+        new Rule("^\\s*pub(?:\\([^)]*\\))?\\s+(struct|enum|trait|mod|type)\\s+(\\w+)", null),
+        new Rule("^\\s*pub(?:\\([^)]*\\))?\\s+(?:async\\s+)?(?:unsafe\\s+)?fn\\s+(\\w+)", "()"));
+
+    private static final List<Rule> RUBY = List.of(
+        new Rule("^\\s*(class|module)\\s+([\\w:]+)", null),
+        new Rule("^\\s*def\\s+(?:self\\.)?(\\w+[?!]?)", "()"));
+
+    private static final Map<String, List<Rule>> RULES = Map.ofEntries(
+        Map.entry("java", JVM), Map.entry("kt", JVM), Map.entry("kts", JVM), Map.entry("scala", JVM),
+        Map.entry("groovy", JVM), Map.entry("cs", JVM),
+        Map.entry("py", PYTHON),
+        Map.entry("js", JAVASCRIPT), Map.entry("jsx", JAVASCRIPT), Map.entry("mjs", JAVASCRIPT),
+        Map.entry("ts", JAVASCRIPT), Map.entry("tsx", JAVASCRIPT),
+        Map.entry("go", GO),
+        Map.entry("rs", RUST),
+        Map.entry("rb", RUBY));
+
+    @Value("${agent.context.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${agent.context.max-chars:8000}")
+    private int maxChars = 8000;
+
+    @Value("${agent.context.recent-commits:10}")
+    private int recentCommits = 10;
+
+    @Value("${agent.cache.path:cache}")
+    private String cachePath;
+
+    private final GitService gitService;
+
+    @Autowired(required = false)
+    private RepoMetadataService repoMetadata;
+
+    private final Map<String, RepoContext> cache = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final ObjectMapper mapper;
+
+    @Autowired
+    public RepoContextService(GitService gitService) {
+        this.gitService = gitService;
+        this.mapper = new ObjectMapper();
+        this.mapper.registerModule(new JavaTimeModule());
+    }
+
+    public void setRepoMetadataService(RepoMetadataService repoMetadata) {
+        this.repoMetadata = repoMetadata;
+    }
+
+    public void setCachePath(String cachePath) {
+        this.cachePath = cachePath;
+    }
+
+    public void setMaxChars(int maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The index at the repo's current HEAD, or null when the repo can't be read. Builds
+     * on the last index of the repo (in memory or on disk), re-reading changed files only.
+     */
+    public RepoContext get(String repoPath) {
+        return get(repoPath, repoPath);
+    }
+
+    /**
+     * The index at {@code workDir}'s HEAD, where {@code workDir} is the clone itself or one
+     * of its worktrees.
+     */
+    public RepoContext get(String clonePath, String workDir) {
+        synchronized (locks.computeIfAbsent(clonePath, key -> new Object())) {
+            String head = gitService.getHeadCommit(workDir);
+            if (head == null) {
+                return null;
+            }
+            RepoContext cached = cache.computeIfAbsent(clonePath, this::load);
+            if (cached != null && head.equals(cached.getHeadCommit())) {
+                return cached;
+            }
+            RepoContext context = index(clonePath, workDir, head, cached);
+            if (context != null) {
+                cache.put(clonePath, context);
+                save(context);
+            }
+            return context;
+        }
+    }
+
+    /**
+     * Digest of the repo for the prompt, at most {@code agent.context.max-chars} long;
+     * null when disabled or the repo couldn't be indexed.
+     */
+    public String digest(String repoPath) {
+        return digest(repoPath, repoPath);
+    }
+
+    /**
+     * Digest of what a task in {@code workDir} (the clone or one of its worktrees) starts from.
+     */
+    public String digest(String clonePath, String workDir) {
+        if (!enabled) {
+            return null;
+        }
+        RepoContext context = get(clonePath, workDir);
+        return context != null ? render(context, maxChars) : null;
+    }
+
+    private RepoContext index(String clonePath, String workDir, String head, RepoContext previous) {
+        Map<String, String> tracked = gitService.listFiles(workDir, head);
+        if (tracked == null) {
+            return null;
+        }
+        Map<String, String> previousFiles = previous != null && previous.getFiles() != null ?
+            previous.getFiles() : Map.of();
+        Map<String, List<String>> previousOutlines = previous != null && previous.getOutlines() != null ?
+            previous.getOutlines() : Map.of();
+
+        Path root = Paths.get(workDir);
+        Map<String, String> files = new TreeMap<>();
+        Map<String, List<String>> outlines = new TreeMap<>();
+        Map<String, List<String>> changed = new HashMap<>();
+        for (Map.Entry<String, String> entry : tracked.entrySet()) {
+            String path = entry.getKey();
+            if (!Files.isRegularFile(root.resolve(path))) {
+                continue; // left out by a sparse checkout
+            }
+            files.put(path, entry.getValue());
+            if (entry.getValue().equals(previousFiles.get(path))) {
+                List<String> outline = previousOutlines.get(path);
+                if (outline != null && !outline.isEmpty()) {
+                    outlines.put(path, outline);
+                }
+            } else if (rulesFor(path) != null) {
+                changed.computeIfAbsent(entry.getValue(), blob -> new ArrayList<>()).add(path);
+            }
+        }
+        boolean readAll = gitService.readBlobs(workDir, changed.keySet(), MAX_OUTLINE_BYTES, (blob, content) -> {
+            for (String path : changed.get(blob)) {
+                List<String> outline = outline(path, content);
+                if (!outline.isEmpty()) {
+                    outlines.put(path, outline);
+                }
+            }
+        });
+        if (!readAll) {
+            return null;
+        }
+
+        RepoMetadata metadata = repoMetadata != null ? repoMetadata.get(clonePath) : null;
+        System.out.println("Indexed " + workDir + " at " + abbreviate(head) + ": " +
+            changed.values().stream().mapToInt(List::size).sum() + " of " + files.size() + " files read");
+        return RepoContext.builder()
+            .repoPath(clonePath)
+            .headCommit(head)
+            .buildTool(metadata != null ? metadata.getBuildTool() : null)
+            .testCommand(metadata != null ? metadata.getTestCommand() : null)
+            .modules(metadata != null ? metadata.getModules() : List.of())
+            .files(files)
+            .outlines(outlines)
+            .recentCommits(gitService.getRecentCommits(workDir, recentCommits))
+            .indexedAt(Instant.now())
+            .build();
+    }
+
+    private static List<Rule> rulesFor(String path) {
+        return RULES.get(path.substring(path.lastIndexOf('.') + 1));
+    }
+
+    /**
+     * Declarations in a source file, in order, or an empty list for files without rules.
+     */
+    static List<String> outline(String path, byte[] content) {
+        List<Rule> rules = rulesFor(path);
+        List<String> symbols = new ArrayList<>();
+        if (rules == null || content.length > MAX_OUTLINE_BYTES) {
+            return symbols;
+        }
+        new String(content, StandardCharsets.UTF_8).lines().forEach(line -> {
+            for (Rule rule : rules) {
+                Matcher matcher = rule.pattern().matcher(line);
+                if (matcher.find()) {
+                    String symbol = rule.kind() == null ? matcher.group(1) + " " + matcher.group(2) :
+                        "()".equals(rule.kind()) ? matcher.group(1) + "()" : rule.kind() + " " + matcher.group(1);
+                    if (!symbols.contains(symbol)) {
+                        symbols.add(symbol);
+                    }
+                    break;
+                }
+            }
+        });
+        return symbols;
+    }
+
+    /**
+     * Renders the index within {@code maxChars}, dropping detail until it fits: files
+     * with their symbols, then file names per directory, then file counts per directory.
+     */
+    static String render(RepoContext context, int maxChars) {
+        Map<String, String> files = context.getFiles() != null ? context.getFiles() : Map.of();
+        StringBuilder header = new StringBuilder("Repository context at commit ")
+            .append(abbreviate(context.getHeadCommit())).append(" (").append(files.size())
+            .append(" files), indexed ahead of time: use it to go straight to the relevant files " +
+                "instead of exploring the tree.\n");
+        if (context.getBuildTool() != null) {
+            header.append("\nBuild: ").append(context.getBuildTool());
+            if (context.getTestCommand() != null) {
+                header.append(", tests: ").append(context.getTestCommand());
+            }
+            if (context.getModules() != null && !context.getModules().isEmpty()) {
+                header.append(", modules: ").append(String.join(", ", context.getModules()));
+            }
+            header.append('\n');
+        }
+        if (context.getRecentCommits() != null && !context.getRecentCommits().isEmpty()) {
+            header.append("\nRecent commits:\n");
+            context.getRecentCommits().forEach(commit -> header.append("- ").append(commit).append('\n'));
+        }
+
+        Map<String, List<String>> directories = new TreeMap<>();
+        for (String path : new TreeSet<>(files.keySet())) {
+            int slash = path.lastIndexOf('/');
+            directories.computeIfAbsent(slash < 0 ? "./" : path.substring(0, slash + 1), dir -> new ArrayList<>())
+                .add(path.substring(slash + 1));
+        }
+        Map<String, List<String>> outlines = context.getOutlines() != null ? context.getOutlines() : Map.of();
+
+        StringBuilder withSymbols = new StringBuilder("\nFiles and the symbols they declare:\n");
+        StringBuilder withNames = new StringBuilder("\nFiles:\n");
+        StringBuilder withCounts = new StringBuilder("\nDirectories:\n");
+        directories.forEach((dir, names) -> {
+            withSymbols.append(dir).append('\n');
+            for (String name : names) {
+                withSymbols.append("  ").append(name);
+                List<String> symbols = outlines.get("./".equals(dir) ? name : dir + name);
+                if (symbols != null && !symbols.isEmpty()) {
+                    withSymbols.append(": ").append(String.join(", ", symbols.subList(0, Math.min(MAX_SYMBOLS, symbols.size()))));
+                    if (symbols.size() > MAX_SYMBOLS) {
+                        withSymbols.append(", +").append(symbols.size() - MAX_SYMBOLS).append(" more");
+                    }
+                }
+                withSymbols.append('\n');
+            }
+            withNames.append(dir).append(' ').append(String.join(", ", names)).append('\n');
+            withCounts.append(dir).append(" (").append(names.size()).append(names.size() == 1 ? " file)\n" : " files)\n");
+        });
+
+        for (StringBuilder tree : List.of(withSymbols, withNames, withCounts)) {
+            if (header.length() + tree.length() <= maxChars) {
+                return header.append(tree).toString().trim();
+            }
+        }
+        String truncated = "... (truncated)";
+        int room = Math.max(0, maxChars - truncated.length() - header.length());
+        int end = withCounts.lastIndexOf("\n", room);
+        return header.append(withCounts, 0, Math.max(0, end + 1)).append(truncated).toString();
+    }
+
+    private static String abbreviate(String commit) {
+        return commit != null && commit.length() > 7 ? commit.substring(0, 7) : commit;
+    }
+
+    private RepoContext load(String repoPath) {
+        Path file = file(repoPath);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return mapper.readValue(file.toFile(), RepoContext.class);
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable context index " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(RepoContext context) {
+        Path file = file(context.getRepoPath());
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, mapper.writeValueAsBytes(context));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to save context index of " + context.getRepoPath() + ": " + e.getMessage());
+        }
+    }
+
+    private Path file(String repoPath) {
+        return Paths.get(cachePath, "context", SetupCacheService.repoKey(repoPath) + ".json");
+    }
+}
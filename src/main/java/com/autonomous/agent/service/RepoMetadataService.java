@@ -0,0 +1,190 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.RepoMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-repo cache of build system, test command, default branch and module layout.
+ * Entries are keyed by HEAD commit; when HEAD moves, the manifests and lockfiles are
+ * re-hashed and the detected values are only recomputed if one of them changed.
+ */
+@Service
+public class RepoMetadataService {
+
+    private static final List<String> ROOT_MANIFESTS = List.of(
+        "gradlew", "build.gradle", "build.gradle.kts", "settings.gradle", "settings.gradle.kts",
+        "gradle.lockfile", "gradle/libs.versions.toml",
+        "pom.xml",
+        "package.json", "package-lock.json", "yarn.lock", "pnpm-lock.yaml",
+        "pytest.ini", "setup.py", "pyproject.toml", "requirements.txt", "poetry.lock"
+    );
+
+    private static final List<String> MODULE_MANIFESTS = List.of(
+        "build.gradle", "build.gradle.kts", "pom.xml", "package.json"
+    );
+
+    private final GitService gitService;
+    private final Map<String, RepoMetadata> cache = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RepoMetadataService(GitService gitService) {
+        this.gitService = gitService;
+    }
+
+    /**
+     * Returns metadata for the repo's current HEAD, re-probing the filesystem only
+     * when HEAD moved and a manifest or lockfile actually changed.
+     */
+    public RepoMetadata get(String repoPath) {
+        String head = gitService != null ? gitService.getHeadCommit(repoPath) : null;
+        RepoMetadata cached = cache.get(repoPath);
+
+        if (cached != null && head != null && head.equals(cached.getHeadCommit())) {
+            return cached;
+        }
+
+        Map<String, String> hashes = hashManifests(new File(repoPath));
+        RepoMetadata metadata;
+        if (cached != null && hashes.equals(cached.getLockfileHashes())) {
+            metadata = cached.toBuilder().headCommit(head).build();
+        } else {
+            metadata = detect(repoPath, head, hashes,
+                cached != null ? cached.getDefaultBranch() : resolveDefaultBranch(repoPath));
+        }
+
+        if (head != null) {
+            cache.put(repoPath, metadata);
+        }
+        return metadata;
+    }
+
+    /**
+     * Default branch for a workspace that may not be cloned yet. Served from the cache
+     * when possible so fetch/checkout don't have to ask git every time.
+     */
+    public String getDefaultBranch(String repoPath) {
+        RepoMetadata cached = cache.get(repoPath);
+        if (cached != null && cached.getDefaultBranch() != null) {
+            return cached.getDefaultBranch();
+        }
+        return resolveDefaultBranch(repoPath);
+    }
+
+    public void invalidate(String repoPath) {
+        cache.remove(repoPath);
+    }
+
+    private String resolveDefaultBranch(String repoPath) {
+        String branch = gitService != null ? gitService.getDefaultBranch(repoPath) : null;
+        return branch != null ? branch : "main";
+    }
+
+    private RepoMetadata detect(String repoPath, String head, Map<String, String> hashes, String defaultBranch) {
+        List<String> modules = new ArrayList<>();
+        for (String path : hashes.keySet()) {
+            int slash = path.indexOf('/');
+            String module = slash > 0 ? path.substring(0, slash) : null;
+            if (module != null && !module.equals("gradle") && !modules.contains(module)) {
+                modules.add(module);
+            }
+        }
+        Collections.sort(modules);
+
+        String[] detected = detectBuild(hashes.keySet());
+
+        return RepoMetadata.builder()
+            .repoPath(repoPath)
+            .headCommit(head)
+            .defaultBranch(defaultBranch)
+            .buildTool(detected[0])
+            .testCommand(detected[1])
+            .modules(modules)
+            .lockfileHashes(hashes)
+            .detectedAt(Instant.now())
+            .build();
+    }
+
+    /**
+     * Maps the root manifests present in the repo to {buildTool, testCommand}.
+     */
+    private String[] detectBuild(Set<String> files) {
+        // Gradle
+        if (files.contains("gradlew")) {
+            return new String[]{"gradle", "./gradlew test"};
+        }
+        if (files.contains("build.gradle") || files.contains("build.gradle.kts")) {
+            return new String[]{"gradle", "gradle test"};
+        }
+
+        // Maven
+        if (files.contains("pom.xml")) {
+            return new String[]{"maven", "mvn test"};
+        }
+
+        // Node.js
+        if (files.contains("package.json")) {
+            return new String[]{"npm", "npm test"};
+        }
+
+        // .NET
+        for (String file : files) {
+            if (!file.contains("/") && (file.endsWith(".csproj") || file.endsWith(".sln"))) {
+                return new String[]{"dotnet", "dotnet test"};
+            }
+        }
+
+        // Python
+        if (files.contains("pytest.ini") || files.contains("setup.py")) {
+            return new String[]{"python", "pytest"};
+        }
+
+        return new String[]{null, null}; // No test runner detected
+    }
+
+    private Map<String, String> hashManifests(File repo) {
+        Map<String, String> hashes = new TreeMap<>();
+
+        for (String name : ROOT_MANIFESTS) {
+            hashFile(repo, name, hashes);
+        }
+
+        File[] entries = repo.listFiles();
+        if (entries == null) {
+            return hashes;
+        }
+        for (File entry : entries) {
+            String name = entry.getName();
+            if (entry.isFile() && (name.endsWith(".csproj") || name.endsWith(".sln"))) {
+                hashFile(repo, name, hashes);
+            } else if (entry.isDirectory() && !name.startsWith(".")) {
+                for (String manifest : MODULE_MANIFESTS) {
+                    hashFile(repo, name + "/" + manifest, hashes);
+                }
+            }
+        }
+        return hashes;
+    }
+
+    private void hashFile(File repo, String relativePath, Map<String, String> hashes) {
+        File file = new File(repo, relativePath);
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            hashes.put(relativePath, HexFormat.of().formatHex(digest.digest(Files.readAllBytes(file.toPath()))));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            System.err.println("Failed to hash " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.autonomous.agent.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Memoizes channel setup commands and provides the per-repo dependency caches
+ * (Gradle home, npm cache, Maven repo) shared by every workspace of that repo.
+ *
+ * A setup step is stamped with a hash of the command and the repo's manifests and
+ * lockfiles. Stamps live inside the workspace's git dir, so they disappear together
+ * with the workspace they describe.
+ */
+@Service
+public class SetupCacheService {
+
+    private static final String STAMP_FILE = "agent-setup.properties";
+
+    @Value("${agent.cache.path:cache}")
+    private String cachePath;
+
+    public void setCachePath(String path) {
+        this.cachePath = path;
+    }
+
+    /**
+     * Environment that points build tools at the repo's shared dependency cache.
+     */
+    public Map<String, String> dependencyEnvironment(String repoUrl) {
+        Path root = Paths.get(cachePath, repoKey(repoUrl)).toAbsolutePath();
+        Map<String, String> env = new LinkedHashMap<>();
+        env.put("GRADLE_USER_HOME", root.resolve("gradle").toString());
+        env.put("npm_config_cache", root.resolve("npm").toString());
+        env.put("YARN_CACHE_FOLDER", root.resolve("yarn").toString());
+        env.put("PIP_CACHE_DIR", root.resolve("pip").toString());
+        env.put("MAVEN_OPTS", "-Dmaven.repo.local=" + root.resolve("m2"));
+        return env;
+    }
+
+    public void applyTo(ProcessBuilder pb, String repoUrl) {
+        addTo(pb.environment(), dependencyEnvironment(repoUrl));
+    }
+
+    /**
+     * Puts {@code additions} into {@code env}. Options variables ({@code MAVEN_OPTS},
+     * {@code GRADLE_OPTS}, ...) are appended to, so the flags already set survive.
+     */
+    public static void addTo(Map<String, String> env, Map<String, String> additions) {
+        additions.forEach((key, value) -> {
+            String current = env.get(key);
+            env.put(key, key.endsWith("_OPTS") && current != null && !current.isBlank() ? current + " " + value : value);
+        });
+    }
+
+    public String inputsHash(String command, Map<String, String> lockfileHashes) {
+        StringBuilder inputs = new StringBuilder(command).append('\n');
+        new TreeMap<>(lockfileHashes != null ? lockfileHashes : Map.of())
+            .forEach((path, hash) -> inputs.append(path).append('=').append(hash).append('\n'));
+        return sha256(inputs.toString());
+    }
+
+    public synchronized boolean isUpToDate(String workspace, String command, String inputsHash) {
+        return inputsHash.equals(loadStamps(workspace).getProperty(command));
+    }
+
+    public synchronized void markCompleted(String workspace, String command, String inputsHash) {
+        File stampFile = stampFile(workspace);
+        if (stampFile == null) {
+            return;
+        }
+        Properties stamps = loadStamps(workspace);
+        stamps.setProperty(command, inputsHash);
+        try (OutputStream out = new FileOutputStream(stampFile)) {
+            stamps.store(out, "Setup commands completed by the agent, keyed to their inputs hash");
+        } catch (IOException e) {
+            System.err.println("Failed to write setup stamps for " + workspace + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void clear(String workspace) {
+        File stampFile = stampFile(workspace);
+        if (stampFile != null) {
+            stampFile.delete();
+        }
+    }
+
+    private Properties loadStamps(String workspace) {
+        Properties stamps = new Properties();
+        File stampFile = stampFile(workspace);
+        if (stampFile != null && stampFile.exists()) {
+            try (InputStream in = new FileInputStream(stampFile)) {
+                stamps.load(in);
+            } catch (IOException e) {
+                System.err.println("Failed to read setup stamps for " + workspace + ": " + e.getMessage());
+            }
+        }
+        return stamps;
+    }
+
+    /**
+     * Resolves the git dir for both regular clones and worktrees (where .git is a file).
+     */
+    private File stampFile(String workspace) {
+        File dotGit = new File(workspace, ".git");
+        if (dotGit.isDirectory()) {
+            return new File(dotGit, STAMP_FILE);
+        }
+        if (dotGit.isFile()) {
+            try {
+                String content = Files.readString(dotGit.toPath()).trim();
+                if (content.startsWith("gitdir:")) {
+                    File gitDir = new File(content.substring("gitdir:".length()).trim());
+                    if (!gitDir.isAbsolute()) {
+                        gitDir = new File(workspace, gitDir.getPath());
+                    }
+                    return new File(gitDir, STAMP_FILE);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to resolve git dir for " + workspace + ": " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    static String repoKey(String repoUrl) {
+        String name = repoUrl.replaceAll("/+$", "");
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf(':')) + 1);
+        if (name.endsWith(".git")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        return name.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + sha256(repoUrl).substring(0, 8);
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
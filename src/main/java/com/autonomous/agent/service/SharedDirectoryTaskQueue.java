@@ -0,0 +1,281 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.QueuedTask;
+import com.autonomous.agent.model.TaskLease;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Task queue shared by several agent nodes through a common directory (e.g. an NFS
+ * or EFS mount). Every mutation happens under an exclusive file lock on
+ * {@code queue.lock}:
+ *
+ * <pre>
+ *   pending/&lt;priorityKey&gt;-&lt;taskId&gt;.json        waiting tasks, ordered by file name
+ *   leased/&lt;taskId&gt;.json                        lease held by a node, renewed by heartbeats
+ * </pre>
+ *
+ * The file name starts with {@link TaskQueue#priorityKey}, so listing order is priority
+ * with aging. A lease that isn't renewed before it expires puts its task back into
+ * pending, so another node picks it up. At most one lease per channel is active at a time.
+ */
+@Service
+@ConditionalOnProperty(name = "agent.queue.type", havingValue = "shared-dir")
+public class SharedDirectoryTaskQueue implements TaskQueue {
+
+    // FileChannel.lock is per process, so nodes living in the same JVM also need a monitor
+    private static final Map<Path, Object> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    @Value("${agent.queue.path:data/queue}")
+    private String queuePath;
+
+    @Value("${agent.queue.lease-seconds:60}")
+    private long leaseSeconds = 60;
+
+    @Value("${agent.queue.affinity-grace-seconds:15}")
+    private long affinityGraceSeconds = 15;
+
+    @Value("${agent.queue.aging-minutes:10}")
+    private long agingMinutes = 10;
+
+    private final ObjectMapper mapper;
+
+    public SharedDirectoryTaskQueue() {
+        this.mapper = new ObjectMapper();
+        this.mapper.registerModule(new JavaTimeModule());
+    }
+
+    public void setQueuePath(String path) {
+        this.queuePath = path;
+    }
+
+    public void setLeaseSeconds(long leaseSeconds) {
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    public void setAffinityGraceSeconds(long affinityGraceSeconds) {
+        this.affinityGraceSeconds = affinityGraceSeconds;
+    }
+
+    public void setAgingMinutes(long agingMinutes) {
+        this.agingMinutes = agingMinutes;
+    }
+
+    @Override
+    public void enqueue(QueuedTask task) {
+        if (task.getEnqueuedAt() == null) {
+            task.setEnqueuedAt(Instant.now());
+        }
+        withLock(() -> {
+            writeAtomically(pendingFile(task), task);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<TaskLease> poll(String nodeId, String channelId) {
+        return withLock(() -> {
+            Map<String, TaskLease> leases = reclaimExpired();
+            if (leases.values().stream().anyMatch(l -> channelId.equals(l.getTask().getChannelId()))) {
+                return Optional.empty();
+            }
+            for (Path file : pendingFiles()) {
+                QueuedTask task = read(file, QueuedTask.class);
+                if (task != null && channelId.equals(task.getChannelId())) {
+                    return Optional.of(lease(nodeId, task, file));
+                }
+            }
+            return Optional.empty();
+        });
+    }
+
+    @Override
+    public Optional<TaskLease> pollAny(String nodeId, Predicate<QueuedTask> eligible, Predicate<QueuedTask> preferred) {
+        return withLock(() -> {
+            Set<String> busyChannels = new HashSet<>();
+            reclaimExpired().values().forEach(l -> busyChannels.add(l.getTask().getChannelId()));
+
+            Instant graceCutoff = Instant.now().minusSeconds(affinityGraceSeconds);
+            Path fallbackFile = null;
+            QueuedTask fallback = null;
+
+            for (Path file : pendingFiles()) {
+                QueuedTask task = read(file, QueuedTask.class);
+                // Only the head of each channel is a candidate, keeping each channel in priority order
+                if (task == null || !busyChannels.add(task.getChannelId()) || !eligible.test(task)) {
+                    continue;
+                }
+                if (preferred.test(task)) {
+                    return Optional.of(lease(nodeId, task, file));
+                }
+                // Leave it to a node with the workspace cached, unless it's been waiting too long
+                if (fallback == null && task.getEnqueuedAt().isBefore(graceCutoff)) {
+                    fallback = task;
+                    fallbackFile = file;
+                }
+            }
+            return fallback != null ? Optional.of(lease(nodeId, fallback, fallbackFile)) : Optional.empty();
+        });
+    }
+
+    @Override
+    public boolean heartbeat(TaskLease lease) {
+        return withLock(() -> {
+            Path file = leaseFile(lease.getTask().getTaskId());
+            TaskLease current = Files.exists(file) ? read(file, TaskLease.class) : null;
+            if (current == null || !lease.getNodeId().equals(current.getNodeId())) {
+                return false;
+            }
+            lease.setExpiresAt(Instant.now().plusSeconds(leaseSeconds));
+            writeAtomically(file, lease);
+            return true;
+        });
+    }
+
+    @Override
+    public void complete(TaskLease lease) {
+        withLock(() -> {
+            Path file = leaseFile(lease.getTask().getTaskId());
+            TaskLease current = Files.exists(file) ? read(file, TaskLease.class) : null;
+            if (current != null && lease.getNodeId().equals(current.getNodeId())) {
+                Files.deleteIfExists(file);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<QueuedTask> pending(String channelId) {
+        return withLock(() -> {
+            List<QueuedTask> tasks = new ArrayList<>();
+            for (Path file : pendingFiles()) {
+                QueuedTask task = read(file, QueuedTask.class);
+                if (task != null && channelId.equals(task.getChannelId())) {
+                    tasks.add(task);
+                }
+            }
+            return tasks;
+        });
+    }
+
+    @Override
+    public boolean isChannelLeased(String channelId) {
+        return withLock(() -> reclaimExpired().values().stream()
+            .anyMatch(l -> channelId.equals(l.getTask().getChannelId())));
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    private TaskLease lease(String nodeId, QueuedTask task, Path pendingFile) throws IOException {
+        TaskLease lease = TaskLease.builder()
+            .task(task)
+            .nodeId(nodeId)
+            .expiresAt(Instant.now().plusSeconds(leaseSeconds))
+            .build();
+        writeAtomically(leaseFile(task.getTaskId()), lease);
+        Files.deleteIfExists(pendingFile);
+        return lease;
+    }
+
+    /**
+     * Returns the live leases by task id, moving expired ones back to pending first.
+     */
+    private Map<String, TaskLease> reclaimExpired() throws IOException {
+        Map<String, TaskLease> live = new HashMap<>();
+        Instant now = Instant.now();
+        try (Stream<Path> files = Files.list(root().resolve("leased"))) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".json")).toList()) {
+                TaskLease lease = read(file, TaskLease.class);
+                if (lease == null) {
+                    continue;
+                }
+                if (lease.getExpiresAt() != null && lease.getExpiresAt().isBefore(now)) {
+                    System.out.println("Lease expired for task " + lease.getTask().getTaskId() +
+                        " held by " + lease.getNodeId() + ", re-queueing");
+                    writeAtomically(pendingFile(lease.getTask()), lease.getTask());
+                    Files.deleteIfExists(file);
+                } else {
+                    live.put(lease.getTask().getTaskId(), lease);
+                }
+            }
+        }
+        return live;
+    }
+
+    private List<Path> pendingFiles() throws IOException {
+        try (Stream<Path> files = Files.list(root().resolve("pending"))) {
+            return files.filter(f -> f.toString().endsWith(".json")).sorted().toList();
+        }
+    }
+
+    private Path pendingFile(QueuedTask task) throws IOException {
+        return root().resolve("pending")
+            .resolve(String.format("%020d-%s.json",
+                TaskQueue.priorityKey(task.getPriority(), task.getEnqueuedAt(), Duration.ofMinutes(agingMinutes)),
+                task.getTaskId()));
+    }
+
+    private Path leaseFile(String taskId) throws IOException {
+        return root().resolve("leased").resolve(taskId + ".json");
+    }
+
+    private Path root() throws IOException {
+        Path root = Paths.get(queuePath).toAbsolutePath().normalize();
+        Files.createDirectories(root.resolve("pending"));
+        Files.createDirectories(root.resolve("leased"));
+        return root;
+    }
+
+    private void writeAtomically(Path file, Object value) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, mapper.writeValueAsBytes(value));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private <T> T read(Path file, Class<T> type) {
+        try {
+            return mapper.readValue(file.toFile(), type);
+        } catch (IOException e) {
+            System.err.println("Skipping unreadable queue file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private <T> T withLock(IOAction<T> action) {
+        try {
+            Path root = root();
+            synchronized (JVM_LOCKS.computeIfAbsent(root, p -> new Object())) {
+                try (FileChannel channel = FileChannel.open(root.resolve("queue.lock"),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock lock = channel.lock()) {
+                    return action.run();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IOAction<T> {
+        T run() throws IOException;
+    }
+}
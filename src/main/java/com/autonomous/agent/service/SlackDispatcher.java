@@ -0,0 +1,153 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.HistoryPage;
+import com.autonomous.agent.model.QueuedTask;
+import com.autonomous.agent.model.SlackEvent;
+import com.autonomous.agent.model.TaskRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handles slash commands and Events API events whichever transport they arrived on:
+ * HTTP through {@code SlackController} or a Socket Mode connection.
+ */
+@Service
+public class SlackDispatcher {
+
+    private static final Set<String> HISTORY_STATUSES = Set.of("COMPLETED", "FAILED", "CANCELLED");
+    private static final int HISTORY_PAGE_SIZE = 10;
+
+    @Autowired
+    private SlackService slackService;
+
+    @Autowired
+    private TaskExecutorService taskExecutor;
+
+    @Autowired
+    private CostTrackerService costTracker;
+
+    @Autowired
+    private TaskHistoryService taskHistory;
+
+    private final AtomicBoolean firstAck = new AtomicBoolean();
+
+    /**
+     * Runs a slash command and returns the text to answer it with.
+     */
+    public String handleCommand(String command, String text, String userId, String channelId) {
+        String response = switch (String.valueOf(command)) {
+            case "/agent-task" -> taskExecutor.submitTask(channelId, text, userId);
+            case "/agent-stop" -> handleStop(channelId);
+            case "/agent-status" -> handleStatus(channelId);
+            case "/agent-budget" -> handleBudget();
+            case "/agent-history" -> handleHistory(channelId, text);
+            default -> "Unknown command: " + command;
+        };
+
+        if (firstAck.compareAndSet(false, true)) {
+            // Time-to-first-ack, tracked by scripts/startup-benchmark.sh
+            System.out.println("First slash command acknowledged " +
+                (System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime()) + " ms after JVM start");
+        }
+        return response;
+    }
+
+    public void handleEvent(SlackEvent event) {
+        slackService.processEvent(event);
+    }
+
+    private String handleStop(String channelId) {
+        boolean cancelled = taskExecutor.cancelTask(channelId);
+        return cancelled ? "Task cancelled." : "No task running to cancel.";
+    }
+
+    private String handleStatus(String channelId) {
+        StringBuilder sb = new StringBuilder(taskExecutor.getRunningTask(channelId)
+            .map(task -> String.format("Running: *%s*\nModel: %s\nStarted: %s",
+                task.getDescription(),
+                task.getModel(),
+                task.getStartedAt()))
+            .orElse("No task running in this channel."));
+
+        taskExecutor.estimateRunning(channelId).ifPresent(eta -> sb.append(eta.isOverrun() ?
+            String.format("\nETA: overdue, longer than %d similar tasks took", eta.getSamples()) :
+            String.format("\nETA: ~%s left (90%%: %s), ~$%.2f (90%%: $%.2f)",
+                EtaEstimatorService.formatDuration(Duration.ofMillis(eta.getRemainingP50Ms())),
+                EtaEstimatorService.formatDuration(Duration.ofMillis(eta.getRemainingP90Ms())),
+                eta.getCostP50Usd(), eta.getCostP90Usd())));
+
+        List<QueuedTask> queued = taskExecutor.getQueuedTasks(channelId);
+        if (!queued.isEmpty()) {
+            sb.append(String.format("\n\nQueued (%d):", queued.size()));
+            for (QueuedTask task : queued) {
+                sb.append(String.format("\n• %s (%s)", task.getDescription(),
+                    task.getPriority() != null ? task.getPriority() : "normal"));
+                taskExecutor.estimateStart(channelId, task.getTaskId()).ifPresent(wait ->
+                    sb.append(" starts in ~").append(EtaEstimatorService.formatDuration(wait)));
+            }
+        }
+        return sb.toString();
+    }
+
+    private String handleBudget() {
+        double cacheHits = costTracker.getCacheHitPercentage();
+        return String.format("Monthly budget: %s\n%s%s",
+            costTracker.formatBudgetStatus(),
+            cacheHits > 0 ? String.format("Prompt cache: %.0f%% of input tokens\n", cacheHits) : "",
+            costTracker.isOverBudgetThreshold() ? "Warning: Over 80% of budget used!" : "");
+    }
+
+    /**
+     * /agent-history [completed|failed|cancelled] [model] [page N]
+     */
+    private String handleHistory(String channelId, String text) {
+        String status = null;
+        String model = null;
+        int page = 1;
+        String[] tokens = text.trim().isEmpty() ? new String[0] : text.trim().split("\\s+");
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.equalsIgnoreCase("page") && i + 1 < tokens.length && tokens[i + 1].matches("\\d+")) {
+                String digits = tokens[++i].replaceFirst("^0+(?=\\d)", "");
+                // Longer numbers would overflow an int, and are far past the last page anyway
+                if (digits.length() > 9) {
+                    return "No more tasks in history.";
+                }
+                page = Math.max(1, Integer.parseInt(digits));
+            } else if (HISTORY_STATUSES.contains(token.toUpperCase())) {
+                status = token.toUpperCase();
+            } else {
+                model = token.toLowerCase();
+            }
+        }
+
+        HistoryPage result = taskHistory.query(channelId, status, model, null, null, page - 1, HISTORY_PAGE_SIZE);
+        if (result.getItems().isEmpty()) {
+            return page > 1 ? "No more tasks in history." : "No task history for this channel.";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        int pages = (result.getTotal() + HISTORY_PAGE_SIZE - 1) / HISTORY_PAGE_SIZE;
+        sb.append(String.format("*Task history* (page %d of %d, %d tasks)\n", page, pages, result.getTotal()));
+        for (TaskRecord task : result.getItems()) {
+            sb.append(String.format("`%s` %s | %s | %s | %ds | $%.2f",
+                task.getTaskId(),
+                task.getDescription().length() > 60 ? task.getDescription().substring(0, 60) + "..." : task.getDescription(),
+                task.getStatus(),
+                task.getModel(),
+                task.getDurationMs() / 1000,
+                task.getCostUsd()));
+            if (task.getPrUrl() != null) {
+                sb.append(" | ").append(task.getPrUrl());
+            }
+            sb.append("\n");
+        }
+        return sb.toString().trim();
+    }
+}
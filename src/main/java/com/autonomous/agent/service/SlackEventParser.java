@@ -0,0 +1,93 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.SlackEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Streams an Events API payload straight into a {@link SlackEvent}. Blocks, attachments,
+ * authorizations and the rest are skipped token by token instead of being built into maps.
+ */
+public final class SlackEventParser {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private SlackEventParser() {
+    }
+
+    public static SlackEvent parse(byte[] body) throws IOException {
+        return parse(body, 0, body.length);
+    }
+
+    public static SlackEvent parse(byte[] body, int offset, int length) throws IOException {
+        try (JsonParser parser = JSON.createParser(body, offset, length)) {
+            return parse(parser);
+        }
+    }
+
+    /**
+     * Reads the next JSON object from {@code parser}, e.g. the payload of a Socket Mode envelope.
+     */
+    public static SlackEvent parse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Slack event payload is not a JSON object");
+        }
+        SlackEvent event = new SlackEvent();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "type" -> event.setType(text(parser, value));
+                case "challenge" -> event.setChallenge(text(parser, value));
+                case "event_id" -> event.setEventId(text(parser, value));
+                case "team_id" -> event.setTeamId(text(parser, value));
+                case "event" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        parseInner(parser, event);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return event;
+    }
+
+    private static void parseInner(JsonParser parser, SlackEvent event) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "type" -> event.setEventType(text(parser, value));
+                case "subtype" -> event.setSubtype(text(parser, value));
+                case "user" -> event.setUser(text(parser, value));
+                case "text" -> event.setText(text(parser, value));
+                case "channel" -> event.setChannel(text(parser, value));
+                case "ts" -> event.setTs(text(parser, value));
+                case "thread_ts" -> event.setThreadTs(text(parser, value));
+                case "bot_id", "bot_profile" -> {
+                    if (value != JsonToken.VALUE_NULL) {
+                        event.setBot(true);
+                    }
+                    parser.skipChildren();
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
@@ -1,66 +1,85 @@
 package com.autonomous.agent.service;
 
+import com.autonomous.agent.model.SlackEvent;
 import com.slack.api.Slack;
-import com.slack.api.methods.MethodsClient;
+import com.slack.api.SlackConfig;
+import com.slack.api.methods.SlackApiException;
+import com.slack.api.methods.request.apps.AppsConnectionsOpenRequest;
 import com.slack.api.methods.request.chat.ChatPostMessageRequest;
+import com.slack.api.methods.response.apps.AppsConnectionsOpenResponse;
 import com.slack.api.methods.response.chat.ChatPostMessageResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
+import java.io.IOException;
 
 @Service
 public class SlackService {
     
+    private static final int RATE_LIMIT_ATTEMPTS = 3;
+
     @Value("${slack.bot.token}")
     private String slackBotToken;
+
+    // Web API base URL override, e.g. a stub server in load tests
+    @Value("${slack.api.url:}")
+    private String slackApiUrl;
+
+    private Slack slack;
+
+    @Autowired(required = false)
+    private ThreadRoutingService threadRouting;
+
+    public void setThreadRouting(ThreadRoutingService threadRouting) {
+        this.threadRouting = threadRouting;
+    }
     
-    private final Slack slack = Slack.getInstance();
-    
-    public void processEvent(Map<String, Object> payload) {
-        Map<String, Object> event = (Map<String, Object>) payload.get("event");
+    public void processEvent(SlackEvent event) {
+        if (event.getEventType() == null) {
+            return;
+        }
 
-        if (event != null) {
-            String type = (String) event.get("type");
+        // Ignore bot messages to prevent loops
+        if (event.isBot()) {
+            return;
+        }
 
-            // Ignore bot messages to prevent loops
-            if (event.containsKey("bot_id") || event.containsKey("bot_profile")) {
-                return;
-            }
+        // Ignore message subtypes (edits, deletes, etc)
+        if (event.getSubtype() != null) {
+            return;
+        }
 
-            // Ignore message subtypes (edits, deletes, etc)
-            if (event.containsKey("subtype")) {
-                return;
-            }
+        String channel = event.getChannel();
+        String threadTs = event.getThreadTs();
 
-            // Only respond to direct @mentions for now
-            // Slash commands are handled separately via /slash-commands endpoint
-            if ("app_mention".equals(type)) {
-                String text = (String) event.get("text");
-                String channel = (String) event.get("channel");
-                String threadTs = (String) event.get("thread_ts");
-
-                // Reply in thread if it's a thread message
-                if (threadTs != null) {
-                    postMessageInThread(channel, threadTs, "I received your mention. Use `/agent-task` to submit tasks.");
-                } else {
-                    sendMessage(channel, "Hi! Use `/agent-task <description>` to submit a task.");
-                }
+        // Replies in a task thread may answer a question the task is waiting on
+        if (threadTs != null && threadRouting != null
+            && threadRouting.route(channel, threadTs, event.getTs(), event.getText())) {
+            return;
+        }
+
+        // Only respond to direct @mentions for now
+        // Slash commands are handled separately via /slash-commands endpoint
+        if ("app_mention".equals(event.getEventType())) {
+            // Reply in thread if it's a thread message
+            if (threadTs != null) {
+                postMessageInThread(channel, threadTs, "I received your mention. Use `/agent-task` to submit tasks.");
+            } else {
+                sendMessage(channel, "Hi! Use `/agent-task <description>` to submit a task.");
             }
-            // Don't auto-respond to regular messages - only slash commands trigger tasks
         }
+        // Don't auto-respond to regular messages - only slash commands trigger tasks
     }
     
     public void sendMessage(String channel, String message) {
         try {
-            MethodsClient methods = slack.methods(slackBotToken);
-
             ChatPostMessageRequest request = ChatPostMessageRequest.builder()
                 .channel(channel)
                 .text(message)
                 .build();
 
-            ChatPostMessageResponse response = methods.chatPostMessage(request);
+            ChatPostMessageResponse response = chatPostMessage(request);
 
             if (!response.isOk()) {
                 System.err.println("Failed to send message: " + response.getError());
@@ -76,14 +95,12 @@ public class SlackService {
      */
     public String postMessage(String channel, String message) {
         try {
-            MethodsClient methods = slack.methods(slackBotToken);
-
             ChatPostMessageRequest request = ChatPostMessageRequest.builder()
                 .channel(channel)
                 .text(message)
                 .build();
 
-            ChatPostMessageResponse response = methods.chatPostMessage(request);
+            ChatPostMessageResponse response = chatPostMessage(request);
 
             if (response.isOk()) {
                 return response.getTs();
@@ -102,15 +119,13 @@ public class SlackService {
      */
     public String postMessageInThread(String channel, String threadTs, String message) {
         try {
-            MethodsClient methods = slack.methods(slackBotToken);
-
             ChatPostMessageRequest request = ChatPostMessageRequest.builder()
                 .channel(channel)
                 .threadTs(threadTs)
                 .text(message)
                 .build();
 
-            ChatPostMessageResponse response = methods.chatPostMessage(request);
+            ChatPostMessageResponse response = chatPostMessage(request);
 
             if (response.isOk()) {
                 return response.getTs();
@@ -123,4 +138,56 @@ public class SlackService {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Asks Slack for a Socket Mode WebSocket URL using the app-level ({@code xapp-}) token.
+     */
+    public String openSocketModeConnection(String appToken) throws IOException, SlackApiException {
+        AppsConnectionsOpenResponse response = slack().methods(appToken)
+            .appsConnectionsOpen(AppsConnectionsOpenRequest.builder().build());
+        if (!response.isOk()) {
+            throw new IOException("apps.connections.open failed: " + response.getError());
+        }
+        return response.getUrl();
+    }
+
+    /**
+     * chat.postMessage, waiting out an HTTP 429 for Slack's Retry-After, up to
+     * {@code RATE_LIMIT_ATTEMPTS} attempts. Interrupted while waiting, it gives up with
+     * the 429 and leaves the thread's interrupt flag set.
+     */
+    private ChatPostMessageResponse chatPostMessage(ChatPostMessageRequest request)
+            throws IOException, SlackApiException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return slack().methods(slackBotToken).chatPostMessage(request);
+            } catch (SlackApiException e) {
+                if (e.getResponse().code() != 429 || attempt == RATE_LIMIT_ATTEMPTS) {
+                    throw e;
+                }
+                String retryAfter = e.getResponse().header("Retry-After");
+                long seconds = retryAfter != null && retryAfter.matches("\\d+") ? Long.parseLong(retryAfter) : 1;
+                System.err.println("Slack rate limited chat.postMessage, retrying in " + seconds + "s");
+                try {
+                    Thread.sleep(seconds * 1000);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private synchronized Slack slack() {
+        if (slack == null) {
+            if (slackApiUrl != null && !slackApiUrl.isBlank()) {
+                SlackConfig config = new SlackConfig();
+                config.setMethodsEndpointUrlPrefix(slackApiUrl.endsWith("/") ? slackApiUrl : slackApiUrl + "/");
+                slack = Slack.getInstance(config);
+            } else {
+                slack = Slack.getInstance();
+            }
+        }
+        return slack;
+    }
+}
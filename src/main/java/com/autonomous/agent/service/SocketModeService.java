@@ -0,0 +1,211 @@
+package com.autonomous.agent.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Receives slash commands and events over a Socket Mode WebSocket instead of inbound HTTP
+ * ({@code slack.transport=socket}), so the agent needs no public endpoint.
+ *
+ * The connection URL comes from {@code apps.connections.open} with the app-level token.
+ * Every envelope is acked on the same socket: slash commands with the response text,
+ * events right away with the dispatch running afterwards. Both go through
+ * {@link SlackDispatcher}, the same path the HTTP endpoints use. When Slack sends
+ * {@code disconnect} (it rotates connections every few hours) a new connection is opened
+ * before the old one closes; dropped connections are retried with backoff.
+ */
+@Service
+public class SocketModeService {
+
+    public static final String SOCKET = "socket";
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    @Value("${slack.transport:http}")
+    private String transport = "http";
+
+    @Value("${slack.app.token:}")
+    private String appToken;
+
+    @Autowired
+    private SlackService slackService;
+
+    @Autowired
+    private SlackDispatcher dispatcher;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ExecutorService handlers = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "socket-mode");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService connector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "socket-mode-connect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile WebSocket socket;
+    private volatile boolean running;
+    private int failures;  // only touched on the connector thread
+
+    public void setTransport(String transport) {
+        this.transport = transport;
+    }
+
+    public void setAppToken(String appToken) {
+        this.appToken = appToken;
+    }
+
+    public void setSlackService(SlackService slackService) {
+        this.slackService = slackService;
+    }
+
+    public void setDispatcher(SlackDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!SOCKET.equalsIgnoreCase(transport)) {
+            return;
+        }
+        if (appToken == null || appToken.isBlank()) {
+            throw new IllegalStateException("slack.transport=socket needs an app-level token in slack.app.token");
+        }
+        running = true;
+        connector.execute(this::connect);
+    }
+
+    public boolean isConnected() {
+        WebSocket current = socket;
+        return current != null && !current.isInputClosed();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        WebSocket current = socket;
+        if (current != null) {
+            current.sendClose(WebSocket.NORMAL_CLOSURE, "shutdown");
+        }
+        connector.shutdownNow();
+        handlers.shutdown();
+    }
+
+    private void connect() {
+        if (!running) return;
+        try {
+            String url = slackService.openSocketModeConnection(appToken);
+            WebSocket previous = socket;
+            socket = http.newWebSocketBuilder().buildAsync(URI.create(url), new Listener()).join();
+            failures = 0;
+            System.out.println("Socket Mode connected");
+            if (previous != null) {
+                previous.sendClose(WebSocket.NORMAL_CLOSURE, "replaced");
+            }
+        } catch (Exception e) {
+            long delay = Math.min(MAX_BACKOFF_MS, 1000L << Math.min(failures++, 5));
+            System.err.println("Socket Mode connection failed, retrying in " + delay / 1000 + "s: " + e.getMessage());
+            connector.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void reconnect(WebSocket closed) {
+        // Sockets we replaced on purpose close too; only the live one needs replacing
+        if (running && closed == socket) {
+            connector.execute(this::connect);
+        }
+    }
+
+    private void handle(WebSocket ws, String message) {
+        try {
+            JsonNode envelope = mapper.readTree(message);
+            String envelopeId = envelope.path("envelope_id").asText(null);
+            JsonNode payload = envelope.path("payload");
+            switch (envelope.path("type").asText()) {
+                case "hello" -> System.out.println("Socket Mode ready (" +
+                    envelope.path("num_connections").asInt() + " connection(s))");
+                case "disconnect" -> {
+                    System.out.println("Socket Mode disconnect requested: " + envelope.path("reason").asText());
+                    if (ws == socket) {
+                        connector.execute(this::connect);
+                    }
+                }
+                case "slash_commands" -> {
+                    String text = dispatcher.handleCommand(
+                        payload.path("command").asText(null),
+                        payload.path("text").asText(""),
+                        payload.path("user_id").asText(null),
+                        payload.path("channel_id").asText(null));
+                    ack(ws, envelopeId, Map.of("response_type", "in_channel", "text", text));
+                }
+                case "events_api" -> {
+                    ack(ws, envelopeId, null);
+                    dispatcher.handleEvent(SlackEventParser.parse(mapper.treeAsTokens(payload)));
+                }
+                // Interactive payloads aren't used yet, but Slack retries anything left unacked
+                default -> ack(ws, envelopeId, null);
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to handle Socket Mode message: " + e.getMessage());
+        }
+    }
+
+    private void ack(WebSocket ws, String envelopeId, Map<String, Object> payload) throws Exception {
+        if (envelopeId == null) return;
+        Map<String, Object> ack = new LinkedHashMap<>();
+        ack.put("envelope_id", envelopeId);
+        if (payload != null) {
+            ack.put("payload", payload);
+        }
+        String json = mapper.writeValueAsString(ack);
+        // A WebSocket allows one outstanding send at a time
+        synchronized (ws) {
+            ws.sendText(json, true).join();
+        }
+    }
+
+    private final class Listener implements WebSocket.Listener {
+
+        private final StringBuilder partial = new StringBuilder();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                String message = partial.toString();
+                partial.setLength(0);
+                handlers.execute(() -> handle(ws, message));
+            }
+            ws.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+            System.out.println("Socket Mode connection closed (" + statusCode + " " + reason + ")");
+            reconnect(ws);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            System.err.println("Socket Mode connection error: " + error.getMessage());
+            reconnect(ws);
+        }
+    }
+}
@@ -1,12 +1,28 @@
 package com.autonomous.agent.service;
 
 import com.autonomous.agent.model.ChannelConfig;
+import com.autonomous.agent.model.ClaudeSession;
+import com.autonomous.agent.model.ClaudeUsage;
+import com.autonomous.agent.model.CostEntry;
+import com.autonomous.agent.model.PreparedWorkspace;
+import com.autonomous.agent.model.ProcessCleanup;
+import com.autonomous.agent.model.QueuedTask;
+import com.autonomous.agent.model.RepoMetadata;
+import com.autonomous.agent.model.TaskEstimate;
 import com.autonomous.agent.model.TaskExecution;
+import com.autonomous.agent.model.TaskLease;
+import com.autonomous.agent.model.TaskRecord;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.net.InetAddress;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
@@ -17,10 +33,38 @@ import java.util.regex.Pattern;
 public class TaskExecutorService {
 
     private static final Pattern MODEL_FLAG_PATTERN = Pattern.compile("--model\\s+(\\w+)");
+    private static final Pattern PRIORITY_FLAG_PATTERN =
+        Pattern.compile("--priority\\s+(high|normal|low)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern COMBINED_FLAG_PATTERN = Pattern.compile("--combined\\b");
+    private static final Pattern BATCH_FLAG_PATTERN = Pattern.compile("--(batch|combined)\\b");
+    private static final Pattern LIST_MARKER_PATTERN = Pattern.compile("^([-*•]|\\d+[.)])\\s+");
+    private static final int GIT_THREADS = 4;
+    private static final int TEST_THREADS = 2;
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final long QUEUE_POLL_SECONDS = 2;
+    private static final int PR_SUMMARY_CHARS = 1500;
+    // What claude --resume prints when it has no such session
+    private static final String NO_SESSION = "No conversation found";
+    private static final ObjectMapper RESULT_MAPPER = new ObjectMapper();
 
     @Value("${claude.code.path:claude}")
     private String claudeCodePath;
 
+    @Value("${agent.max-concurrent-tasks:4}")
+    private int maxConcurrentTasks = 4;
+
+    @Value("${agent.node.id:}")
+    private String nodeId;
+
+    @Value("${agent.queue.aging-minutes:10}")
+    private long agingMinutes = 10;
+
+    @Value("${agent.queue.preemption:false}")
+    private boolean preemptionEnabled;
+
+    @Value("${agent.sessions.max-age-hours:24}")
+    private long sessionMaxAgeHours = 24;
+
     private final ConfigLoaderService configLoader;
     private final ThreadManagerService threadManager;
 
@@ -33,15 +77,156 @@ public class TaskExecutorService {
     @Autowired(required = false)
     private SlackService slackService;
 
+    @Autowired(required = false)
+    private RepoMetadataService repoMetadata;
+
+    @Autowired(required = false)
+    private SetupCacheService setupCache;
+
+    @Autowired(required = false)
+    private WorkspaceService workspaceService;
+
+    @Autowired(required = false)
+    private TaskHistoryService taskHistory;
+
+    @Autowired(required = false)
+    private ThreadRoutingService threadRouting;
+
+    @Autowired(required = false)
+    private ModelRouterService modelRouter;
+
+    @Autowired(required = false)
+    private EtaEstimatorService etaEstimator;
+
+    @Autowired(required = false)
+    private TranscriptArchiveService transcripts;
+
+    @Autowired(required = false)
+    private ClaudeSessionService sessions;
+
+    @Autowired(required = false)
+    private PromptAssembler promptAssembler;
+
+    @Autowired(required = false)
+    private ProcessSupervisor processSupervisor = new ProcessSupervisor();
+
     private final Map<String, TaskExecution> runningTasks = new ConcurrentHashMap<>();
-    private final Map<String, Queue<TaskExecution>> taskQueues = new ConcurrentHashMap<>();
+    private final Set<String> routedTasks = ConcurrentHashMap.newKeySet();
+
+    @Autowired(required = false)
+    private TaskQueue taskQueue = new InMemoryTaskQueue();
+
+    private final ScheduledExecutorService queueScheduler = Executors.newSingleThreadScheduledExecutor();
+    // Only heartbeats: a poll stuck on Slack must not let this node's leases expire
+    private final ScheduledExecutorService leaseHeartbeat = Executors.newSingleThreadScheduledExecutor();
+    // Leases claimed from the shared queue whose task isn't in runningTasks yet, by channel
+    private final Map<String, TaskLease> startingLeases = new ConcurrentHashMap<>();
     private final ExecutorService executor = Executors.newCachedThreadPool();
 
+    // Bounded pools for post-Claude work; tests get their own so a slow suite can't starve pushes
+    private final ExecutorService gitExecutor = Executors.newFixedThreadPool(GIT_THREADS);
+    private final ExecutorService testExecutor = Executors.newFixedThreadPool(TEST_THREADS);
+
+    // Global cap on concurrent Claude runs across all channels and batch subtasks
+    private TaskSlots<TaskExecution> claudeSlots;
+
+    // Looked up for every task to match its recorded session
+    private static volatile String cachedHostName;
+
     public TaskExecutorService(ConfigLoaderService configLoader, ThreadManagerService threadManager) {
         this.configLoader = configLoader;
         this.threadManager = threadManager;
     }
 
+    public void setClaudeCodePath(String claudeCodePath) {
+        this.claudeCodePath = claudeCodePath;
+    }
+
+    public void setMaxConcurrentTasks(int maxConcurrentTasks) {
+        this.maxConcurrentTasks = maxConcurrentTasks;
+    }
+
+    public void setPreemptionEnabled(boolean preemptionEnabled) {
+        this.preemptionEnabled = preemptionEnabled;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public void setSessionMaxAgeHours(long sessionMaxAgeHours) {
+        this.sessionMaxAgeHours = sessionMaxAgeHours;
+    }
+
+    public void setGitService(GitService gitService) {
+        this.gitService = gitService;
+    }
+
+    public void setRepoMetadataService(RepoMetadataService repoMetadata) {
+        this.repoMetadata = repoMetadata;
+    }
+
+    public void setSetupCacheService(SetupCacheService setupCache) {
+        this.setupCache = setupCache;
+    }
+
+    public void setWorkspaceService(WorkspaceService workspaceService) {
+        this.workspaceService = workspaceService;
+    }
+
+    public void setTaskQueue(TaskQueue taskQueue) {
+        this.taskQueue = taskQueue;
+    }
+
+    public void setTaskHistory(TaskHistoryService taskHistory) {
+        this.taskHistory = taskHistory;
+    }
+
+    public void setThreadRouting(ThreadRoutingService threadRouting) {
+        this.threadRouting = threadRouting;
+    }
+
+    public void setModelRouter(ModelRouterService modelRouter) {
+        this.modelRouter = modelRouter;
+    }
+
+    public void setEtaEstimator(EtaEstimatorService etaEstimator) {
+        this.etaEstimator = etaEstimator;
+    }
+
+    public void setTranscripts(TranscriptArchiveService transcripts) {
+        this.transcripts = transcripts;
+    }
+
+    public void setSessions(ClaudeSessionService sessions) {
+        this.sessions = sessions;
+    }
+
+    public void setPromptAssembler(PromptAssembler promptAssembler) {
+        this.promptAssembler = promptAssembler;
+    }
+
+    public void setProcessSupervisor(ProcessSupervisor processSupervisor) {
+        this.processSupervisor = processSupervisor;
+    }
+
+    @PostConstruct
+    public void startQueueWorkers() {
+        // First, so shared-queue polling can't pick up an interrupted task before it's checkpointed
+        queueScheduler.execute(this::resumeInterruptedTasks);
+        leaseHeartbeat.scheduleAtFixedRate(this::heartbeatLeases, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        if (taskQueue.isShared()) {
+            System.out.println("Pulling tasks from shared queue as node: " + nodeId());
+            queueScheduler.scheduleWithFixedDelay(this::pollSharedQueue, QUEUE_POLL_SECONDS, QUEUE_POLL_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stopQueueWorkers() {
+        queueScheduler.shutdownNow();
+        leaseHeartbeat.shutdownNow();
+    }
+
     public String submitTask(String channelId, String command, String userId) {
         Optional<ChannelConfig> configOpt = configLoader.getConfigForChannel(channelId);
 
@@ -50,53 +235,95 @@ public class TaskExecutorService {
         }
 
         ChannelConfig config = configOpt.get();
-        String model = parseModel(command);
-        if (model.equals("sonnet")) {
-            model = config.getDefaultModel();
+
+        List<String> batch = parseBatch(command);
+        if (batch.size() > 1) {
+            return submitBatch(channelId, command, batch, config);
         }
-        String description = stripModelFlag(command);
+
+        String model = MODEL_FLAG_PATTERN.matcher(command).find() ? parseModel(command) : config.getDefaultModel();
+        String priority = parsePriority(command);
+        String description = stripFlags(command);
 
         if (hasRunningTask(channelId)) {
             TaskExecution running = runningTasks.get(channelId);
             String onConcurrent = config.getOnConcurrent();
 
-            if ("ask".equals(onConcurrent)) {
+            if ("ask".equals(onConcurrent) && running != null && running.getThreadTs() != null && threadRouting != null) {
+                askAboutConcurrentTask(running, description, model, priority, config);
+                return String.format("I'm currently working on: *%s*\n\n" +
+                    "Reply *queue*, *parallel* or *cancel* in its thread to decide what happens to this task.",
+                    running.getDescription());
+            } else if ("ask".equals(onConcurrent)) {
                 return String.format("I'm currently working on: *%s*\n\n" +
                     "What should I do with this new task?\n" +
                     "• Reply *queue* to run after current task\n" +
                     "• Reply *parallel* to run alongside (may conflict)\n" +
                     "• Reply *cancel* to stop current task and start this",
-                    running.getDescription());
+                    running != null ? running.getDescription() : "a task on another agent node");
             } else if ("reject".equals(onConcurrent)) {
                 return "A task is already running. Wait for it to complete.";
             } else if ("queue".equals(onConcurrent)) {
-                queueTask(channelId, description, model, config);
-                return "Task queued. Will run after current task completes.";
+                String taskId = queueTask(channelId, description, model, priority, null);
+                return String.format("Task queued (%s priority). Will run after current task completes.%s", priority,
+                    estimateStart(channelId, taskId)
+                        .map(wait -> " Estimated start: in ~" + EtaEstimatorService.formatDuration(wait) + ".")
+                        .orElse(""));
             }
         }
 
-        return startTask(channelId, description, model, config);
+        if (taskQueue.isShared()) {
+            return submitToSharedQueue(channelId, description, model, priority, config);
+        }
+        return startTask(channelId, description, model, priority, config, null);
     }
 
-    private String startTask(String channelId, String description, String model, ChannelConfig config) {
-        String taskId = UUID.randomUUID().toString().substring(0, 8);
+    /**
+     * With a shared queue every task goes through it, so whichever node has capacity
+     * (preferably one with the repo already cloned) picks it up.
+     */
+    private String submitToSharedQueue(String channelId, String description, String model, String priority,
+                                       ChannelConfig config) {
         String threadTs = threadManager.createThread(channelId, config.getChannelName(), description);
+        if (threadTs == null) {
+            return "Failed to create thread. Check Slack connection.";
+        }
+        queueTask(channelId, description, model, priority, threadTs);
+        executor.execute(this::pollSharedQueue);
+        return String.format("Task queued (%s priority). The next available agent node will pick it up.", priority);
+    }
+
+    private String startTask(String channelId, String description, String model, String priority,
+                             ChannelConfig config, TaskLease lease) {
+        QueuedTask queued = lease != null ? lease.getTask() : null;
+        String taskId = queued != null ? queued.getTaskId() : UUID.randomUUID().toString().substring(0, 8);
+        String threadTs = queued != null && queued.getThreadTs() != null ?
+            queued.getThreadTs() : threadManager.createThread(channelId, config.getChannelName(), description);
 
         if (threadTs == null) {
+            if (lease != null) {
+                taskQueue.complete(lease);
+            }
             return "Failed to create thread. Check Slack connection.";
         }
+        model = resolveModel(model, taskId, description, config);
 
         TaskExecution execution = TaskExecution.builder()
             .taskId(taskId)
             .channelId(channelId)
             .description(description)
             .model(model)
+            .priority(priority)
             .threadTs(threadTs)
+            .resumeBranch(queued != null ? queued.getResumeBranch() : null)
+            .submittedAt(queued != null && queued.getEnqueuedAt() != null ? queued.getEnqueuedAt() : Instant.now())
             .startedAt(Instant.now())
             .status("RUNNING")
+            .lease(lease)
             .build();
 
         runningTasks.put(channelId, execution);
+        threadManager.registerThread(taskId, channelId, threadTs);
 
         CompletableFuture<String> future = CompletableFuture.supplyAsync(() ->
             executeTask(execution, config), executor);
@@ -110,137 +337,588 @@ public class TaskExecutorService {
 
     private String executeTask(TaskExecution execution, ChannelConfig config) {
         System.out.println("executeTask started for: " + execution.getDescription());
+        boolean onTaskBranch = false;
+        boolean keepSession = false;
+        boolean claimed = false;
         try {
             System.out.println("GitService is: " + (gitService != null ? "available" : "NULL"));
-            String branchName = gitService != null ? gitService.generateBranchName(
-                config.getChannelName(),
-                execution.getTaskId(),
-                config.getBranchPrefix() != null ? config.getBranchPrefix() : "agent"
-            ) : "agent/" + execution.getTaskId();
+            ClaudeSession session = resumableSession(execution, config);
+            if (session != null && execution.getResumeBranch() == null) {
+                execution.setResumeBranch(session.getBranchName());
+            }
+            String branchName = execution.getResumeBranch() != null ? execution.getResumeBranch() :
+                gitService != null ? gitService.generateBranchName(
+                    config.getChannelName(),
+                    execution.getTaskId(),
+                    config.getBranchPrefix() != null ? config.getBranchPrefix() : "agent"
+                ) : "agent/" + execution.getTaskId();
             execution.setBranchName(branchName);
 
-            if (gitService != null) {
-                // Ensure repo is cloned before doing anything else
-                System.out.println("Cloning repo: " + config.getRepo() + " to " + config.getClonePath());
-                if (!gitService.ensureRepoCloned(config.getRepo(), config.getClonePath())) {
-                    throw new RuntimeException("Failed to clone repository: " + config.getRepo());
-                }
-                System.out.println("Repo cloned successfully");
-
-                System.out.println("Creating branch: " + branchName);
-                gitService.createBranch(config.getClonePath(), branchName);
-                System.out.println("Branch created");
+            if (gitService != null && workspaceService != null) {
+                // Keeps the janitor off the clone until the task is done with it
+                workspaceService.claim(config.getClonePath());
+                claimed = true;
+                // Claim the warm standby workspace, or clone/fetch/setup now if there isn't one
+                PreparedWorkspace workspace = workspaceService.acquire(config);
 
-                if (config.getSetupCommands() != null) {
-                    for (String cmd : config.getSetupCommands()) {
-                        runCommand(config.getClonePath(), cmd);
-                    }
+                if (execution.getResumeBranch() != null) {
+                    System.out.println("Resuming from checkpoint branch: " + branchName);
+                    onTaskBranch = gitService.checkoutBranch(config.getClonePath(), branchName);
+                }
+                if (!onTaskBranch) {
+                    System.out.println("Creating branch: " + branchName + " from " + workspace.getDefaultBranch());
+                    onTaskBranch = gitService.createBranch(config.getClonePath(), branchName, workspace.getDefaultBranch());
+                    // The session's edits aren't in this workspace, so continuing it would mislead claude
+                    session = null;
                 }
+                System.out.println("Branch created");
             }
+            startSession(execution, config, session);
 
             System.out.println("Calling Claude Code...");
             String result = callClaudeCode(execution, config);
             System.out.println("Claude Code completed, result length: " + result.length());
 
-            String diffStats = gitService != null ?
-                gitService.getDiffStats(config.getClonePath(), config.getPrTarget()) : "unknown";
+            ensureNotCancelled(execution);
+            postProcess(execution, config, result).join();
 
-            // Detect test command based on project type
-            String testCommand = detectTestCommand(config.getClonePath());
-            String testResults = testCommand != null && gitService != null ?
-                gitService.runTests(config.getClonePath(), testCommand) : "skipped (no test runner found)";
+            if (!advance(execution, "COMPLETED")) {
+                return "Task cancelled";
+            }
+            return result;
 
-            if (gitService != null) {
-                gitService.commitAll(config.getClonePath(), "feat: " + execution.getDescription());
-                gitService.push(config.getClonePath(), branchName);
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if ("CANCELLED".equals(execution.getStatus())) {
+                // cancelTask already reported it in the thread
+                return "Task cancelled";
+            }
+            if ("PREEMPTED".equals(execution.getStatus())) {
+                keepSession = true;
+                requeuePreempted(execution, config, onTaskBranch);
+                return "Task preempted";
+            }
+            if (!advance(execution, "FAILED")) {
+                return "Task cancelled";
+            }
+            execution.setError(cause.getMessage());
+            threadManager.postFailure(
+                execution.getChannelId(),
+                execution.getThreadTs(),
+                cause.getMessage(),
+                config.getOnFailure()
+            );
+            if ("ask".equals(config.getOnFailure()) && threadRouting != null) {
+                keepSession = true;
+                updateSession(execution, "FAILED");
+                awaitFailureDecision(execution, config, onTaskBranch);
+            }
+            return "Task failed: " + cause.getMessage();
+        } finally {
+            if (!keepSession && sessions != null) {
+                sessions.remove(execution.getTaskId());
             }
+            recordHistory(execution);
+            if (claimed) {
+                workspaceService.release(config.getClonePath());
+            }
+            runningTasks.remove(execution.getChannelId(), execution);
+            if (execution.getLease() != null) {
+                taskQueue.complete(execution.getLease());
+            }
+            if (workspaceService != null && !hasRunningTask(execution.getChannelId())) {
+                workspaceService.prepareStandbyAsync(config);
+            }
+            processQueue(execution.getChannelId());
+        }
+    }
 
-            String prUrl = gitService != null ? gitService.createPullRequest(
-                config.getClonePath(),
+    /**
+     * Runs the post-Claude steps as a dependency graph instead of a sequence.
+     * The commit goes first; diff stats, tests and push -> PR then run side by side,
+     * and the completion post waits for all of them.
+     */
+    private CompletableFuture<Void> postProcess(TaskExecution execution, ChannelConfig config, String result) {
+        String repoPath = config.getClonePath();
+
+        CompletableFuture<Boolean> committed = CompletableFuture.supplyAsync(() ->
+            gitService == null || gitService.commitAll(repoPath, "feat: " + execution.getDescription()),
+            gitExecutor);
+
+        CompletableFuture<String> diffStats = committed.thenApplyAsync(c -> gitService != null ?
+            gitService.getDiffStats(repoPath, config.getPrTarget()) : "unknown", gitExecutor);
+
+        CompletableFuture<String> testResults = committed.thenApplyAsync(c -> {
+            RepoMetadata metadata = repoMetadata != null ? repoMetadata.get(repoPath) : null;
+            String testCommand = metadata != null ? metadata.getTestCommand() : null;
+            return testCommand != null && gitService != null ?
+                archiveTests(execution, gitService.runTests(repoPath, testCommand, dependencyEnvironment(config))) :
+                "skipped (no test runner found)";
+        }, testExecutor);
+
+        // Push speculatively while tests are still running
+        CompletableFuture<Boolean> pushed = committed.thenApplyAsync(c -> {
+            ensureNotCancelled(execution);
+            return gitService == null || gitService.push(repoPath, execution.getBranchName());
+        }, gitExecutor);
+        CompletableFuture<String> prUrl = pushed.thenApplyAsync(ok -> ok && gitService != null ?
+            gitService.createPullRequest(
+                repoPath,
                 execution.getDescription(),
-                "Automated PR from Slack agent\n\n" + result,
+                pullRequestBody(execution, result),
                 config.getPrTarget()
-            ) : null;
+            ) : null, gitExecutor);
 
+        return CompletableFuture.allOf(diffStats, testResults, prUrl).thenAcceptAsync(v -> {
+            execution.setPrUrl(prUrl.join());
             if (costTracker != null) {
-                long estimatedInputTokens = execution.getDescription().length() * 2;
-                long estimatedOutputTokens = result.length();
-                var costEntry = costTracker.recordCost(
-                    execution.getChannelId(),
-                    execution.getTaskId(),
-                    execution.getModel(),
-                    estimatedInputTokens,
-                    estimatedOutputTokens
-                );
+                var costEntry = recordCost(execution, result);
+                execution.setCostUsd(costEntry.getCostUsd());
 
                 threadManager.postCompletion(
                     execution.getChannelId(),
                     execution.getThreadTs(),
                     result.substring(0, Math.min(500, result.length())),
                     costTracker.formatCostSummary(costEntry),
-                    diffStats,
-                    testResults,
-                    prUrl != null ? prUrl : "PR creation failed"
+                    diffStats.join(),
+                    testResults.join(),
+                    prUrl.join() != null ? prUrl.join() : pushed.join() ? "PR creation failed" :
+                        "push of " + execution.getBranchName() + " failed, so no PR was opened"
                 );
             }
+        }, gitExecutor);
+    }
 
-            execution.setStatus("COMPLETED");
-            return result;
+    /**
+     * The start of Claude's output and links to the archived transcript and test output.
+     * The full transcript would bloat the PR and can outgrow GitHub's body limit.
+     */
+    private String pullRequestBody(TaskExecution execution, String result) {
+        StringBuilder body = new StringBuilder("Automated PR from Slack agent\n\n");
+        body.append(summarize(result, PR_SUMMARY_CHARS));
+        if (transcripts != null) {
+            String transcript = transcripts.link(execution.getTaskId(), TranscriptArchiveService.TRANSCRIPT);
+            if (transcript != null) {
+                body.append("\n\nFull transcript: ").append(transcript)
+                    .append("\nTest output: ").append(transcripts.link(execution.getTaskId(), TranscriptArchiveService.TESTS));
+            } else {
+                body.append("\n\nThe full transcript and test output are archived under task ").append(execution.getTaskId()).append('.');
+            }
+        }
+        return body.toString();
+    }
 
-        } catch (Exception e) {
-            execution.setStatus("FAILED");
-            threadManager.postFailure(
-                execution.getChannelId(),
-                execution.getThreadTs(),
-                e.getMessage(),
-                config.getOnFailure()
-            );
-            return "Task failed: " + e.getMessage();
-        } finally {
-            runningTasks.remove(execution.getChannelId());
-            processQueue(execution.getChannelId());
+    /**
+     * Up to {@code maxChars} of {@code text}, cut at a line break where there is one.
+     */
+    static String summarize(String text, int maxChars) {
+        if (text.length() <= maxChars) {
+            return text.strip();
         }
+        int cut = text.lastIndexOf('\n', maxChars);
+        return text.substring(0, cut > maxChars / 2 ? cut : maxChars).strip() + "\n\n...";
+    }
+
+    private String archiveTests(TaskExecution execution, String testResults) {
+        if (transcripts != null && testResults != null) {
+            transcripts.store(execution.getTaskId(), TranscriptArchiveService.TESTS, testResults);
+        }
+        return testResults;
     }
 
     private String callClaudeCode(TaskExecution execution, ChannelConfig config) throws Exception {
+        return callClaudeCode(execution, config, config.getClonePath());
+    }
+
+    private String callClaudeCode(TaskExecution execution, ChannelConfig config, String workDir) throws Exception {
+        TaskSlots<TaskExecution> slots = claudeSlots();
+        long key = priorityKey(execution);
+        ensureNotCancelled(execution);
+        if (preemptionEnabled && "high".equals(execution.getPriority()) && slots.available() == 0) {
+            preemptFor(execution, key, slots);
+        }
+        if (!slots.acquire(key, execution, () -> isCancelled(execution))) {
+            throw new RuntimeException("Cancelled");
+        }
+        try {
+            ensureNotCancelled(execution);
+            return runClaudeCode(execution, config, workDir);
+        } catch (RuntimeException e) {
+            if (!execution.isResumingSession() || e.getMessage() == null || !e.getMessage().contains(NO_SESSION)) {
+                throw e;
+            }
+            // claude no longer has it (another home directory, or its session files were cleaned up)
+            System.err.println("Claude session " + execution.getSessionId() + " is gone; starting task " +
+                execution.getTaskId() + " over on its branch");
+            execution.setSessionId(UUID.randomUUID().toString());
+            execution.setResumingSession(false);
+            updateSession(execution, "RUNNING");
+            return runClaudeCode(execution, config, workDir);
+        } finally {
+            slots.release(execution);
+        }
+    }
+
+    /**
+     * The task's recorded session, if claude can continue it here: sessions live under
+     * {@code ~/.claude} per node and working directory.
+     */
+    private ClaudeSession resumableSession(TaskExecution execution, ChannelConfig config) {
+        if (sessions == null) {
+            return null;
+        }
+        return sessions.get(execution.getTaskId())
+            .filter(session -> sessionNode().equals(session.getNode()))
+            .filter(session -> Objects.equals(config.getClonePath(), session.getWorkDir()))
+            .orElse(null);
+    }
+
+    /**
+     * Continues {@code session}, or starts a new one. Either way it's recorded before claude
+     * runs, so a run that never finishes can still be resumed.
+     */
+    private void startSession(TaskExecution execution, ChannelConfig config, ClaudeSession session) {
+        if (sessions == null) {
+            return;
+        }
+        if (session == null) {
+            session = ClaudeSession.builder()
+                .taskId(execution.getTaskId())
+                .sessionId(UUID.randomUUID().toString())
+                .node(sessionNode())
+                .workDir(config.getClonePath())
+                .channelId(execution.getChannelId())
+                .description(execution.getDescription())
+                .model(execution.getModel())
+                .priority(execution.getPriority())
+                .threadTs(execution.getThreadTs())
+                .submittedAt(execution.getSubmittedAt())
+                .build();
+        }
+        session.setBranchName(execution.getBranchName());
+        session.setStatus("RUNNING");
+        session.setRuns(session.getRuns() + 1);
+        sessions.save(session);
+        execution.setSessionId(session.getSessionId());
+        execution.setResumingSession(session.getRuns() > 1);
+        if (execution.isResumingSession()) {
+            System.out.println("Resuming Claude session " + session.getSessionId() + " (run " + session.getRuns() + ")");
+        }
+    }
+
+    private void updateSession(TaskExecution execution, String status) {
+        if (sessions == null || execution.getSessionId() == null) {
+            return;
+        }
+        sessions.get(execution.getTaskId()).ifPresent(session -> {
+            session.setSessionId(execution.getSessionId());
+            session.setStatus(status);
+            sessions.save(session);
+        });
+    }
+
+    /**
+     * Picks up the tasks this node was running when the agent stopped. Their uncommitted
+     * work is committed to the task branch, and with the in-memory queue (which didn't
+     * survive the restart) they're queued again to resume their session; shared-queue
+     * tasks come back by themselves when their lease expires. Tasks that were waiting on
+     * a failure reply lost that question, so their sessions are dropped, as are sessions
+     * nobody has touched for {@code agent.sessions.max-age-hours}. Other nodes' recent
+     * sessions are left to them.
+     */
+    void resumeInterruptedTasks() {
+        if (sessions == null) {
+            return;
+        }
+        Instant staleBefore = Instant.now().minus(Duration.ofHours(sessionMaxAgeHours));
+        for (ClaudeSession session : sessions.list()) {
+            if (runningTasks.values().stream().anyMatch(task -> task.getTaskId().equals(session.getTaskId()))) {
+                continue;
+            }
+            if (session.getUpdatedAt() == null || !session.getUpdatedAt().isAfter(staleBefore)) {
+                System.out.println("Dropping stale Claude session of task " + session.getTaskId() +
+                    " (node " + session.getNode() + ")");
+                sessions.remove(session.getTaskId());
+                continue;
+            }
+            if (!sessionNode().equals(session.getNode())) {
+                continue;
+            }
+            Optional<ChannelConfig> config = configLoader.getConfigForChannel(session.getChannelId());
+            if (!"RUNNING".equals(session.getStatus()) || config.isEmpty()) {
+                sessions.remove(session.getTaskId());
+                continue;
+            }
+            String resumeBranch = checkpoint(session);
+            System.out.println("Task " + session.getTaskId() + " was interrupted by a restart" +
+                (resumeBranch != null ? "; checkpointed to " + resumeBranch : ""));
+            if (taskQueue.isShared()) {
+                continue;
+            }
+            taskQueue.enqueue(QueuedTask.builder()
+                .taskId(session.getTaskId())
+                .channelId(session.getChannelId())
+                .description(session.getDescription())
+                .model(session.getModel())
+                .priority(session.getPriority())
+                .threadTs(session.getThreadTs())
+                .resumeBranch(resumeBranch)
+                .enqueuedAt(session.getSubmittedAt())
+                .build());
+            if (session.getThreadTs() != null) {
+                threadManager.postUpdate(session.getChannelId(), session.getThreadTs(),
+                    "The agent restarted while working on this. It's back in the queue and will continue where it stopped.");
+            }
+            if (!hasRunningTask(session.getChannelId())) {
+                processQueue(session.getChannelId());
+            }
+        }
+    }
+
+    /**
+     * Commits whatever the interrupted run left in its workspace to the task branch.
+     */
+    private String checkpoint(ClaudeSession session) {
+        if (gitService == null || session.getBranchName() == null ||
+            !gitService.checkoutBranch(session.getWorkDir(), session.getBranchName())) {
+            return null;
+        }
+        if (gitService.hasChanges(session.getWorkDir())) {
+            gitService.commitAll(session.getWorkDir(), "wip: checkpoint " + session.getDescription());
+        }
+        return session.getBranchName();
+    }
+
+    private synchronized TaskSlots<TaskExecution> claudeSlots() {
+        if (claudeSlots == null) {
+            claudeSlots = new TaskSlots<>(maxConcurrentTasks);
+        }
+        return claudeSlots;
+    }
+
+    private long priorityKey(TaskExecution execution) {
+        Instant submitted = execution.getSubmittedAt() != null ? execution.getSubmittedAt() :
+            execution.getStartedAt() != null ? execution.getStartedAt() : Instant.now();
+        return TaskQueue.priorityKey(execution.getPriority(), submitted, Duration.ofMinutes(agingMinutes));
+    }
+
+    /**
+     * Frees a Claude slot for a high-priority task by stopping the low-priority slot holder
+     * that would be scheduled last. Only channel tasks are candidates (batch subtasks have
+     * nowhere to be requeued); the victim's work is checkpointed and it is requeued.
+     */
+    private void preemptFor(TaskExecution requester, long requesterKey, TaskSlots<TaskExecution> slots) {
+        slots.holders().stream()
+            .filter(task -> task != requester && runningTasks.get(task.getChannelId()) == task)
+            .filter(task -> "RUNNING".equals(task.getStatus()) && "low".equals(task.getPriority()))
+            .filter(task -> priorityKey(task) > requesterKey)
+            .max(Comparator.comparingLong(this::priorityKey))
+            .ifPresent(victim -> {
+                Process process;
+                synchronized (victim) {
+                    if (!advance(victim, "PREEMPTED")) {
+                        return;
+                    }
+                    process = victim.getProcess();
+                }
+                System.out.println("Preempting task " + victim.getTaskId() + " for high-priority task " +
+                    requester.getTaskId());
+                // Without a process yet, runClaudeCode stops it as soon as it starts one
+                if (process != null) {
+                    processSupervisor.terminate(process);
+                }
+            });
+    }
+
+    /**
+     * Commits what the preempted task has done so far and queues it to continue from that
+     * checkpoint. It keeps its original submission time, so its priority keeps aging.
+     */
+    private void requeuePreempted(TaskExecution execution, ChannelConfig config, boolean onTaskBranch) {
+        String resumeBranch = null;
+        if (onTaskBranch) {
+            if (gitService.hasChanges(config.getClonePath())) {
+                gitService.commitAll(config.getClonePath(), "wip: checkpoint " + execution.getDescription());
+            }
+            resumeBranch = execution.getBranchName();
+        }
+        requeue(execution, resumeBranch);
+        threadManager.postUpdate(execution.getChannelId(), execution.getThreadTs(),
+            "Paused to make room for a high-priority task. " +
+            (resumeBranch != null ? "Progress is checkpointed; I'll continue from it." : "I'll restart it.") +
+            " It's back in the queue.");
+    }
+
+    /**
+     * Queues the task again under the same id, so it finds its session and branch. It keeps
+     * its original submission time, so its priority keeps aging.
+     */
+    private void requeue(TaskExecution execution, String resumeBranch) {
+        taskQueue.enqueue(QueuedTask.builder()
+            .taskId(execution.getTaskId())
+            .channelId(execution.getChannelId())
+            .description(execution.getDescription())
+            .model(execution.getModel())
+            .priority(execution.getPriority())
+            .threadTs(execution.getThreadTs())
+            .resumeBranch(resumeBranch)
+            .enqueuedAt(execution.getSubmittedAt())
+            .build());
+    }
+
+    private String runClaudeCode(TaskExecution execution, ChannelConfig config, String workDir) throws Exception {
         List<String> command = new ArrayList<>();
         command.add(claudeCodePath);
         command.add("-p");  // Short for --print (non-interactive)
         command.add("--max-turns");
         command.add("10");  // Limit iterations
-        command.add(execution.getDescription());
+        command.add("--output-format");
+        command.add("stream-json");  // One event per line, so the transcript streams; the last has the usage
+        command.add("--verbose");    // stream-json requires it with -p
+        if (execution.getModel() != null && !ModelRouterService.AUTO.equals(execution.getModel())) {
+            command.add("--model");
+            command.add(execution.getModel());
+        }
+        PromptAssembler.Prompt prompt = assemblePrompt(execution, config, workDir);
+        if (prompt.system() != null) {
+            command.add("--append-system-prompt");
+            command.add(prompt.system());
+        }
+        execution.setPromptPrefix(prompt.prefixHash());
+        if (execution.getSessionId() != null) {
+            command.add(execution.isResumingSession() ? "--resume" : "--session-id");
+            command.add(execution.getSessionId());
+        }
+        command.add(prompt.task());
 
-        System.out.println("Running command: " + String.join(" ", command));
+        String shown = String.join(" ", command);
+        if (prompt.system() != null) {
+            shown = shown.replace(prompt.system(), "<system prompt " + prompt.prefixHash() + ">");
+        }
+        System.out.println("Running command: " + shown);
         System.out.println("ANTHROPIC_API_KEY set: " + (System.getenv("ANTHROPIC_API_KEY") != null));
 
         ProcessBuilder pb = new ProcessBuilder(command);
-        pb.directory(new File(config.getClonePath()));
+        pb.directory(new File(workDir));
         pb.redirectErrorStream(true);
+        applyDependencyCache(pb, config);
 
-        Process process = pb.start();
-        execution.setProcess(process);
+        Process process = processSupervisor.start(pb);
+        synchronized (execution) {
+            execution.setProcess(process);
+        }
+        String stoppedAs;
+        synchronized (execution) {
+            stoppedAs = "CANCELLED".equals(execution.getStatus()) || "PREEMPTED".equals(execution.getStatus()) ?
+                execution.getStatus() : null;
+        }
+        if (stoppedAs != null) {
+            // cancelTask or preemptFor ran before the process was set, so they couldn't stop it
+            processSupervisor.terminate(process);
+            throw new RuntimeException("Task " + stoppedAs.toLowerCase());
+        }
+        // Killing the tree also closes stdout, so the read loop below can't outlive the deadline
+        ProcessSupervisor.Deadline deadline = processSupervisor.terminateAfter(process, Duration.ofMinutes(30));
+        boolean timedOut;
 
         StringBuilder output = new StringBuilder();
+        TranscriptArchiveService.Writer transcript = transcripts != null ?
+            transcripts.open(execution.getTaskId(), TranscriptArchiveService.TRANSCRIPT) : null;
         try (BufferedReader reader = new BufferedReader(
                 new InputStreamReader(process.getInputStream()))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 output.append(line).append("\n");
                 System.out.println("[claude] " + line); // Log output as it comes
+                if (transcript != null) {
+                    transcript.write(line + "\n");
+                }
+            }
+            process.waitFor();
+        } finally {
+            timedOut = deadline.cancel();
+            // Daemons and workers claude left behind
+            processSupervisor.terminate(process);
+            if (transcript != null) {
+                transcript.close();
             }
         }
 
-        boolean finished = process.waitFor(30, TimeUnit.MINUTES);
-        if (!finished) {
-            process.destroyForcibly();
-            throw new RuntimeException("Task timed out after 30 minutes");
+        if (timedOut) {
+            throw new RuntimeException("Task timed out after 30 minutes; " +
+                ProcessSupervisor.describe(deadline.cleanup()));
         }
 
         if (process.exitValue() != 0) {
             throw new RuntimeException("Claude Code exited with error: " + output);
         }
 
-        return output.toString();
+        return readResult(execution, output.toString());
+    }
+
+    private PromptAssembler.Prompt assemblePrompt(TaskExecution execution, ChannelConfig config, String workDir) {
+        String task = execution.isResumingSession() ? resumePrompt(execution.getDescription()) : execution.getDescription();
+        return promptAssembler != null ? promptAssembler.assemble(config, workDir, task) : new PromptAssembler.Prompt(null, task);
+    }
+
+    /**
+     * The result text from the final {@code result} event of claude's stream-json output,
+     * adding the run's token usage to the task's. Output without one (an older CLI, a
+     * wrapper script) is returned as is.
+     */
+    static String readResult(TaskExecution execution, String output) {
+        JsonNode result = resultEvent(output);
+        if (result == null) {
+            return output;
+        }
+        JsonNode usage = result.path("usage");
+        execution.setUsage(ClaudeUsage.builder()
+            .inputTokens(usage.path("input_tokens").asLong())
+            .outputTokens(usage.path("output_tokens").asLong())
+            .cacheReadTokens(usage.path("cache_read_input_tokens").asLong())
+            .cacheCreationTokens(usage.path("cache_creation_input_tokens").asLong())
+            .build()
+            .plus(execution.getUsage()));
+        // Error results (max turns reached, ...) carry no text
+        return result.has("result") ? result.path("result").asText() : output;
+    }
+
+    private static JsonNode resultEvent(String output) {
+        List<String> lines = output.lines().toList();
+        // The result event comes last; anything claude wrote to stderr is mixed in
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            String line = lines.get(i);
+            if (!line.startsWith("{") || !line.contains("\"result\"")) {
+                continue;
+            }
+            try {
+                JsonNode event = RESULT_MAPPER.readTree(line);
+                if ("result".equals(event.path("type").asText())) {
+                    return event;
+                }
+            } catch (IOException e) {
+                // Not an event; keep looking
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records what claude reported for the task, or an estimate when it reported nothing.
+     */
+    private CostEntry recordCost(TaskExecution execution, String result) {
+        ClaudeUsage usage = execution.getUsage() != null ? execution.getUsage() : ClaudeUsage.builder()
+            .inputTokens(execution.getDescription().length() * 2L)
+            .outputTokens(result.length())
+            .build();
+        return costTracker.recordCost(execution.getChannelId(), execution.getTaskId(), execution.getModel(),
+            usage, execution.getPromptPrefix());
+    }
+
+    static String resumePrompt(String description) {
+        return "Your previous run on this task was interrupted before it finished. What you had done so far is " +
+            "on the current branch (see git status and git log); continue from there rather than starting over.\n\n" +
+            "The task: " + description;
     }
 
     private String mapModelName(String shortName) {
@@ -251,73 +929,129 @@ public class TaskExecutorService {
         };
     }
 
-    private String detectTestCommand(String repoPath) {
-        File repo = new File(repoPath);
-
-        // Gradle
-        if (new File(repo, "gradlew").exists()) {
-            return "./gradlew test";
-        }
-        if (new File(repo, "build.gradle").exists() || new File(repo, "build.gradle.kts").exists()) {
-            return "gradle test";
+    /**
+     * Marks the channel's task cancelled and stops its Claude runs. The task itself winds
+     * down at its next check and stays in {@code runningTasks} until it has, so nothing new
+     * starts on its clone in the meantime.
+     */
+    public boolean cancelTask(String channelId) {
+        TaskExecution execution = runningTasks.get(channelId);
+        if (execution == null) {
+            return false;
         }
-
-        // Maven
-        if (new File(repo, "pom.xml").exists()) {
-            return "mvn test";
+        if (isCancelled(execution)) {
+            return true;
         }
 
-        // Node.js
-        if (new File(repo, "package.json").exists()) {
-            return "npm test";
+        List<TaskExecution> tasks = new ArrayList<>(List.of(execution));
+        if (execution.getSubtasks() != null) {
+            tasks.addAll(execution.getSubtasks());
         }
-
-        // .NET (check for any .csproj or .sln files)
-        String[] files = repo.list();
-        if (files != null) {
-            for (String file : files) {
-                if (file.endsWith(".csproj") || file.endsWith(".sln")) {
-                    return "dotnet test";
+        List<Process> processes = new ArrayList<>();
+        for (TaskExecution task : tasks) {
+            synchronized (task) {
+                task.setStatus("CANCELLED");
+                if (task.getProcess() != null) {
+                    processes.add(task.getProcess());
                 }
             }
         }
+        // Tasks still waiting for a slot give up without taking one
+        claudeSlots().recheck();
+
+        // Waiting out the kill grace period shouldn't hold up the slash command response
+        CompletableFuture.runAsync(() -> {
+            ProcessCleanup total = ProcessCleanup.builder().build();
+            for (Process process : processes) {
+                ProcessCleanup cleanup = processSupervisor.terminate(process);
+                total.setProcesses(total.getProcesses() + cleanup.getProcesses());
+                total.setRssBytes(total.getRssBytes() + cleanup.getRssBytes());
+            }
+            String message = total.getProcesses() > 0 ?
+                "Task cancelled; " + ProcessSupervisor.describe(total) + "." : "Task cancelled.";
+            threadManager.postUpdate(channelId, execution.getThreadTs(), message);
+        }, gitExecutor);
 
-        // Python
-        if (new File(repo, "pytest.ini").exists() || new File(repo, "setup.py").exists()) {
-            return "pytest";
-        }
-
-        return null; // No test runner detected
+        return true;
     }
 
-    public boolean cancelTask(String channelId) {
-        TaskExecution execution = runningTasks.get(channelId);
-        if (execution == null) {
-            return false;
+    private static boolean isCancelled(TaskExecution task) {
+        synchronized (task) {
+            return "CANCELLED".equals(task.getStatus());
         }
+    }
 
-        execution.setStatus("CANCELLED");
-        if (execution.getProcess() != null) {
-            execution.getProcess().destroyForcibly();
+    private static void ensureNotCancelled(TaskExecution task) {
+        if (isCancelled(task)) {
+            throw new RuntimeException("Cancelled");
         }
-        if (execution.getFuture() != null) {
-            execution.getFuture().cancel(true);
-        }
-
-        runningTasks.remove(channelId);
-        threadManager.postUpdate(channelId, execution.getThreadTs(), "Task cancelled.");
+    }
 
-        return true;
+    /**
+     * Moves the task to {@code status} unless it was cancelled, which no other status overrides.
+     */
+    private static boolean advance(TaskExecution task, String status) {
+        synchronized (task) {
+            if ("CANCELLED".equals(task.getStatus())) {
+                return false;
+            }
+            task.setStatus(status);
+            return true;
+        }
     }
 
     public boolean hasRunningTask(String channelId) {
-        return runningTasks.containsKey(channelId);
+        return runningTasks.containsKey(channelId) || (taskQueue.isShared() && taskQueue.isChannelLeased(channelId));
     }
 
     public Optional<TaskExecution> getRunningTask(String channelId) {
         return Optional.ofNullable(runningTasks.get(channelId));
     }
 
+    public List<QueuedTask> getQueuedTasks(String channelId) {
+        return taskQueue.pending(channelId);
+    }
+
+    /**
+     * Remaining time and expected cost of the channel's running task, from similar past tasks.
+     */
+    public Optional<TaskEstimate> estimateRunning(String channelId) {
+        TaskExecution running = runningTasks.get(channelId);
+        if (etaEstimator == null || running == null || running.getStartedAt() == null) {
+            return Optional.empty();
+        }
+        return etaEstimator.estimate(channelId, running.getModel(), Duration.between(running.getStartedAt(), Instant.now()));
+    }
+
+    /**
+     * How long until a queued task starts: what's left of the running task plus the median
+     * duration of every task ahead of it. Empty when there's too little history to say.
+     */
+    public Optional<Duration> estimateStart(String channelId, String taskId) {
+        if (etaEstimator == null) {
+            return Optional.empty();
+        }
+        Duration wait = Duration.ZERO;
+        if (runningTasks.containsKey(channelId)) {
+            Optional<TaskEstimate> running = estimateRunning(channelId);
+            if (running.isEmpty()) {
+                return Optional.empty();
+            }
+            wait = wait.plusMillis(running.get().getRemainingP50Ms());
+        }
+        for (QueuedTask ahead : taskQueue.pending(channelId)) {
+            if (ahead.getTaskId().equals(taskId)) {
+                return Optional.of(wait);
+            }
+            Optional<Duration> duration = etaEstimator.typicalDuration(channelId, ahead.getModel());
+            if (duration.isEmpty()) {
+                return Optional.empty();
+            }
+            wait = wait.plus(duration.get());
+        }
+        return Optional.empty();
+    }
+
     public String parseModel(String command) {
         Matcher matcher = MODEL_FLAG_PATTERN.matcher(command);
         if (matcher.find()) {
@@ -330,32 +1064,576 @@ public class TaskExecutorService {
         return MODEL_FLAG_PATTERN.matcher(command).replaceAll("").trim();
     }
 
-    private void queueTask(String channelId, String description, String model, ChannelConfig config) {
-        taskQueues.computeIfAbsent(channelId, k -> new ConcurrentLinkedQueue<>())
-            .add(TaskExecution.builder()
-                .taskId(UUID.randomUUID().toString().substring(0, 8))
+    public String parsePriority(String command) {
+        Matcher matcher = PRIORITY_FLAG_PATTERN.matcher(command);
+        return matcher.find() ? matcher.group(1).toLowerCase() : "normal";
+    }
+
+    /**
+     * Removes the --model and --priority flags, leaving the task description.
+     */
+    public String stripFlags(String command) {
+        return stripModelFlag(PRIORITY_FLAG_PATTERN.matcher(command).replaceAll(""));
+    }
+
+    /**
+     * Splits a multi-line /agent-task into one task per line, but only when asked to:
+     * with {@code --batch} (or {@code --combined}), or when every task line is a list item.
+     * Anything else is a single task whose description happens to span lines. List
+     * markers are dropped, as are lines that only carry flags.
+     */
+    public List<String> parseBatch(String command) {
+        boolean flagged = BATCH_FLAG_PATTERN.matcher(command).find();
+        boolean listed = true;
+        List<String> tasks = new ArrayList<>();
+        for (String line : BATCH_FLAG_PATTERN.matcher(command).replaceAll("").split("\\R")) {
+            Matcher marker = LIST_MARKER_PATTERN.matcher(line.trim());
+            String task = marker.replaceFirst("");
+            if (!stripFlags(task).isEmpty()) {
+                listed &= marker.reset().find();
+                tasks.add(task);
+            }
+        }
+        return flagged || listed ? tasks : List.of(command);
+    }
+
+    private String submitBatch(String channelId, String command, List<String> lines, ChannelConfig config) {
+        if (gitService == null || workspaceService == null) {
+            return "Batch tasks need git support, which isn't available.";
+        }
+        if (hasRunningTask(channelId)) {
+            return "A task is already running. Submit the batch once it completes.";
+        }
+
+        boolean combined = COMBINED_FLAG_PATTERN.matcher(command).find();
+        // Lines holding only flags set the model and priority for every task that doesn't pick its own
+        String batchFlags = String.join(" ", command.lines()
+            .filter(line -> stripFlags(BATCH_FLAG_PATTERN.matcher(line).replaceAll("")).isEmpty())
+            .toList());
+        String defaultModel = MODEL_FLAG_PATTERN.matcher(batchFlags).find() ?
+            parseModel(batchFlags) : config.getDefaultModel();
+        String defaultPriority = parsePriority(batchFlags);
+        String prefix = config.getBranchPrefix() != null ? config.getBranchPrefix() : "agent";
+
+        List<TaskExecution> subtasks = new ArrayList<>();
+        StringBuilder summary = new StringBuilder(String.format("Batch of %d tasks (%s):",
+            lines.size(), combined ? "one combined PR" : "separate PRs"));
+        for (String line : lines) {
+            String taskId = UUID.randomUUID().toString().substring(0, 8);
+            String description = stripFlags(line);
+            subtasks.add(TaskExecution.builder()
+                .taskId(taskId)
                 .channelId(channelId)
                 .description(description)
-                .model(model)
+                .model(resolveModel(MODEL_FLAG_PATTERN.matcher(line).find() ? parseModel(line) : defaultModel,
+                    taskId, description, config))
+                .priority(PRIORITY_FLAG_PATTERN.matcher(line).find() ? parsePriority(line) : defaultPriority)
+                .submittedAt(Instant.now())
+                .branchName(gitService.generateBranchName(config.getChannelName(), taskId, prefix))
                 .status("PENDING")
                 .build());
+            summary.append("\n").append(subtasks.size()).append(". ").append(description);
+        }
+
+        String threadTs = threadManager.createThread(channelId, config.getChannelName(), summary.toString());
+        if (threadTs == null) {
+            return "Failed to create thread. Check Slack connection.";
+        }
+
+        String batchId = UUID.randomUUID().toString().substring(0, 8);
+        TaskExecution batch = TaskExecution.builder()
+            .taskId(batchId)
+            .channelId(channelId)
+            .description(String.format("Batch of %d tasks", lines.size()))
+            .model(defaultModel)
+            .threadTs(threadTs)
+            .branchName(gitService.generateBranchName(config.getChannelName(), batchId, prefix))
+            .startedAt(Instant.now())
+            .status("RUNNING")
+            .subtasks(subtasks)
+            .build();
+        subtasks.forEach(subtask -> subtask.setThreadTs(threadTs));
+
+        runningTasks.put(channelId, batch);
+        threadManager.registerThread(batchId, channelId, threadTs);
+        batch.setFuture(CompletableFuture.supplyAsync(() -> executeBatch(batch, config, combined), executor));
+
+        return String.format("Starting batch of %d tasks in thread, up to %d at a time.",
+            lines.size(), Math.max(1, maxConcurrentTasks));
+    }
+
+    /**
+     * Fans the subtasks out across isolated worktrees of the channel's clone, then
+     * posts one aggregated summary (and the combined PR, if requested) in the thread.
+     */
+    private String executeBatch(TaskExecution batch, ChannelConfig config, boolean combined) {
+        String worktreeRoot = config.getClonePath() + "-batch";
+        workspaceService.claim(config.getClonePath());
+        try {
+            PreparedWorkspace base = workspaceService.acquire(config);
+
+            List<CompletableFuture<SubtaskResult>> futures = new ArrayList<>();
+            for (TaskExecution subtask : batch.getSubtasks()) {
+                String worktreePath = worktreeRoot + "/" + subtask.getTaskId();
+                futures.add(CompletableFuture.supplyAsync(() ->
+                    runSubtask(subtask, config, base, worktreePath, !combined), executor));
+            }
+            List<SubtaskResult> results = futures.stream().map(CompletableFuture::join).toList();
+            if (isCancelled(batch)) {
+                // cancelTask already reported it in the thread
+                return "Batch cancelled";
+            }
+
+            Set<String> conflicted = new HashSet<>();
+            String combinedPrUrl = combined ? createCombinedPullRequest(batch, config, base, results, conflicted) : null;
+
+            List<String> lines = new ArrayList<>();
+            for (SubtaskResult result : results) {
+                lines.add(formatSubtaskResult(result, conflicted.contains(result.task().getTaskId())));
+            }
+            threadManager.postBatchCompletion(batch.getChannelId(), batch.getThreadTs(), lines,
+                combined ? (combinedPrUrl != null ? combinedPrUrl : "PR creation failed") : null);
+
+            boolean allSucceeded = results.stream().allMatch(SubtaskResult::success);
+            advance(batch, allSucceeded ? "COMPLETED" : "FAILED");
+            return String.join("\n", lines);
+
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (!advance(batch, "FAILED")) {
+                return "Batch cancelled";
+            }
+            threadManager.postFailure(batch.getChannelId(), batch.getThreadTs(), cause.getMessage(), config.getOnFailure());
+            return "Batch failed: " + cause.getMessage();
+        } finally {
+            for (TaskExecution subtask : batch.getSubtasks()) {
+                gitService.removeWorktree(config.getClonePath(), worktreeRoot + "/" + subtask.getTaskId());
+                recordHistory(subtask);
+            }
+            workspaceService.release(config.getClonePath());
+            runningTasks.remove(batch.getChannelId(), batch);
+            if (!hasRunningTask(batch.getChannelId())) {
+                workspaceService.prepareStandbyAsync(config);
+            }
+            processQueue(batch.getChannelId());
+        }
+    }
+
+    private SubtaskResult runSubtask(TaskExecution subtask, ChannelConfig config, PreparedWorkspace base,
+                                     String worktreePath, boolean openPullRequest) {
+        try {
+            subtask.setStartedAt(Instant.now());
+            if (!advance(subtask, "RUNNING")) {
+                throw new RuntimeException("Cancelled");
+            }
+            workspaceService.prepareWorktree(config, base, worktreePath, subtask.getBranchName());
+
+            String result = callClaudeCode(subtask, config, worktreePath);
+            ensureNotCancelled(subtask);
+
+            gitService.commitAll(worktreePath, "feat: " + subtask.getDescription());
+            String diffStats = gitService.getDiffStats(worktreePath, config.getPrTarget());
+
+            RepoMetadata metadata = base.getMetadata();
+            String testCommand = metadata != null ? metadata.getTestCommand() : null;
+            String testResults = testCommand != null ?
+                archiveTests(subtask, gitService.runTests(worktreePath, testCommand, dependencyEnvironment(config))) :
+                "skipped (no test runner found)";
+
+            String prUrl = null;
+            if (openPullRequest) {
+                ensureNotCancelled(subtask);
+                if (!gitService.push(worktreePath, subtask.getBranchName())) {
+                    throw new RuntimeException("Failed to push " + subtask.getBranchName());
+                }
+                prUrl = gitService.createPullRequest(worktreePath, subtask.getDescription(),
+                    pullRequestBody(subtask, result), config.getPrTarget());
+            }
+
+            String cost = null;
+            if (costTracker != null) {
+                var costEntry = recordCost(subtask, result);
+                subtask.setCostUsd(costEntry.getCostUsd());
+                cost = costTracker.formatCostSummary(costEntry);
+            }
+            subtask.setPrUrl(prUrl);
+
+            if (!advance(subtask, "COMPLETED")) {
+                throw new RuntimeException("Cancelled");
+            }
+            return new SubtaskResult(subtask, true, diffStats, testResults, prUrl, cost, null);
+        } catch (Exception e) {
+            advance(subtask, "FAILED");
+            subtask.setError(e.getMessage());
+            return new SubtaskResult(subtask, false, null, null, null, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Merges every successful subtask branch into one batch branch and opens a single PR.
+     * Branches that don't merge cleanly are left out and reported in {@code conflicted}.
+     */
+    private String createCombinedPullRequest(TaskExecution batch, ChannelConfig config, PreparedWorkspace base,
+                                             List<SubtaskResult> results, Set<String> conflicted) {
+        String clonePath = config.getClonePath();
+        gitService.createBranch(clonePath, batch.getBranchName(), base.getDefaultBranch());
+
+        StringBuilder body = new StringBuilder("Automated batch PR from Slack agent\n");
+        int merged = 0;
+        for (SubtaskResult result : results) {
+            if (!result.success()) {
+                continue;
+            }
+            if (gitService.mergeBranch(clonePath, result.task().getBranchName())) {
+                merged++;
+                body.append("\n- ").append(result.task().getDescription());
+            } else {
+                conflicted.add(result.task().getTaskId());
+            }
+        }
+        if (merged == 0) {
+            return null;
+        }
+
+        if (!gitService.push(clonePath, batch.getBranchName())) {
+            threadManager.postUpdate(batch.getChannelId(), batch.getThreadTs(),
+                "Couldn't push " + batch.getBranchName() + ", so no combined PR was opened.");
+            return null;
+        }
+        return gitService.createPullRequest(clonePath, String.format("Batch: %d tasks", merged),
+            body.toString(), config.getPrTarget());
+    }
+
+    private String formatSubtaskResult(SubtaskResult result, boolean conflicted) {
+        String description = result.task().getDescription();
+        if (!result.success()) {
+            return String.format("*Failed:* %s\n    %s", description, result.error());
+        }
+        StringBuilder line = new StringBuilder();
+        line.append("*Done:* ").append(description).append("\n    ");
+        line.append(result.diffStats());
+        if (result.testResults() != null) {
+            line.append(" | Tests: ").append(result.testResults().lines().findFirst().orElse(""));
+        }
+        if (result.cost() != null) {
+            line.append(" | ").append(result.cost());
+        }
+        if (result.prUrl() != null) {
+            line.append(" | ").append(result.prUrl());
+        }
+        if (conflicted) {
+            line.append(" | not merged into combined PR (conflict)");
+        }
+        return line.toString();
+    }
+
+    private record SubtaskResult(TaskExecution task, boolean success, String diffStats, String testResults,
+                                 String prUrl, String cost, String error) {
+    }
+
+    /**
+     * The model the router picks for {@code auto}, otherwise the model as given. On an auto
+     * channel a {@code --model} the user gave is routed too, once per task, so the log shows
+     * what the router would have picked instead.
+     */
+    private String resolveModel(String model, String taskId, String description, ChannelConfig config) {
+        boolean auto = ModelRouterService.AUTO.equals(model);
+        if (modelRouter == null) {
+            return auto ? "sonnet" : model;
+        }
+        // A requeued task already carries its routed model
+        boolean first = routedTasks.add(taskId);
+        if (auto) {
+            return modelRouter.route(taskId, config.getChannelId(), description, null).getModel();
+        }
+        if (first && ModelRouterService.AUTO.equals(config.getDefaultModel())) {
+            modelRouter.route(taskId, config.getChannelId(), description, model);
+        }
+        return model;
+    }
+
+    private void recordHistory(TaskExecution execution) {
+        if (execution.getStartedAt() == null || "PREEMPTED".equals(execution.getStatus())) {
+            return;
+        }
+        routedTasks.remove(execution.getTaskId());
+        Instant completedAt = Instant.now();
+        TaskRecord record = TaskRecord.builder()
+            .taskId(execution.getTaskId())
+            .channelId(execution.getChannelId())
+            .description(execution.getDescription())
+            .model(execution.getModel())
+            .status(execution.getStatus())
+            .startedAt(execution.getStartedAt())
+            .completedAt(completedAt)
+            .durationMs(Duration.between(execution.getStartedAt(), completedAt).toMillis())
+            .costUsd(execution.getCostUsd() != null ? execution.getCostUsd() : 0.0)
+            .prUrl(execution.getPrUrl())
+            .error(execution.getError())
+            .build();
+        if (taskHistory != null) {
+            taskHistory.record(record);
+        }
+        if (modelRouter != null) {
+            modelRouter.observe(record);
+        }
+        if (etaEstimator != null) {
+            etaEstimator.observe(record);
+        }
+    }
+
+    /**
+     * Asks in the running task's thread what to do with a task submitted alongside it.
+     * Unanswered, the new task is queued.
+     */
+    private void askAboutConcurrentTask(TaskExecution running, String description, String model, String priority,
+                                        ChannelConfig config) {
+        String taskId = running.getTaskId();
+        String channelId = running.getChannelId();
+        String threadTs = running.getThreadTs();
+        threadManager.postQuestion(channelId, threadTs,
+            String.format("A new task was submitted while I'm working on this one:\n*%s*\nNo reply queues it.", description),
+            "*queue* - run it after this task",
+            "*parallel* - run it now in a separate worktree",
+            "*cancel* - stop this task and start the new one");
+        threadRouting.awaitDecision(taskId, channelId, threadTs, Set.of("queue", "parallel", "cancel"), "queue", choice -> {
+            switch (choice) {
+                case "cancel" -> {
+                    cancelTask(channelId);
+                    resubmit(channelId, description, model, priority, null);
+                }
+                case "parallel" -> startParallelTask(channelId, description, model, priority, config, threadTs);
+                default -> {
+                    resubmit(channelId, description, model, priority, null);
+                    threadManager.postUpdate(channelId, threadTs, "Queued: " + description);
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits for a retry/stop/draft reply in the failed task's thread. Partial work is committed
+     * to the task branch first, since the warm standby resets the clone right after.
+     */
+    private void awaitFailureDecision(TaskExecution execution, ChannelConfig config, boolean onTaskBranch) {
+        if (onTaskBranch && gitService.hasChanges(config.getClonePath())) {
+            gitService.commitAll(config.getClonePath(), "wip: " + execution.getDescription());
+        }
+        String taskId = execution.getTaskId();
+        String channelId = execution.getChannelId();
+        String threadTs = execution.getThreadTs();
+
+        threadRouting.awaitDecision(taskId, channelId, threadTs, Set.of("retry", "stop", "draft"), "stop", choice -> {
+            if (!"retry".equals(choice) && sessions != null) {
+                sessions.remove(execution.getTaskId());
+            }
+            switch (choice) {
+                case "retry" -> {
+                    threadManager.postUpdate(channelId, threadTs, "Retrying, continuing from where it stopped...");
+                    requeue(execution, onTaskBranch ? execution.getBranchName() : null);
+                    if (taskQueue.isShared()) {
+                        executor.execute(this::pollSharedQueue);
+                    } else if (!hasRunningTask(channelId)) {
+                        processQueue(channelId);
+                    }
+                }
+                case "draft" -> CompletableFuture.runAsync(() -> {
+                    String prUrl = null;
+                    if (onTaskBranch && gitService.push(config.getClonePath(), execution.getBranchName())) {
+                        prUrl = gitService.createPullRequest(config.getClonePath(),
+                            "[Draft] " + execution.getDescription(),
+                            "Draft PR from Slack agent. The task failed with:\n\n" + execution.getError(),
+                            config.getPrTarget(), execution.getBranchName(), true);
+                    }
+                    threadManager.postUpdate(channelId, threadTs,
+                        prUrl != null ? "*Draft PR:* " + prUrl : "Couldn't open a draft PR; there may be no partial work to push.");
+                }, gitExecutor);
+                default -> threadManager.postUpdate(channelId, threadTs, "Task abandoned.");
+            }
+        });
+    }
+
+    /**
+     * Runs a task next to the channel's running one, in a worktree branched off the last
+     * fetched default branch so the busy clone isn't touched.
+     */
+    private void startParallelTask(String channelId, String description, String model, String priority,
+                                   ChannelConfig config, String threadTs) {
+        if (gitService == null || workspaceService == null) {
+            resubmit(channelId, description, model, priority, null);
+            threadManager.postUpdate(channelId, threadTs, "Parallel runs need git worktrees; queued instead.");
+            return;
+        }
+        String taskId = UUID.randomUUID().toString().substring(0, 8);
+        String prefix = config.getBranchPrefix() != null ? config.getBranchPrefix() : "agent";
+        TaskExecution task = TaskExecution.builder()
+            .taskId(taskId)
+            .channelId(channelId)
+            .description(description)
+            .model(resolveModel(model, taskId, description, config))
+            .priority(priority)
+            .submittedAt(Instant.now())
+            .threadTs(threadTs)
+            .branchName(gitService.generateBranchName(config.getChannelName(), taskId, prefix))
+            .status("PENDING")
+            .build();
+        threadManager.postUpdate(channelId, threadTs, "Running in parallel in a separate worktree: " + description);
+
+        String clonePath = config.getClonePath();
+        String worktreePath = clonePath + "-batch/" + taskId;
+        CompletableFuture.runAsync(() -> {
+            // Not in runningTasks, so this claim is all that keeps the janitor off its worktree
+            workspaceService.claim(clonePath);
+            try {
+                PreparedWorkspace base = PreparedWorkspace.builder()
+                    .channelId(channelId)
+                    .clonePath(clonePath)
+                    .defaultBranch(repoMetadata != null ? repoMetadata.getDefaultBranch(clonePath) : config.getPrTarget())
+                    .metadata(repoMetadata != null ? repoMetadata.get(clonePath) : null)
+                    .preparedAt(Instant.now())
+                    .build();
+                SubtaskResult result = runSubtask(task, config, base, worktreePath, true);
+                threadManager.postUpdate(channelId, threadTs, formatSubtaskResult(result, false));
+            } finally {
+                gitService.removeWorktree(clonePath, worktreePath);
+                workspaceService.release(clonePath);
+                recordHistory(task);
+            }
+        }, executor);
+    }
+
+    /**
+     * Queues a task and starts it right away if the channel is idle.
+     */
+    private void resubmit(String channelId, String description, String model, String priority, String threadTs) {
+        queueTask(channelId, description, model, priority, threadTs);
+        if (taskQueue.isShared()) {
+            executor.execute(this::pollSharedQueue);
+        } else if (!hasRunningTask(channelId)) {
+            processQueue(channelId);
+        }
+    }
+
+    private String queueTask(String channelId, String description, String model, String priority, String threadTs) {
+        String taskId = UUID.randomUUID().toString().substring(0, 8);
+        taskQueue.enqueue(QueuedTask.builder()
+            .taskId(taskId)
+            .channelId(channelId)
+            .description(description)
+            .model(model)
+            .priority(priority)
+            .threadTs(threadTs)
+            .enqueuedAt(Instant.now())
+            .build());
+        return taskId;
     }
 
     private void processQueue(String channelId) {
-        Queue<TaskExecution> queue = taskQueues.get(channelId);
-        if (queue == null || queue.isEmpty()) return;
+        taskQueue.poll(nodeId(), channelId).ifPresent(this::startLeasedTask);
+    }
 
-        TaskExecution next = queue.poll();
-        if (next != null) {
-            configLoader.getConfigForChannel(channelId)
-                .ifPresent(config -> startTask(channelId, next.getDescription(), next.getModel(), config));
+    /**
+     * Pulls work from the shared queue while this node has capacity. Tasks whose
+     * workspace is already cloned here are taken first; the rest are left briefly
+     * for nodes that have them cached. Tasks are started (which talks to Slack) after
+     * the leases are claimed, outside the lock, so concurrent polls don't queue up
+     * behind Slack's rate limits.
+     */
+    private void pollSharedQueue() {
+        for (TaskLease lease : claimLeases()) {
+            try {
+                startLeasedTask(lease);
+            } catch (Exception e) {
+                System.err.println("Failed to start queued task " + lease.getTask().getTaskId() + ": " + e.getMessage());
+            } finally {
+                startingLeases.remove(lease.getTask().getChannelId(), lease);
+            }
         }
     }
 
-    private void runCommand(String workDir, String command) throws Exception {
-        ProcessBuilder pb = new ProcessBuilder("sh", "-c", command);
-        pb.directory(new File(workDir));
-        Process process = pb.start();
-        process.waitFor(5, TimeUnit.MINUTES);
+    private synchronized List<TaskLease> claimLeases() {
+        List<TaskLease> claimed = new ArrayList<>();
+        try {
+            while (runningTasks.size() + startingLeases.size() < Math.max(1, maxConcurrentTasks)) {
+                Optional<TaskLease> lease = taskQueue.pollAny(nodeId(),
+                    task -> !runningTasks.containsKey(task.getChannelId()) &&
+                        !startingLeases.containsKey(task.getChannelId()) &&
+                        configLoader.getConfigForChannel(task.getChannelId()).isPresent(),
+                    task -> configLoader.getConfigForChannel(task.getChannelId())
+                        .map(config -> config.getClonePath() != null && new File(config.getClonePath(), ".git").exists())
+                        .orElse(false));
+                if (lease.isEmpty()) {
+                    break;
+                }
+                startingLeases.put(lease.get().getTask().getChannelId(), lease.get());
+                claimed.add(lease.get());
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to poll shared task queue: " + e.getMessage());
+        }
+        return claimed;
+    }
+
+    private void startLeasedTask(TaskLease lease) {
+        QueuedTask task = lease.getTask();
+        Optional<ChannelConfig> config = configLoader.getConfigForChannel(task.getChannelId());
+        if (config.isEmpty()) {
+            System.err.println("Dropping queued task for unconfigured channel: " + task.getChannelId());
+            taskQueue.complete(lease);
+            return;
+        }
+        startTask(task.getChannelId(), task.getDescription(), task.getModel(), task.getPriority(), config.get(), lease);
+    }
+
+    private void heartbeatLeases() {
+        try {
+            List<TaskLease> leases = new ArrayList<>(startingLeases.values());
+            runningTasks.values().stream().map(TaskExecution::getLease).filter(Objects::nonNull).forEach(leases::add);
+            for (TaskLease lease : leases) {
+                if (!taskQueue.heartbeat(lease)) {
+                    System.err.println("Lost queue lease for task " + lease.getTask().getTaskId() +
+                        "; another node may rerun it");
+                }
+            }
+        } catch (Exception e) {
+            // An exception would cancel the schedule, and with it every later heartbeat
+            System.err.println("Failed to heartbeat queue leases: " + e.getMessage());
+        }
+    }
+
+    private String nodeId() {
+        return nodeId != null && !nodeId.isBlank() ? nodeId : ProcessHandle.current().pid() + "@" + hostName();
+    }
+
+    /**
+     * The node sessions are recorded for: {@code agent.node.id}, or the host name without
+     * one. Unlike the default {@link #nodeId()} it has no pid in it, so it survives restarts.
+     */
+    private String sessionNode() {
+        return nodeId != null && !nodeId.isBlank() ? nodeId : hostName();
+    }
+
+    static String hostName() {
+        String host = cachedHostName;
+        if (host == null) {
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                host = "localhost";
+            }
+            cachedHostName = host;
+        }
+        return host;
+    }
+
+    private Map<String, String> dependencyEnvironment(ChannelConfig config) {
+        return setupCache != null && config.getRepo() != null ?
+            setupCache.dependencyEnvironment(config.getRepo()) : Map.of();
+    }
+
+    private void applyDependencyCache(ProcessBuilder pb, ChannelConfig config) {
+        if (setupCache != null && config.getRepo() != null) {
+            setupCache.applyTo(pb, config.getRepo());
+        }
     }
 }
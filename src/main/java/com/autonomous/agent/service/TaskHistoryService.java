@@ -0,0 +1,329 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.HistoryPage;
+import com.autonomous.agent.model.TaskRecord;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Append-only task history under {@code agent.data.path/history/tasks.jsonl}.
+ *
+ * Records stay on disk; memory only holds a compact columnar index per record
+ * (file offset, completion time, dictionary-coded channel/status/model) plus posting
+ * lists per channel, status and model, roughly 40 bytes per task. A query walks the
+ * smallest matching posting list newest-first, checks the other columns in memory and
+ * reads only the records on the requested page.
+ */
+@Service
+public class TaskHistoryService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Value("${agent.data.path:data}")
+    private String dataPath;
+
+    @Value("${agent.startup.background-warmup:true}")
+    private boolean backgroundWarmup;
+
+    private final Warmup warmup = new Warmup("task history index");
+
+    private final ObjectMapper mapper;
+
+    // Columns, indexed by record ordinal (append order)
+    private long[] offsets = new long[1024];
+    private int[] lengths = new int[1024];
+    private long[] completedAt = new long[1024];
+    private int[] channelCodes = new int[1024];
+    private int[] statusCodes = new int[1024];
+    private int[] modelCodes = new int[1024];
+    private int count;
+
+    private final ValueIndex channels = new ValueIndex();
+    private final ValueIndex statuses = new ValueIndex();
+    private final ValueIndex models = new ValueIndex();
+
+    private long fileSize;
+
+    public TaskHistoryService() {
+        this.mapper = new ObjectMapper();
+        this.mapper.registerModule(new JavaTimeModule());
+        this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public void setDataPath(String path) {
+        this.dataPath = path;
+    }
+
+    @PostConstruct
+    public void init() {
+        warmup.run(backgroundWarmup, this::loadIndex);
+    }
+
+    public synchronized void loadIndex() {
+        count = 0;
+        fileSize = 0;
+        channels.clear();
+        statuses.clear();
+        models.clear();
+
+        Path file = historyFile();
+        if (!Files.exists(file)) return;
+
+        try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long lineStart = 0;
+            long position = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                indexLine(line.toByteArray(), lineStart);
+                line.reset();
+                lineStart = position;
+            }
+            // A trailing partial line is a torn write; it is overwritten by the next append
+            fileSize = lineStart;
+        } catch (IOException e) {
+            System.err.println("Failed to load task history: " + e.getMessage());
+        }
+        System.out.println("Indexed " + count + " task history records");
+    }
+
+    public void record(TaskRecord record) {
+        warmup.await();
+        append(record);
+    }
+
+    /**
+     * Newest-first page of tasks matching every non-null filter.
+     */
+    public HistoryPage query(String channelId, String status, String model,
+                             Instant from, Instant to, int page, int size) {
+        warmup.await();
+        return find(channelId, status, model, from, to, page, size);
+    }
+
+    public int size() {
+        warmup.await();
+        synchronized (this) {
+            return count;
+        }
+    }
+
+    // Awaiting the warmup happens outside the monitor, which the index load holds
+    private synchronized void append(TaskRecord record) {
+        try {
+            Path file = historyFile();
+            Files.createDirectories(file.getParent());
+
+            byte[] json = mapper.writeValueAsBytes(record);
+            ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                if (channel.size() > fileSize) {
+                    channel.truncate(fileSize);
+                }
+                long offset = fileSize;
+                while (buffer.hasRemaining()) {
+                    offset += channel.write(buffer, offset);
+                }
+                add(record, fileSize, json.length);
+                fileSize = offset;
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to persist task history: " + e.getMessage());
+        }
+    }
+
+    private synchronized HistoryPage find(String channelId, String status, String model,
+                                         Instant from, Instant to, int page, int size) {
+        page = Math.max(0, page);
+        size = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+
+        int channel = channelId != null ? channels.code(channelId) : -1;
+        int statusCode = status != null ? statuses.code(status.toUpperCase()) : -1;
+        int modelCode = model != null ? models.code(model.toLowerCase()) : -1;
+        if ((channelId != null && channel < 0) || (status != null && statusCode < 0) || (model != null && modelCode < 0)) {
+            return HistoryPage.builder().items(List.of()).page(page).size(size).total(0).build();
+        }
+
+        // Records are appended at completion, so the time range maps to an ordinal range
+        int lo = from != null ? lowerBound(from.toEpochMilli()) : 0;
+        int hi = to != null ? lowerBound(to.toEpochMilli() + 1) : count;
+
+        IntList candidates = smallest(
+            channel >= 0 ? channels.postings(channel) : null,
+            statusCode >= 0 ? statuses.postings(statusCode) : null,
+            modelCode >= 0 ? models.postings(modelCode) : null);
+
+        long skip = (long) page * size;  // page comes straight from callers; int would overflow
+        int total = 0;
+        List<Integer> hits = new ArrayList<>(size);
+        int end = candidates != null ? candidates.upperBound(hi - 1) : hi;
+        int start = candidates != null ? candidates.upperBound(lo - 1) : lo;
+        for (int i = end - 1; i >= start; i--) {
+            int ordinal = candidates != null ? candidates.get(i) : i;
+            if ((channel >= 0 && channelCodes[ordinal] != channel)
+                || (statusCode >= 0 && statusCodes[ordinal] != statusCode)
+                || (modelCode >= 0 && modelCodes[ordinal] != modelCode)) {
+                continue;
+            }
+            if (total >= skip && hits.size() < size) {
+                hits.add(ordinal);
+            }
+            total++;
+        }
+
+        List<TaskRecord> items = new ArrayList<>(hits.size());
+        if (hits.isEmpty()) {
+            return HistoryPage.builder().items(items).page(page).size(size).total(total).build();
+        }
+        try (FileChannel file = FileChannel.open(historyFile(), StandardOpenOption.READ)) {
+            for (int ordinal : hits) {
+                ByteBuffer buffer = ByteBuffer.allocate(lengths[ordinal]);
+                long position = offsets[ordinal];
+                while (buffer.hasRemaining()) {
+                    if (file.read(buffer, position + buffer.position()) < 0) break;
+                }
+                items.add(mapper.readValue(buffer.array(), TaskRecord.class));
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read task history: " + e.getMessage());
+        }
+
+        return HistoryPage.builder().items(items).page(page).size(size).total(total).build();
+    }
+
+    private void indexLine(byte[] line, long offset) {
+        if (line.length == 0) return;
+        try {
+            add(mapper.readValue(line, TaskRecord.class), offset, line.length);
+        } catch (IOException e) {
+            // Skip malformed records
+        }
+    }
+
+    private void add(TaskRecord record, long offset, int length) {
+        if (count == offsets.length) {
+            int capacity = count * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            completedAt = Arrays.copyOf(completedAt, capacity);
+            channelCodes = Arrays.copyOf(channelCodes, capacity);
+            statusCodes = Arrays.copyOf(statusCodes, capacity);
+            modelCodes = Arrays.copyOf(modelCodes, capacity);
+        }
+        int ordinal = count++;
+        offsets[ordinal] = offset;
+        lengths[ordinal] = length;
+        completedAt[ordinal] = record.getCompletedAt() != null ? record.getCompletedAt().toEpochMilli() : 0;
+        channelCodes[ordinal] = channels.add(String.valueOf(record.getChannelId()), ordinal);
+        statusCodes[ordinal] = statuses.add(String.valueOf(record.getStatus()).toUpperCase(), ordinal);
+        modelCodes[ordinal] = models.add(String.valueOf(record.getModel()).toLowerCase(), ordinal);
+    }
+
+    private int lowerBound(long millis) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (completedAt[mid] < millis) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static IntList smallest(IntList... lists) {
+        IntList smallest = null;
+        for (IntList list : lists) {
+            if (list != null && (smallest == null || list.size() < smallest.size())) {
+                smallest = list;
+            }
+        }
+        return smallest;
+    }
+
+    private Path historyFile() {
+        return Paths.get(dataPath, "history", "tasks.jsonl");
+    }
+
+    /**
+     * String dictionary with a posting list of record ordinals per value.
+     */
+    private static final class ValueIndex {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<IntList> postings = new ArrayList<>();
+
+        int add(String value, int ordinal) {
+            int code = codes.computeIfAbsent(value, v -> {
+                postings.add(new IntList());
+                return postings.size() - 1;
+            });
+            postings.get(code).add(ordinal);
+            return code;
+        }
+
+        int code(String value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        IntList postings(int code) {
+            return postings.get(code);
+        }
+
+        void clear() {
+            codes.clear();
+            postings.clear();
+        }
+    }
+
+    /**
+     * Growable, sorted array of record ordinals.
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Index of the first element greater than value.
+         */
+        int upperBound(int value) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] <= value) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
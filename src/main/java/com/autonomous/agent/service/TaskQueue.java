@@ -0,0 +1,63 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.QueuedTask;
+import com.autonomous.agent.model.TaskLease;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Queue of tasks waiting for an executor. Taking a task hands out a lease that the
+ * owning node keeps alive with heartbeats and releases on completion; a shared
+ * implementation re-queues tasks whose lease expired because their node went away.
+ */
+public interface TaskQueue {
+
+    void enqueue(QueuedTask task);
+
+    /**
+     * Leases the next pending task for one channel, by priority with aging.
+     */
+    Optional<TaskLease> poll(String nodeId, String channelId);
+
+    /**
+     * Leases the next eligible task from any channel that has no active lease,
+     * taking preferred tasks (e.g. repo already cloned on this node) first.
+     */
+    Optional<TaskLease> pollAny(String nodeId, Predicate<QueuedTask> eligible, Predicate<QueuedTask> preferred);
+
+    /**
+     * Extends the lease. Returns false if it was lost (expired and reclaimed).
+     */
+    boolean heartbeat(TaskLease lease);
+
+    void complete(TaskLease lease);
+
+    List<QueuedTask> pending(String channelId);
+
+    boolean isChannelLeased(String channelId);
+
+    /**
+     * Whether other nodes pull from this queue, so every task should go through it.
+     */
+    boolean isShared();
+
+    /**
+     * Ordering key for priority with aging: every level below high costs one aging step
+     * of extra wait, so a low task that has waited two steps is taken before a fresh high
+     * one and nothing starves. The key is fixed once a task is enqueued, which keeps heap
+     * and file-name ordering valid. Lower keys go first.
+     */
+    static long priorityKey(String priority, Instant enqueuedAt, Duration agingStep) {
+        return enqueuedAt.toEpochMilli() + priorityLevel(priority) * agingStep.toMillis();
+    }
+
+    static int priorityLevel(String priority) {
+        if ("high".equalsIgnoreCase(priority)) return 0;
+        if ("low".equalsIgnoreCase(priority)) return 2;
+        return 1;
+    }
+}
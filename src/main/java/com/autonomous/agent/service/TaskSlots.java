@@ -0,0 +1,94 @@
+package com.autonomous.agent.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Counting gate for concurrent Claude runs that admits waiters by priority key
+ * (see {@link TaskQueue#priorityKey}) instead of arrival order. Remembers who holds
+ * each slot, so preemption only ever stops a task that has one.
+ */
+public class TaskSlots<T> {
+
+    private final int permits;
+    private int inUse;
+    private long sequence;
+    private final Set<T> holders = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+        Comparator.comparingLong(Waiter::key).thenComparingLong(Waiter::sequence));
+
+    public TaskSlots(int permits) {
+        this.permits = Math.max(1, permits);
+    }
+
+    public void acquire(long key, T owner) throws InterruptedException {
+        acquire(key, owner, () -> false);
+    }
+
+    /**
+     * Waits for a slot unless {@code abandoned} turns true first, in which case no slot is
+     * taken and false is returned. Checked again on every {@link #recheck()}.
+     */
+    public synchronized boolean acquire(long key, T owner, BooleanSupplier abandoned) throws InterruptedException {
+        Waiter waiter = new Waiter(key, sequence++);
+        waiters.add(waiter);
+        try {
+            while (inUse >= permits || waiters.peek() != waiter) {
+                if (abandoned.getAsBoolean()) {
+                    waiters.remove(waiter);
+                    notifyAll();
+                    return false;
+                }
+                wait();
+            }
+        } catch (InterruptedException e) {
+            waiters.remove(waiter);
+            notifyAll();
+            throw e;
+        }
+        waiters.remove(waiter);
+        inUse++;
+        holders.add(owner);
+        // The next waiter may fit too
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Wakes the waiters so they check whether they were abandoned.
+     */
+    public synchronized void recheck() {
+        notifyAll();
+    }
+
+    public synchronized void release(T owner) {
+        if (holders.remove(owner)) {
+            inUse--;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Who holds a slot right now.
+     */
+    public synchronized List<T> holders() {
+        return new ArrayList<>(holders);
+    }
+
+    public synchronized int available() {
+        return permits - inUse;
+    }
+
+    public synchronized int waiting() {
+        return waiters.size();
+    }
+
+    private record Waiter(long key, long sequence) {
+    }
+}
@@ -3,8 +3,7 @@ package com.autonomous.agent.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 
 @Service
 public class ThreadManagerService {
@@ -12,7 +11,8 @@ public class ThreadManagerService {
     @Autowired
     private SlackService slackService;
 
-    private final Map<String, String> taskThreads = new ConcurrentHashMap<>();
+    @Autowired(required = false)
+    private ThreadRoutingService threadRouting;
 
     public String createThread(String channelId, String projectName, String taskDescription) {
         String message = String.format("*%s*\n\n%s", projectName, taskDescription);
@@ -54,6 +54,18 @@ public class ThreadManagerService {
         postUpdate(channelId, threadTs, message.toString());
     }
 
+    public void postBatchCompletion(String channelId, String threadTs, List<String> results, String combinedPrUrl) {
+        StringBuilder message = new StringBuilder();
+        message.append("*Batch complete!*\n\n");
+        for (String result : results) {
+            message.append("• ").append(result).append("\n");
+        }
+        if (combinedPrUrl != null) {
+            message.append("\n*Combined PR:* ").append(combinedPrUrl);
+        }
+        postUpdate(channelId, threadTs, message.toString());
+    }
+
     public void postFailure(String channelId, String threadTs, String error, String onFailure) {
         StringBuilder message = new StringBuilder();
         message.append("*Task failed*\n\n");
@@ -68,11 +80,9 @@ public class ThreadManagerService {
         postUpdate(channelId, threadTs, message.toString());
     }
 
-    public void registerThread(String taskId, String threadTs) {
-        taskThreads.put(taskId, threadTs);
-    }
-
-    public String getThreadForTask(String taskId) {
-        return taskThreads.get(taskId);
+    public void registerThread(String taskId, String channelId, String threadTs) {
+        if (threadRouting != null) {
+            threadRouting.bind(taskId, channelId, threadTs);
+        }
     }
 }
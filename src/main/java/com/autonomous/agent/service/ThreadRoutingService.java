@@ -0,0 +1,203 @@
+package com.autonomous.agent.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Routes Slack thread replies to the task that owns the thread.
+ *
+ * Keeps a bounded, expiring threadTs -> task index and a registry of decisions tasks are
+ * waiting on ("retry", "queue", ...). A reply is looked up by its thread, then by the
+ * thread's task; if that task has a pending decision the reply resolves it immediately.
+ * An unanswered decision resolves to its default on timeout. Tasks carry their own
+ * threadTs, so there is no reverse index.
+ */
+@Service
+public class ThreadRoutingService {
+
+    private static final Pattern MENTION_PATTERN = Pattern.compile("<@[A-Z0-9]+>");
+    private static final int HANDLED_MESSAGES = 1024;
+
+    @Value("${agent.threads.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    @Value("${agent.threads.ttl-hours:24}")
+    private long ttlHours = 24;
+
+    @Value("${agent.threads.decision-timeout-minutes:30}")
+    private long decisionTimeoutMinutes = 30;
+
+    // Access-ordered, so the eldest entry is the least recently used thread
+    private final LinkedHashMap<String, ThreadBinding> byThread = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final Map<String, PendingDecision> decisions = new ConcurrentHashMap<>();
+
+    // Slack delivers a mention in a thread as both a message and an app_mention event
+    private final Set<String> handledMessages = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > HANDLED_MESSAGES;
+        }
+    });
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "thread-routing");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public void setTtlHours(long ttlHours) {
+        this.ttlHours = ttlHours;
+    }
+
+    public void setDecisionTimeoutMinutes(long decisionTimeoutMinutes) {
+        this.decisionTimeoutMinutes = decisionTimeoutMinutes;
+    }
+
+    public synchronized void bind(String taskId, String channelId, String threadTs) {
+        if (taskId == null || threadTs == null) {
+            return;
+        }
+        byThread.put(threadTs, new ThreadBinding(taskId, channelId, Instant.now().plus(Duration.ofHours(ttlHours))));
+        evict();
+    }
+
+    public Optional<String> taskForThread(String threadTs) {
+        return binding(threadTs).map(ThreadBinding::taskId);
+    }
+
+    private synchronized Optional<ThreadBinding> binding(String threadTs) {
+        ThreadBinding binding = byThread.get(threadTs);
+        if (binding == null) {
+            return Optional.empty();
+        }
+        if (binding.expiresAt().isBefore(Instant.now())) {
+            byThread.remove(threadTs);
+            return Optional.empty();
+        }
+        return Optional.of(binding);
+    }
+
+    public synchronized int size() {
+        return byThread.size();
+    }
+
+    /**
+     * Waits for one of {@code options} to be replied in the task's thread, binding the
+     * thread to the task if it isn't yet. The handler runs once, with the chosen option or
+     * {@code onTimeout} if nobody answers in time. A new decision for the same task
+     * supersedes the old one, which resolves to its default.
+     */
+    public void awaitDecision(String taskId, String channelId, String threadTs, Set<String> options, String onTimeout,
+                              Consumer<String> handler) {
+        if (taskId == null || threadTs == null) {
+            return;
+        }
+        bind(taskId, channelId, threadTs);
+        PendingDecision decision = new PendingDecision(options, onTimeout, handler, new CompletableFuture<>());
+        PendingDecision superseded = decisions.put(taskId, decision);
+        if (superseded != null) {
+            cancelTimeout(superseded);
+            resolve(superseded, superseded.onTimeout());
+        }
+
+        decision.timeout().complete(scheduler.schedule(() -> {
+            if (decisions.remove(taskId, decision)) {
+                System.out.println("No reply for task " + taskId + ", defaulting to: " + onTimeout);
+                resolve(decision, onTimeout);
+            }
+        }, decisionTimeoutMinutes, TimeUnit.MINUTES));
+    }
+
+    public boolean hasPendingDecision(String taskId) {
+        return taskId != null && decisions.containsKey(taskId);
+    }
+
+    /**
+     * Resolves the thread's pending decision if the reply names one of its options.
+     * Returns true if the reply was consumed (now or by an earlier delivery of the same message).
+     */
+    public boolean route(String channelId, String threadTs, String messageTs, String text) {
+        if (threadTs == null || text == null) {
+            return false;
+        }
+        String choice = parseChoice(text);
+        PendingDecision decision;
+        synchronized (handledMessages) {
+            if (messageTs != null && handledMessages.contains(messageTs)) {
+                return true;
+            }
+            ThreadBinding binding = binding(threadTs).orElse(null);
+            if (binding == null || (binding.channelId() != null && !binding.channelId().equals(channelId))) {
+                return false;
+            }
+            decision = decisions.get(binding.taskId());
+            if (decision == null || !decision.options().contains(choice) || !decisions.remove(binding.taskId(), decision)) {
+                return false;
+            }
+            if (messageTs != null) {
+                handledMessages.add(messageTs);
+            }
+        }
+        cancelTimeout(decision);
+        resolve(decision, choice);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    static String parseChoice(String text) {
+        String stripped = MENTION_PATTERN.matcher(text).replaceAll(" ").trim().toLowerCase();
+        String first = stripped.isEmpty() ? "" : stripped.split("\\s+")[0];
+        return first.replaceAll("[^a-z_-]", "");
+    }
+
+    private void resolve(PendingDecision decision, String choice) {
+        // Off the caller's thread: Slack expects events to be acknowledged within 3 seconds
+        scheduler.execute(() -> {
+            try {
+                decision.handler().accept(choice);
+            } catch (Exception e) {
+                System.err.println("Failed to apply thread decision '" + choice + "': " + e.getMessage());
+            }
+        });
+    }
+
+    private void cancelTimeout(PendingDecision decision) {
+        decision.timeout().thenAccept(timeout -> timeout.cancel(false));
+    }
+
+    private void evict() {
+        Instant now = Instant.now();
+        Iterator<Map.Entry<String, ThreadBinding>> it = byThread.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, ThreadBinding> eldest = it.next();
+            if (byThread.size() <= maxEntries && eldest.getValue().expiresAt().isAfter(now)) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    private record ThreadBinding(String taskId, String channelId, Instant expiresAt) {
+    }
+
+    private record PendingDecision(Set<String> options, String onTimeout,
+                                   Consumer<String> handler, CompletableFuture<ScheduledFuture<?>> timeout) {
+    }
+}
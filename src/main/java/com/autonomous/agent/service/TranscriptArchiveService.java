@@ -0,0 +1,407 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.TranscriptRange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Full Claude transcripts and test output per task, under
+ * {@code agent.data.path/transcripts/<taskId>/<stream>.z}.
+ *
+ * A stream is cut into 64 KiB blocks that are deflated independently, followed by the
+ * file offset of every block and a fixed-size trailer. Reading a range inflates only the
+ * blocks it overlaps, so paging through a long transcript never decompresses all of it.
+ * Writers stream to a temp file that is renamed into place on close, so readers only
+ * ever see complete archives.
+ *
+ * Links handed out for PR bodies carry an expiry and an HMAC of the task, stream and
+ * expiry under {@code agent.transcripts.signing-key}; without a key no links are made.
+ */
+@Service
+public class TranscriptArchiveService {
+
+    public static final String TRANSCRIPT = "transcript";
+    public static final String TESTS = "tests";
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int MAGIC = 0x54524e31;  // "TRN1"
+    // total length, block size, block count, index offset, magic
+    private static final int TRAILER_BYTES = 8 + 4 + 4 + 8 + 4;
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    @Value("${agent.data.path:data}")
+    private String dataPath;
+
+    @Value("${agent.public-url:}")
+    private String publicUrl;
+
+    @Value("${agent.transcripts.signing-key:}")
+    private String signingKey;
+
+    @Value("${agent.transcripts.link-ttl-days:30}")
+    private long linkTtlDays = 30;
+
+    public void setDataPath(String dataPath) {
+        this.dataPath = dataPath;
+    }
+
+    public void setPublicUrl(String publicUrl) {
+        this.publicUrl = publicUrl;
+    }
+
+    public void setSigningKey(String signingKey) {
+        this.signingKey = signingKey;
+    }
+
+    public void setLinkTtlDays(long linkTtlDays) {
+        this.linkTtlDays = linkTtlDays;
+    }
+
+    /**
+     * Starts (or replaces) a task's archived stream. Archiving is best effort: a writer
+     * that hits an I/O error logs it once and drops the rest.
+     */
+    public Writer open(String taskId, String stream) {
+        return new Writer(file(taskId, stream), taskId + "/" + stream);
+    }
+
+    public void store(String taskId, String stream, String content) {
+        try (Writer writer = open(taskId, stream)) {
+            writer.write(content);
+        }
+    }
+
+    /**
+     * A signed link the stream can be fetched from until it expires, or null without
+     * {@code agent.public-url} and {@code agent.transcripts.signing-key}.
+     */
+    public String link(String taskId, String stream) {
+        return link(taskId, stream, Instant.now());
+    }
+
+    String link(String taskId, String stream, Instant now) {
+        if (publicUrl == null || publicUrl.isBlank() || signingKey == null || signingKey.isBlank()) {
+            return null;
+        }
+        String base = publicUrl.endsWith("/") ? publicUrl.substring(0, publicUrl.length() - 1) : publicUrl;
+        long expires = now.plus(Duration.ofDays(linkTtlDays)).getEpochSecond();
+        return base + "/api/transcripts/" + taskId + "/" + stream +
+            "?expires=" + expires + "&signature=" + signature(taskId, stream, expires);
+    }
+
+    /**
+     * Whether {@code signature} is the one {@link #link} made for the stream and hasn't expired.
+     */
+    public boolean verifyLink(String taskId, String stream, String expires, String signature) {
+        return verifyLink(taskId, stream, expires, signature, Instant.now());
+    }
+
+    boolean verifyLink(String taskId, String stream, String expires, String signature, Instant now) {
+        if (signingKey == null || signingKey.isBlank() || expires == null || signature == null) {
+            return false;
+        }
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(expires);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (expiresAt < now.getEpochSecond()) {
+            return false;
+        }
+        return MessageDigest.isEqual(signature(taskId, stream, expiresAt).getBytes(StandardCharsets.US_ASCII),
+            signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String signature(String taskId, String stream, long expires) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(signingKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(
+                mac.doFinal((taskId + "/" + stream + "/" + expires).getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    /**
+     * Uncompressed length of the stream; empty when it isn't archived.
+     */
+    public OptionalLong length(String taskId, String stream) {
+        Path file = file(taskId, stream);
+        if (file == null || !Files.isRegularFile(file)) {
+            return OptionalLong.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return OptionalLong.of(readTrailer(channel).totalLength());
+        } catch (IOException e) {
+            System.err.println("Failed to read transcript archive " + file + ": " + e.getMessage());
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Up to {@code length} bytes from {@code offset}, clamped to the end of the stream.
+     * Empty when the stream isn't archived or can't be read.
+     */
+    public Optional<TranscriptRange> read(String taskId, String stream, long offset, long length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Negative range: offset " + offset + ", length " + length);
+        }
+        Path file = file(taskId, stream);
+        if (file == null || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Trailer trailer = readTrailer(channel);
+            long start = Math.min(offset, trailer.totalLength());
+            long end = start + Math.min(length, trailer.totalLength() - start);
+            byte[] data = new byte[Math.toIntExact(end - start)];
+            if (data.length > 0) {
+                inflateRange(channel, trailer, start, end, data);
+            }
+            return Optional.of(TranscriptRange.builder()
+                .taskId(taskId)
+                .stream(stream)
+                .offset(start)
+                .totalLength(trailer.totalLength())
+                .data(data)
+                .build());
+        } catch (IOException e) {
+            System.err.println("Failed to read transcript archive " + file + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static void inflateRange(FileChannel channel, Trailer trailer, long start, long end, byte[] data)
+            throws IOException {
+        int first = (int) (start / trailer.blockSize());
+        int last = (int) ((end - 1) / trailer.blockSize());
+
+        // Block i spans [offsets[i], offsets[i + 1]); the last block ends where the index starts
+        int entries = Math.min(last + 2, trailer.blockCount()) - first;
+        ByteBuffer index = readFully(channel, trailer.indexOffset() + 8L * first, 8 * entries);
+        long[] offsets = new long[last - first + 2];
+        for (int i = 0; i < entries; i++) {
+            offsets[i] = index.getLong();
+        }
+        if (entries < offsets.length) {
+            offsets[entries] = trailer.indexOffset();
+        }
+
+        // The blocks are contiguous, so one read covers them all
+        byte[] compressed = readFully(channel, offsets[0], Math.toIntExact(offsets[offsets.length - 1] - offsets[0])).array();
+        byte[] block = new byte[trailer.blockSize()];
+        Inflater inflater = new Inflater();
+        try {
+            int written = 0;
+            for (int i = first; i <= last; i++) {
+                inflater.reset();
+                inflater.setInput(compressed, (int) (offsets[i - first] - offsets[0]),
+                    (int) (offsets[i - first + 1] - offsets[i - first]));
+                int inflated = 0;
+                while (!inflater.finished() && inflated < block.length) {
+                    int n = inflater.inflate(block, inflated, block.length - inflated);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IOException("truncated block " + i);
+                    }
+                    inflated += n;
+                }
+                long blockStart = (long) i * trailer.blockSize();
+                int from = (int) Math.max(0, start - blockStart);
+                int to = (int) Math.min(inflated, end - blockStart);
+                System.arraycopy(block, from, data, written, to - from);
+                written += to - from;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt block: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static Trailer readTrailer(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < TRAILER_BYTES) {
+            throw new IOException("not a transcript archive");
+        }
+        ByteBuffer buffer = readFully(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+        Trailer trailer = new Trailer(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getLong());
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("not a transcript archive");
+        }
+        return trailer;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("archive truncated at " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * The archive path, or null when the task id or stream isn't a plain name.
+     */
+    private Path file(String taskId, String stream) {
+        if (taskId == null || stream == null || !NAME.matcher(taskId).matches() || !NAME.matcher(stream).matches()) {
+            return null;
+        }
+        return Paths.get(dataPath, "transcripts", taskId, stream + ".z");
+    }
+
+    private record Trailer(long totalLength, int blockSize, int blockCount, long indexOffset) {
+    }
+
+    /**
+     * Appends to one archived stream; {@link #close()} writes the index and publishes it.
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path file;
+        private final String name;
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private final byte[] buffer = new byte[8192];
+        private final Deflater deflater = new Deflater();
+        private OutputStream out;
+        private long[] offsets = new long[16];
+        private int blocks;
+        private int filled;
+        private long position;
+        private long length;
+
+        Writer(Path file, String name) {
+            this.file = file;
+            this.name = name;
+            if (file == null) {
+                System.err.println("Not archiving " + name + ": invalid task id or stream name");
+                return;
+            }
+            try {
+                Files.createDirectories(file.getParent());
+                out = new BufferedOutputStream(Files.newOutputStream(temp()));
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        public void write(String text) {
+            write(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public void write(byte[] bytes) {
+            int off = 0;
+            while (out != null && off < bytes.length) {
+                int n = Math.min(bytes.length - off, block.length - filled);
+                System.arraycopy(bytes, off, block, filled, n);
+                filled += n;
+                off += n;
+                length += n;
+                if (filled == block.length) {
+                    flushBlock();
+                }
+            }
+        }
+
+        public long length() {
+            return length;
+        }
+
+        private void flushBlock() {
+            if (blocks == offsets.length) {
+                offsets = Arrays.copyOf(offsets, blocks * 2);
+            }
+            offsets[blocks++] = position;
+            deflater.reset();
+            deflater.setInput(block, 0, filled);
+            deflater.finish();
+            try {
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buffer);
+                    out.write(buffer, 0, n);
+                    position += n;
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+            filled = 0;
+        }
+
+        @Override
+        public void close() {
+            if (out != null && filled > 0) {
+                flushBlock();
+            }
+            if (out == null) {
+                deflater.end();
+                return;
+            }
+            try (DataOutputStream data = new DataOutputStream(out)) {
+                for (int i = 0; i < blocks; i++) {
+                    data.writeLong(offsets[i]);
+                }
+                data.writeLong(length);
+                data.writeInt(BLOCK_SIZE);
+                data.writeInt(blocks);
+                data.writeLong(position);
+                data.writeInt(MAGIC);
+            } catch (IOException e) {
+                fail(e);
+                return;
+            } finally {
+                deflater.end();
+                out = null;
+            }
+            try {
+                Files.move(temp(), file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        private Path temp() {
+            return file.resolveSibling(file.getFileName() + ".tmp");
+        }
+
+        private void fail(IOException e) {
+            System.err.println("Failed to archive " + name + ": " + e.getMessage());
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                    // Already failing
+                }
+                out = null;
+            }
+            try {
+                Files.deleteIfExists(temp());
+            } catch (IOException ignored) {
+                // Left for the next write of this stream to replace
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.autonomous.agent.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Startup loading that may run off the main thread ({@code agent.startup.background-warmup}),
+ * so the web server starts acknowledging Slack before caches and indexes are loaded.
+ * Whatever needs the loaded state calls {@link #await()} first.
+ */
+public final class Warmup {
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private volatile CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+
+    public Warmup(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Runs the task now, or in the background when {@code background} is set.
+     */
+    public void run(boolean background, Runnable task) {
+        if (!background) {
+            task.run();
+            return;
+        }
+        long start = System.nanoTime();
+        done = CompletableFuture.runAsync(task, EXECUTOR)
+            .whenComplete((v, e) -> {
+                if (e != null) {
+                    System.err.println("Warmup of " + name + " failed: " + e.getMessage());
+                } else {
+                    System.out.println("Warmed up " + name + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                }
+            })
+            .exceptionally(e -> null);
+    }
+
+    public void await() {
+        done.join();
+    }
+}
@@ -0,0 +1,413 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.ChannelConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the workspace volume from only growing. Every {@code agent.janitor.interval-minutes}
+ * it visits each configured clone that no task has claimed and no channel using it has a
+ * running or queued task for. It works under the clone's lock (see
+ * {@link WorkspaceService#whileUnclaimed}), so a task can't start on it halfway through.
+ *
+ * Agent branches (under the channel's branch prefix) that are merged, gone upstream or
+ * older than {@code branch-max-age-days} are deleted, and the clone is gc'd once its
+ * loose objects pass {@code loose-object-threshold}. Clones unused for
+ * {@code min-idle-minutes} also lose their ignored build output directories and any
+ * leftover batch worktrees. While all clones together exceed {@code quota-gb}, the least
+ * recently used idle ones are deleted outright; the next task re-clones.
+ *
+ * Freed bytes are counted in the {@code agent.workspace.reclaimed} metric, tagged with
+ * what freed them.
+ */
+@Service
+public class WorkspaceJanitorService {
+
+    public static final String GC = "gc";
+    public static final String BUILD = "build";
+    public static final String WORKTREES = "worktrees";
+    public static final String EVICTED = "evicted";
+
+    private static final Set<String> BUILD_DIRS = Set.of("target", "build", "dist", "out", ".gradle", ".next");
+    private static final int BUILD_DIR_DEPTH = 4;
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Value("${agent.janitor.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${agent.janitor.interval-minutes:60}")
+    private long intervalMinutes = 60;
+
+    @Value("${agent.janitor.min-idle-minutes:60}")
+    private long minIdleMinutes = 60;
+
+    @Value("${agent.janitor.branch-max-age-days:14}")
+    private long branchMaxAgeDays = 14;
+
+    @Value("${agent.janitor.loose-object-threshold:5000}")
+    private long looseObjectThreshold = 5000;
+
+    @Value("${agent.janitor.quota-gb:0}")
+    private double quotaGb;
+
+    private final ConfigLoaderService configLoader;
+    private final GitService gitService;
+    private final WorkspaceService workspaceService;
+
+    @Autowired(required = false)
+    private TaskExecutorService taskExecutor;
+
+    @Autowired(required = false)
+    private SetupCacheService setupCache;
+
+    @Autowired(required = false)
+    private RepoMetadataService repoMetadata;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, AtomicLong> reclaimed = new LinkedHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "workspace-janitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WorkspaceJanitorService(ConfigLoaderService configLoader, GitService gitService,
+                                   WorkspaceService workspaceService) {
+        this.configLoader = configLoader;
+        this.gitService = gitService;
+        this.workspaceService = workspaceService;
+        for (String reason : List.of(GC, BUILD, WORKTREES, EVICTED)) {
+            reclaimed.put(reason, new AtomicLong());
+        }
+    }
+
+    public void setTaskExecutor(TaskExecutorService taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    public void setSetupCacheService(SetupCacheService setupCache) {
+        this.setupCache = setupCache;
+    }
+
+    public void setMinIdleMinutes(long minIdleMinutes) {
+        this.minIdleMinutes = minIdleMinutes;
+    }
+
+    public void setLooseObjectThreshold(long looseObjectThreshold) {
+        this.looseObjectThreshold = looseObjectThreshold;
+    }
+
+    public void setQuotaGb(double quotaGb) {
+        this.quotaGb = quotaGb;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (meterRegistry != null) {
+            reclaimed.forEach((reason, bytes) ->
+                FunctionCounter.builder("agent.workspace.reclaimed", bytes, AtomicLong::doubleValue)
+                    .description("Disk space freed in channel workspaces")
+                    .baseUnit("bytes")
+                    .tag("reason", reason)
+                    .register(meterRegistry));
+        }
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    sweep();
+                } catch (Exception e) {
+                    System.err.println("Workspace janitor failed: " + e.getMessage());
+                }
+            }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Bytes reclaimed since startup, by reason.
+     */
+    public Map<String, Long> reclaimedBytes() {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        reclaimed.forEach((reason, bytes) -> totals.put(reason, bytes.get()));
+        return totals;
+    }
+
+    /**
+     * One pass over every configured workspace. Returns the bytes it freed.
+     */
+    public synchronized long sweep() {
+        long before = reclaimedBytes().values().stream().mapToLong(Long::longValue).sum();
+        // Channels can share a clone; it's only idle when all of them are
+        Map<String, List<ChannelConfig>> workspaces = new LinkedHashMap<>();
+        for (ChannelConfig config : configLoader.getAllConfigs().values()) {
+            if (config.getClonePath() != null && new File(config.getClonePath(), ".git").isDirectory()) {
+                workspaces.computeIfAbsent(config.getClonePath(), path -> new ArrayList<>()).add(config);
+            }
+        }
+
+        workspaces.forEach((clonePath, channels) -> workspaceService.whileUnclaimed(clonePath, () -> {
+            if (!inUse(channels)) {
+                tidy(clonePath, channels);
+            }
+        }));
+        if (quotaGb > 0) {
+            enforceQuota(workspaces, (long) (quotaGb * GB));
+        }
+
+        long freed = reclaimedBytes().values().stream().mapToLong(Long::longValue).sum() - before;
+        if (freed > 0) {
+            System.out.println("Workspace janitor reclaimed " + formatBytes(freed));
+        }
+        return freed;
+    }
+
+    private void tidy(String clonePath, List<ChannelConfig> channels) {
+        int pruned = pruneBranches(clonePath, channels);
+        if (pruned > 0) {
+            System.out.println("Pruned " + pruned + " merged or stale branches in " + clonePath);
+        }
+
+        if (gitService.countLooseObjects(clonePath) > looseObjectThreshold) {
+            Path gitDir = Path.of(clonePath, ".git");
+            long size = size(gitDir);
+            if (gitService.gc(clonePath)) {
+                record(GC, size - size(gitDir));
+            }
+        }
+
+        if (idleFor(clonePath).toMinutes() < minIdleMinutes) {
+            return;
+        }
+        Path worktrees = Path.of(clonePath + "-batch");
+        if (Files.isDirectory(worktrees)) {
+            // Nobody has the clone claimed, so these are left over from a crash
+            record(WORKTREES, delete(worktrees));
+            pruneBranches(clonePath, channels);
+        }
+        long cleared = clearBuildDirs(Path.of(clonePath));
+        if (cleared > 0) {
+            record(BUILD, cleared);
+            // Setup may have produced some of that output, so it has to run again
+            if (setupCache != null) {
+                setupCache.clear(clonePath);
+            }
+            channels.forEach(config -> workspaceService.discardStandby(config.getChannelId()));
+        }
+    }
+
+    /**
+     * Prunes the agent branches of every channel using the clone, each under its own prefix.
+     */
+    private int pruneBranches(String clonePath, List<ChannelConfig> channels) {
+        int pruned = 0;
+        for (ChannelConfig config : channels) {
+            String prefix = config.getBranchPrefix() != null ? config.getBranchPrefix() : "agent";
+            String base = config.getPrTarget() != null ? config.getPrTarget() : gitService.getDefaultBranch(clonePath);
+            pruned += gitService.pruneBranches(clonePath, prefix, base, Duration.ofDays(branchMaxAgeDays));
+        }
+        return pruned;
+    }
+
+    /**
+     * Deletes the least recently used idle clones until all of them fit in the quota.
+     */
+    private void enforceQuota(Map<String, List<ChannelConfig>> workspaces, long quotaBytes) {
+        long total = 0;
+        for (String clonePath : workspaces.keySet()) {
+            total += size(Path.of(clonePath)) + size(Path.of(clonePath + "-batch"));
+        }
+        if (total <= quotaBytes) {
+            return;
+        }
+
+        List<String> candidates = workspaces.keySet().stream()
+            .filter(clonePath -> idleFor(clonePath).toMinutes() >= minIdleMinutes)
+            .sorted(Comparator.comparing(WorkspaceJanitorService::idleFor).reversed())
+            .toList();
+        for (String clonePath : candidates) {
+            if (total <= quotaBytes) {
+                break;
+            }
+            List<ChannelConfig> channels = workspaces.get(clonePath);
+            Duration idle = idleFor(clonePath);
+            long[] freed = new long[1];
+            workspaceService.whileUnclaimed(clonePath, () -> {
+                if (inUse(channels)) {
+                    return;
+                }
+                channels.forEach(config -> workspaceService.discardStandby(config.getChannelId()));
+                freed[0] = delete(Path.of(clonePath + "-batch")) + delete(Path.of(clonePath));
+                if (repoMetadata != null) {
+                    repoMetadata.invalidate(clonePath);
+                }
+            });
+            if (freed[0] == 0) {
+                continue;
+            }
+            record(EVICTED, freed[0]);
+            total -= freed[0];
+            System.out.println("Evicted workspace " + clonePath + " (" + formatBytes(freed[0]) + ", unused for " +
+                EtaEstimatorService.formatDuration(idle) + ")");
+        }
+        if (total > quotaBytes) {
+            System.err.println("Workspaces use " + formatBytes(total) + ", over the " + formatBytes(quotaBytes) +
+                " quota, but the rest are in use");
+        }
+    }
+
+    /**
+     * Whether any channel using the clone has a task running, queued or being warmed up for it.
+     */
+    private boolean inUse(List<ChannelConfig> channels) {
+        for (ChannelConfig config : channels) {
+            String channelId = config.getChannelId();
+            if (workspaceService.isPreparing(channelId)) {
+                return true;
+            }
+            // A queued task may resume from a checkpoint branch in this clone
+            if (taskExecutor != null &&
+                (taskExecutor.hasRunningTask(channelId) || !taskExecutor.getQueuedTasks(channelId).isEmpty())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Time since the clone was last checked out, committed to or fetched.
+     */
+    static Duration idleFor(String clonePath) {
+        long lastUsed = 0;
+        for (String name : List.of("HEAD", "index", "FETCH_HEAD")) {
+            lastUsed = Math.max(lastUsed, new File(clonePath, ".git/" + name).lastModified());
+        }
+        return lastUsed == 0 ? Duration.ZERO : Duration.ofMillis(Math.max(0, System.currentTimeMillis() - lastUsed));
+    }
+
+    /**
+     * Deletes build output directories that git ignores, a few levels deep for multi-module
+     * builds. Tracked directories with the same names are left alone.
+     */
+    private long clearBuildDirs(Path clone) {
+        List<Path> found = new ArrayList<>();
+        try {
+            Files.walkFileTree(clone, EnumSet.noneOf(FileVisitOption.class), BUILD_DIR_DEPTH, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    String name = dir.getFileName().toString();
+                    if (dir.equals(clone)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    if (name.equals(".git") || name.equals("node_modules")) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    if (BUILD_DIRS.contains(name)) {
+                        found.add(dir);
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Failed to scan " + clone + " for build output: " + e.getMessage());
+        }
+
+        long freed = 0;
+        for (Path dir : found) {
+            if (gitService.isIgnored(clone.toString(), clone.relativize(dir).toString())) {
+                freed += delete(dir);
+            }
+        }
+        return freed;
+    }
+
+    private void record(String reason, long bytes) {
+        if (bytes > 0) {
+            reclaimed.get(reason).addAndGet(bytes);
+        }
+    }
+
+    /**
+     * Total size of the files under {@code root}; symlinks aren't followed.
+     */
+    static long size(Path root) {
+        if (!Files.exists(root)) {
+            return 0;
+        }
+        AtomicLong total = new AtomicLong();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    total.addAndGet(attrs.size());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Failed to measure " + root + ": " + e.getMessage());
+        }
+        return total.get();
+    }
+
+    /**
+     * Deletes {@code root} recursively and returns the bytes freed.
+     */
+    static long delete(Path root) {
+        if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS)) {
+            return 0;
+        }
+        AtomicLong freed = new AtomicLong();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    freed.addAndGet(attrs.size());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Failed to delete " + root + ": " + e.getMessage());
+        }
+        return freed.get();
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024 * 1024) return (bytes / 1024) + " KB";
+        if (bytes < GB) return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        return String.format("%.2f GB", (double) bytes / GB);
+    }
+}
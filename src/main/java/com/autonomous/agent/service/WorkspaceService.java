@@ -0,0 +1,285 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.ChannelConfig;
+import com.autonomous.agent.model.PreparedWorkspace;
+import com.autonomous.agent.model.ProcessCleanup;
+import com.autonomous.agent.model.RepoMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * Prepares channel workspaces: clone/fetch, reset to a clean default branch and run
+ * setup. After each task a replacement is prepared in the background (warm standby),
+ * so the next task in the channel can claim a ready workspace instead of paying for
+ * fetch + setup up front.
+ *
+ * Tasks claim the clone they run in (their worktrees live next to it) for as long as they
+ * run; the janitor only touches clones nobody has claimed, under the same per-clone lock.
+ */
+@Service
+public class WorkspaceService {
+
+    private static final int WARMUP_THREADS = 2;
+
+    @Value("${agent.workspace.warm-standby:true}")
+    private boolean warmStandbyEnabled = true;
+
+    @Value("${agent.workspace.warm-max-age-minutes:30}")
+    private long warmMaxAgeMinutes = 30;
+
+    private final GitService gitService;
+    private final RepoMetadataService repoMetadata;
+
+    @Autowired(required = false)
+    private SetupCacheService setupCache;
+
+    @Autowired(required = false)
+    private ProcessSupervisor processSupervisor = new ProcessSupervisor();
+
+    @Autowired(required = false)
+    private RepoContextService repoContext;
+
+    private final Map<String, CompletableFuture<PreparedWorkspace>> standby = new ConcurrentHashMap<>();
+    private final Map<String, Object> cloneLocks = new ConcurrentHashMap<>();
+    private final Map<String, Integer> claims = new ConcurrentHashMap<>();
+    private final ExecutorService warmupExecutor = Executors.newFixedThreadPool(WARMUP_THREADS);
+
+    public WorkspaceService(GitService gitService, RepoMetadataService repoMetadata) {
+        this.gitService = gitService;
+        this.repoMetadata = repoMetadata;
+    }
+
+    public void setSetupCacheService(SetupCacheService setupCache) {
+        this.setupCache = setupCache;
+    }
+
+    public void setProcessSupervisor(ProcessSupervisor processSupervisor) {
+        this.processSupervisor = processSupervisor;
+    }
+
+    public void setRepoContextService(RepoContextService repoContext) {
+        this.repoContext = repoContext;
+    }
+
+    public void setWarmMaxAgeMinutes(long warmMaxAgeMinutes) {
+        this.warmMaxAgeMinutes = warmMaxAgeMinutes;
+    }
+
+    /**
+     * Claims the channel's warm workspace if one is ready (or still being prepared) and
+     * fresh enough; otherwise prepares the workspace synchronously.
+     */
+    public PreparedWorkspace acquire(ChannelConfig config) throws Exception {
+        CompletableFuture<PreparedWorkspace> warm = standby.remove(config.getChannelId());
+        if (warm != null) {
+            try {
+                // Waiting on an in-flight warmup is never slower than starting a cold one
+                PreparedWorkspace workspace = warm.get(10, TimeUnit.MINUTES);
+                if (isFresh(workspace)) {
+                    System.out.println("Claimed warm workspace for channel: " + config.getChannelId());
+                    return workspace;
+                }
+            } catch (Exception e) {
+                System.err.println("Warm workspace unavailable, preparing cold: " + e.getMessage());
+            }
+        }
+        return prepare(config);
+    }
+
+    /**
+     * Starts preparing a replacement workspace in the background.
+     */
+    public void prepareStandbyAsync(ChannelConfig config) {
+        if (!warmStandbyEnabled || config.getRepo() == null || config.getClonePath() == null) {
+            return;
+        }
+        standby.computeIfAbsent(config.getChannelId(), id -> CompletableFuture.supplyAsync(() -> {
+            claim(config.getClonePath());
+            try {
+                return prepare(config);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                release(config.getClonePath());
+            }
+        }, warmupExecutor));
+    }
+
+    /**
+     * Marks the clone, and the worktrees next to it, as in use until {@link #release}.
+     * Waits while the janitor is working on it.
+     */
+    public void claim(String clonePath) {
+        if (clonePath == null) {
+            return;
+        }
+        synchronized (lockFor(clonePath)) {
+            claims.merge(clonePath, 1, Integer::sum);
+        }
+    }
+
+    public void release(String clonePath) {
+        if (clonePath == null) {
+            return;
+        }
+        synchronized (lockFor(clonePath)) {
+            claims.computeIfPresent(clonePath, (path, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    public boolean isClaimed(String clonePath) {
+        return claims.containsKey(clonePath);
+    }
+
+    /**
+     * Runs {@code action} holding the clone's lock, unless a task or warmup has claimed the
+     * clone. Claims made meanwhile wait for it. Returns whether it ran.
+     */
+    public boolean whileUnclaimed(String clonePath, Runnable action) {
+        synchronized (lockFor(clonePath)) {
+            if (isClaimed(clonePath)) {
+                return false;
+            }
+            action.run();
+            return true;
+        }
+    }
+
+    private Object lockFor(String clonePath) {
+        return cloneLocks.computeIfAbsent(clonePath, path -> new Object());
+    }
+
+    public Optional<PreparedWorkspace> getStandby(String channelId) {
+        CompletableFuture<PreparedWorkspace> warm = standby.get(channelId);
+        if (warm == null || !warm.isDone() || warm.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.of(warm.join());
+    }
+
+    /**
+     * Whether a standby workspace is being prepared right now.
+     */
+    public boolean isPreparing(String channelId) {
+        CompletableFuture<PreparedWorkspace> warm = standby.get(channelId);
+        return warm != null && !warm.isDone();
+    }
+
+    public void discardStandby(String channelId) {
+        standby.remove(channelId);
+    }
+
+    /**
+     * Clone or fetch, reset to a clean copy of the branch PRs target (the default branch
+     * when that can't be checked out) and run setup.
+     */
+    public PreparedWorkspace prepare(ChannelConfig config) throws Exception {
+        String clonePath = config.getClonePath();
+        String defaultBranch = repoMetadata.getDefaultBranch(clonePath);
+
+        System.out.println("Preparing workspace: " + config.getRepo() + " in " + clonePath);
+        if (!gitService.ensureRepoCloned(config.getRepo(), clonePath, defaultBranch, config.getCloneOptions())) {
+            throw new RuntimeException("Failed to clone repository: " + config.getRepo());
+        }
+
+        RepoMetadata metadata = repoMetadata.get(clonePath);
+        if (metadata.getDefaultBranch() != null) {
+            defaultBranch = metadata.getDefaultBranch();
+        }
+        String prTarget = config.getPrTarget();
+        if (prTarget != null && !prTarget.isBlank() && !prTarget.equals(defaultBranch)) {
+            if (gitService.resetWorkspace(clonePath, prTarget)) {
+                defaultBranch = prTarget;
+            } else {
+                System.err.println("Can't check out PR target " + prTarget + " in " + clonePath +
+                    ", starting tasks from " + defaultBranch);
+                gitService.resetWorkspace(clonePath, defaultBranch);
+            }
+        } else {
+            gitService.resetWorkspace(clonePath, defaultBranch);
+        }
+        if (repoContext != null && repoContext.isEnabled()) {
+            // Re-index what the fetch changed now, off the task's clock when warming up
+            repoContext.get(clonePath);
+        }
+
+        runSetupCommands(config, metadata, clonePath);
+
+        return PreparedWorkspace.builder()
+            .channelId(config.getChannelId())
+            .clonePath(clonePath)
+            .defaultBranch(defaultBranch)
+            .metadata(metadata)
+            .preparedAt(Instant.now())
+            .build();
+    }
+
+    /**
+     * Adds an isolated worktree of a prepared workspace on a new branch and runs setup in it.
+     * Used to fan batch tasks out without re-cloning; dependency caches stay shared.
+     */
+    public void prepareWorktree(ChannelConfig config, PreparedWorkspace base, String worktreePath,
+                                String branchName) throws Exception {
+        new File(worktreePath).getParentFile().mkdirs();
+        if (!gitService.addWorktree(base.getClonePath(), worktreePath, branchName, base.getDefaultBranch())) {
+            throw new RuntimeException("Failed to create worktree for " + branchName);
+        }
+        runSetupCommands(config, base.getMetadata(), worktreePath);
+    }
+
+    private boolean isFresh(PreparedWorkspace workspace) {
+        return workspace != null && Duration.between(workspace.getPreparedAt(), Instant.now())
+            .compareTo(Duration.ofMinutes(warmMaxAgeMinutes)) < 0;
+    }
+
+    /**
+     * Runs the channel's setup commands, skipping any whose command and
+     * manifest/lockfile hashes match the last successful run in this workspace.
+     */
+    private void runSetupCommands(ChannelConfig config, RepoMetadata metadata, String workDir) throws Exception {
+        if (config.getSetupCommands() == null) {
+            return;
+        }
+        Map<String, String> lockfileHashes = metadata != null ? metadata.getLockfileHashes() : Map.of();
+
+        for (String cmd : config.getSetupCommands()) {
+            String inputsHash = setupCache != null ? setupCache.inputsHash(cmd, lockfileHashes) : null;
+            if (inputsHash != null && setupCache.isUpToDate(workDir, cmd, inputsHash)) {
+                System.out.println("Skipping setup command (inputs unchanged): " + cmd);
+                continue;
+            }
+            if (runCommand(config, workDir, cmd) && inputsHash != null) {
+                setupCache.markCompleted(workDir, cmd, inputsHash);
+            }
+        }
+    }
+
+    private boolean runCommand(ChannelConfig config, String workDir, String command) throws Exception {
+        ProcessBuilder pb = new ProcessBuilder("sh", "-c", command);
+        pb.directory(new File(workDir));
+        pb.inheritIO();
+        if (setupCache != null && config.getRepo() != null) {
+            setupCache.applyTo(pb, config.getRepo());
+        }
+        Process process = processSupervisor.start(pb);
+        boolean finished = process.waitFor(5, TimeUnit.MINUTES);
+        ProcessCleanup cleanup = processSupervisor.terminate(process);
+        if (!finished) {
+            throw new RuntimeException("Setup command timed out after 5 minutes: " + command + " (" +
+                ProcessSupervisor.describe(cleanup) + ")");
+        }
+        if (process.exitValue() != 0) {
+            System.err.println("Setup command failed with exit code " + process.exitValue() + ": " + command);
+            return false;
+        }
+        return true;
+    }
+}
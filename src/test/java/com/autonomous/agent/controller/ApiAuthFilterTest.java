@@ -0,0 +1,105 @@
+package com.autonomous.agent.controller;
+
+import com.autonomous.agent.service.TranscriptArchiveService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiAuthFilterTest {
+
+    private ApiAuthFilter filter;
+    private TranscriptArchiveService transcripts;
+
+    @BeforeEach
+    void setUp() {
+        transcripts = new TranscriptArchiveService();
+        transcripts.setPublicUrl("https://agent.example.com");
+        transcripts.setSigningKey("transcript-key");
+        filter = new ApiAuthFilter();
+        filter.setApiToken("api-token");
+        filter.setTranscripts(transcripts);
+    }
+
+    @Test
+    void shouldRequireTheApiToken() throws Exception {
+        assertEquals(401, status(new MockHttpServletRequest("GET", "/api/history")));
+
+        MockHttpServletRequest wrong = new MockHttpServletRequest("GET", "/api/history");
+        wrong.addHeader("Authorization", "Bearer nope");
+        assertEquals(401, status(wrong));
+
+        MockHttpServletRequest right = new MockHttpServletRequest("GET", "/api/history");
+        right.addHeader("Authorization", "Bearer api-token");
+        assertEquals(200, status(right));
+    }
+
+    @Test
+    void shouldRejectEverythingWithoutAConfiguredToken() throws Exception {
+        filter.setApiToken("");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/history");
+        request.addHeader("Authorization", "Bearer ");
+
+        assertEquals(401, status(request));
+    }
+
+    @Test
+    void shouldServeSignedTranscriptLinksOnly() throws Exception {
+        filter.setApiToken("");
+        URI link = URI.create(transcripts.link("abc123", TranscriptArchiveService.TRANSCRIPT));
+        assertEquals(200, status(get(link.getPath(), link.getQuery())));
+
+        URI other = URI.create(transcripts.link("abc123", TranscriptArchiveService.TRANSCRIPT)
+            .replace("/abc123/", "/abc124/"));
+        assertEquals(401, status(get(other.getPath(), other.getQuery())));
+        assertEquals(401, status(get(link.getPath(), null)));
+    }
+
+    @Test
+    void shouldRequireTheApiTokenForActuatorEndpointsButHealth() throws Exception {
+        assertEquals(401, status(new MockHttpServletRequest("GET", "/actuator/metrics")));
+        assertEquals(401, status(new MockHttpServletRequest("GET", "/actuator/metrics/agent.workspace.reclaimed")));
+        assertEquals(401, status(new MockHttpServletRequest("GET", "/actuator")));
+        assertEquals(200, status(new MockHttpServletRequest("GET", "/actuator/health")));
+        assertEquals(200, status(new MockHttpServletRequest("GET", "/actuator/health/liveness")));
+
+        MockHttpServletRequest right = new MockHttpServletRequest("GET", "/actuator/metrics");
+        right.addHeader("Authorization", "Bearer api-token");
+        assertEquals(200, status(right));
+    }
+
+    @Test
+    void shouldLeaveOtherPathsAlone() throws Exception {
+        filter.setApiToken("");
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/slack/events");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertSame(request, chain.getRequest());
+    }
+
+    private static MockHttpServletRequest get(String path, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                String[] parts = pair.split("=", 2);
+                request.addParameter(parts[0], parts[1]);
+            }
+        }
+        return request;
+    }
+
+    private int status(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        assertEquals(response.getStatus() == 200, chain.getRequest() != null);
+        return response.getStatus();
+    }
+}
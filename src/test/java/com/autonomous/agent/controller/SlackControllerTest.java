@@ -1,21 +1,29 @@
 package com.autonomous.agent.controller;
 
+import com.autonomous.agent.model.HistoryPage;
+import com.autonomous.agent.model.TaskRecord;
 import com.autonomous.agent.service.CostTrackerService;
+import com.autonomous.agent.service.SlackDispatcher;
 import com.autonomous.agent.service.SlackService;
 import com.autonomous.agent.service.TaskExecutorService;
+import com.autonomous.agent.service.TaskHistoryService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(SlackController.class)
+// Requests here aren't signed; SlackSignatureFilterTest covers verification
+@WebMvcTest(controllers = SlackController.class, properties = "slack.signature.verify=false")
+@Import(SlackDispatcher.class)
 class SlackControllerTest {
 
     @Autowired
@@ -30,6 +38,9 @@ class SlackControllerTest {
     @MockBean
     private SlackService slackService;
 
+    @MockBean
+    private TaskHistoryService taskHistory;
+
     @Test
     void shouldHandleAgentTaskCommand() throws Exception {
         when(taskExecutor.submitTask(eq("C123"), eq("Add feature X"), eq("U456")))
@@ -70,4 +81,50 @@ class SlackControllerTest {
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.text").value("No task running in this channel."));
     }
+
+    @Test
+    void shouldHandleAgentHistoryCommand() throws Exception {
+        TaskRecord record = TaskRecord.builder()
+            .taskId("abc12345")
+            .description("Fix login bug")
+            .status("COMPLETED")
+            .model("sonnet")
+            .durationMs(90_000)
+            .costUsd(0.12)
+            .prUrl("https://github.com/org/repo/pull/7")
+            .build();
+        when(taskHistory.query(eq("C123"), eq("FAILED"), isNull(), isNull(), isNull(), eq(1), eq(10)))
+            .thenReturn(HistoryPage.builder().items(List.of(record)).page(1).size(10).total(11).build());
+
+        mockMvc.perform(post("/slack/slash-commands")
+                .param("command", "/agent-history")
+                .param("text", "failed page 2")
+                .param("user_id", "U456")
+                .param("channel_id", "C123"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.text").value(
+                "*Task history* (page 2 of 2, 11 tasks)\n" +
+                "`abc12345` Fix login bug | COMPLETED | sonnet | 90s | $0.12 | https://github.com/org/repo/pull/7"));
+    }
+
+    @Test
+    void shouldAnswerUrlVerificationChallenge() throws Exception {
+        mockMvc.perform(post("/slack/events")
+                .contentType("application/json")
+                .content("{\"token\":\"t\",\"challenge\":\"3eZbrw1aBm2rZgRNFdxV2595E9CY3gmdALWMmHkvFXO7tYXAYM8P\",\"type\":\"url_verification\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.challenge").value("3eZbrw1aBm2rZgRNFdxV2595E9CY3gmdALWMmHkvFXO7tYXAYM8P"));
+    }
+
+    @Test
+    void shouldDispatchTypedEvent() throws Exception {
+        mockMvc.perform(post("/slack/events")
+                .contentType("application/json")
+                .content("{\"type\":\"event_callback\",\"event_id\":\"Ev1\",\"event\":{\"type\":\"app_mention\"," +
+                    "\"user\":\"U456\",\"text\":\"<@UBOT> hi\",\"channel\":\"C123\",\"ts\":\"1.2\"}}"))
+            .andExpect(status().isOk());
+
+        verify(slackService).processEvent(argThat(event ->
+            "app_mention".equals(event.getEventType()) && "C123".equals(event.getChannel()) && !event.isBot()));
+    }
 }
@@ -0,0 +1,186 @@
+package com.autonomous.agent.controller;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlackSignatureFilterTest {
+
+    private static final String SECRET = "8f742231b10e8888abcd99yyyzzz85a5";
+
+    private SlackSignatureFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new SlackSignatureFilter();
+        filter.setSigningSecret(SECRET);
+    }
+
+    @Test
+    void shouldPassCorrectlySignedRequestWithBodyIntact() throws Exception {
+        String body = "command=%2Fagent-task&text=Add+feature+X&channel_id=C123";
+        String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+        MockHttpServletRequest request = request(body, timestamp, sign(timestamp, body));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+        assertEquals("/agent-task", chain.getRequest().getParameter("command"));
+        assertEquals("Add feature X", chain.getRequest().getParameter("text"));
+        assertArrayEquals(body.getBytes(StandardCharsets.UTF_8), chain.getRequest().getInputStream().readAllBytes());
+        assertSame(request.getAttribute(SlackSignatureFilter.RAW_BODY_ATTRIBUTE),
+            SlackSignatureFilter.rawBody(request));
+    }
+
+    @Test
+    void shouldReplayTheBodyToNonBlockingReaders() throws Exception {
+        String body = "command=%2Fagent-task&text=hi&channel_id=C123";
+        String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request(body, timestamp, sign(timestamp, body)), new MockHttpServletResponse(), chain);
+
+        ServletInputStream in = chain.getRequest().getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("data");
+                while (in.isReady() && !in.isFinished()) {
+                    read.write(in.read());
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        assertEquals(List.of("data", "done"), events);
+        assertEquals(body, read.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldRejectTamperedBody() throws Exception {
+        String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+        MockHttpServletRequest request = request("text=rm+-rf", timestamp, sign(timestamp, "text=ls"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void shouldRejectReplayedTimestamp() throws Exception {
+        String timestamp = String.valueOf(System.currentTimeMillis() / 1000 - 600);
+        MockHttpServletRequest request = request("text=hi", timestamp, sign(timestamp, "text=hi"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(401, response.getStatus());
+        assertTrue(filter.fresh("1000", 1200));
+        assertFalse(filter.fresh("1000", 1301));
+        assertFalse(filter.fresh("not-a-number", 1000));
+        assertFalse(filter.fresh(null, 1000));
+    }
+
+    @Test
+    void shouldRejectMissingOrMalformedSignature() throws Exception {
+        assertFalse(filter.verify("1000", new byte[0], null));
+        assertFalse(filter.verify("1000", new byte[0], "v0=abc"));
+        assertFalse(filter.verify("1000", new byte[0], "v1=" + sign("1000", "").substring(3)));
+        assertTrue(filter.verify("1000", new byte[0], sign("1000", "")));
+    }
+
+    @Test
+    void shouldRejectEverythingWhenNoSecretIsConfigured() throws Exception {
+        filter.setSigningSecret("");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("text=hi", null, null), response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void shouldPassUnsignedRequestsOnlyWhenVerificationIsTurnedOff() throws Exception {
+        filter.setSigningSecret("");
+        filter.setVerifyEnabled(false);
+        MockHttpServletRequest request = request("text=hi", null, null);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertEquals("hi", chain.getRequest().getParameter("text"));
+    }
+
+    @Test
+    void shouldRejectOversizedBodiesBeforeHashing() throws Exception {
+        filter.setMaxBodyBytes(16);
+        String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+        String body = "text=" + "x".repeat(32);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request(body, timestamp, sign(timestamp, body)), response, new MockFilterChain());
+
+        assertEquals(413, response.getStatus());
+    }
+
+    @Test
+    void shouldLeaveOtherPathsAndTheHealthCheckAlone() throws Exception {
+        for (String path : new String[] {"/api/history", "/slack/health"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+            assertSame(request, chain.getRequest(), path);
+        }
+    }
+
+    private MockHttpServletRequest request(String body, String timestamp, String signature) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/slack/slash-commands");
+        request.setContentType("application/x-www-form-urlencoded");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (timestamp != null) request.addHeader("X-Slack-Request-Timestamp", timestamp);
+        if (signature != null) request.addHeader("X-Slack-Signature", signature);
+        return request;
+    }
+
+    private String sign(String timestamp, String body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return "v0=" + HexFormat.of().formatHex(
+            mac.doFinal(("v0:" + timestamp + ":" + body).getBytes(StandardCharsets.UTF_8)));
+    }
+}
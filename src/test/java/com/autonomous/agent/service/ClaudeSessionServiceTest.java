@@ -0,0 +1,80 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.ClaudeSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClaudeSessionServiceTest {
+
+    @TempDir
+    Path dataPath;
+
+    private ClaudeSessionService sessions;
+
+    @BeforeEach
+    void setUp() {
+        sessions = new ClaudeSessionService();
+        sessions.setDataPath(dataPath.toString());
+    }
+
+    @Test
+    void shouldPersistSessionsAcrossInstances() {
+        Instant submitted = Instant.parse("2026-10-01T12:00:00Z");
+        sessions.save(ClaudeSession.builder()
+            .taskId("abc123")
+            .sessionId("6f1c2d3e-0000-4000-8000-000000000001")
+            .node("agent-1")
+            .workDir("/app/workspaces/api")
+            .branchName("agent/api/abc123")
+            .submittedAt(submitted)
+            .status("RUNNING")
+            .runs(1)
+            .build());
+
+        ClaudeSessionService restarted = new ClaudeSessionService();
+        restarted.setDataPath(dataPath.toString());
+        ClaudeSession session = restarted.get("abc123").get();
+
+        assertEquals("6f1c2d3e-0000-4000-8000-000000000001", session.getSessionId());
+        assertEquals("agent/api/abc123", session.getBranchName());
+        assertEquals(submitted, session.getSubmittedAt());
+        assertEquals(1, restarted.list().size());
+        assertFalse(Files.exists(dataPath.resolve("sessions/abc123.json.tmp")));
+    }
+
+    @Test
+    void shouldRemoveSessions() {
+        sessions.save(ClaudeSession.builder().taskId("abc123").sessionId("s1").build());
+        sessions.save(ClaudeSession.builder().taskId("def456").sessionId("s2").build());
+
+        sessions.remove("abc123");
+
+        assertTrue(sessions.get("abc123").isEmpty());
+        assertEquals("s2", sessions.list().get(0).getSessionId());
+    }
+
+    @Test
+    void shouldIgnoreUnsafeTaskIds() {
+        sessions.save(ClaudeSession.builder().taskId("../escape").sessionId("s1").build());
+
+        assertFalse(Files.exists(dataPath.resolve("escape.json")));
+        assertTrue(sessions.get("../escape").isEmpty());
+        assertTrue(sessions.list().isEmpty());
+    }
+
+    @Test
+    void shouldSkipUnreadableFiles() throws Exception {
+        Files.createDirectories(dataPath.resolve("sessions"));
+        Files.writeString(dataPath.resolve("sessions/broken.json"), "{not json");
+        sessions.save(ClaudeSession.builder().taskId("abc123").sessionId("s1").build());
+
+        assertEquals(1, sessions.list().size());
+    }
+}
@@ -0,0 +1,92 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.CloneOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.autonomous.agent.service.GitFixtures.git;
+import static com.autonomous.agent.service.GitFixtures.gitAvailable;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class CliGitServiceTest {
+
+    private CliGitService gitService;
+
+    @BeforeEach
+    void setUp() {
+        gitService = new CliGitService();
+    }
+
+    @Test
+    void shouldGenerateBranchName() {
+        String branch = gitService.generateBranchName("slack-agent", "abc123");
+        assertEquals("agent/slack-agent/abc123", branch);
+    }
+
+    @Test
+    void shouldGenerateBranchNameWithCustomPrefix() {
+        String branch = gitService.generateBranchName("my-project", "def456", "feature");
+        assertEquals("feature/my-project/def456", branch);
+    }
+
+    @Test
+    void shouldParseGitDiffStats() {
+        String diffOutput = " 4 files changed, 234 insertions(+), 12 deletions(-)";
+        String stats = gitService.parseDiffStats(diffOutput);
+        assertEquals("4 files (+234 / -12)", stats);
+    }
+
+    @Test
+    void shouldReportNoChangesForEmptyDiff() {
+        assertEquals("no changes", gitService.parseDiffStats(""));
+    }
+
+    @Test
+    void shouldBuildCloneArgumentsFromOptions() {
+        assertEquals(List.of(), CliGitService.cloneArguments(null));
+        assertEquals(List.of(), CliGitService.cloneArguments(new CloneOptions()));
+
+        CloneOptions options = CloneOptions.builder()
+            .filter("blobless")
+            .depth(50)
+            .sparsePaths(List.of("services/api"))
+            .build();
+        assertEquals(List.of("--filter=blob:none", "--depth=50", "--no-single-branch", "--sparse"),
+            CliGitService.cloneArguments(options));
+        assertEquals(List.of("--filter=tree:0"),
+            CliGitService.cloneArguments(CloneOptions.builder().filter("treeless").build()));
+    }
+
+    @Test
+    void shouldOnlyDeepenForAMissingMergeBase(@TempDir Path root) throws Exception {
+        assumeTrue(gitAvailable(), "git not installed");
+        Path remote = root.resolve("remote");
+        Files.createDirectories(remote);
+        git(remote, "init", "--quiet", "--initial-branch=main");
+        for (int i = 1; i <= 3; i++) {
+            commit(remote, "v" + i);
+        }
+        Path clone = root.resolve("clone");
+        git(root, "clone", "--quiet", "--depth=1", remote.toUri().toString(), clone.toString());
+        git(clone, "checkout", "--quiet", "-b", "theirs");
+        commit(clone, "theirs");
+        git(clone, "checkout", "--quiet", "main");
+        commit(clone, "ours");
+
+        // A plain conflict: the merge base is there, so fetching history wouldn't help
+        assertFalse(gitService.mergeBranch(clone.toString(), "theirs"));
+        assertTrue(Files.exists(clone.resolve(".git/shallow")));
+    }
+
+    private static void commit(Path repo, String content) throws Exception {
+        Files.writeString(repo.resolve("app.txt"), content + "\n");
+        git(repo, "add", "app.txt");
+        git(repo, "-c", "user.email=agent@example.com", "-c", "user.name=Agent", "commit", "--quiet", "-m", content);
+    }
+}
@@ -1,5 +1,7 @@
 package com.autonomous.agent.service;
 
+import com.autonomous.agent.model.ClaudeUsage;
+import com.autonomous.agent.model.CostEntry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -68,4 +70,19 @@ class CostTrackerServiceTest {
         costTracker.recordCost("C123", "task2", "opus", 100000, 50000);
         assertTrue(costTracker.isOverBudgetThreshold());
     }
+
+    @Test
+    void shouldPriceAndReportPromptCacheTokens() {
+        ClaudeUsage usage = ClaudeUsage.builder()
+            .inputTokens(2000).outputTokens(5000).cacheReadTokens(8000).cacheCreationTokens(0).build();
+
+        CostEntry entry = costTracker.recordCost("C123", "task1", "sonnet", usage, "a1b2c3d4e5f6");
+
+        // Cache reads at a tenth of the $3/M input price
+        assertEquals(0.0834, entry.getCostUsd(), 0.0001);
+        assertEquals(8000, entry.getCacheReadTokens());
+        assertEquals("a1b2c3d4e5f6", entry.getPromptPrefix());
+        assertEquals("$0.08 (sonnet, 15K tokens, 80% of input cached)", costTracker.formatCostSummary(entry));
+        assertEquals(80.0, costTracker.getCacheHitPercentage(), 0.01);
+    }
 }
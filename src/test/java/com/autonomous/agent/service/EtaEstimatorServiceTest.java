@@ -0,0 +1,90 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.TaskEstimate;
+import com.autonomous.agent.model.TaskRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EtaEstimatorServiceTest {
+
+    private EtaEstimatorService estimator;
+
+    @BeforeEach
+    void setUp() {
+        estimator = new EtaEstimatorService();
+        estimator.setMinSamples(5);
+    }
+
+    @Test
+    void shouldKeepQuantilesWithinRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch(0.02);
+        for (int i = 1; i <= 10_000; i++) {
+            sketch.add(i);
+        }
+
+        assertEquals(5_000, sketch.quantile(0.5), 5_000 * 0.02);
+        assertEquals(9_000, sketch.quantile(0.9), 9_000 * 0.02);
+        assertEquals(0.25, sketch.rank(2_500), 0.01);
+    }
+
+    @Test
+    void shouldEstimateRemainingTimeGivenElapsed() {
+        // 1 to 10 minutes
+        for (int minutes = 1; minutes <= 10; minutes++) {
+            estimator.observe(record("C1", "sonnet", minutes, 0.10 * minutes));
+        }
+
+        TaskEstimate fresh = estimator.estimate("C1", "sonnet", Duration.ZERO).orElseThrow();
+        TaskEstimate late = estimator.estimate("C1", "sonnet", Duration.ofMinutes(8)).orElseThrow();
+
+        assertEquals(Duration.ofMinutes(5).toMillis(), fresh.getRemainingP50Ms(), 20_000);
+        assertTrue(late.getRemainingP50Ms() > 0 && late.getRemainingP50Ms() <= Duration.ofMinutes(2).toMillis() + 5_000);
+        assertEquals(0.50, fresh.getCostP50Usd(), 0.02);
+        assertFalse(late.isOverrun());
+        assertTrue(estimator.estimate("C1", "sonnet", Duration.ofMinutes(30)).orElseThrow().isOverrun());
+    }
+
+    @Test
+    void shouldFallBackToWiderHistoryUntilEnoughSamples() {
+        for (int i = 0; i < 5; i++) {
+            estimator.observe(record("C2", "opus", 20, 2.0));
+        }
+        estimator.observe(record("C1", "opus", 2, 0.5));
+
+        // C1 has one opus sample, so all opus tasks are used
+        assertEquals(20, estimator.typicalDuration("C1", "opus").orElseThrow().toMinutes(), 1);
+        assertTrue(estimator.typicalDuration("C3", "opus").isPresent());
+        assertTrue(new EtaEstimatorService().typicalDuration("C1", "opus").isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreCancelledTasks() {
+        for (int i = 0; i < 5; i++) {
+            estimator.observe(TaskRecord.builder().channelId("C1").model("haiku").status("CANCELLED")
+                .durationMs(1_000).build());
+        }
+
+        assertTrue(estimator.typicalDuration("C1", "haiku").isEmpty());
+    }
+
+    @Test
+    void shouldFormatDurations() {
+        assertEquals("45s", EtaEstimatorService.formatDuration(Duration.ofSeconds(45)));
+        assertEquals("12 min", EtaEstimatorService.formatDuration(Duration.ofMinutes(12)));
+        assertEquals("2h 05m", EtaEstimatorService.formatDuration(Duration.ofMinutes(125)));
+    }
+
+    private TaskRecord record(String channelId, String model, int minutes, double cost) {
+        return TaskRecord.builder()
+            .channelId(channelId)
+            .model(model)
+            .status("COMPLETED")
+            .durationMs(Duration.ofMinutes(minutes).toMillis())
+            .costUsd(cost)
+            .build();
+    }
+}
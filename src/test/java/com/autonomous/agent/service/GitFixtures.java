@@ -0,0 +1,57 @@
+package com.autonomous.agent.service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the git CLI for tests that build repositories on disk. Guard those tests with
+ * {@code assumeTrue(gitAvailable())}.
+ */
+final class GitFixtures {
+
+    private GitFixtures() {
+    }
+
+    static boolean gitAvailable() {
+        try {
+            return new ProcessBuilder("git", "--version").start().waitFor() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs git in {@code dir}, failing the test with git's output if it exits non-zero.
+     */
+    static void git(Path dir, String... args) throws Exception {
+        git(dir, Map.of(), args);
+    }
+
+    static void git(Path dir, Map<String, String> environment, String... args) throws Exception {
+        ProcessBuilder pb = new ProcessBuilder(command(args)).directory(dir.toFile()).redirectErrorStream(true);
+        pb.environment().putAll(environment);
+        Process process = pb.start();
+        String output = new String(process.getInputStream().readAllBytes());
+        assertEquals(0, process.waitFor(), "git " + String.join(" ", args) + ": " + output);
+    }
+
+    /**
+     * Runs git in {@code dir} and returns its trimmed stdout, whatever the exit code.
+     */
+    static String gitOutput(Path dir, String... args) throws Exception {
+        Process process = new ProcessBuilder(command(args)).directory(dir.toFile()).start();
+        String output = new String(process.getInputStream().readAllBytes());
+        process.waitFor();
+        return output.trim();
+    }
+
+    private static List<String> command(String... args) {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(args));
+        return command;
+    }
+}
@@ -0,0 +1,217 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.PullRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.autonomous.agent.service.GitFixtures.git;
+import static com.autonomous.agent.service.GitFixtures.gitAvailable;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class GitHubClientTest {
+
+    private static final String PULL = "{\"number\": 7, \"html_url\": \"https://github.com/acme/widgets/pull/7\", " +
+        "\"node_id\": \"PR_kw7\", \"state\": \"open\", \"draft\": false}";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Deque<Response> responses = new ConcurrentLinkedDeque<>();
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+    private GitHubClient gitHub;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        gitHub = new GitHubClient();
+        gitHub.setApiUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        gitHub.setToken("ghp_test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldCreatePullRequest() throws Exception {
+        responses.add(new Response(201, PULL, Map.of()));
+
+        PullRequest pr = gitHub.createPullRequest("acme/widgets", "Fix typo", "Body", "main", "agent/x/abc", true);
+
+        assertEquals(7, pr.getNumber());
+        assertEquals("https://github.com/acme/widgets/pull/7", pr.getUrl());
+        assertEquals("PR_kw7", pr.getNodeId());
+        Request request = requests.get(0);
+        assertEquals("POST /repos/acme/widgets/pulls", request.line());
+        assertEquals("Bearer ghp_test", request.authorization());
+        JsonNode body = mapper.readTree(request.body());
+        assertEquals("agent/x/abc", body.get("head").asText());
+        assertEquals("main", body.get("base").asText());
+        assertTrue(body.get("draft").asBoolean());
+    }
+
+    @Test
+    void shouldReportAlreadyOpenPullRequest() throws Exception {
+        responses.add(new Response(422, "{\"message\": \"Validation Failed\", \"errors\": " +
+            "[{\"message\": \"A pull request already exists for acme:agent/x/abc.\"}]}", Map.of()));
+        responses.add(new Response(200, "[" + PULL + "]", Map.of()));
+
+        PullRequest pr = gitHub.createPullRequest("acme/widgets", "Fix typo", "Body", "main", "agent/x/abc", false);
+
+        assertEquals(7, pr.getNumber());
+        assertEquals("GET /repos/acme/widgets/pulls?state=open&head=acme%3Aagent%2Fx%2Fabc", requests.get(1).line());
+    }
+
+    @Test
+    void shouldSurfaceValidationErrors() {
+        responses.add(new Response(422, "{\"message\": \"Validation Failed\", \"errors\": " +
+            "[{\"code\": \"invalid\", \"field\": \"base\"}]}", Map.of()));
+        responses.add(new Response(200, "[]", Map.of()));
+
+        GitHubClient.GitHubException e = assertThrows(GitHubClient.GitHubException.class, () ->
+            gitHub.createPullRequest("acme/widgets", "Fix typo", "Body", "nope", "agent/x/abc", false));
+
+        assertEquals(422, e.getStatus());
+        assertTrue(e.getMessage().contains("Validation Failed (invalid)"), e.getMessage());
+    }
+
+    @Test
+    void shouldRetryAfterRateLimits() throws Exception {
+        String now = String.valueOf(System.currentTimeMillis() / 1000);
+        responses.add(new Response(403, "{\"message\": \"API rate limit exceeded\"}",
+            Map.of("x-ratelimit-remaining", "0", "x-ratelimit-reset", now)));
+        responses.add(new Response(429, "{\"message\": \"secondary rate limit\"}", Map.of("retry-after", "0")));
+        responses.add(new Response(201, PULL, Map.of("x-ratelimit-remaining", "4999", "x-ratelimit-reset", now)));
+
+        PullRequest pr = gitHub.createPullRequest("acme/widgets", "Fix typo", "Body", "main", "agent/x/abc", false);
+
+        assertEquals(7, pr.getNumber());
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void shouldNotWaitLongerThanAllowedForRateLimitReset() {
+        String inAnHour = String.valueOf(System.currentTimeMillis() / 1000 + 3600);
+        responses.add(new Response(403, "{\"message\": \"API rate limit exceeded\"}",
+            Map.of("x-ratelimit-remaining", "0", "x-ratelimit-reset", inAnHour)));
+
+        GitHubClient.GitHubException e = assertThrows(GitHubClient.GitHubException.class, () ->
+            gitHub.updatePullRequest("acme/widgets", 7, "New title", null));
+        assertEquals(403, e.getStatus());
+
+        // Known to be exhausted, so the next call fails without a request
+        assertThrows(GitHubClient.GitHubException.class, () ->
+            gitHub.addLabels("acme/widgets", 7, List.of("agent")));
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void shouldUpdateAndLabelPullRequests() throws Exception {
+        responses.add(new Response(200, PULL, Map.of()));
+        responses.add(new Response(200, "[{\"name\": \"agent\"}]", Map.of()));
+
+        gitHub.updatePullRequest("acme/widgets", 7, null, "New body");
+        gitHub.addLabels("acme/widgets", 7, List.of("agent", "automated"));
+
+        assertEquals("PATCH /repos/acme/widgets/pulls/7", requests.get(0).line());
+        assertEquals("{\"body\":\"New body\"}", requests.get(0).body());
+        assertEquals("POST /repos/acme/widgets/issues/7/labels", requests.get(1).line());
+        assertEquals("[\"agent\",\"automated\"]", mapper.readTree(requests.get(1).body()).get("labels").toString());
+    }
+
+    @Test
+    void shouldToggleDraftThroughGraphQL() throws Exception {
+        responses.add(new Response(200,
+            "{\"data\": {\"convertPullRequestToDraft\": {\"pullRequest\": {\"isDraft\": true}}}}", Map.of()));
+        responses.add(new Response(200, "{\"errors\": [{\"message\": \"Not permitted\"}]}", Map.of()));
+        PullRequest pr = PullRequest.builder().number(7).nodeId("PR_kw7").build();
+
+        assertTrue(gitHub.setDraft(pr, true).isDraft());
+        // Already a draft: nothing to send
+        gitHub.setDraft(pr, true);
+
+        assertEquals(1, requests.size());
+        assertEquals("POST /graphql", requests.get(0).line());
+        JsonNode body = mapper.readTree(requests.get(0).body());
+        assertTrue(body.get("query").asText().contains("convertPullRequestToDraft"));
+        assertEquals("PR_kw7", body.get("variables").get("id").asText());
+
+        assertThrows(GitHubClient.GitHubException.class, () -> gitHub.setDraft(pr, false));
+    }
+
+    @Test
+    void shouldResolveRepositoryFromRemote() {
+        gitHub.setApiUrl("https://api.github.com");
+        assertEquals("acme/widgets", gitHub.repository("git@github.com:acme/widgets.git"));
+        assertEquals("acme/widgets", gitHub.repository("https://github.com/acme/widgets"));
+        assertEquals("acme/widgets", gitHub.repository("https://x-access-token:t@github.com/acme/widgets.git"));
+        assertEquals("acme/widgets", gitHub.repository("ssh://git@github.com:22/acme/widgets.git"));
+        assertNull(gitHub.repository("git@gitlab.com:acme/widgets.git"));
+        assertNull(gitHub.repository("/srv/git/widgets.git"));
+        assertNull(gitHub.repository("file:///srv/git/widgets.git"));
+        assertNull(gitHub.repository(null));
+
+        gitHub.setApiUrl("https://git.example.com/api/v3");
+        assertEquals("acme/widgets", gitHub.repository("git@git.example.com:acme/widgets.git"));
+    }
+
+    @Test
+    void shouldOpenPullRequestsFromCliGitService(@TempDir Path repo) throws Exception {
+        assumeTrue(gitAvailable(), "git not installed");
+        git(repo, "init", "--quiet", "--initial-branch=main");
+        git(repo, "remote", "add", "origin", "git@127.0.0.1:acme/widgets.git");
+        git(repo, "checkout", "--quiet", "-b", "agent/widgets/abc123");
+        responses.add(new Response(201, PULL, Map.of()));
+
+        CliGitService cli = new CliGitService();
+        cli.setGitHubClient(gitHub);
+        String url = cli.createPullRequest(repo.toString(), "Fix typo", "Body", "main");
+
+        assertEquals("https://github.com/acme/widgets/pull/7", url);
+        JsonNode body = mapper.readTree(requests.get(0).body());
+        assertEquals("agent/widgets/abc123", body.get("head").asText());
+        assertFalse(body.get("draft").asBoolean());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requests.add(new Request(exchange.getRequestMethod() + " " + exchange.getRequestURI(),
+            exchange.getRequestHeaders().getFirst("Authorization"), body));
+        Response response = responses.poll();
+        if (response == null) {
+            response = new Response(500, "{\"message\": \"unexpected request\"}", Map.of());
+        }
+        response.headers().forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+        byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(response.status(), bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private record Request(String line, String authorization, String body) {
+    }
+
+    private record Response(int status, String body, Map<String, String> headers) {
+    }
+}
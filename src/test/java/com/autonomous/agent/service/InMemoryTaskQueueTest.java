@@ -0,0 +1,60 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.QueuedTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryTaskQueueTest {
+
+    private InMemoryTaskQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new InMemoryTaskQueue();
+        queue.setAgingMinutes(10);
+    }
+
+    @Test
+    void shouldRunHotfixBeforeQueuedRefactors() {
+        queue.enqueue(task("refactor-1", "low", 60));
+        queue.enqueue(task("refactor-2", "normal", 30));
+        queue.enqueue(task("hotfix", "high", 0));
+
+        assertEquals("hotfix", queue.poll("node", "C1").orElseThrow().getTask().getTaskId());
+        assertEquals("refactor-2", queue.poll("node", "C1").orElseThrow().getTask().getTaskId());
+        assertEquals("refactor-1", queue.poll("node", "C1").orElseThrow().getTask().getTaskId());
+        assertTrue(queue.poll("node", "C1").isEmpty());
+    }
+
+    @Test
+    void shouldNotStarveLowPriorityWork() {
+        queue.enqueue(task("old-low", "low", 21 * 60));
+        queue.enqueue(task("new-high", "high", 0));
+
+        assertEquals("old-low", queue.poll("node", "C1").orElseThrow().getTask().getTaskId());
+    }
+
+    @Test
+    void shouldPickBestHeadAcrossChannels() {
+        queue.enqueue(task("normal", "normal", 60));
+        QueuedTask high = task("high", "high", 0);
+        high.setChannelId("C2");
+        queue.enqueue(high);
+
+        assertEquals("high", queue.pollAny("node", t -> true, t -> true).orElseThrow().getTask().getTaskId());
+    }
+
+    private QueuedTask task(String taskId, String priority, int secondsAgo) {
+        return QueuedTask.builder()
+            .taskId(taskId)
+            .channelId("C1")
+            .description("Task " + taskId)
+            .priority(priority)
+            .enqueuedAt(Instant.now().minusSeconds(secondsAgo))
+            .build();
+    }
+}
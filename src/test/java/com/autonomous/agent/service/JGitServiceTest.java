@@ -0,0 +1,184 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.CloneOptions;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.RefSpec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.autonomous.agent.service.GitFixtures.gitAvailable;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class JGitServiceTest {
+
+    @TempDir
+    Path root;
+
+    private JGitService gitService;
+    private Path remote;
+    private String clone;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        gitService = new JGitService();
+        remote = root.resolve("remote.git");
+        Path seed = root.resolve("seed");
+        Git.init().setBare(true).setInitialBranch("main").setDirectory(remote.toFile()).call().close();
+        try (Git git = Git.cloneRepository().setURI(remote.toString()).setDirectory(seed.toFile()).call()) {
+            configureIdentity(git);
+            Files.writeString(seed.resolve("README.md"), "# Test\n\nFirst line\nSecond line\n");
+            Files.writeString(seed.resolve(".gitignore"), "node_modules/\n");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Initial commit").call();
+            git.push().setRefSpecs(new RefSpec("HEAD:refs/heads/main")).call();
+        }
+
+        clone = root.resolve("clone").toString();
+        assertTrue(gitService.ensureRepoCloned(remote.toString(), clone, "main"));
+        try (Git git = Git.open(Path.of(clone).toFile())) {
+            configureIdentity(git);
+        }
+    }
+
+    @Test
+    void shouldCloneLocalRemoteInProcess() {
+        assertEquals("main", gitService.getDefaultBranch(clone));
+        assertNotNull(gitService.getHeadCommit(clone));
+        assertFalse(gitService.hasChanges(clone));
+        assertEquals("main", gitService.getDefaultBranch(root.resolve("missing").toString()));
+    }
+
+    @Test
+    void shouldBranchCommitAndCountChangesFromTreeWalk() throws Exception {
+        assertTrue(gitService.createBranch(clone, "agent/test/abc", "main"));
+        Files.writeString(Path.of(clone, "README.md"), "# Test\n\nFirst line\nChanged line\nThird line\n");
+        Files.writeString(Path.of(clone, "App.java"), "class App {\n}\n");
+
+        assertTrue(gitService.hasChanges(clone));
+        assertTrue(gitService.commitAll(clone, "feat: change"));
+        assertFalse(gitService.hasChanges(clone));
+        assertFalse(gitService.commitAll(clone, "feat: nothing"));
+
+        assertEquals("2 files (+4 / -1)", gitService.getDiffStats(clone, "main"));
+        assertEquals("no changes", gitService.getDiffStats(clone, "agent/test/abc"));
+    }
+
+    @Test
+    void shouldStageDeletions() throws Exception {
+        Files.delete(Path.of(clone, "README.md"));
+
+        assertTrue(gitService.commitAll(clone, "chore: remove readme"));
+        assertEquals("1 files (+0 / -4)", gitService.getDiffStats(clone, "origin/main"));
+    }
+
+    @Test
+    void shouldPushToLocalRemoteAndTrackIt() throws Exception {
+        gitService.createBranch(clone, "agent/test/push", "main");
+        Files.writeString(Path.of(clone, "App.java"), "class App {}\n");
+        gitService.commitAll(clone, "feat: app");
+
+        assertTrue(gitService.push(clone, "agent/test/push"));
+
+        try (Git bare = Git.open(remote.toFile())) {
+            assertEquals(gitService.getHeadCommit(clone),
+                bare.getRepository().resolve("refs/heads/agent/test/push").name());
+        }
+        try (Git git = Git.open(Path.of(clone).toFile())) {
+            assertEquals("origin", git.getRepository().getConfig().getString("branch", "agent/test/push", "remote"));
+        }
+    }
+
+    @Test
+    void shouldResetWorkspaceButKeepIgnoredFiles() throws Exception {
+        gitService.createBranch(clone, "agent/test/dirty", "main");
+        Files.writeString(Path.of(clone, "README.md"), "dirty\n");
+        Files.writeString(Path.of(clone, "scratch.txt"), "leftover\n");
+        Files.createDirectories(Path.of(clone, "node_modules"));
+        Files.writeString(Path.of(clone, "node_modules", "dep.js"), "cached\n");
+
+        assertTrue(gitService.resetWorkspace(clone, "main"));
+
+        assertEquals("# Test\n\nFirst line\nSecond line\n", Files.readString(Path.of(clone, "README.md")));
+        assertFalse(Files.exists(Path.of(clone, "scratch.txt")));
+        assertTrue(Files.exists(Path.of(clone, "node_modules", "dep.js")));
+        assertFalse(gitService.hasChanges(clone));
+    }
+
+    @Test
+    void shouldMatchCliDiffStats() throws Exception {
+        assumeTrue(gitAvailable(), "git not installed");
+        gitService.createBranch(clone, "agent/test/parity", "main");
+        Files.writeString(Path.of(clone, "README.md"), "# Renamed test\n\nFirst line\n");
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(Path.of(clone, "File" + i + ".txt"), "line\n".repeat(i + 1));
+        }
+        gitService.commitAll(clone, "feat: parity");
+
+        assertEquals(new CliGitService().getDiffStats(clone, "main"), gitService.getDiffStats(clone, "main"));
+    }
+
+    @Test
+    void shouldHandShallowSparseClonesToCli() throws Exception {
+        assumeTrue(gitAvailable(), "git not installed");
+        Path seed = root.resolve("seed2");
+        try (Git git = Git.cloneRepository().setURI(remote.toString()).setDirectory(seed.toFile()).call()) {
+            configureIdentity(git);
+            Files.createDirectories(seed.resolve("services/api"));
+            Files.createDirectories(seed.resolve("web"));
+            Files.writeString(seed.resolve("services/api/Api.java"), "class Api {\n}\n");
+            Files.writeString(seed.resolve("web/index.html"), "<html></html>\n");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Add services").call();
+            git.push().setRefSpecs(new RefSpec("HEAD:refs/heads/main")).call();
+        }
+
+        // --depth only applies to file:// URLs, not plain paths
+        String sparse = root.resolve("sparse").toString();
+        CloneOptions options = CloneOptions.builder().depth(1).sparsePaths(List.of("services/api")).build();
+        assertTrue(gitService.ensureRepoCloned(remote.toUri().toString(), sparse, "main", options));
+
+        assertTrue(Files.exists(Path.of(sparse, ".git", "shallow")));
+        assertTrue(Files.exists(Path.of(sparse, "README.md")));
+        assertTrue(Files.exists(Path.of(sparse, "services/api/Api.java")));
+        assertFalse(Files.exists(Path.of(sparse, "web/index.html")));
+
+        try (Git git = Git.open(Path.of(sparse).toFile())) {
+            configureIdentity(git);
+        }
+        assertTrue(gitService.createBranch(sparse, "agent/test/sparse", "main"));
+        Files.writeString(Path.of(sparse, "services/api/Api.java"), "class Api {\n    void ping() {}\n}\n");
+        assertTrue(gitService.commitAll(sparse, "feat: ping"));
+        assertEquals("1 files (+1 / -0)", gitService.getDiffStats(sparse, "main"));
+
+        assertTrue(gitService.deepen(sparse, 10));
+        assertFalse(Files.exists(Path.of(sparse, ".git", "shallow")));
+        assertFalse(gitService.deepen(clone, 10));
+
+        // Dropping sparse_paths from the config widens the checkout again
+        assertTrue(gitService.ensureRepoCloned(remote.toUri().toString(), sparse, "main", null));
+        assertTrue(Files.exists(Path.of(sparse, "web/index.html")));
+    }
+
+    @Test
+    void shouldTellLocalRemotesFromNetworkOnes() {
+        assertTrue(JGitService.isLocal(remote.toString()));
+        assertTrue(JGitService.isLocal("file:///srv/git/repo.git"));
+        assertFalse(JGitService.isLocal("git@github.com:user/repo.git"));
+        assertFalse(JGitService.isLocal("https://github.com/user/repo.git"));
+        assertFalse(JGitService.isLocal(null));
+    }
+
+    private static void configureIdentity(Git git) throws Exception {
+        StoredConfig config = git.getRepository().getConfig();
+        config.setString("user", null, "name", "test");
+        config.setString("user", null, "email", "test@localhost");
+        config.save();
+    }
+}
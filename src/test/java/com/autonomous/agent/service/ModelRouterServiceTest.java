@@ -0,0 +1,93 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.RoutingDecision;
+import com.autonomous.agent.model.TaskRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelRouterServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ModelRouterService router;
+
+    @BeforeEach
+    void setUp() {
+        router = new ModelRouterService();
+        router.setDataPath(tempDir.toString());
+        router.setMinSamples(3);
+        router.setExploreRate(0);
+    }
+
+    @Test
+    void shouldSizeTasksFromDescription() {
+        assertEquals("small", ModelRouterService.sizeClass("Fix the typo in the README"));
+        assertEquals("medium", ModelRouterService.sizeClass(
+            "Add pagination to the orders endpoint and return the total count in a response header"));
+        assertEquals("large", ModelRouterService.sizeClass("Refactor the billing module and migrate it to the new API"));
+    }
+
+    @Test
+    void shouldRouteByFeaturesWithoutHistory() {
+        assertEquals("haiku", router.route("t1", "C1", "Bump lodash", null).getModel());
+        assertEquals("opus", router.route("t2", "C1", "Rewrite and redesign the auth architecture", null).getModel());
+    }
+
+    @Test
+    void shouldPreferCheaperModelProvenOnSimilarTasks() {
+        for (int i = 0; i < 3; i++) {
+            router.observe(record("C1", "Add a health check endpoint to the orders service with unit tests for the happy path", "haiku", "COMPLETED", 0.05));
+            router.observe(record("C1", "Add a health check endpoint to the orders service with unit tests for the happy path", "sonnet", "COMPLETED", 0.40));
+        }
+
+        RoutingDecision decision = router.route("t1", "C1", "Add a metrics endpoint to the orders service with unit tests for the error path", null);
+
+        assertEquals("medium", decision.getSizeClass());
+        assertEquals("haiku", decision.getModel());
+        assertTrue(decision.getReason().startsWith("history"));
+    }
+
+    @Test
+    void shouldEscalatePastModelThatKeepsFailing() {
+        for (int i = 0; i < 3; i++) {
+            router.observe(record("C1", "Fix typo", "haiku", "FAILED", 0.02));
+        }
+
+        RoutingDecision decision = router.route("t1", "C1", "Fix another typo", null);
+
+        assertEquals("sonnet", decision.getModel());
+        assertTrue(decision.getReason().startsWith("escalated"));
+    }
+
+    @Test
+    void shouldLogOverriddenDecisions() throws Exception {
+        RoutingDecision decision = router.route(null, "C1", "Fix typo", "opus");
+
+        assertEquals("opus", decision.getModel());
+        assertEquals("haiku", decision.getRoutedModel());
+        assertTrue(decision.isOverridden());
+
+        List<String> lines = Files.readAllLines(tempDir.resolve("routing/decisions.jsonl"));
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"routedModel\":\"haiku\""));
+    }
+
+    private TaskRecord record(String channelId, String description, String model, String status, double cost) {
+        return TaskRecord.builder()
+            .channelId(channelId)
+            .description(description)
+            .model(model)
+            .status(status)
+            .durationMs(60_000)
+            .costUsd(cost)
+            .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.ProcessCleanup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ProcessSupervisorTest {
+
+    private ProcessSupervisor supervisor;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(Files.isDirectory(Paths.get("/proc")), "needs /proc");
+        supervisor = new ProcessSupervisor();
+        supervisor.setKillGraceSeconds(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (supervisor != null) {
+            supervisor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldKillOrphanedGrandchildAfterLeaderExits() throws Exception {
+        Process process = supervisor.start(new ProcessBuilder("sh", "-c", "sleep 60 & echo $!"));
+        long orphan = Long.parseLong(new String(process.getInputStream().readAllBytes()).trim());
+        process.waitFor();
+
+        ProcessCleanup cleanup = supervisor.terminate(process);
+
+        assertEquals(1, cleanup.getProcesses());
+        assertFalse(isRunning(orphan));
+    }
+
+    @Test
+    void shouldKillWholeTreeWhenDeadlineFires() throws Exception {
+        Process process = supervisor.start(new ProcessBuilder("sh", "-c", "sleep 60 & sleep 60"));
+        ProcessSupervisor.Deadline deadline = supervisor.terminateAfter(process, Duration.ofMillis(300));
+
+        // Blocks until every holder of stdout is gone
+        process.getInputStream().readAllBytes();
+        process.waitFor();
+
+        assertTrue(deadline.cancel());
+        assertTrue(deadline.cleanup().getProcesses() >= 2);
+    }
+
+    @Test
+    void shouldNotFireWhenProcessFinishesInTime() throws Exception {
+        Process process = supervisor.start(new ProcessBuilder("true"));
+        ProcessSupervisor.Deadline deadline = supervisor.terminateAfter(process, Duration.ofSeconds(30));
+        process.waitFor();
+
+        assertFalse(deadline.cancel());
+        assertEquals(0, supervisor.terminate(process).getProcesses());
+    }
+
+    private static boolean isRunning(long pid) {
+        try {
+            String stat = Files.readString(Paths.get("/proc", String.valueOf(pid), "stat"));
+            // Killed but not yet reaped by init still shows up, as a zombie
+            char state = stat.charAt(stat.lastIndexOf(')') + 2);
+            return state != 'Z' && state != 'X';
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.ChannelConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PromptAssemblerTest {
+
+    @TempDir
+    Path profiles;
+
+    private PromptAssembler assembler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.writeString(profiles.resolve("default.yaml"), """
+            name: default
+            systemPrompt: |
+              You are a helpful software development assistant.
+            maxTokens: 4096
+            """);
+        Files.writeString(profiles.resolve("api-specialist.yaml"), """
+            name: api-specialist
+            systemPrompt: |
+              You are an expert API developer.
+            """);
+        assembler = new PromptAssembler();
+        assembler.setProfilesPath(profiles.toString());
+    }
+
+    @Test
+    void shouldPutProfileAndConventionsBeforeTheTask() {
+        ChannelConfig config = config("api-specialist", "Use constructor injection.");
+
+        PromptAssembler.Prompt prompt = assembler.assemble(config, "Add a /health endpoint");
+
+        assertEquals("# Agent profile\n\nYou are an expert API developer.\n\n" +
+            "# Channel conventions\n\nUse constructor injection.", prompt.system());
+        assertEquals("Add a /health endpoint", prompt.task());
+    }
+
+    @Test
+    void shouldKeepThePrefixIdenticalAcrossTasks() {
+        PromptAssembler.Prompt first = assembler.assemble(config(null, "Tabs, not spaces.\n"), "Fix the login bug");
+        PromptAssembler.Prompt second = assembler.assemble(config(null, "Tabs, not spaces.  \r\n"), "Add dark mode");
+
+        assertEquals(first.system(), second.system());
+        assertEquals(first.prefixHash(), second.prefixHash());
+        assertEquals(12, first.prefixHash().length());
+        assertTrue(first.system().startsWith("# Agent profile\n\nYou are a helpful software development assistant."));
+    }
+
+    @Test
+    void shouldSkipMissingProfiles() {
+        assertNull(assembler.assemble(config("nope", null), "Fix typo").system());
+        assertNull(assembler.assemble(config("../default", null), "Fix typo").system());
+        assertNull(assembler.assemble(config("nope", null), "Fix typo").prefixHash());
+    }
+
+    @Test
+    void shouldDescribeTheCheckoutTheTaskRunsIn() {
+        RepoContextService repoContext = mock(RepoContextService.class);
+        when(repoContext.digest("/app/workspaces/test", "/app/workspaces/test-batch/abc"))
+            .thenReturn("Repository context at commit 0123456");
+        assembler.setRepoContextService(repoContext);
+
+        PromptAssembler.Prompt prompt = assembler.assemble(config(null, null), "/app/workspaces/test-batch/abc", "Fix typo");
+
+        assertTrue(prompt.system().endsWith("# Repository\n\nRepository context at commit 0123456"), prompt.system());
+    }
+
+    private static ChannelConfig config(String profile, String conventions) {
+        ChannelConfig config = new ChannelConfig();
+        config.setChannelId("C123");
+        config.setClonePath("/app/workspaces/test");
+        config.setProfile(profile);
+        config.setConventions(conventions);
+        return config;
+    }
+}
@@ -0,0 +1,201 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.RepoContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static com.autonomous.agent.service.GitFixtures.gitAvailable;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class RepoContextServiceTest {
+
+    @TempDir
+    Path repo;
+
+    @TempDir
+    Path cache;
+
+    private RepoContextService contexts;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        assumeTrue(gitAvailable(), "git not installed");
+        git("init", "--quiet", "--initial-branch=main");
+        git("config", "user.email", "agent@example.com");
+        git("config", "user.name", "Agent");
+
+        contexts = new RepoContextService(new CliGitService());
+        contexts.setCachePath(cache.toString());
+    }
+
+    @Test
+    void shouldOutlineSourceFiles() throws Exception {
+        write("src/main/java/com/acme/Orders.java", """
+            package com.acme;
+
+            public class Orders {
+                public Order place(Cart cart) {
+                    return null;
+                }
+
+                private void audit() {
+                }
+
+                public Orders() {
+                }
+            }
+            """);
+        write("app/views.py", """
+            class OrderView:
+                def get(self, request):
+                    pass
+
+                def _render(self):
+                    pass
+
+            def healthcheck():
+                pass
+            """);
+        write("web/api.ts", "export interface Order {}\nexport async function fetchOrders() {}\nconst local = 1;\n");
+        write("README.md", "# Orders\n");
+        commit("Add orders");
+
+        RepoContext context = contexts.get(repo.toString());
+
+        assertEquals(List.of("class Orders", "place()"), context.getOutlines().get("src/main/java/com/acme/Orders.java"));
+        assertEquals(List.of("class OrderView", "get()", "healthcheck()"), context.getOutlines().get("app/views.py"));
+        assertEquals(List.of("interface Order", "fetchOrders()"), context.getOutlines().get("web/api.ts"));
+        assertFalse(context.getOutlines().containsKey("README.md"));
+        assertEquals(4, context.getFiles().size());
+        assertTrue(context.getRecentCommits().get(0).endsWith(" Add orders: README.md, app/views.py, " +
+            "src/main/java/com/acme/Orders.java, web/api.ts"), context.getRecentCommits().toString());
+    }
+
+    @Test
+    void shouldOnlyReadFilesChangedSinceTheLastIndex() throws Exception {
+        write("Orders.java", "public class Orders {}\n");
+        write("Invoices.java", "public class Invoices {}\n");
+        commit("Add orders and invoices");
+        contexts.get(repo.toString());
+
+        // Not committed: HEAD still has the old blob, so this file must not be read again
+        write("Orders.java", "public class Renamed {}\n");
+        write("Invoices.java", "public class Invoices {\n    public void send() {}\n}\n");
+        git("add", "Invoices.java");
+        git("commit", "--quiet", "-m", "Send invoices");
+
+        RepoContext context = contexts.get(repo.toString());
+
+        assertEquals(List.of("class Orders"), context.getOutlines().get("Orders.java"));
+        assertEquals(List.of("class Invoices", "send()"), context.getOutlines().get("Invoices.java"));
+    }
+
+    @Test
+    void shouldOutlineWhatIsCommittedNotTheWorkingTree() throws Exception {
+        write("Orders.java", "public class Orders {}\n");
+        commit("Add orders");
+        write("Orders.java", "public class Draft {}\n");
+        git("add", "Orders.java");
+
+        RepoContext context = contexts.get(repo.toString());
+
+        assertEquals(List.of("class Orders"), context.getOutlines().get("Orders.java"));
+    }
+
+    @Test
+    void shouldIndexTheWorktreeATaskRunsIn(@TempDir Path worktrees) throws Exception {
+        write("Orders.java", "public class Orders {}\n");
+        commit("Add orders");
+        Path worktree = worktrees.resolve("task");
+        git("worktree", "add", "--quiet", "-b", "task", worktree.toString());
+        Files.writeString(worktree.resolve("Invoices.java"), "public class Invoices {}\n");
+        GitFixtures.git(worktree, "add", "Invoices.java");
+        GitFixtures.git(worktree, "commit", "--quiet", "-m", "Add invoices");
+        git("checkout", "--quiet", "-b", "other");
+        write("Refunds.java", "public class Refunds {}\n");
+        commit("Add refunds");
+
+        RepoContext context = contexts.get(repo.toString(), worktree.toString());
+
+        assertEquals(List.of("class Invoices"), context.getOutlines().get("Invoices.java"));
+        assertFalse(context.getFiles().containsKey("Refunds.java"));
+        assertEquals(repo.toString(), context.getRepoPath());
+    }
+
+    @Test
+    void shouldReuseThePersistedIndexAfterRestart() throws Exception {
+        write("Orders.java", "public class Orders {}\n");
+        commit("Add orders");
+        RepoContext first = contexts.get(repo.toString());
+
+        RepoContextService restarted = new RepoContextService(new CliGitService());
+        restarted.setCachePath(cache.toString());
+        RepoContext second = restarted.get(repo.toString());
+
+        assertEquals(first.getHeadCommit(), second.getHeadCommit());
+        assertEquals(first.getIndexedAt(), second.getIndexedAt());
+        assertEquals(first.getOutlines(), second.getOutlines());
+    }
+
+    @Test
+    void shouldDropDetailToFitTheBudget() {
+        RepoContext context = RepoContext.builder()
+            .headCommit("0123456789abcdef")
+            .buildTool("gradle")
+            .testCommand("./gradlew test")
+            .modules(List.of("api", "web"))
+            .files(Map.of("build.gradle", "a", "api/Orders.java", "b", "api/Invoices.java", "c", "web/app.ts", "d"))
+            .outlines(Map.of("api/Orders.java", List.of("class Orders", "place()")))
+            .recentCommits(List.of("0123456 Add orders: api/Orders.java"))
+            .build();
+
+        String full = RepoContextService.render(context, 10_000);
+        assertTrue(full.startsWith("Repository context at commit 0123456 (4 files)"), full);
+        assertTrue(full.contains("Build: gradle, tests: ./gradlew test, modules: api, web"), full);
+        assertTrue(full.contains("- 0123456 Add orders: api/Orders.java"), full);
+        assertTrue(full.contains("api/\n  Invoices.java\n  Orders.java: class Orders, place()\n"), full);
+        assertTrue(full.contains("./\n  build.gradle"), full);
+
+        String names = RepoContextService.render(context, full.length() - 1);
+        assertTrue(names.contains("api/ Invoices.java, Orders.java\n"), names);
+        assertFalse(names.contains("place()"), names);
+
+        String counts = RepoContextService.render(context, names.length() - 1);
+        assertTrue(counts.contains("api/ (2 files)\nweb/ (1 file)"), counts);
+
+        String truncated = RepoContextService.render(context, counts.length() - 5);
+        assertTrue(truncated.length() <= counts.length() - 5, truncated);
+        assertTrue(truncated.endsWith("... (truncated)"), truncated);
+    }
+
+    @Test
+    void shouldSkipDigestWhenDisabled() throws Exception {
+        write("Orders.java", "public class Orders {}\n");
+        commit("Add orders");
+        contexts.setEnabled(false);
+
+        assertNull(contexts.digest(repo.toString()));
+    }
+
+    private void write(String path, String content) throws Exception {
+        Path file = repo.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private void commit(String message) throws Exception {
+        git("add", "-A");
+        git("commit", "--quiet", "-m", message);
+    }
+
+    private void git(String... args) throws Exception {
+        GitFixtures.git(repo, args);
+    }
+}
@@ -0,0 +1,83 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.RepoMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RepoMetadataServiceTest {
+
+    @Mock
+    private GitService gitService;
+
+    private RepoMetadataService repoMetadata;
+
+    @TempDir
+    Path repo;
+
+    @BeforeEach
+    void setUp() {
+        repoMetadata = new RepoMetadataService(gitService);
+    }
+
+    @Test
+    void shouldDetectBuildToolAndModules() throws Exception {
+        Files.createFile(repo.resolve("gradlew"));
+        Files.writeString(repo.resolve("settings.gradle"), "include 'api'");
+        Files.createDirectories(repo.resolve("api"));
+        Files.writeString(repo.resolve("api/build.gradle"), "plugins { id 'java' }");
+        when(gitService.getHeadCommit(repo.toString())).thenReturn("abc123");
+        when(gitService.getDefaultBranch(repo.toString())).thenReturn("develop");
+
+        RepoMetadata metadata = repoMetadata.get(repo.toString());
+
+        assertEquals("gradle", metadata.getBuildTool());
+        assertEquals("./gradlew test", metadata.getTestCommand());
+        assertEquals("develop", metadata.getDefaultBranch());
+        assertEquals(List.of("api"), metadata.getModules());
+        assertTrue(metadata.getLockfileHashes().containsKey("settings.gradle"));
+    }
+
+    @Test
+    void shouldServeCachedMetadataWhileHeadIsUnchanged() throws Exception {
+        Files.writeString(repo.resolve("package.json"), "{}");
+        when(gitService.getHeadCommit(repo.toString())).thenReturn("abc123");
+        when(gitService.getDefaultBranch(repo.toString())).thenReturn("main");
+
+        RepoMetadata first = repoMetadata.get(repo.toString());
+        Files.delete(repo.resolve("package.json"));
+        RepoMetadata second = repoMetadata.get(repo.toString());
+
+        assertSame(first, second);
+        assertEquals("npm test", second.getTestCommand());
+        verify(gitService, times(1)).getDefaultBranch(repo.toString());
+    }
+
+    @Test
+    void shouldRedetectWhenManifestsChangeWithHead() throws Exception {
+        Files.writeString(repo.resolve("package.json"), "{}");
+        when(gitService.getHeadCommit(repo.toString())).thenReturn("abc123", "def456");
+        when(gitService.getDefaultBranch(repo.toString())).thenReturn("main");
+
+        assertEquals("npm", repoMetadata.get(repo.toString()).getBuildTool());
+
+        Files.delete(repo.resolve("package.json"));
+        Files.writeString(repo.resolve("pom.xml"), "<project/>");
+        RepoMetadata updated = repoMetadata.get(repo.toString());
+
+        assertEquals("maven", updated.getBuildTool());
+        assertEquals("def456", updated.getHeadCommit());
+        assertEquals("main", updated.getDefaultBranch());
+    }
+}
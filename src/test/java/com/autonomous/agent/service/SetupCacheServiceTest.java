@@ -0,0 +1,77 @@
+package com.autonomous.agent.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SetupCacheServiceTest {
+
+    private SetupCacheService setupCache;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        setupCache = new SetupCacheService();
+        setupCache.setCachePath(tempDir.resolve("cache").toString());
+    }
+
+    @Test
+    void shouldSkipSetupUntilLockfilesChange() throws Exception {
+        Path workspace = tempDir.resolve("workspace");
+        Files.createDirectories(workspace.resolve(".git"));
+
+        String hash = setupCache.inputsHash("npm install", Map.of("package-lock.json", "aaa"));
+        assertFalse(setupCache.isUpToDate(workspace.toString(), "npm install", hash));
+
+        setupCache.markCompleted(workspace.toString(), "npm install", hash);
+        assertTrue(setupCache.isUpToDate(workspace.toString(), "npm install", hash));
+
+        String changed = setupCache.inputsHash("npm install", Map.of("package-lock.json", "bbb"));
+        assertFalse(setupCache.isUpToDate(workspace.toString(), "npm install", changed));
+    }
+
+    @Test
+    void shouldStoreStampsInWorktreeGitDir() throws Exception {
+        Path gitDir = tempDir.resolve("main/.git/worktrees/task1");
+        Files.createDirectories(gitDir);
+        Path worktree = tempDir.resolve("task1");
+        Files.createDirectories(worktree);
+        Files.writeString(worktree.resolve(".git"), "gitdir: " + gitDir + "\n");
+
+        setupCache.markCompleted(worktree.toString(), "npm ci", "abc");
+
+        assertTrue(Files.exists(gitDir.resolve("agent-setup.properties")));
+        assertTrue(setupCache.isUpToDate(worktree.toString(), "npm ci", "abc"));
+    }
+
+    @Test
+    void shouldShareDependencyCachePerRepo() {
+        Map<String, String> env = setupCache.dependencyEnvironment("git@github.com:user/repo.git");
+
+        assertTrue(env.get("GRADLE_USER_HOME").contains("repo-"));
+        assertTrue(env.get("GRADLE_USER_HOME").endsWith("gradle"));
+        assertTrue(env.get("MAVEN_OPTS").startsWith("-Dmaven.repo.local="));
+        assertEquals(env, setupCache.dependencyEnvironment("git@github.com:user/repo.git"));
+    }
+
+    @Test
+    void shouldAppendToOptionsAlreadySet() {
+        Map<String, String> env = new HashMap<>(Map.of("MAVEN_OPTS", "-Xmx2g", "GRADLE_OPTS", "-Dorg.gradle.daemon=false"));
+
+        SetupCacheService.addTo(env, Map.of("MAVEN_OPTS", "-Dmaven.repo.local=/cache/m2",
+            "GRADLE_OPTS", "-Dorg.gradle.caching=true", "GRADLE_USER_HOME", "/cache/gradle"));
+
+        assertEquals("-Xmx2g -Dmaven.repo.local=/cache/m2", env.get("MAVEN_OPTS"));
+        assertEquals("-Dorg.gradle.daemon=false -Dorg.gradle.caching=true", env.get("GRADLE_OPTS"));
+        assertEquals("/cache/gradle", env.get("GRADLE_USER_HOME"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.QueuedTask;
+import com.autonomous.agent.model.TaskLease;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedDirectoryTaskQueueTest {
+
+    private SharedDirectoryTaskQueue node1;
+    private SharedDirectoryTaskQueue node2;
+
+    @TempDir
+    Path queueDir;
+
+    @BeforeEach
+    void setUp() {
+        node1 = new SharedDirectoryTaskQueue();
+        node1.setQueuePath(queueDir.toString());
+        node2 = new SharedDirectoryTaskQueue();
+        node2.setQueuePath(queueDir.toString());
+    }
+
+    @Test
+    void shouldHandOutOneLeasePerChannel() {
+        node1.enqueue(task("a", "C1", 3));
+        node1.enqueue(task("b", "C1", 2));
+        node1.enqueue(task("c", "C2", 1));
+
+        Optional<TaskLease> first = node1.pollAny("node1", t -> true, t -> true);
+        Optional<TaskLease> second = node2.pollAny("node2", t -> true, t -> true);
+
+        assertEquals("a", first.orElseThrow().getTask().getTaskId());
+        assertEquals("c", second.orElseThrow().getTask().getTaskId());
+        assertTrue(node2.pollAny("node2", t -> true, t -> true).isEmpty());
+        assertTrue(node2.isChannelLeased("C1"));
+
+        node1.complete(first.get());
+        assertEquals("b", node2.poll("node2", "C1").orElseThrow().getTask().getTaskId());
+    }
+
+    @Test
+    void shouldRequeueTaskWhenLeaseExpires() throws Exception {
+        node1.setLeaseSeconds(0);
+        node1.enqueue(task("a", "C1", 1));
+        TaskLease lease = node1.poll("node1", "C1").orElseThrow();
+
+        Thread.sleep(20);
+        Optional<TaskLease> reclaimed = node2.poll("node2", "C1");
+
+        assertEquals("a", reclaimed.orElseThrow().getTask().getTaskId());
+        assertFalse(node1.heartbeat(lease));
+        assertTrue(node2.heartbeat(reclaimed.get()));
+    }
+
+    @Test
+    void shouldLeaveTasksToNodesWithCachedWorkspaceDuringGracePeriod() {
+        node1.setAffinityGraceSeconds(60);
+        node2.setAffinityGraceSeconds(60);
+        node1.enqueue(task("a", "C1", 1));
+
+        assertTrue(node2.pollAny("node2", t -> true, t -> false).isEmpty());
+        assertEquals("a", node1.pollAny("node1", t -> true, t -> true).orElseThrow().getTask().getTaskId());
+    }
+
+    @Test
+    void shouldTakeHigherPriorityFirstUntilLowerPriorityHasAged() {
+        node1.setAgingMinutes(10);
+        QueuedTask agedLow = task("aged-low", "C1", 25 * 60);
+        agedLow.setPriority("low");
+        QueuedTask normal = task("normal", "C1", 60);
+        QueuedTask high = task("high", "C1", 1);
+        high.setPriority("high");
+        node1.enqueue(normal);
+        node1.enqueue(high);
+        node1.enqueue(agedLow);
+
+        // Low waited 25 minutes: two aging steps covered, so it's ahead of a fresh high task
+        assertEquals(List.of("aged-low", "high", "normal"),
+            node1.pending("C1").stream().map(QueuedTask::getTaskId).toList());
+    }
+
+    private QueuedTask task(String taskId, String channelId, int secondsAgo) {
+        return QueuedTask.builder()
+            .taskId(taskId)
+            .channelId(channelId)
+            .description("Task " + taskId)
+            .model("sonnet")
+            .enqueuedAt(Instant.now().minusSeconds(secondsAgo))
+            .build();
+    }
+}
@@ -0,0 +1,56 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.SlackEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlackEventParserTest {
+
+    @Test
+    void shouldParseThreadReplySkippingBlocks() throws IOException {
+        SlackEvent event = parse("{\"token\":\"t\",\"team_id\":\"T1\",\"event\":{\"type\":\"message\",\"user\":\"U1\"," +
+            "\"blocks\":[{\"type\":\"rich_text\",\"elements\":[{\"type\":\"text\",\"text\":\"nested\"}]}]," +
+            "\"text\":\"looks good\",\"channel\":\"C1\",\"ts\":\"2.0\",\"thread_ts\":\"1.0\"}," +
+            "\"type\":\"event_callback\",\"event_id\":\"Ev1\",\"event_time\":1700000100," +
+            "\"authorizations\":[{\"team_id\":\"T1\",\"is_bot\":true}]}");
+
+        assertEquals("event_callback", event.getType());
+        assertEquals("Ev1", event.getEventId());
+        assertEquals("T1", event.getTeamId());
+        assertEquals("message", event.getEventType());
+        assertEquals("looks good", event.getText());
+        assertEquals("C1", event.getChannel());
+        assertEquals("2.0", event.getTs());
+        assertEquals("1.0", event.getThreadTs());
+        assertNull(event.getSubtype());
+        assertFalse(event.isBot());
+    }
+
+    @Test
+    void shouldFlagBotMessages() throws IOException {
+        assertTrue(parse("{\"event\":{\"type\":\"message\",\"bot_id\":\"B1\"}}").isBot());
+        assertTrue(parse("{\"event\":{\"type\":\"message\",\"bot_profile\":{\"id\":\"B1\",\"icons\":{}}}}").isBot());
+        assertFalse(parse("{\"event\":{\"type\":\"message\",\"bot_id\":null}}").isBot());
+    }
+
+    @Test
+    void shouldReadChallenge() throws IOException {
+        SlackEvent event = parse("{\"token\":\"t\",\"challenge\":\"abc\",\"type\":\"url_verification\"}");
+
+        assertEquals("abc", event.getChallenge());
+        assertNull(event.getEventType());
+    }
+
+    @Test
+    void shouldRejectNonObjectPayload() {
+        assertThrows(IOException.class, () -> parse("[1,2]"));
+    }
+
+    private SlackEvent parse(String json) throws IOException {
+        return SlackEventParser.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
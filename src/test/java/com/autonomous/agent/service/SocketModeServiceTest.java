@@ -0,0 +1,105 @@
+package com.autonomous.agent.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SocketModeServiceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private StubSocketModeServer stub;
+    private SlackService slackService;
+    private SlackDispatcher dispatcher;
+    private SocketModeService socketMode;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubSocketModeServer();
+        slackService = mock(SlackService.class);
+        when(slackService.openSocketModeConnection("xapp-test")).thenReturn(stub.url());
+        dispatcher = mock(SlackDispatcher.class);
+
+        socketMode = new SocketModeService();
+        socketMode.setTransport("socket");
+        socketMode.setAppToken("xapp-test");
+        socketMode.setSlackService(slackService);
+        socketMode.setDispatcher(dispatcher);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        socketMode.shutdown();
+        stub.close();
+    }
+
+    @Test
+    void shouldAckSlashCommandWithResponse() throws Exception {
+        when(dispatcher.handleCommand("/agent-task", "Add feature X", "U456", "C123")).thenReturn("Starting task...");
+        socketMode.init();
+        StubSocketModeServer.Connection connection = stub.nextConnection();
+        assertNotNull(connection);
+
+        connection.send("{\"type\":\"hello\",\"num_connections\":1}");
+        connection.send("{\"envelope_id\":\"env-1\",\"type\":\"slash_commands\",\"accepts_response_payload\":true," +
+            "\"payload\":{\"command\":\"/agent-task\",\"text\":\"Add feature X\",\"user_id\":\"U456\",\"channel_id\":\"C123\"}}");
+
+        JsonNode ack = mapper.readTree(connection.nextMessage());
+        assertEquals("env-1", ack.path("envelope_id").asText());
+        assertEquals("Starting task...", ack.path("payload").path("text").asText());
+        assertEquals("in_channel", ack.path("payload").path("response_type").asText());
+    }
+
+    @Test
+    void shouldAckEventsAndDispatchTypedEvent() throws Exception {
+        socketMode.init();
+        StubSocketModeServer.Connection connection = stub.nextConnection();
+
+        connection.send("{\"envelope_id\":\"env-2\",\"type\":\"events_api\",\"accepts_response_payload\":false," +
+            "\"payload\":{\"type\":\"event_callback\",\"event_id\":\"Ev1\",\"event\":{\"type\":\"app_mention\"," +
+            "\"user\":\"U456\",\"text\":\"<@UBOT> hi\",\"channel\":\"C123\",\"ts\":\"1.2\"," +
+            "\"blocks\":[{\"type\":\"rich_text\"}]}}}");
+
+        assertEquals("{\"envelope_id\":\"env-2\"}", connection.nextMessage());
+        verify(dispatcher, timeout(5000)).handleEvent(argThat(event ->
+            "app_mention".equals(event.getEventType()) && "C123".equals(event.getChannel()) && "Ev1".equals(event.getEventId())));
+    }
+
+    @Test
+    void shouldReconnectWhenSlackAsksToDisconnect() throws Exception {
+        when(dispatcher.handleCommand(any(), any(), any(), any())).thenReturn("ok");
+        socketMode.init();
+        StubSocketModeServer.Connection first = stub.nextConnection();
+
+        first.send("{\"type\":\"disconnect\",\"reason\":\"refresh_requested\"}");
+        StubSocketModeServer.Connection second = stub.nextConnection();
+        assertNotNull(second);
+
+        second.send("{\"envelope_id\":\"env-3\",\"type\":\"slash_commands\",\"payload\":{\"command\":\"/agent-status\"," +
+            "\"text\":\"\",\"user_id\":\"U456\",\"channel_id\":\"C123\"}}");
+        assertEquals("env-3", mapper.readTree(second.nextMessage()).path("envelope_id").asText());
+        verify(slackService, times(2)).openSocketModeConnection("xapp-test");
+    }
+
+    @Test
+    void shouldStayOffWithHttpTransport() throws Exception {
+        socketMode.setTransport("http");
+        socketMode.init();
+
+        assertNull(stub.nextConnection());
+        verify(slackService, never()).openSocketModeConnection(any());
+        assertFalse(socketMode.isConnected());
+    }
+
+    @Test
+    void shouldRequireAppToken() {
+        socketMode.setAppToken("");
+
+        assertThrows(IllegalStateException.class, () -> socketMode.init());
+    }
+}
@@ -0,0 +1,165 @@
+package com.autonomous.agent.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Just enough of a WebSocket server (RFC 6455 handshake, unfragmented text frames out,
+ * masked frames in) to stand in for Slack's Socket Mode endpoint.
+ */
+class StubSocketModeServer implements AutoCloseable {
+
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final ServerSocket server;
+    private final BlockingQueue<Connection> connections = new LinkedBlockingQueue<>();
+
+    StubSocketModeServer() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "stub-socket-mode");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    String url() {
+        return "ws://127.0.0.1:" + server.getLocalPort() + "/link/?ticket=test";
+    }
+
+    Connection nextConnection() throws InterruptedException {
+        return connections.poll(5, TimeUnit.SECONDS);
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Connection connection = new Connection(server.accept());
+                connections.add(connection);
+            } catch (Exception e) {
+                // Closed
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    static final class Connection {
+
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+        Connection(Socket socket) throws Exception {
+            this.socket = socket;
+            this.in = socket.getInputStream();
+            this.out = socket.getOutputStream();
+            handshake();
+            Thread reader = new Thread(this::read, "stub-socket-mode-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        void send(String text) throws IOException {
+            byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+            synchronized (out) {
+                out.write(0x81);
+                if (payload.length < 126) {
+                    out.write(payload.length);
+                } else {
+                    out.write(126);
+                    out.write(payload.length >> 8);
+                    out.write(payload.length & 0xff);
+                }
+                out.write(payload);
+                out.flush();
+            }
+        }
+
+        String nextMessage() throws InterruptedException {
+            return received.poll(5, TimeUnit.SECONDS);
+        }
+
+        private void handshake() throws Exception {
+            String key = null;
+            for (String line : readHeaders().split("\r\n")) {
+                if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                    key = line.substring(line.indexOf(':') + 1).trim();
+                }
+            }
+            String accept = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-1")
+                .digest((key + GUID).getBytes(StandardCharsets.US_ASCII)));
+            out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n" +
+                "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        private String readHeaders() throws IOException {
+            StringBuilder headers = new StringBuilder();
+            while (headers.length() < 4 || !headers.substring(headers.length() - 4).equals("\r\n\r\n")) {
+                int b = in.read();
+                if (b < 0) throw new IOException("Connection closed during handshake");
+                headers.append((char) b);
+            }
+            return headers.toString();
+        }
+
+        private void read() {
+            ByteArrayOutputStream message = new ByteArrayOutputStream();
+            try {
+                while (true) {
+                    int b0 = in.read();
+                    int b1 = in.read();
+                    if (b0 < 0 || b1 < 0) return;
+                    long length = b1 & 0x7f;
+                    if (length == 126) {
+                        length = (in.read() << 8) | in.read();
+                    } else if (length == 127) {
+                        length = 0;
+                        for (int i = 0; i < 8; i++) length = (length << 8) | in.read();
+                    }
+                    byte[] mask = (b1 & 0x80) != 0 ? in.readNBytes(4) : null;
+                    byte[] payload = in.readNBytes((int) length);
+                    for (int i = 0; mask != null && i < payload.length; i++) {
+                        payload[i] ^= mask[i % 4];
+                    }
+                    int opcode = b0 & 0x0f;
+                    if (opcode == 0x8) {
+                        synchronized (out) {
+                            out.write(new byte[] { (byte) 0x88, 0 });
+                            out.flush();
+                        }
+                        socket.close();
+                        return;
+                    } else if (opcode == 0x9) {
+                        synchronized (out) {
+                            out.write(new byte[] { (byte) 0x8a, 0 });
+                            out.flush();
+                        }
+                    } else if (opcode == 0x0 || opcode == 0x1) {
+                        message.write(payload);
+                        if ((b0 & 0x80) != 0) {
+                            received.add(message.toString(StandardCharsets.UTF_8));
+                            message.reset();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+    }
+}
@@ -1,13 +1,25 @@
 package com.autonomous.agent.service;
 
 import com.autonomous.agent.model.ChannelConfig;
+import com.autonomous.agent.model.ClaudeSession;
+import com.autonomous.agent.model.TaskExecution;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -52,6 +64,90 @@ class TaskExecutorServiceTest {
         assertTrue(executor.hasRunningTask("C123"));
     }
 
+    @Test
+    void shouldKeepAnExplicitModelAndLogItWithTheTaskId() {
+        ChannelConfig config = new ChannelConfig();
+        config.setChannelId("C123");
+        config.setChannelName("test");
+        config.setDefaultModel(ModelRouterService.AUTO);
+        ModelRouterService modelRouter = mock(ModelRouterService.class);
+        executor.setModelRouter(modelRouter);
+
+        when(configLoader.getConfigForChannel("C123")).thenReturn(Optional.of(config));
+        when(threadManager.createThread(anyString(), anyString(), anyString())).thenReturn("thread123");
+
+        executor.submitTask("C123", "Fix typo --model sonnet", null);
+
+        ArgumentCaptor<String> taskId = ArgumentCaptor.forClass(String.class);
+        verify(threadManager).registerThread(taskId.capture(), eq("C123"), eq("thread123"));
+        verify(modelRouter).route(taskId.getValue(), "C123", "Fix typo", "sonnet");
+        verify(modelRouter, never()).route(any(), any(), any(), isNull());
+    }
+
+    @Test
+    void shouldPushWhileTestsAreStillRunning(@TempDir Path workspace) throws Exception {
+        Files.createFile(workspace.resolve("pom.xml"));
+
+        ChannelConfig config = new ChannelConfig();
+        config.setChannelId("C123");
+        config.setChannelName("test");
+        config.setRepo("git@github.com:user/test.git");
+        config.setClonePath(workspace.toString());
+
+        GitService gitService = mock(GitService.class);
+        CountDownLatch pushed = new CountDownLatch(1);
+        CountDownLatch testsDone = new CountDownLatch(1);
+        AtomicBoolean testsSawPush = new AtomicBoolean();
+
+        when(configLoader.getConfigForChannel("C123")).thenReturn(Optional.of(config));
+        when(threadManager.createThread(anyString(), anyString(), anyString())).thenReturn("thread123");
+        when(gitService.generateBranchName(anyString(), anyString(), anyString())).thenReturn("agent/test/abc");
+        when(gitService.ensureRepoCloned(anyString(), anyString(), eq("main"), any())).thenReturn(true);
+        when(gitService.push(anyString(), anyString())).thenAnswer(inv -> {
+            pushed.countDown();
+            return true;
+        });
+        when(gitService.runTests(anyString(), eq("mvn test"), anyMap())).thenAnswer(inv -> {
+            testsSawPush.set(pushed.await(5, TimeUnit.SECONDS));
+            testsDone.countDown();
+            return "All tests passed";
+        });
+
+        executor.setGitService(gitService);
+        RepoMetadataService repoMetadata = new RepoMetadataService(gitService);
+        executor.setRepoMetadataService(repoMetadata);
+        executor.setWorkspaceService(new WorkspaceService(gitService, repoMetadata));
+        executor.setClaudeCodePath("echo");
+        executor.submitTask("C123", "Add feature", null);
+
+        assertTrue(testsDone.await(10, TimeUnit.SECONDS));
+        assertTrue(testsSawPush.get());
+    }
+
+    @Test
+    void shouldNotOpenAPullRequestWhenThePushFails(@TempDir Path workspace) throws Exception {
+        ChannelConfig config = config(workspace);
+        config.setRepo("git@github.com:user/test.git");
+
+        GitService gitService = mock(GitService.class);
+        when(configLoader.getConfigForChannel("C123")).thenReturn(Optional.of(config));
+        when(threadManager.createThread(anyString(), anyString(), anyString())).thenReturn("thread123");
+        when(gitService.generateBranchName(anyString(), anyString(), anyString())).thenReturn("agent/test/abc");
+        when(gitService.ensureRepoCloned(anyString(), anyString(), eq("main"), any())).thenReturn(true);
+        when(gitService.push(anyString(), eq("agent/test/abc"))).thenReturn(false);
+
+        executor.setGitService(gitService);
+        RepoMetadataService repoMetadata = new RepoMetadataService(gitService);
+        executor.setRepoMetadataService(repoMetadata);
+        executor.setWorkspaceService(new WorkspaceService(gitService, repoMetadata));
+        executor.setClaudeCodePath("echo");
+        executor.submitTask("C123", "Add feature", null);
+        awaitIdle();
+
+        verify(gitService).push(workspace.toString(), "agent/test/abc");
+        verify(gitService, never()).createPullRequest(anyString(), anyString(), anyString(), anyString());
+    }
+
     @Test
     void shouldParseModelFromCommand() {
         assertEquals("opus", executor.parseModel("Add feature --model opus"));
@@ -65,4 +161,266 @@ class TaskExecutorServiceTest {
         assertEquals("Fix bug quickly", executor.stripModelFlag("Fix bug quickly --model haiku"));
         assertEquals("Do something", executor.stripModelFlag("Do something"));
     }
+
+    @Test
+    void shouldParsePriorityAlongsideModel() {
+        assertEquals("high", executor.parsePriority("Fix prod login --priority HIGH --model opus"));
+        assertEquals("normal", executor.parsePriority("Refactor billing"));
+        assertEquals("Fix prod login", executor.stripFlags("Fix prod login --priority high --model opus"));
+    }
+
+    @Test
+    void shouldSplitMultiLineCommandIntoBatch() {
+        List<String> batch = executor.parseBatch("--combined --model haiku\n- Fix typo in README\n2. Bump lodash --model opus\n\n");
+
+        assertEquals(List.of("Fix typo in README", "Bump lodash --model opus"), batch);
+        assertEquals(1, executor.parseBatch("Add feature --model opus").size());
+        assertEquals(List.of("Fix typo in README", "Bump lodash"),
+            executor.parseBatch("--batch\nFix typo in README\nBump lodash"));
+        assertEquals(List.of("Fix typo in README", "Bump lodash"),
+            executor.parseBatch("* Fix typo in README\n* Bump lodash"));
+    }
+
+    @Test
+    void shouldKeepMultiLineDescriptionsAsOneTask() {
+        String command = "Add a login page\nIt should use the existing session cookie";
+        assertEquals(List.of(command), executor.parseBatch(command));
+
+        String steps = "Refactor billing:\n1. Extract the tax rules\n2. Add tests";
+        assertEquals(List.of(steps), executor.parseBatch(steps));
+    }
+
+    @Test
+    void shouldSummarizeLongOutputAtLineBreak() {
+        assertEquals("Short result", TaskExecutorService.summarize("Short result\n", 100));
+
+        String summary = TaskExecutorService.summarize("First line\n" + "x".repeat(20) + "\n" + "y".repeat(100), 40);
+        assertEquals("First line\n" + "x".repeat(20) + "\n\n...", summary);
+    }
+
+    @Test
+    void shouldRecordClaudeSessionUntilTaskCompletes(@TempDir Path workspace) throws Exception {
+        ClaudeSessionService sessions = sessions(workspace);
+        ChannelConfig config = config(workspace);
+        when(configLoader.getConfigForChannel("C123")).thenReturn(Optional.of(config));
+        when(threadManager.createThread(anyString(), anyString(), anyString())).thenReturn("thread123");
+        executor.setClaudeCodePath(fakeClaude(workspace, false).toString());
+
+        executor.submitTask("C123", "Add feature", null);
+        List<String> calls = awaitCalls(workspace, 1);
+        awaitIdle();
+
+        Matcher sessionId = Pattern.compile("--session-id ([0-9a-f-]{36}) Add feature").matcher(calls.get(0));
+        assertTrue(sessionId.find(), calls.get(0));
+        assertTrue(sessions.list().isEmpty());
+    }
+
+    @Test
+    void shouldResumeInterruptedTaskAfterRestart(@TempDir Path workspace) throws Exception {
+        ClaudeSessionService sessions = sessions(workspace);
+        sessions.save(interruptedSession(workspace));
+        when(configLoader.getConfigForChannel("C123")).thenReturn(Optional.of(config(workspace)));
+        executor.setClaudeCodePath(fakeClaude(workspace, false).toString());
+
+        executor.resumeInterruptedTasks();
+        List<String> calls = awaitCalls(workspace, 1);
+        awaitIdle();
+
+        assertTrue(calls.get(0).contains("--resume 6f1c2d3e-0000-4000-8000-000000000001 " +
+            TaskExecutorService.resumePrompt("Add feature").split("\n")[0]), calls.get(0));
+        verify(threadManager).postUpdate(eq("C123"), eq("thread123"), contains("restarted"));
+        assertTrue(sessions.list().isEmpty());
+    }
+
+    @Test
+    void shouldLeaveOtherNodesSessionsUntilTheyGoStale(@TempDir Path workspace) {
+        ClaudeSessionService sessions = sessions(workspace);
+        ClaudeSession foreign = interruptedSession(workspace);
+        foreign.setNode("agent-2");
+        sessions.save(foreign);
+
+        executor.resumeInterruptedTasks();
+        assertEquals(1, sessions.list().size());
+
+        executor.setSessionMaxAgeHours(0);
+        executor.resumeInterruptedTasks();
+        assertTrue(sessions.list().isEmpty());
+    }
+
+    @Test
+    void shouldStartOverWhenClaudeLostTheSession(@TempDir Path workspace) throws Exception {
+        ClaudeSessionService sessions = sessions(workspace);
+        sessions.save(interruptedSession(workspace));
+        when(configLoader.getConfigForChannel("C123")).thenReturn(Optional.of(config(workspace)));
+        executor.setClaudeCodePath(fakeClaude(workspace, true).toString());
+
+        executor.resumeInterruptedTasks();
+        List<String> calls = awaitCalls(workspace, 2);
+        awaitIdle();
+
+        assertTrue(calls.get(0).contains("--resume 6f1c2d3e-0000-4000-8000-000000000001"));
+        assertTrue(calls.get(1).contains("--session-id "));
+        assertFalse(calls.get(1).contains("6f1c2d3e-0000-4000-8000-000000000001"));
+        assertTrue(calls.get(1).endsWith("Add feature"));
+    }
+
+    @Test
+    void shouldSendChannelPrefixAsSystemPrompt(@TempDir Path workspace) throws Exception {
+        ChannelConfig config = config(workspace);
+        config.setConventions("Use tabs.");
+        PromptAssembler assembler = new PromptAssembler();
+        assembler.setProfilesPath(workspace.resolve("profiles").toString());
+        executor.setPromptAssembler(assembler);
+        when(configLoader.getConfigForChannel("C123")).thenReturn(Optional.of(config));
+        when(threadManager.createThread(anyString(), anyString(), anyString())).thenReturn("thread123");
+        executor.setClaudeCodePath(fakeClaude(workspace, false).toString());
+
+        executor.submitTask("C123", "Add feature", null);
+        List<String> calls = awaitCalls(workspace, 1);
+        awaitIdle();
+
+        assertTrue(calls.get(0).contains("--output-format stream-json --verbose "), calls.get(0));
+        assertTrue(calls.get(0).contains("--append-system-prompt # Channel conventions  Use tabs. --session-id "), calls.get(0));
+        assertTrue(calls.get(0).endsWith(" Add feature"), calls.get(0));
+    }
+
+    @Test
+    void shouldNotRunCancelledTaskThatWaitsForASlot(@TempDir Path workspace) throws Exception {
+        ChannelConfig second = config(workspace);
+        second.setChannelId("C456");
+        when(configLoader.getConfigForChannel("C123")).thenReturn(Optional.of(config(workspace)));
+        when(configLoader.getConfigForChannel("C456")).thenReturn(Optional.of(second));
+        when(threadManager.createThread(anyString(), anyString(), anyString())).thenReturn("thread123");
+        Path script = fakeClaude(workspace, false);
+        Files.writeString(script, Files.readString(script).replace("echo done\n", "sleep 1\necho done\n"));
+        executor.setClaudeCodePath(script.toString());
+        executor.setMaxConcurrentTasks(1);
+
+        executor.submitTask("C123", "First task", null);
+        awaitCalls(workspace, 1);
+        executor.submitTask("C456", "Second task", null);
+        TaskExecution waiting = executor.getRunningTask("C456").orElseThrow();
+
+        assertTrue(executor.cancelTask("C456"));
+        awaitIdle("C456");
+        awaitIdle("C123");
+
+        assertEquals("CANCELLED", waiting.getStatus());
+        assertEquals(1, Files.readAllLines(workspace.resolve("calls.log")).size());
+    }
+
+    @Test
+    void shouldPreemptTheLowPrioritySlotHolderAndRequeueIt(@TempDir Path workspace) throws Exception {
+        ChannelConfig second = config(workspace);
+        second.setChannelId("C456");
+        when(configLoader.getConfigForChannel("C123")).thenReturn(Optional.of(config(workspace)));
+        when(configLoader.getConfigForChannel("C456")).thenReturn(Optional.of(second));
+        when(threadManager.createThread(anyString(), anyString(), anyString())).thenReturn("thread123");
+        Path script = fakeClaude(workspace, false);
+        Files.writeString(script, Files.readString(script).replace("echo done\n",
+            "case \"$*\" in *\"Low task\"*) sleep 2;; esac\necho done\n"));
+        executor.setClaudeCodePath(script.toString());
+        executor.setMaxConcurrentTasks(1);
+        executor.setPreemptionEnabled(true);
+
+        executor.submitTask("C123", "Low task --priority low", null);
+        awaitCalls(workspace, 1);
+        executor.submitTask("C456", "High task --priority high", null);
+        List<String> calls = awaitCalls(workspace, 3);
+        awaitIdle("C456");
+        awaitIdle("C123");
+
+        assertTrue(calls.get(0).endsWith("Low task"), calls.get(0));
+        assertTrue(calls.get(1).endsWith("High task"), calls.get(1));
+        assertTrue(calls.get(2).endsWith("Low task"), calls.get(2));
+        verify(threadManager).postUpdate(eq("C123"), eq("thread123"), contains("Paused to make room"));
+    }
+
+    @Test
+    void shouldReadResultAndUsageFromTheStreamsResultEvent() {
+        TaskExecution execution = TaskExecution.builder().build();
+        String run = "{\"type\":\"system\",\"subtype\":\"init\",\"session_id\":\"s1\"}\n" +
+            "{\"type\":\"assistant\",\"message\":{\"content\":[{\"type\":\"tool_result\",\"content\":\"\\\"result\\\"\"}]}}\n" +
+            "{\"type\":\"result\",\"subtype\":\"success\",\"result\":\"Added the endpoint.\",\"usage\":{\"input_tokens\":120," +
+            "\"cache_creation_input_tokens\":0,\"cache_read_input_tokens\":9000,\"output_tokens\":800}}";
+
+        assertEquals("Added the endpoint.", TaskExecutorService.readResult(execution, "warning: slow disk\n" + run + "\n"));
+        TaskExecutorService.readResult(execution, run);
+
+        assertEquals(240, execution.getUsage().getInputTokens());
+        assertEquals(18000, execution.getUsage().getCacheReadTokens());
+        assertEquals(1600, execution.getUsage().getOutputTokens());
+        assertEquals("done\n", TaskExecutorService.readResult(execution, "done\n"));
+    }
+
+    private ClaudeSessionService sessions(Path workspace) {
+        executor.setNodeId("agent-1");
+        ClaudeSessionService sessions = new ClaudeSessionService();
+        sessions.setDataPath(workspace.resolve("data").toString());
+        executor.setSessions(sessions);
+        return sessions;
+    }
+
+    private static ChannelConfig config(Path workspace) {
+        ChannelConfig config = new ChannelConfig();
+        config.setChannelId("C123");
+        config.setChannelName("test");
+        config.setClonePath(workspace.toString());
+        return config;
+    }
+
+    private static ClaudeSession interruptedSession(Path workspace) {
+        return ClaudeSession.builder()
+            .taskId("abc123")
+            .sessionId("6f1c2d3e-0000-4000-8000-000000000001")
+            .node("agent-1")
+            .workDir(workspace.toString())
+            .branchName("agent/test/abc123")
+            .channelId("C123")
+            .description("Add feature")
+            .model("sonnet")
+            .priority("normal")
+            .threadTs("thread123")
+            .status("RUNNING")
+            .runs(1)
+            .build();
+    }
+
+    /**
+     * Logs its arguments, one run per line; with {@code sessionLost} it fails every
+     * {@code --resume} the way claude does for an unknown session.
+     */
+    private static Path fakeClaude(Path dir, boolean sessionLost) throws Exception {
+        Path script = dir.resolve("claude.sh");
+        Files.writeString(script, "#!/bin/sh\n" +
+            "echo \"$*\" | tr '\\n' ' ' | sed 's/ $//' >> \"" + dir.resolve("calls.log") + "\"\n" +
+            "echo >> \"" + dir.resolve("calls.log") + "\"\n" +
+            (sessionLost ? "case \"$*\" in *--resume*) echo \"No conversation found with session ID\"; exit 1;; esac\n" : "") +
+            "echo done\n");
+        script.toFile().setExecutable(true);
+        return script;
+    }
+
+    private static List<String> awaitCalls(Path dir, int count) throws Exception {
+        Path log = dir.resolve("calls.log");
+        for (int i = 0; i < 100; i++) {
+            if (Files.exists(log) && Files.readAllLines(log).size() >= count) {
+                return Files.readAllLines(log);
+            }
+            Thread.sleep(100);
+        }
+        fail("claude was called fewer than " + count + " times");
+        return null;
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        awaitIdle("C123");
+    }
+
+    private void awaitIdle(String channelId) throws InterruptedException {
+        for (int i = 0; i < 100 && executor.hasRunningTask(channelId); i++) {
+            Thread.sleep(100);
+        }
+        assertFalse(executor.hasRunningTask(channelId));
+    }
 }
@@ -0,0 +1,123 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.HistoryPage;
+import com.autonomous.agent.model.TaskRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskHistoryServiceTest {
+
+    private TaskHistoryService history;
+
+    @TempDir
+    Path tempDir;
+
+    private final Instant base = Instant.parse("2026-01-01T00:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        history = new TaskHistoryService();
+        history.setDataPath(tempDir.toString());
+        history.loadIndex();
+    }
+
+    @Test
+    void shouldPageNewestFirst() {
+        for (int i = 0; i < 25; i++) {
+            history.record(record("t" + i, "C1", "COMPLETED", "sonnet", i));
+        }
+
+        HistoryPage first = history.query("C1", null, null, null, null, 0, 10);
+        HistoryPage last = history.query("C1", null, null, null, null, 2, 10);
+
+        assertEquals(25, first.getTotal());
+        assertEquals("t24", first.getItems().get(0).getTaskId());
+        assertEquals(10, first.getItems().size());
+        assertEquals(5, last.getItems().size());
+        assertEquals("t0", last.getItems().get(4).getTaskId());
+    }
+
+    @Test
+    void shouldReturnAnEmptyPagePastTheEndWithoutOverflowing() {
+        for (int i = 0; i < 3; i++) {
+            history.record(record("t" + i, "C1", "COMPLETED", "sonnet", i));
+        }
+
+        HistoryPage page = history.query("C1", null, null, null, null, Integer.MAX_VALUE, 100);
+
+        assertEquals(3, page.getTotal());
+        assertTrue(page.getItems().isEmpty());
+    }
+
+    @Test
+    void shouldCombineFilters() {
+        history.record(record("a", "C1", "COMPLETED", "sonnet", 0));
+        history.record(record("b", "C1", "FAILED", "opus", 1));
+        history.record(record("c", "C2", "FAILED", "opus", 2));
+        history.record(record("d", "C1", "FAILED", "sonnet", 3));
+
+        HistoryPage failedInC1 = history.query("C1", "failed", null, null, null, 0, 10);
+        HistoryPage opusFailed = history.query(null, "FAILED", "opus", null, null, 0, 10);
+        HistoryPage unknown = history.query("C9", null, null, null, null, 0, 10);
+
+        assertEquals(2, failedInC1.getTotal());
+        assertEquals("d", failedInC1.getItems().get(0).getTaskId());
+        assertEquals(2, opusFailed.getTotal());
+        assertEquals(0, unknown.getTotal());
+    }
+
+    @Test
+    void shouldFilterByTimeRange() {
+        for (int i = 0; i < 10; i++) {
+            history.record(record("t" + i, "C1", "COMPLETED", "sonnet", i));
+        }
+
+        HistoryPage page = history.query(null, null, null,
+            base.plusSeconds(3 * 60), base.plusSeconds(6 * 60), 0, 10);
+
+        assertEquals(4, page.getTotal());
+        assertEquals("t6", page.getItems().get(0).getTaskId());
+        assertEquals("t3", page.getItems().get(3).getTaskId());
+    }
+
+    @Test
+    void shouldRebuildIndexAndIgnoreTornWrite() throws Exception {
+        history.record(record("a", "C1", "COMPLETED", "sonnet", 0));
+        history.record(record("b", "C1", "FAILED", "sonnet", 1));
+        Path file = tempDir.resolve("history/tasks.jsonl");
+        Files.writeString(file, "{\"taskId\":\"torn", StandardOpenOption.APPEND);
+
+        TaskHistoryService reloaded = new TaskHistoryService();
+        reloaded.setDataPath(tempDir.toString());
+        reloaded.loadIndex();
+        reloaded.record(record("c", "C1", "COMPLETED", "sonnet", 2));
+
+        HistoryPage page = reloaded.query("C1", null, null, null, null, 0, 10);
+        assertEquals(3, reloaded.size());
+        assertEquals("c", page.getItems().get(0).getTaskId());
+        assertEquals("https://github.com/org/repo/pull/b", page.getItems().get(1).getPrUrl());
+    }
+
+    private TaskRecord record(String id, String channel, String status, String model, int minute) {
+        return TaskRecord.builder()
+            .taskId(id)
+            .channelId(channel)
+            .description("Task " + id)
+            .status(status)
+            .model(model)
+            .startedAt(base.plusSeconds(minute * 60L - 30))
+            .completedAt(base.plusSeconds(minute * 60L))
+            .durationMs(30_000)
+            .costUsd(0.05)
+            .prUrl("https://github.com/org/repo/pull/" + id)
+            .build();
+    }
+}
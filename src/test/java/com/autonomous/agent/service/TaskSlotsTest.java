@@ -0,0 +1,85 @@
+package com.autonomous.agent.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSlotsTest {
+
+    @Test
+    void shouldTrackWhoHoldsASlot() throws Exception {
+        TaskSlots<String> slots = new TaskSlots<>(2);
+
+        slots.acquire(1, "first");
+        slots.acquire(2, "second");
+        assertEquals(0, slots.available());
+        assertEquals(List.of("first", "second"), slots.holders().stream().sorted().toList());
+
+        slots.release("first");
+        assertEquals(List.of("second"), slots.holders());
+        // A second release by the same owner doesn't hand out an extra slot
+        slots.release("first");
+        assertEquals(1, slots.available());
+    }
+
+    @Test
+    void shouldAdmitWaitersByKey() throws Exception {
+        TaskSlots<String> slots = new TaskSlots<>(1);
+        slots.acquire(5, "running");
+        CompletableFuture<Void> late = CompletableFuture.runAsync(() -> acquire(slots, 9, "low"));
+        awaitWaiting(slots, 1);
+        CompletableFuture<Void> urgent = CompletableFuture.runAsync(() -> acquire(slots, 1, "high"));
+        awaitWaiting(slots, 2);
+
+        slots.release("running");
+        urgent.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("high"), slots.holders());
+        assertFalse(late.isDone());
+
+        slots.release("high");
+        late.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("low"), slots.holders());
+    }
+
+    @Test
+    void shouldLetAbandonedWaitersGoWithoutASlot() throws Exception {
+        TaskSlots<String> slots = new TaskSlots<>(1);
+        slots.acquire(1, "running");
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return slots.acquire(2, "cancelled", cancelled::get);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        awaitWaiting(slots, 1);
+
+        cancelled.set(true);
+        slots.recheck();
+
+        assertFalse(waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(0, slots.waiting());
+        assertEquals(List.of("running"), slots.holders());
+    }
+
+    private static void acquire(TaskSlots<String> slots, long key, String owner) {
+        try {
+            slots.acquire(key, owner);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitWaiting(TaskSlots<String> slots, int count) throws InterruptedException {
+        for (int i = 0; i < 100 && slots.waiting() < count; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, slots.waiting());
+    }
+}
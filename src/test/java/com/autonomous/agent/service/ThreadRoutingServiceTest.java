@@ -0,0 +1,112 @@
+package com.autonomous.agent.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadRoutingServiceTest {
+
+    private ThreadRoutingService routing;
+
+    @BeforeEach
+    void setUp() {
+        routing = new ThreadRoutingService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        routing.shutdown();
+    }
+
+    @Test
+    void shouldIndexThreadsByTask() {
+        routing.bind("task1", "C1", "111.1");
+
+        assertEquals("task1", routing.taskForThread("111.1").orElseThrow());
+        assertTrue(routing.taskForThread("999.9").isEmpty());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedThreadWhenFull() {
+        routing.setMaxEntries(2);
+        routing.bind("task1", "C1", "111.1");
+        routing.bind("task2", "C1", "222.2");
+        routing.taskForThread("111.1");
+        routing.bind("task3", "C1", "333.3");
+
+        assertEquals(2, routing.size());
+        assertTrue(routing.taskForThread("111.1").isPresent());
+        assertTrue(routing.taskForThread("222.2").isEmpty());
+    }
+
+    @Test
+    void shouldExpireBindings() throws Exception {
+        routing.setTtlHours(0);
+        routing.bind("task1", "C1", "111.1");
+        Thread.sleep(5);
+
+        assertTrue(routing.taskForThread("111.1").isEmpty());
+    }
+
+    @Test
+    void shouldRouteReplyToPendingDecision() throws Exception {
+        CompletableFuture<String> decided = new CompletableFuture<>();
+        routing.awaitDecision("task1", "C1", "111.1", Set.of("retry", "stop", "draft"), "stop", decided::complete);
+
+        assertFalse(routing.route("C1", "111.1", "200.1", "what happened?"));
+        assertFalse(routing.route("C2", "111.1", "200.2", "retry"));
+        assertFalse(routing.route("C1", "222.2", "200.3", "retry"));
+        assertTrue(routing.route("C1", "111.1", "200.4", "<@U123> Retry!"));
+
+        assertEquals("retry", decided.get(5, TimeUnit.SECONDS));
+        assertFalse(routing.hasPendingDecision("task1"));
+    }
+
+    @Test
+    void shouldRouteThroughTheThreadsCurrentTask() {
+        routing.awaitDecision("task1", "C1", "111.1", Set.of("queue", "cancel"), "queue", choice -> { });
+        // Once the thread belongs to another task, replies in it go to that task
+        routing.bind("task2", "C1", "111.1");
+
+        assertFalse(routing.route("C1", "111.1", "200.1", "cancel"));
+        assertTrue(routing.hasPendingDecision("task1"));
+    }
+
+    @Test
+    void shouldConsumeDuplicateDeliveryOfSameReply() {
+        routing.awaitDecision("task1", "C1", "111.1", Set.of("queue", "cancel"), "queue", choice -> { });
+
+        assertTrue(routing.route("C1", "111.1", "200.1", "cancel"));
+        // The app_mention copy of the same message must not trigger a second response
+        assertTrue(routing.route("C1", "111.1", "200.1", "<@U123> cancel"));
+        assertFalse(routing.route("C1", "111.1", "200.2", "cancel"));
+    }
+
+    @Test
+    void shouldFallBackToDefaultOnTimeout() throws Exception {
+        routing.setDecisionTimeoutMinutes(0);
+        CompletableFuture<String> decided = new CompletableFuture<>();
+        routing.awaitDecision("task1", "C1", "111.1", Set.of("queue", "cancel"), "queue", decided::complete);
+
+        assertEquals("queue", decided.get(5, TimeUnit.SECONDS));
+        assertFalse(routing.hasPendingDecision("task1"));
+    }
+
+    @Test
+    void shouldResolveSupersededDecisionToItsDefault() throws Exception {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        routing.awaitDecision("task1", "C1", "111.1", Set.of("queue", "cancel"), "queue", first::complete);
+        routing.awaitDecision("task1", "C1", "111.1", Set.of("retry", "stop"), "stop", second::complete);
+
+        assertEquals("queue", first.get(5, TimeUnit.SECONDS));
+        assertTrue(routing.route("C1", "111.1", "200.1", "stop"));
+        assertEquals("stop", second.get(5, TimeUnit.SECONDS));
+    }
+}
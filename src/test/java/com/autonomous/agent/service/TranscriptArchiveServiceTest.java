@@ -0,0 +1,124 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.TranscriptRange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptArchiveServiceTest {
+
+    @TempDir
+    Path dataPath;
+
+    private TranscriptArchiveService archive;
+
+    @BeforeEach
+    void setUp() {
+        archive = new TranscriptArchiveService();
+        archive.setDataPath(dataPath.toString());
+    }
+
+    @Test
+    void shouldReadBackRangesAcrossBlocks() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 3 * TranscriptArchiveService.BLOCK_SIZE + 1000; i++) {
+            text.append("line ").append(i).append(": Reading src/main/java/App.java\n");
+        }
+        byte[] expected = text.toString().getBytes(StandardCharsets.UTF_8);
+        try (TranscriptArchiveService.Writer writer = archive.open("abc123", TranscriptArchiveService.TRANSCRIPT)) {
+            // Line by line, as the executor writes Claude's output
+            text.toString().lines().forEach(line -> writer.write(line + "\n"));
+        }
+
+        assertEquals(expected.length, archive.length("abc123", TranscriptArchiveService.TRANSCRIPT).getAsLong());
+        assertRange(expected, 0, 100);
+        assertRange(expected, TranscriptArchiveService.BLOCK_SIZE - 10, 20);
+        assertRange(expected, 1000, 2 * TranscriptArchiveService.BLOCK_SIZE);
+        assertRange(expected, expected.length - 50, 50);
+        assertRange(expected, 0, expected.length);
+
+        // Clamped to the end of the stream
+        TranscriptRange tail = archive.read("abc123", TranscriptArchiveService.TRANSCRIPT, expected.length - 5, 1000).get();
+        assertEquals(5, tail.getData().length);
+        assertEquals(0, archive.read("abc123", TranscriptArchiveService.TRANSCRIPT, expected.length + 10, 10).get().getData().length);
+    }
+
+    @Test
+    void shouldCompressText() throws Exception {
+        String output = "Tests run: 42, Failures: 0, Errors: 0, Skipped: 0\n".repeat(5000);
+        archive.store("abc123", TranscriptArchiveService.TESTS, output);
+
+        Path file = dataPath.resolve("transcripts/abc123/tests.z");
+        assertTrue(Files.size(file) < output.length() / 10);
+        assertEquals(output, new String(archive.read("abc123", TranscriptArchiveService.TESTS, 0, Long.MAX_VALUE)
+            .get().getData(), StandardCharsets.UTF_8));
+        assertFalse(Files.exists(dataPath.resolve("transcripts/abc123/tests.z.tmp")));
+    }
+
+    @Test
+    void shouldArchiveEmptyStreams() {
+        archive.store("abc123", TranscriptArchiveService.TESTS, "");
+
+        assertEquals(0, archive.length("abc123", TranscriptArchiveService.TESTS).getAsLong());
+        assertEquals(0, archive.read("abc123", TranscriptArchiveService.TESTS, 0, 100).get().getData().length);
+    }
+
+    @Test
+    void shouldOnlyPublishClosedArchives() {
+        TranscriptArchiveService.Writer writer = archive.open("abc123", TranscriptArchiveService.TRANSCRIPT);
+        writer.write("still running\n");
+        assertTrue(archive.length("abc123", TranscriptArchiveService.TRANSCRIPT).isEmpty());
+
+        writer.close();
+        assertEquals(14, archive.length("abc123", TranscriptArchiveService.TRANSCRIPT).getAsLong());
+    }
+
+    @Test
+    void shouldRejectPathsOutsideTheArchive() {
+        archive.store("../escape", TranscriptArchiveService.TRANSCRIPT, "nope");
+
+        assertFalse(Files.exists(dataPath.resolve("escape")));
+        assertTrue(archive.length("../escape", TranscriptArchiveService.TRANSCRIPT).isEmpty());
+        assertTrue(archive.read("abc123", "../../etc/passwd", 0, 10).isEmpty());
+    }
+
+    @Test
+    void shouldOnlyHandOutSignedLinks() {
+        archive.setPublicUrl("https://agent.example.com/");
+        assertNull(archive.link("abc123", TranscriptArchiveService.TRANSCRIPT));
+
+        archive.setSigningKey("transcript-key");
+        Instant now = Instant.parse("2026-10-01T00:00:00Z");
+        Matcher link = Pattern.compile("https://agent\\.example\\.com/api/transcripts/abc123/transcript" +
+            "\\?expires=(\\d+)&signature=([0-9a-f]{64})").matcher(archive.link("abc123", TranscriptArchiveService.TRANSCRIPT, now));
+        assertTrue(link.matches());
+        String expires = link.group(1);
+        String signature = link.group(2);
+
+        assertTrue(archive.verifyLink("abc123", TranscriptArchiveService.TRANSCRIPT, expires, signature, now));
+        assertFalse(archive.verifyLink("abc123", TranscriptArchiveService.TESTS, expires, signature, now));
+        assertFalse(archive.verifyLink("abc124", TranscriptArchiveService.TRANSCRIPT, expires, signature, now));
+        assertFalse(archive.verifyLink("abc123", TranscriptArchiveService.TRANSCRIPT, expires + "0", signature, now));
+        assertFalse(archive.verifyLink("abc123", TranscriptArchiveService.TRANSCRIPT, expires, signature,
+            now.plus(Duration.ofDays(31))));
+        assertFalse(archive.verifyLink("abc123", TranscriptArchiveService.TRANSCRIPT, null, null, now));
+    }
+
+    private void assertRange(byte[] expected, int offset, int length) {
+        TranscriptRange range = archive.read("abc123", TranscriptArchiveService.TRANSCRIPT, offset, length).get();
+        assertEquals(offset, range.getOffset());
+        assertEquals(expected.length, range.getTotalLength());
+        assertArrayEquals(Arrays.copyOfRange(expected, offset, offset + length), range.getData());
+    }
+}
@@ -0,0 +1,175 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.ChannelConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.autonomous.agent.service.GitFixtures.git;
+import static com.autonomous.agent.service.GitFixtures.gitAvailable;
+import static com.autonomous.agent.service.GitFixtures.gitOutput;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkspaceJanitorServiceTest {
+
+    @TempDir
+    Path root;
+
+    @Mock
+    private ConfigLoaderService configLoader;
+
+    private WorkspaceJanitorService janitor;
+    private WorkspaceService workspaceService;
+    private ChannelConfig config;
+    private Path clone;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        assumeTrue(gitAvailable(), "git not installed");
+        Path remote = root.resolve("remote.git");
+        clone = root.resolve("clone");
+        git(root, "init", "--quiet", "--bare", "--initial-branch=main", remote.toString());
+        git(root, "clone", "--quiet", remote.toString(), clone.toString());
+        git(clone, "config", "user.name", "test");
+        git(clone, "config", "user.email", "test@localhost");
+        Files.writeString(clone.resolve(".gitignore"), "target/\n");
+        Files.createDirectories(clone.resolve("build"));
+        Files.writeString(clone.resolve("build/release.sh"), "#!/bin/sh\n");
+        git(clone, "add", ".");
+        git(clone, "commit", "--quiet", "-m", "Initial commit");
+        git(clone, "push", "--quiet", "origin", "HEAD:main");
+
+        config = new ChannelConfig();
+        config.setChannelId("C123");
+        config.setClonePath(clone.toString());
+        config.setBranchPrefix("agent");
+        config.setPrTarget("main");
+        when(configLoader.getAllConfigs()).thenReturn(Map.of("C123", config));
+
+        GitService gitService = new CliGitService();
+        workspaceService = new WorkspaceService(gitService, new RepoMetadataService(gitService));
+        janitor = new WorkspaceJanitorService(configLoader, gitService, workspaceService);
+        janitor.setMinIdleMinutes(0);
+    }
+
+    @Test
+    void shouldPruneMergedAndStaleBranchesOnly() throws Exception {
+        git(clone, "branch", "agent/test/merged");
+        git(clone, "checkout", "--quiet", "-b", "agent/test/active");
+        Files.writeString(clone.resolve("feature.txt"), "work in progress\n");
+        git(clone, "add", ".");
+        git(clone, "commit", "--quiet", "-m", "feat: active");
+        git(clone, "checkout", "--quiet", "-b", "agent/test/stale", "main");
+        Files.writeString(clone.resolve("old.txt"), "abandoned\n");
+        git(clone, "add", ".");
+        git(clone, Map.of("GIT_AUTHOR_DATE", "2020-01-01T00:00:00Z", "GIT_COMMITTER_DATE", "2020-01-01T00:00:00Z"),
+            "commit", "--quiet", "-m", "feat: stale");
+        git(clone, "checkout", "--quiet", "-b", "agent/test/current", "main");
+        git(clone, "branch", "other/keep");
+
+        janitor.sweep();
+
+        String branches = gitOutput(clone, "branch", "--format=%(refname:short)");
+        assertTrue(branches.contains("agent/test/active"));
+        assertTrue(branches.contains("agent/test/current"));
+        assertTrue(branches.contains("other/keep"));
+        assertFalse(branches.contains("agent/test/merged"));
+        assertFalse(branches.contains("agent/test/stale"));
+    }
+
+    @Test
+    void shouldClearIgnoredBuildOutputAndGc() throws Exception {
+        Files.createDirectories(clone.resolve("module/target/classes"));
+        Files.write(clone.resolve("module/target/classes/App.class"), new byte[64 * 1024]);
+        Files.createDirectories(clone.resolve("target"));
+        Files.write(clone.resolve("target/app.jar"), new byte[32 * 1024]);
+        janitor.setLooseObjectThreshold(0);
+
+        assertTrue(janitor.sweep() > 0);
+
+        assertFalse(Files.exists(clone.resolve("target")));
+        assertFalse(Files.exists(clone.resolve("module/target")));
+        // Tracked, so not build output
+        assertTrue(Files.exists(clone.resolve("build/release.sh")));
+        assertTrue(janitor.reclaimedBytes().get(WorkspaceJanitorService.BUILD) >= 96 * 1024);
+        assertEquals("0", gitOutput(clone, "count-objects").split(" ")[0]);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedWorkspaceOverQuota() {
+        janitor.setQuotaGb(1e-9);
+
+        janitor.sweep();
+
+        assertFalse(Files.exists(clone));
+        assertTrue(janitor.reclaimedBytes().get(WorkspaceJanitorService.EVICTED) > 0);
+    }
+
+    @Test
+    void shouldLeaveBusyWorkspacesAlone() throws Exception {
+        TaskExecutorService executor = mock(TaskExecutorService.class);
+        when(executor.hasRunningTask("C123")).thenReturn(true);
+        janitor.setTaskExecutor(executor);
+        janitor.setQuotaGb(1e-9);
+        git(clone, "branch", "agent/test/merged");
+
+        janitor.sweep();
+
+        assertTrue(Files.exists(clone));
+        assertTrue(gitOutput(clone, "branch").contains("agent/test/merged"));
+    }
+
+    @Test
+    void shouldLeaveClaimedWorkspacesAndTheirWorktreesAlone() throws Exception {
+        // A parallel task's worktree: its channel has no entry in runningTasks
+        Path worktree = root.resolve("clone-batch/abc123");
+        Files.createDirectories(worktree);
+        Files.writeString(worktree.resolve("work.txt"), "in progress\n");
+        workspaceService.claim(clone.toString());
+        janitor.setQuotaGb(1e-9);
+
+        janitor.sweep();
+
+        assertTrue(Files.exists(worktree.resolve("work.txt")));
+        assertTrue(Files.exists(clone));
+
+        workspaceService.release(clone.toString());
+        janitor.sweep();
+
+        assertFalse(Files.exists(clone));
+        assertFalse(Files.exists(worktree));
+    }
+
+    @Test
+    void shouldCheckEveryChannelSharingAClone() throws Exception {
+        ChannelConfig other = new ChannelConfig();
+        other.setChannelId("C456");
+        other.setClonePath(clone.toString());
+        other.setBranchPrefix("agent");
+        other.setPrTarget("main");
+        Map<String, ChannelConfig> configs = new LinkedHashMap<>();
+        configs.put("C123", config);
+        configs.put("C456", other);
+        when(configLoader.getAllConfigs()).thenReturn(configs);
+        TaskExecutorService executor = mock(TaskExecutorService.class);
+        when(executor.hasRunningTask("C123")).thenReturn(false);
+        when(executor.hasRunningTask("C456")).thenReturn(true);
+        janitor.setTaskExecutor(executor);
+        janitor.setQuotaGb(1e-9);
+
+        janitor.sweep();
+
+        assertTrue(Files.exists(clone));
+    }
+}
@@ -0,0 +1,80 @@
+package com.autonomous.agent.service;
+
+import com.autonomous.agent.model.ChannelConfig;
+import com.autonomous.agent.model.PreparedWorkspace;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkspaceServiceTest {
+
+    @Mock
+    private GitService gitService;
+
+    private WorkspaceService workspaceService;
+    private ChannelConfig config;
+
+    @TempDir
+    Path workspace;
+
+    @BeforeEach
+    void setUp() {
+        workspaceService = new WorkspaceService(gitService, new RepoMetadataService(gitService));
+
+        config = new ChannelConfig();
+        config.setChannelId("C123");
+        config.setRepo("git@github.com:user/test.git");
+        config.setClonePath(workspace.toString());
+
+        when(gitService.ensureRepoCloned(anyString(), anyString(), anyString(), any())).thenReturn(true);
+    }
+
+    @Test
+    void shouldClaimWarmWorkspaceWithoutPreparingAgain() throws Exception {
+        workspaceService.prepareStandbyAsync(config);
+
+        PreparedWorkspace claimed = workspaceService.acquire(config);
+
+        assertEquals(workspace.toString(), claimed.getClonePath());
+        assertEquals("main", claimed.getDefaultBranch());
+        verify(gitService, times(1)).ensureRepoCloned(anyString(), anyString(), anyString(), any());
+        verify(gitService).resetWorkspace(workspace.toString(), "main");
+    }
+
+    @Test
+    void shouldPrepareColdWhenStandbyIsStale() throws Exception {
+        workspaceService.setWarmMaxAgeMinutes(0);
+        workspaceService.prepareStandbyAsync(config);
+
+        workspaceService.acquire(config);
+
+        verify(gitService, times(2)).ensureRepoCloned(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void shouldStartTasksFromThePrTarget() throws Exception {
+        config.setPrTarget("develop");
+        when(gitService.resetWorkspace(workspace.toString(), "develop")).thenReturn(true);
+
+        assertEquals("develop", workspaceService.prepare(config).getDefaultBranch());
+        verify(gitService, never()).resetWorkspace(workspace.toString(), "main");
+    }
+
+    @Test
+    void shouldFallBackToTheDefaultBranchWithoutThePrTarget() throws Exception {
+        config.setPrTarget("release");
+
+        assertEquals("main", workspaceService.prepare(config).getDefaultBranch());
+        verify(gitService).resetWorkspace(workspace.toString(), "release");
+        verify(gitService).resetWorkspace(workspace.toString(), "main");
+    }
+}